@@ -6,6 +6,17 @@ module sn.ouleymatou.hotelmanagement {
     // Persistence
     requires jakarta.persistence;
     requires org.hibernate.orm.core;
+    requires java.sql;
+
+    // Métriques : JMX et journalisation
+    requires java.management;
+    requires java.naming;
+    requires org.apache.logging.log4j;
+    requires jdk.jfr;
+
+    // API de services : serveur HTTP du JDK, client HTTP des postes
+    requires jdk.httpserver;
+    requires java.net.http;
 
     // iText PDF (automatic modules)
     requires kernel;
@@ -22,4 +33,6 @@ module sn.ouleymatou.hotelmanagement {
     opens sn.ouleymatou.hotelmanagement.entities to javafx.base, org.hibernate.orm.core;
 
     exports sn.ouleymatou.hotelmanagement;
+    // Interfaces MBean des métriques, événements JFR, écouteur de session instancié par Hibernate
+    exports sn.ouleymatou.hotelmanagement.utils to java.management, jdk.jfr, org.hibernate.orm.core;
 }
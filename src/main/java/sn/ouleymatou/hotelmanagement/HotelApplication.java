@@ -5,7 +5,14 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import sn.ouleymatou.hotelmanagement.services.AuditNuitService;
+import sn.ouleymatou.hotelmanagement.services.ClassementService;
+import sn.ouleymatou.hotelmanagement.services.ClientService;
+import sn.ouleymatou.hotelmanagement.services.FabriqueServices;
+import sn.ouleymatou.hotelmanagement.services.HistoriqueReservationService;
 import sn.ouleymatou.hotelmanagement.services.UserService;
+import sn.ouleymatou.hotelmanagement.utils.Metriques;
+import sn.ouleymatou.hotelmanagement.utils.MigrationsBase;
 
 public class HotelApplication extends Application {
 
@@ -15,9 +22,30 @@ public class HotelApplication extends Application {
 
     @Override
     public void start(Stage stage) throws Exception {
-        // Création de l'utilisateur admin s'il n'existe pas
-        UserService userService = new UserService();
-        userService.createDefaultAdminIfNotExists();
+        // Instantané des métriques dans le journal toutes les minutes (aussi consultables par JMX)
+        Metriques.demarrerJournal(60);
+
+        // En mode client, ces tâches de démarrage sont faites par le serveur d'application (ServeurApi)
+        if (!FabriqueServices.isModeClient()) {
+            // Index partiels et autres ordres DDL hors de portée de hbm2ddl
+            MigrationsBase.appliquer();
+
+            // Création de l'utilisateur admin s'il n'existe pas
+            UserService userService = new UserService();
+            userService.createDefaultAdminIfNotExists();
+
+            // Migration : rattachement des anciennes réservations à un client dédoublonné
+            new ClientService().rattacherReservations();
+
+            // Migration : historique reconstitué des réservations antérieures au journal des événements
+            new HistoriqueReservationService().amorcer();
+
+            // Classements approchés maintenus au fil des réservations
+            ClassementService.activerModeApproche();
+
+            // Audit de nuit quotidien (et rattrapage des audits inachevés)
+            AuditNuitService.planifierSelonConfiguration();
+        }
 
         // Chargement de la vue de connexion
         Parent root = FXMLLoader.load(getClass().getResource("/fxml/login-view.fxml"));
@@ -0,0 +1,114 @@
+package sn.ouleymatou.hotelmanagement.api;
+
+import sn.ouleymatou.hotelmanagement.entities.Chambre;
+import sn.ouleymatou.hotelmanagement.entities.TypeChambre;
+import sn.ouleymatou.hotelmanagement.services.ChambreService;
+import sn.ouleymatou.hotelmanagement.utils.GrilleOccupation;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ChambreService} du mode client. {@code ajouter} et {@code supprimer} restent ceux de la classe mère :
+ * ils s'appuient sur {@link #genererNumero}, {@link #save} et {@link #supprimerChambre}, distants.
+ */
+public class ChambreServiceDistant extends ChambreService {
+
+    private static final String S = "ChambreService.";
+    private final ClientApi api;
+
+    public ChambreServiceDistant(ClientApi api) {
+        this.api = api;
+    }
+
+    private List<Chambre> chambres(Object json) {
+        return CodecApi.liste(json, CodecApi::chambre);
+    }
+
+    @Override
+    public List<Chambre> lister() {
+        return chambres(api.appeler(S + "lister"));
+    }
+
+    @Override
+    public Chambre save(Chambre chambre) {
+        return CodecApi.chambre(api.appeler(S + "save", CodecApi.versJson(chambre)));
+    }
+
+    @Override
+    public void supprimerChambre(Long chambreId) {
+        api.appeler(S + "supprimerChambre", chambreId);
+    }
+
+    @Override
+    public List<Chambre> getChambresDisponibles(LocalDateTime dateArrivee, LocalDateTime dateDepart) {
+        return chambres(api.appeler(S + "getChambresDisponibles", dateArrivee, dateDepart));
+    }
+
+    @Override
+    public Chambre findById(Long id) {
+        return CodecApi.chambre(api.appeler(S + "findById", id));
+    }
+
+    @Override
+    public String genererNumero(TypeChambre type, int etage) {
+        return CodecApi.texte(api.appeler(S + "genererNumero", CodecApi.versJson(type), etage));
+    }
+
+    @Override
+    public Chambre findByNumero(String numero) {
+        return CodecApi.chambre(api.appeler(S + "findByNumero", numero));
+    }
+
+    @Override
+    public long count() {
+        return CodecApi.entier(api.appeler(S + "count"));
+    }
+
+    @Override
+    public void modifierChambre(Chambre chambreModifiee) {
+        api.appeler(S + "modifierChambre", CodecApi.versJson(chambreModifiee));
+    }
+
+    @Override
+    public List<Chambre> filtrer(String type, String statut) {
+        return chambres(api.appeler(S + "filtrer", type, statut));
+    }
+
+    @Override
+    public double calculTauxOccupation(LocalDate debut, LocalDate fin) {
+        return CodecApi.reel(api.appeler(S + "calculTauxOccupation", debut, fin));
+    }
+
+    @Override
+    public Map<String, Double> getTauxOccupationParMois(LocalDate debut, LocalDate fin) {
+        return CodecApi.table(api.appeler(S + "getTauxOccupationParMois", debut, fin), CodecApi::reel);
+    }
+
+    @Override
+    public Chambre getChambreLaPlusReservee(LocalDate debut, LocalDate fin) {
+        return CodecApi.chambre(api.appeler(S + "getChambreLaPlusReservee", debut, fin));
+    }
+
+    @Override
+    public Chambre getChambreLaMoinsReservee(LocalDate debut, LocalDate fin) {
+        return CodecApi.chambre(api.appeler(S + "getChambreLaMoinsReservee", debut, fin));
+    }
+
+    @Override
+    public String getTypeChambreLePlusDemande(LocalDate debut, LocalDate fin) {
+        return CodecApi.texte(api.appeler(S + "getTypeChambreLePlusDemande", debut, fin));
+    }
+
+    @Override
+    public Map<String, Integer> getReservationsParTypeChambre(LocalDate debut, LocalDate fin) {
+        return CodecApi.table(api.appeler(S + "getReservationsParTypeChambre", debut, fin), v -> (int) CodecApi.entier(v));
+    }
+
+    @Override
+    public GrilleOccupation getGrilleOccupation(LocalDate debut, int nbJours) {
+        return CodecApi.grille(api.appeler(S + "getGrilleOccupation", debut, nbJours));
+    }
+}
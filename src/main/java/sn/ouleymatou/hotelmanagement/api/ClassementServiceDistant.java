@@ -0,0 +1,35 @@
+package sn.ouleymatou.hotelmanagement.api;
+
+import sn.ouleymatou.hotelmanagement.services.ClassementService;
+import sn.ouleymatou.hotelmanagement.services.ElementClassement;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * {@link ClassementService} du mode client : les classements, exacts ou approchés, sont calculés par le serveur.
+ */
+public class ClassementServiceDistant extends ClassementService {
+
+    private static final String S = "ClassementService.";
+    private final ClientApi api;
+
+    public ClassementServiceDistant(ClientApi api) {
+        this.api = api;
+    }
+
+    @Override
+    public List<ElementClassement> topK(Dimension dimension, LocalDate debut, LocalDate fin, int k) {
+        return CodecApi.liste(api.appeler(S + "topK", dimension, debut, fin, k), CodecApi::elementClassement);
+    }
+
+    @Override
+    public List<ElementClassement> bottomK(Dimension dimension, LocalDate debut, LocalDate fin, int k) {
+        return CodecApi.liste(api.appeler(S + "bottomK", dimension, debut, fin, k), CodecApi::elementClassement);
+    }
+
+    @Override
+    public List<ElementClassement> topKApproche(Dimension dimension, int k) {
+        return CodecApi.liste(api.appeler(S + "topKApproche", dimension, k), CodecApi::elementClassement);
+    }
+}
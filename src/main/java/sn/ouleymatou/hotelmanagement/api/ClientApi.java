@@ -0,0 +1,59 @@
+package sn.ouleymatou.hotelmanagement.api;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Appel d'une méthode de service sur le {@link ServeurApi}. Un seul client HTTP (connexions réutilisées)
+ * est partagé par tous les services distants du poste.
+ */
+public class ClientApi {
+
+    private final HttpClient http;
+    private final String url;
+    private final String jeton;
+    private final Duration delai;
+
+    public ClientApi(String url, String jeton, Duration delai) {
+        this.url = url.endsWith("/") ? url : url + "/";
+        this.jeton = jeton == null || jeton.isBlank() ? null : jeton;
+        this.delai = delai;
+        this.http = HttpClient.newBuilder().connectTimeout(delai).build();
+    }
+
+    /**
+     * Appelle {@code <Service>.<methode>} avec ses arguments (déjà convertis par {@link CodecApi}) et rend
+     * le résultat JSON brut. Un refus du serveur (400) devient une {@link IllegalArgumentException},
+     * toute autre erreur une {@link RuntimeException}, comme en mode local.
+     */
+    public Object appeler(String methode, Object... args) {
+        HttpRequest.Builder requete = HttpRequest.newBuilder(URI.create(url + "api/" + methode))
+                .timeout(delai)
+                .header("Content-Type", "application/json; charset=utf-8")
+                .POST(HttpRequest.BodyPublishers.ofString(Json.ecrire(Arrays.asList(args)), StandardCharsets.UTF_8));
+        if (jeton != null) requete.header(ServeurApi.EN_TETE_JETON, jeton);
+
+        HttpResponse<String> reponse;
+        try {
+            reponse = http.send(requete.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("Serveur d'application injoignable (" + url + ") : " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Appel interrompu : " + methode, e);
+        }
+
+        Map<String, Object> corps = CodecApi.objet(Json.lire(reponse.body()));
+        if (reponse.statusCode() == 200) return corps.get("resultat");
+        String erreur = CodecApi.texte(corps.get("erreur"));
+        if (reponse.statusCode() == 400) throw new IllegalArgumentException(erreur);
+        throw new RuntimeException(erreur != null ? erreur : "Erreur " + reponse.statusCode() + " sur " + methode);
+    }
+}
@@ -0,0 +1,290 @@
+package sn.ouleymatou.hotelmanagement.api;
+
+import org.hibernate.Hibernate;
+import sn.ouleymatou.hotelmanagement.entities.Chambre;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.entities.TypeChambre;
+import sn.ouleymatou.hotelmanagement.entities.User;
+import sn.ouleymatou.hotelmanagement.services.ElementClassement;
+import sn.ouleymatou.hotelmanagement.services.PeriodStats;
+import sn.ouleymatou.hotelmanagement.utils.GrilleOccupation;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Conversion entre les objets des services et leur forme JSON ({@link Json}), dans les deux sens.
+ * Seuls les champs simples voyagent : pas de collections paresseuses, pas de mot de passe en sortie,
+ * une chambre non chargée n'est transmise que par son id.
+ */
+public final class CodecApi {
+
+    private CodecApi() {}
+
+    // ==== Valeurs simples ====
+
+    public static String texte(Object v) {
+        return v == null ? null : v.toString();
+    }
+
+    public static long entier(Object v) {
+        return v == null ? 0 : ((Number) v).longValue();
+    }
+
+    public static Long id(Object v) {
+        return v == null ? null : ((Number) v).longValue();
+    }
+
+    public static double reel(Object v) {
+        return v == null ? 0 : ((Number) v).doubleValue();
+    }
+
+    public static boolean booleen(Object v) {
+        return v != null && (Boolean) v;
+    }
+
+    public static LocalDate date(Object v) {
+        return v == null ? null : LocalDate.parse(v.toString());
+    }
+
+    public static LocalDateTime dateHeure(Object v) {
+        return v == null ? null : LocalDateTime.parse(v.toString());
+    }
+
+    public static <E extends Enum<E>> E enumeration(Class<E> type, Object v) {
+        return v == null ? null : Enum.valueOf(type, v.toString());
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> objet(Object v) {
+        return (Map<String, Object>) v;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> liste(Object v, Function<Object, T> element) {
+        if (v == null) return null;
+        List<Object> brute = (List<Object>) v;
+        List<T> liste = new ArrayList<>(brute.size());
+        for (Object o : brute) liste.add(element.apply(o));
+        return liste;
+    }
+
+    public static <T> List<Object> versListe(List<T> liste, Function<T, Object> element) {
+        if (liste == null) return null;
+        List<Object> brute = new ArrayList<>(liste.size());
+        for (T t : liste) brute.add(element.apply(t));
+        return brute;
+    }
+
+    public static <V> Map<String, V> table(Object v, Function<Object, V> valeur) {
+        Map<String, V> table = new LinkedHashMap<>();
+        if (v != null) objet(v).forEach((cle, brute) -> table.put(cle, valeur.apply(brute)));
+        return table;
+    }
+
+    // ==== TypeChambre ====
+
+    public static Map<String, Object> versJson(TypeChambre t) {
+        if (t == null) return null;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", t.getId());
+        m.put("code", t.getCode());
+        m.put("libelle", t.getLibelle());
+        m.put("tarifNuit", t.getTarifNuit());
+        m.put("description", t.getDescription());
+        m.put("capacitePersonnes", t.getCapacitePersonnes());
+        return m;
+    }
+
+    public static TypeChambre typeChambre(Object v) {
+        if (v == null) return null;
+        Map<String, Object> m = objet(v);
+        TypeChambre t = new TypeChambre();
+        t.setId(id(m.get("id")));
+        t.setCode(texte(m.get("code")));
+        t.setLibelle(texte(m.get("libelle")));
+        t.setTarifNuit(reel(m.get("tarifNuit")));
+        t.setDescription(texte(m.get("description")));
+        t.setCapacitePersonnes((int) entier(m.get("capacitePersonnes")));
+        return t;
+    }
+
+    // ==== Chambre ====
+
+    public static Map<String, Object> versJson(Chambre c) {
+        if (c == null) return null;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", c.getId());
+        if (!Hibernate.isInitialized(c)) return m;
+        m.put("numero", c.getNumero());
+        m.put("typeChambre", versJson(c.getTypeChambre()));
+        m.put("statut", c.getStatut());
+        m.put("etage", c.getEtage());
+        m.put("climatisation", c.isClimatisation());
+        m.put("balcon", c.isBalcon());
+        m.put("vueOcean", c.isVueOcean());
+        m.put("dateDerniereRenovation", c.getDateDerniereRenovation());
+        return m;
+    }
+
+    public static Chambre chambre(Object v) {
+        if (v == null) return null;
+        Map<String, Object> m = objet(v);
+        Chambre c = new Chambre();
+        c.setId(id(m.get("id")));
+        c.setNumero(texte(m.get("numero")));
+        c.setTypeChambre(typeChambre(m.get("typeChambre")));
+        c.setStatut(enumeration(Chambre.StatutChambre.class, m.get("statut")));
+        c.setEtage((int) entier(m.get("etage")));
+        c.setClimatisation(booleen(m.get("climatisation")));
+        c.setBalcon(booleen(m.get("balcon")));
+        c.setVueOcean(booleen(m.get("vueOcean")));
+        c.setDateDerniereRenovation(date(m.get("dateDerniereRenovation")));
+        return c;
+    }
+
+    // ==== Reservation ====
+
+    public static Map<String, Object> versJson(Reservation r) {
+        if (r == null) return null;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", r.getId());
+        m.put("numero", r.getNumero());
+        m.put("dateReservation", r.getDateReservation());
+        m.put("nomClient", r.getNomClient());
+        m.put("prenomClient", r.getPrenomClient());
+        m.put("telephone", r.getTelephone());
+        m.put("email", r.getEmail());
+        m.put("dateArrivee", r.getDateArrivee());
+        m.put("dateDepart", r.getDateDepart());
+        m.put("nombrePersonnes", r.getNombrePersonnes());
+        m.put("nombreNuits", r.getNombreNuits());
+        m.put("montantTotal", r.getMontantTotal());
+        m.put("acompte", r.getAcompte());
+        m.put("statut", r.getStatut());
+        m.put("chambre", versJson(r.getChambre()));
+        return m;
+    }
+
+    public static Reservation reservation(Object v) {
+        if (v == null) return null;
+        Reservation r = new Reservation();
+        recopier(v, r);
+        return r;
+    }
+
+    /**
+     * Reporte sur {@code r} les champs reçus : l'appelant garde son objet, comme avec le service local
+     * qui complète la réservation qu'on lui passe.
+     */
+    public static void recopier(Object v, Reservation r) {
+        Map<String, Object> m = objet(v);
+        r.setId(id(m.get("id")));
+        r.setNumero(texte(m.get("numero")));
+        r.setDateReservation(dateHeure(m.get("dateReservation")));
+        r.setNomClient(texte(m.get("nomClient")));
+        r.setPrenomClient(texte(m.get("prenomClient")));
+        r.setTelephone(texte(m.get("telephone")));
+        r.setEmail(texte(m.get("email")));
+        r.setDateArrivee(dateHeure(m.get("dateArrivee")));
+        r.setDateDepart(dateHeure(m.get("dateDepart")));
+        r.setNombrePersonnes((int) entier(m.get("nombrePersonnes")));
+        r.setNombreNuits((int) entier(m.get("nombreNuits")));
+        r.setMontantTotal(reel(m.get("montantTotal")));
+        r.setAcompte(reel(m.get("acompte")));
+        r.setStatut(enumeration(Reservation.StatutReservation.class, m.get("statut")));
+        r.setChambre(chambre(m.get("chambre")));
+    }
+
+    // ==== User ====
+
+    // Le mot de passe ne sort jamais du serveur
+    public static Map<String, Object> versJson(User u) {
+        if (u == null) return null;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", u.getId());
+        m.put("email", u.getEmail());
+        return m;
+    }
+
+    public static User user(Object v) {
+        if (v == null) return null;
+        Map<String, Object> m = objet(v);
+        User u = new User(texte(m.get("email")), null);
+        u.setId(id(m.get("id")));
+        return u;
+    }
+
+    // ==== Agrégats ====
+
+    public static Map<String, Object> versJson(PeriodStats s) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("nombreReservations", s.nombreReservations());
+        m.put("chiffreAffaires", s.chiffreAffaires());
+        m.put("dureeMoyenneSejour", s.dureeMoyenneSejour());
+        m.put("nuitsVendues", s.nuitsVendues());
+        m.put("annulations", s.annulations());
+        return m;
+    }
+
+    public static PeriodStats periodStats(Object v) {
+        Map<String, Object> m = objet(v);
+        return new PeriodStats(entier(m.get("nombreReservations")), reel(m.get("chiffreAffaires")),
+                reel(m.get("dureeMoyenneSejour")), entier(m.get("nuitsVendues")), entier(m.get("annulations")));
+    }
+
+    public static Map<String, Object> versJson(ElementClassement e) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("libelle", e.libelle());
+        m.put("nombre", e.nombre());
+        m.put("erreurMax", e.erreurMax());
+        return m;
+    }
+
+    public static ElementClassement elementClassement(Object v) {
+        Map<String, Object> m = objet(v);
+        return new ElementClassement(texte(m.get("libelle")), entier(m.get("nombre")), entier(m.get("erreurMax")));
+    }
+
+    // Une ligne de la grille = une chaîne de chiffres (un par jour) : compact et lisible
+    public static Map<String, Object> versJson(GrilleOccupation g) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("debut", g.getDebut());
+        m.put("nbJours", g.getNbJours());
+        List<Object> chambres = new ArrayList<>(g.getNbChambres());
+        for (int ligne = 0; ligne < g.getNbChambres(); ligne++) {
+            StringBuilder etats = new StringBuilder(g.getNbJours());
+            for (int jour = 0; jour < g.getNbJours(); jour++) etats.append((char) ('0' + g.getEtat(ligne, jour)));
+            Map<String, Object> chambre = new LinkedHashMap<>();
+            chambre.put("id", g.getIdChambre(ligne));
+            chambre.put("numero", g.getNumeroChambre(ligne));
+            chambre.put("etats", etats.toString());
+            chambres.add(chambre);
+        }
+        m.put("chambres", chambres);
+        return m;
+    }
+
+    public static GrilleOccupation grille(Object v) {
+        Map<String, Object> m = objet(v);
+        int nbJours = (int) entier(m.get("nbJours"));
+        List<Map<String, Object>> chambres = liste(m.get("chambres"), CodecApi::objet);
+        List<Long> ids = new ArrayList<>(chambres.size());
+        List<String> numeros = new ArrayList<>(chambres.size());
+        for (Map<String, Object> c : chambres) {
+            ids.add(id(c.get("id")));
+            numeros.add(texte(c.get("numero")));
+        }
+        GrilleOccupation g = new GrilleOccupation(date(m.get("debut")), nbJours, ids, numeros);
+        for (int ligne = 0; ligne < chambres.size(); ligne++) {
+            String etats = texte(chambres.get(ligne).get("etats"));
+            for (int jour = 0; jour < nbJours; jour++) g.setEtat(ligne, jour, (byte) (etats.charAt(jour) - '0'));
+        }
+        return g;
+    }
+}
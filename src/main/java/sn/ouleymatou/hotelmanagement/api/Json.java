@@ -0,0 +1,219 @@
+package sn.ouleymatou.hotelmanagement.api;
+
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecture et écriture JSON minimales pour l'API de services (aucune dépendance externe).
+ *
+ * <p>Correspondance : objet ↔ {@code Map<String, Object>} (ordre conservé), tableau ↔ {@code List<Object>},
+ * chaîne, nombre ({@code Long} s'il est entier, {@code Double} sinon), booléen, null. En écriture, les énumérations
+ * donnent leur nom et les dates leur forme ISO-8601.
+ */
+public final class Json {
+
+    private Json() {}
+
+    // ==== Écriture ====
+
+    public static String ecrire(Object valeur) {
+        StringBuilder sb = new StringBuilder(256);
+        ecrire(valeur, sb);
+        return sb.toString();
+    }
+
+    private static void ecrire(Object valeur, StringBuilder sb) {
+        if (valeur == null) {
+            sb.append("null");
+        } else if (valeur instanceof String s) {
+            ecrireChaine(s, sb);
+        } else if (valeur instanceof Double d && (d.isNaN() || d.isInfinite())) {
+            sb.append("null");
+        } else if (valeur instanceof Number || valeur instanceof Boolean) {
+            sb.append(valeur);
+        } else if (valeur instanceof Map<?, ?> map) {
+            sb.append('{');
+            boolean premier = true;
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                if (!premier) sb.append(',');
+                premier = false;
+                ecrireChaine(String.valueOf(e.getKey()), sb);
+                sb.append(':');
+                ecrire(e.getValue(), sb);
+            }
+            sb.append('}');
+        } else if (valeur instanceof Collection<?> liste) {
+            sb.append('[');
+            boolean premier = true;
+            for (Object element : liste) {
+                if (!premier) sb.append(',');
+                premier = false;
+                ecrire(element, sb);
+            }
+            sb.append(']');
+        } else if (valeur instanceof Enum<?> e) {
+            ecrireChaine(e.name(), sb);
+        } else if (valeur instanceof TemporalAccessor) {
+            ecrireChaine(valeur.toString(), sb);
+        } else {
+            throw new IllegalArgumentException("Type non sérialisable en JSON : " + valeur.getClass().getName());
+        }
+    }
+
+    private static void ecrireChaine(String s, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    // ==== Lecture ====
+
+    public static Object lire(String texte) {
+        Lecteur lecteur = new Lecteur(texte);
+        Object valeur = lecteur.valeur();
+        lecteur.espaces();
+        if (lecteur.pos < texte.length()) throw lecteur.erreur("contenu après la fin du document");
+        return valeur;
+    }
+
+    private static final class Lecteur {
+        private final String texte;
+        private int pos;
+
+        Lecteur(String texte) {
+            this.texte = texte;
+        }
+
+        Object valeur() {
+            espaces();
+            if (pos >= texte.length()) throw erreur("fin inattendue");
+            char c = texte.charAt(pos);
+            return switch (c) {
+                case '{' -> objet();
+                case '[' -> tableau();
+                case '"' -> chaine();
+                case 't' -> mot("true", Boolean.TRUE);
+                case 'f' -> mot("false", Boolean.FALSE);
+                case 'n' -> mot("null", null);
+                default -> nombre();
+            };
+        }
+
+        private Map<String, Object> objet() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            pos++;
+            espaces();
+            if (suivant('}')) return map;
+            do {
+                espaces();
+                if (pos >= texte.length() || texte.charAt(pos) != '"') throw erreur("clé attendue");
+                String cle = chaine();
+                espaces();
+                if (!suivant(':')) throw erreur("':' attendu");
+                map.put(cle, valeur());
+                espaces();
+            } while (suivant(','));
+            if (!suivant('}')) throw erreur("'}' attendu");
+            return map;
+        }
+
+        private List<Object> tableau() {
+            List<Object> liste = new ArrayList<>();
+            pos++;
+            espaces();
+            if (suivant(']')) return liste;
+            do {
+                liste.add(valeur());
+                espaces();
+            } while (suivant(','));
+            if (!suivant(']')) throw erreur("']' attendu");
+            return liste;
+        }
+
+        private String chaine() {
+            pos++;
+            StringBuilder sb = new StringBuilder();
+            while (pos < texte.length()) {
+                char c = texte.charAt(pos++);
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= texte.length()) break;
+                char echappe = texte.charAt(pos++);
+                switch (echappe) {
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > texte.length()) throw erreur("séquence \\u incomplète");
+                        sb.append((char) Integer.parseInt(texte.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> sb.append(echappe);
+                }
+            }
+            throw erreur("chaîne non terminée");
+        }
+
+        private Object nombre() {
+            int debut = pos;
+            boolean decimal = false;
+            while (pos < texte.length()) {
+                char c = texte.charAt(pos);
+                if (c == '.' || c == 'e' || c == 'E') decimal = true;
+                else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) break;
+                pos++;
+            }
+            if (debut == pos) throw erreur("valeur attendue");
+            String nombre = texte.substring(debut, pos);
+            try {
+                return decimal ? (Object) Double.parseDouble(nombre) : (Object) Long.parseLong(nombre);
+            } catch (NumberFormatException e) {
+                throw erreur("nombre invalide " + nombre);
+            }
+        }
+
+        private Object mot(String mot, Object valeur) {
+            if (!texte.startsWith(mot, pos)) throw erreur("valeur attendue");
+            pos += mot.length();
+            return valeur;
+        }
+
+        private boolean suivant(char c) {
+            if (pos < texte.length() && texte.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void espaces() {
+            while (pos < texte.length() && Character.isWhitespace(texte.charAt(pos))) pos++;
+        }
+
+        IllegalArgumentException erreur(String message) {
+            return new IllegalArgumentException("JSON invalide (position " + pos + ") : " + message);
+        }
+    }
+}
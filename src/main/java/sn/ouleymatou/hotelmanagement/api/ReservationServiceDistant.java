@@ -0,0 +1,140 @@
+package sn.ouleymatou.hotelmanagement.api;
+
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.services.PeriodStats;
+import sn.ouleymatou.hotelmanagement.services.ReservationService;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ReservationService} du mode client : chaque méthode qui touche la base est exécutée par le serveur
+ * d'application. Les agrégats dérivés (CA, durée moyenne, nuits, annulations) passent par
+ * {@link #getStatsPeriode} et ne coûtent donc qu'un appel.
+ */
+public class ReservationServiceDistant extends ReservationService {
+
+    private static final String S = "ReservationService.";
+    private final ClientApi api;
+
+    public ReservationServiceDistant(ClientApi api) {
+        this.api = api;
+    }
+
+    private List<Reservation> reservations(Object json) {
+        return CodecApi.liste(json, CodecApi::reservation);
+    }
+
+    @Override
+    public String genererNumeroReservation() {
+        return CodecApi.texte(api.appeler(S + "genererNumeroReservation"));
+    }
+
+    @Override
+    public void enregistrerReservation(Reservation reservation) {
+        CodecApi.recopier(api.appeler(S + "enregistrerReservation", CodecApi.versJson(reservation)), reservation);
+    }
+
+    @Override
+    public List<Reservation> getAllReservations() {
+        return reservations(api.appeler(S + "getAllReservations"));
+    }
+
+    @Override
+    public List<Reservation> getArriveesDuJour() {
+        return reservations(api.appeler(S + "getArriveesDuJour"));
+    }
+
+    @Override
+    public List<Reservation> getDepartsDuJour() {
+        return reservations(api.appeler(S + "getDepartsDuJour"));
+    }
+
+    @Override
+    public List<Reservation> getReservationsParJour(Jalon jalon, LocalDate debut, LocalDate fin,
+                                                    Reservation.StatutReservation statut) {
+        return reservations(api.appeler(S + "getReservationsParJour", jalon, debut, fin, statut));
+    }
+
+    @Override
+    public List<Reservation> getReservationsTouchant(LocalDate debut, LocalDate fin,
+                                                     Reservation.StatutReservation... statuts) {
+        return reservations(api.appeler(S + "getReservationsTouchant", debut, fin, Arrays.asList(statuts)));
+    }
+
+    @Override
+    public double getChiffreAffairesDuJour() {
+        return CodecApi.reel(api.appeler(S + "getChiffreAffairesDuJour"));
+    }
+
+    @Override
+    public long getTotalReservations() {
+        return CodecApi.entier(api.appeler(S + "getTotalReservations"));
+    }
+
+    @Override
+    public double calculerTauxOccupation() {
+        return CodecApi.reel(api.appeler(S + "calculerTauxOccupation"));
+    }
+
+    @Override
+    public Reservation checkIn(Reservation reservation) {
+        return CodecApi.reservation(api.appeler(S + "checkIn", CodecApi.versJson(reservation)));
+    }
+
+    @Override
+    public Reservation checkOut(Reservation reservation) {
+        return CodecApi.reservation(api.appeler(S + "checkOut", CodecApi.versJson(reservation)));
+    }
+
+    @Override
+    public Reservation annuler(Reservation reservation) {
+        return CodecApi.reservation(api.appeler(S + "annuler", CodecApi.versJson(reservation)));
+    }
+
+    @Override
+    public Reservation marquerNoShow(Reservation reservation) {
+        return CodecApi.reservation(api.appeler(S + "marquerNoShow", CodecApi.versJson(reservation)));
+    }
+
+    @Override
+    public Reservation modifier(Reservation reservation, LocalDateTime dateArrivee, LocalDateTime dateDepart,
+                                Long chambreId) {
+        return CodecApi.reservation(api.appeler(S + "modifier", CodecApi.versJson(reservation),
+                dateArrivee, dateDepart, chambreId));
+    }
+
+    @Override
+    public List<Reservation> checkInGroupe(Collection<Long> ids) {
+        return reservations(api.appeler(S + "checkInGroupe", List.copyOf(ids)));
+    }
+
+    @Override
+    public List<Reservation> checkOutGroupe(Collection<Long> ids) {
+        return reservations(api.appeler(S + "checkOutGroupe", List.copyOf(ids)));
+    }
+
+    @Override
+    public List<Reservation> annulerGroupe(Collection<Long> ids) {
+        return reservations(api.appeler(S + "annulerGroupe", List.copyOf(ids)));
+    }
+
+    @Override
+    public PeriodStats getStatsPeriode(LocalDate debut, LocalDate fin) {
+        return CodecApi.periodStats(api.appeler(S + "getStatsPeriode", debut, fin));
+    }
+
+    @Override
+    public String getClientLePlusFidele(LocalDate debut, LocalDate fin) {
+        return CodecApi.texte(api.appeler(S + "getClientLePlusFidele", debut, fin));
+    }
+
+    @Override
+    public Map<String, Integer> getNombreReservationsParMois(LocalDate debut, LocalDate fin) {
+        return CodecApi.table(api.appeler(S + "getNombreReservationsParMois", debut, fin), v -> (int) CodecApi.entier(v));
+    }
+}
@@ -0,0 +1,305 @@
+package sn.ouleymatou.hotelmanagement.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import sn.ouleymatou.hotelmanagement.services.AuditNuitService;
+import sn.ouleymatou.hotelmanagement.services.ChambreService;
+import sn.ouleymatou.hotelmanagement.services.ClassementService;
+import sn.ouleymatou.hotelmanagement.services.ClientService;
+import sn.ouleymatou.hotelmanagement.services.HistoriqueReservationService;
+import sn.ouleymatou.hotelmanagement.services.ReservationService;
+import sn.ouleymatou.hotelmanagement.services.SnapshotService;
+import sn.ouleymatou.hotelmanagement.services.TypeChambreService;
+import sn.ouleymatou.hotelmanagement.services.UserService;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.utils.ConfigurationPersistance;
+import sn.ouleymatou.hotelmanagement.utils.ExecuteurServices;
+import sn.ouleymatou.hotelmanagement.utils.JPAUtils;
+import sn.ouleymatou.hotelmanagement.utils.Metriques;
+import sn.ouleymatou.hotelmanagement.utils.MigrationsBase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tiers applicatif partagé : expose les services (réservations, chambres, types, classements, statistiques,
+ * authentification) en HTTP/JSON,
+ * pour que tous les postes de réception passent par une seule fabrique Hibernate, un seul pool de connexions,
+ * un seul jeu de caches et les mêmes verrous.
+ *
+ * <p>Protocole : {@code POST /api/<Service>.<methode>} avec pour corps le tableau JSON des arguments ;
+ * réponse {@code {"resultat": ...}}, ou {@code {"erreur": "..."}} avec le statut 400 (saisie refusée) ou 500.
+ * {@code GET /api} liste les méthodes. Chaque requête est traitée sur son propre thread virtuel.
+ *
+ * <p>Lancement sans interface : {@code java ... sn.ouleymatou.hotelmanagement.api.ServeurApi}. Réglages :
+ * {@code hotel.api.adresse} (127.0.0.1 par défaut), {@code hotel.api.port} (8085) et {@code hotel.api.jeton},
+ * secret partagé attendu dans l'en-tête {@code X-Hotel-Jeton} : le serveur refuse de démarrer sans jeton sur une
+ * adresse autre que la boucle locale. La création de comptes n'est pas exposée.
+ */
+public class ServeurApi {
+
+    private static final Logger LOG = LogManager.getLogger(ServeurApi.class);
+    public static final String EN_TETE_JETON = "X-Hotel-Jeton";
+    private static final String PREFIXE = "/api/";
+
+    @FunctionalInterface
+    interface Route {
+        Object traiter(List<Object> args);
+    }
+
+    private final Map<String, Route> routes = new TreeMap<>();
+    private final byte[] jeton;
+    private HttpServer serveur;
+    private ExecutorService executeur;
+
+    public ServeurApi(String jeton) {
+        this.jeton = jeton == null || jeton.isBlank() ? null : jeton.getBytes(StandardCharsets.UTF_8);
+        enregistrerRoutes(new ReservationService(), new ChambreService(), new TypeChambreService(), new UserService(),
+                new ClassementService(), new SnapshotService());
+    }
+
+    public static void main(String[] args) throws IOException {
+        ConfigurationPersistance config = JPAUtils.getConfiguration();
+        Metriques.demarrerJournal(60);
+
+        // Tâches de démarrage que font les postes en mode local
+        MigrationsBase.appliquer();
+        new UserService().createDefaultAdminIfNotExists();
+        new ClientService().rattacherReservations();
+        new HistoriqueReservationService().amorcer();
+        ClassementService.activerModeApproche();
+        AuditNuitService.planifierSelonConfiguration();
+
+        ServeurApi api = new ServeurApi(config.get("hotel.api.jeton"));
+        api.demarrer(config.get("hotel.api.adresse") != null ? config.get("hotel.api.adresse") : "127.0.0.1",
+                (int) config.getLong("hotel.api.port", 8085));
+        Runtime.getRuntime().addShutdownHook(new Thread(api::arreter, "arret-api"));
+    }
+
+    public synchronized void demarrer(String adresse, int port) throws IOException {
+        if (jeton == null && !InetAddress.getByName(adresse).isLoopbackAddress()) {
+            throw new IllegalStateException("hotel.api.jeton est obligatoire pour écouter sur " + adresse
+                    + " : sans jeton, seule la boucle locale est autorisée.");
+        }
+        serveur = HttpServer.create(new InetSocketAddress(adresse, port), 0);
+        executeur = Executors.newVirtualThreadPerTaskExecutor();
+        serveur.setExecutor(executeur);
+        serveur.createContext("/api", this::traiter);
+        serveur.start();
+        LOG.info("API de services à l'écoute sur {}:{} ({} méthodes{})", adresse, port, routes.size(),
+                jeton == null ? ", sans jeton" : "");
+    }
+
+    public synchronized void arreter() {
+        if (serveur == null) return;
+        serveur.stop(2);
+        executeur.close();
+        serveur = null;
+    }
+
+    // Port effectif (utile quand le serveur est démarré sur le port 0)
+    public synchronized int getPort() {
+        return serveur.getAddress().getPort();
+    }
+
+    private void traiter(HttpExchange echange) throws IOException {
+        try {
+            if (jeton != null && !jetonValide(echange.getRequestHeaders().getFirst(EN_TETE_JETON))) {
+                repondre(echange, 401, Map.of("erreur", "Jeton d'accès absent ou invalide."));
+                return;
+            }
+            String chemin = echange.getRequestURI().getPath();
+            if ("GET".equals(echange.getRequestMethod()) && (chemin.equals("/api") || chemin.equals(PREFIXE))) {
+                repondre(echange, 200, Map.of("resultat", List.copyOf(routes.keySet())));
+                return;
+            }
+            if (!"POST".equals(echange.getRequestMethod()) || !chemin.startsWith(PREFIXE)) {
+                repondre(echange, 405, Map.of("erreur", "POST /api/<Service>.<methode> attendu."));
+                return;
+            }
+            String methode = chemin.substring(PREFIXE.length());
+            Route route = routes.get(methode);
+            if (route == null) {
+                repondre(echange, 404, Map.of("erreur", "Méthode inconnue : " + methode));
+                return;
+            }
+            Metriques.compteur("Api.requetes").increment();
+            List<Object> args;
+            try (InputStream in = echange.getRequestBody()) {
+                String corps = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                args = corps.isBlank() ? List.of() : CodecApi.liste(Json.lire(corps), o -> o);
+            }
+            Map<String, Object> reponse = new HashMap<>(2);
+            // Déjà sur un thread virtuel : on ne prend que le permis du limiteur de connexions
+            reponse.put("resultat", ExecuteurServices.borner(() -> route.traiter(args)));
+            repondre(echange, 200, reponse);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            Metriques.compteur("Api.refus").increment();
+            repondreErreur(echange, 400, e);
+        } catch (Exception e) {
+            Metriques.compteur("Api.erreurs").increment();
+            LOG.error("Erreur API sur {}", echange.getRequestURI(), e);
+            repondreErreur(echange, 500, e);
+        } finally {
+            echange.close();
+        }
+    }
+
+    // Comparaison en temps constant : la durée ne dépend pas du premier octet différent
+    private boolean jetonValide(String recu) {
+        return recu != null && MessageDigest.isEqual(jeton, recu.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void repondreErreur(HttpExchange echange, int statut, Exception e) throws IOException {
+        // Les services enveloppent leurs refus dans une RuntimeException : la cause décide du statut
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IllegalArgumentException || cause instanceof IllegalStateException) statut = 400;
+        }
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        repondre(echange, statut, Map.of("erreur", message));
+    }
+
+    private static void repondre(HttpExchange echange, int statut, Map<String, Object> corps) throws IOException {
+        byte[] octets = Json.ecrire(corps).getBytes(StandardCharsets.UTF_8);
+        echange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        echange.sendResponseHeaders(statut, octets.length);
+        try (OutputStream out = echange.getResponseBody()) {
+            out.write(octets);
+        }
+    }
+
+    private void route(String nom, Route route) {
+        routes.put(nom, route);
+    }
+
+    private void enregistrerRoutes(ReservationService reservations, ChambreService chambres,
+                                   TypeChambreService types, UserService utilisateurs,
+                                   ClassementService classements, SnapshotService snapshots) {
+        // ==== Réservations ====
+        route("ReservationService.genererNumeroReservation", a -> reservations.genererNumeroReservation());
+        route("ReservationService.enregistrerReservation", a -> {
+            Reservation r = CodecApi.reservation(a.get(0));
+            reservations.enregistrerReservation(r);
+            return CodecApi.versJson(r);
+        });
+        route("ReservationService.getAllReservations", a ->
+                CodecApi.versListe(reservations.getAllReservations(), CodecApi::versJson));
+        route("ReservationService.getArriveesDuJour", a ->
+                CodecApi.versListe(reservations.getArriveesDuJour(), CodecApi::versJson));
+        route("ReservationService.getDepartsDuJour", a ->
+                CodecApi.versListe(reservations.getDepartsDuJour(), CodecApi::versJson));
+        route("ReservationService.getReservationsParJour", a -> CodecApi.versListe(reservations.getReservationsParJour(
+                CodecApi.enumeration(ReservationService.Jalon.class, a.get(0)), CodecApi.date(a.get(1)),
+                CodecApi.date(a.get(2)), CodecApi.enumeration(Reservation.StatutReservation.class, a.get(3))),
+                CodecApi::versJson));
+        route("ReservationService.getReservationsTouchant", a -> CodecApi.versListe(reservations.getReservationsTouchant(
+                CodecApi.date(a.get(0)), CodecApi.date(a.get(1)),
+                CodecApi.liste(a.get(2), s -> CodecApi.enumeration(Reservation.StatutReservation.class, s))
+                        .toArray(new Reservation.StatutReservation[0])),
+                CodecApi::versJson));
+        route("ReservationService.getChiffreAffairesDuJour", a -> reservations.getChiffreAffairesDuJour());
+        route("ReservationService.getTotalReservations", a -> reservations.getTotalReservations());
+        route("ReservationService.calculerTauxOccupation", a -> reservations.calculerTauxOccupation());
+        route("ReservationService.checkIn", a ->
+                CodecApi.versJson(reservations.checkIn(CodecApi.reservation(a.get(0)))));
+        route("ReservationService.checkOut", a ->
+                CodecApi.versJson(reservations.checkOut(CodecApi.reservation(a.get(0)))));
+        route("ReservationService.annuler", a ->
+                CodecApi.versJson(reservations.annuler(CodecApi.reservation(a.get(0)))));
+        route("ReservationService.marquerNoShow", a ->
+                CodecApi.versJson(reservations.marquerNoShow(CodecApi.reservation(a.get(0)))));
+        route("ReservationService.modifier", a -> CodecApi.versJson(reservations.modifier(
+                CodecApi.reservation(a.get(0)), CodecApi.dateHeure(a.get(1)), CodecApi.dateHeure(a.get(2)),
+                CodecApi.id(a.get(3)))));
+        route("ReservationService.checkInGroupe", a -> CodecApi.versListe(
+                reservations.checkInGroupe(CodecApi.liste(a.get(0), CodecApi::id)), CodecApi::versJson));
+        route("ReservationService.checkOutGroupe", a -> CodecApi.versListe(
+                reservations.checkOutGroupe(CodecApi.liste(a.get(0), CodecApi::id)), CodecApi::versJson));
+        route("ReservationService.annulerGroupe", a -> CodecApi.versListe(
+                reservations.annulerGroupe(CodecApi.liste(a.get(0), CodecApi::id)), CodecApi::versJson));
+        route("ReservationService.getStatsPeriode", a -> CodecApi.versJson(
+                reservations.getStatsPeriode(CodecApi.date(a.get(0)), CodecApi.date(a.get(1)))));
+        route("ReservationService.getClientLePlusFidele", a ->
+                reservations.getClientLePlusFidele(CodecApi.date(a.get(0)), CodecApi.date(a.get(1))));
+        route("ReservationService.getNombreReservationsParMois", a ->
+                reservations.getNombreReservationsParMois(CodecApi.date(a.get(0)), CodecApi.date(a.get(1))));
+
+        // ==== Chambres ====
+        route("ChambreService.lister", a -> CodecApi.versListe(chambres.lister(), CodecApi::versJson));
+        route("ChambreService.save", a -> CodecApi.versJson(chambres.save(CodecApi.chambre(a.get(0)))));
+        route("ChambreService.supprimerChambre", a -> {
+            chambres.supprimerChambre(CodecApi.id(a.get(0)));
+            return null;
+        });
+        route("ChambreService.getChambresDisponibles", a -> CodecApi.versListe(chambres.getChambresDisponibles(
+                CodecApi.dateHeure(a.get(0)), CodecApi.dateHeure(a.get(1))), CodecApi::versJson));
+        route("ChambreService.findById", a -> CodecApi.versJson(chambres.findById(CodecApi.id(a.get(0)))));
+        route("ChambreService.genererNumero", a ->
+                chambres.genererNumero(CodecApi.typeChambre(a.get(0)), (int) CodecApi.entier(a.get(1))));
+        route("ChambreService.findByNumero", a -> CodecApi.versJson(chambres.findByNumero(CodecApi.texte(a.get(0)))));
+        route("ChambreService.count", a -> chambres.count());
+        route("ChambreService.modifierChambre", a -> {
+            chambres.modifierChambre(CodecApi.chambre(a.get(0)));
+            return null;
+        });
+        route("ChambreService.filtrer", a -> CodecApi.versListe(
+                chambres.filtrer(CodecApi.texte(a.get(0)), CodecApi.texte(a.get(1))), CodecApi::versJson));
+        route("ChambreService.calculTauxOccupation", a ->
+                chambres.calculTauxOccupation(CodecApi.date(a.get(0)), CodecApi.date(a.get(1))));
+        route("ChambreService.getTauxOccupationParMois", a ->
+                chambres.getTauxOccupationParMois(CodecApi.date(a.get(0)), CodecApi.date(a.get(1))));
+        route("ChambreService.getChambreLaPlusReservee", a -> CodecApi.versJson(
+                chambres.getChambreLaPlusReservee(CodecApi.date(a.get(0)), CodecApi.date(a.get(1)))));
+        route("ChambreService.getChambreLaMoinsReservee", a -> CodecApi.versJson(
+                chambres.getChambreLaMoinsReservee(CodecApi.date(a.get(0)), CodecApi.date(a.get(1)))));
+        route("ChambreService.getTypeChambreLePlusDemande", a ->
+                chambres.getTypeChambreLePlusDemande(CodecApi.date(a.get(0)), CodecApi.date(a.get(1))));
+        route("ChambreService.getReservationsParTypeChambre", a ->
+                chambres.getReservationsParTypeChambre(CodecApi.date(a.get(0)), CodecApi.date(a.get(1))));
+        route("ChambreService.getGrilleOccupation", a -> CodecApi.versJson(
+                chambres.getGrilleOccupation(CodecApi.date(a.get(0)), (int) CodecApi.entier(a.get(1)))));
+
+        // ==== Types de chambres ====
+        route("TypeChambreService.getAll", a -> CodecApi.versListe(types.getAll(), CodecApi::versJson));
+        route("TypeChambreService.save", a -> {
+            types.save(CodecApi.typeChambre(a.get(0)));
+            return null;
+        });
+        route("TypeChambreService.delete", a -> {
+            types.delete(CodecApi.id(a.get(0)));
+            return null;
+        });
+        route("TypeChambreService.findById", a -> CodecApi.versJson(types.findById(CodecApi.id(a.get(0)))));
+
+        // ==== Utilisateurs ====
+        route("UserService.findByEmail", a -> CodecApi.versJson(utilisateurs.findByEmail(CodecApi.texte(a.get(0)))));
+        route("UserService.authenticate", a -> CodecApi.versJson(
+                utilisateurs.authenticate(CodecApi.texte(a.get(0)), CodecApi.texte(a.get(1)))));
+
+        // ==== Statistiques ====
+        route("ClassementService.topK", a -> CodecApi.versListe(classements.topK(
+                CodecApi.enumeration(ClassementService.Dimension.class, a.get(0)), CodecApi.date(a.get(1)),
+                CodecApi.date(a.get(2)), (int) CodecApi.entier(a.get(3))), CodecApi::versJson));
+        route("ClassementService.bottomK", a -> CodecApi.versListe(classements.bottomK(
+                CodecApi.enumeration(ClassementService.Dimension.class, a.get(0)), CodecApi.date(a.get(1)),
+                CodecApi.date(a.get(2)), (int) CodecApi.entier(a.get(3))), CodecApi::versJson));
+        route("ClassementService.topKApproche", a -> CodecApi.versListe(classements.topKApproche(
+                CodecApi.enumeration(ClassementService.Dimension.class, a.get(0)), (int) CodecApi.entier(a.get(1))),
+                CodecApi::versJson));
+        route("SnapshotService.getStatsPeriode", a -> CodecApi.versJson(
+                snapshots.getStatsPeriode(CodecApi.date(a.get(0)), CodecApi.date(a.get(1)))));
+    }
+}
@@ -0,0 +1,29 @@
+package sn.ouleymatou.hotelmanagement.api;
+
+import sn.ouleymatou.hotelmanagement.services.PeriodStats;
+import sn.ouleymatou.hotelmanagement.services.SnapshotService;
+
+import java.time.LocalDate;
+
+/**
+ * {@link SnapshotService} du mode client : les statistiques d'une période sont lues dans les instantanés
+ * du serveur. L'archivage des années closes reste une opération du serveur (ou d'un poste local).
+ */
+public class SnapshotServiceDistant extends SnapshotService {
+
+    private final ClientApi api;
+
+    public SnapshotServiceDistant(ClientApi api) {
+        this.api = api;
+    }
+
+    @Override
+    public PeriodStats getStatsPeriode(LocalDate debut, LocalDate fin) {
+        return CodecApi.periodStats(api.appeler("SnapshotService.getStatsPeriode", debut, fin));
+    }
+
+    @Override
+    public int exporterAnneesCloses() {
+        throw new UnsupportedOperationException("L'archivage des années closes se fait sur le serveur d'application.");
+    }
+}
@@ -0,0 +1,39 @@
+package sn.ouleymatou.hotelmanagement.api;
+
+import sn.ouleymatou.hotelmanagement.entities.TypeChambre;
+import sn.ouleymatou.hotelmanagement.services.TypeChambreService;
+
+import java.util.List;
+
+/**
+ * {@link TypeChambreService} du mode client.
+ */
+public class TypeChambreServiceDistant extends TypeChambreService {
+
+    private static final String S = "TypeChambreService.";
+    private final ClientApi api;
+
+    public TypeChambreServiceDistant(ClientApi api) {
+        this.api = api;
+    }
+
+    @Override
+    public List<TypeChambre> getAll() {
+        return CodecApi.liste(api.appeler(S + "getAll"), CodecApi::typeChambre);
+    }
+
+    @Override
+    public void save(TypeChambre type) {
+        api.appeler(S + "save", CodecApi.versJson(type));
+    }
+
+    @Override
+    public void delete(Long id) {
+        api.appeler(S + "delete", id);
+    }
+
+    @Override
+    public TypeChambre findById(Long id) {
+        return CodecApi.typeChambre(api.appeler(S + "findById", id));
+    }
+}
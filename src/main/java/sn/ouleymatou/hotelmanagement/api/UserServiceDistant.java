@@ -0,0 +1,39 @@
+package sn.ouleymatou.hotelmanagement.api;
+
+import sn.ouleymatou.hotelmanagement.entities.User;
+import sn.ouleymatou.hotelmanagement.services.UserService;
+
+/**
+ * {@link UserService} du mode client : l'authentification est faite par le serveur,
+ * le mot de passe enregistré ne revient jamais au poste. La création de comptes n'est pas exposée :
+ * l'administrateur par défaut est créé par le serveur à son démarrage.
+ */
+public class UserServiceDistant extends UserService {
+
+    private static final String S = "UserService.";
+    private final ClientApi api;
+
+    public UserServiceDistant(ClientApi api) {
+        this.api = api;
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return CodecApi.user(api.appeler(S + "findByEmail", email));
+    }
+
+    @Override
+    public User authenticate(String email, String password) {
+        return CodecApi.user(api.appeler(S + "authenticate", email, password));
+    }
+
+    @Override
+    public User save(User user) {
+        throw new UnsupportedOperationException("La création de comptes se fait sur le serveur d'application.");
+    }
+
+    @Override
+    public void createDefaultAdminIfNotExists() {
+        // Fait par ServeurApi au démarrage
+    }
+}
@@ -6,6 +6,7 @@ import javafx.scene.control.*;
 import sn.ouleymatou.hotelmanagement.entities.Chambre;
 import sn.ouleymatou.hotelmanagement.entities.TypeChambre;
 import sn.ouleymatou.hotelmanagement.services.ChambreService;
+import sn.ouleymatou.hotelmanagement.services.FabriqueServices;
 import sn.ouleymatou.hotelmanagement.services.TypeChambreService;
 import sn.ouleymatou.hotelmanagement.utils.Utils;
 
@@ -18,8 +19,8 @@ public class AddChambreDialogController {
     @FXML private CheckBox vueOceanCheckBox;
     @FXML private DatePicker dateDerniereRenovation;
 
-    private final TypeChambreService typeChambreService = new TypeChambreService();
-    private final ChambreService chambreService = new ChambreService();
+    private final TypeChambreService typeChambreService = FabriqueServices.typesChambre();
+    private final ChambreService chambreService = FabriqueServices.chambres();
 
     private Chambre chambreCreeOuModifiee; // chambre créée ou modifiée
     private Chambre chambreModifiee;       // null si ajout, non-null si modification
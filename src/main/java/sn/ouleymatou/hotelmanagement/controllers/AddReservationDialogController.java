@@ -2,18 +2,28 @@ package sn.ouleymatou.hotelmanagement.controllers;
 
 import javafx.beans.property.SimpleStringProperty;
 import javafx.fxml.FXML;
+import javafx.geometry.Side;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import sn.ouleymatou.hotelmanagement.entities.Chambre;
+import sn.ouleymatou.hotelmanagement.entities.Client;
 import sn.ouleymatou.hotelmanagement.entities.Reservation;
 import sn.ouleymatou.hotelmanagement.services.ChambreService;
+import sn.ouleymatou.hotelmanagement.services.ClientService;
+import sn.ouleymatou.hotelmanagement.services.ErreurValidation;
+import sn.ouleymatou.hotelmanagement.services.FabriqueServices;
 import sn.ouleymatou.hotelmanagement.services.ReservationService;
+import sn.ouleymatou.hotelmanagement.services.ReservationServiceHorsLigne;
+import sn.ouleymatou.hotelmanagement.services.ValidationReservation;
+import sn.ouleymatou.hotelmanagement.utils.ExecuteurServices;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class AddReservationDialogController {
 
@@ -42,11 +52,16 @@ public class AddReservationDialogController {
     private double montantTotal = 0.0;
     private long nbNuits = 0;
 
-    private final ReservationService reservationService = new ReservationService();
-    private final ChambreService chambreService = new ChambreService();
+    private final ReservationService reservationService = FabriqueServices.reservations();
+    private final ChambreService chambreService = FabriqueServices.chambres();
 
     private int currentStep = 1;
 
+    private static final String STYLE_INVALIDE = "-fx-border-color: #e74c3c; -fx-border-width: 1.5;";
+
+    private final ContextMenu suggestionsClients = new ContextMenu();
+    private boolean remplissageClient = false;
+
     @FXML
     public void initialize() {
         // Spinner nombre personnes 1-10
@@ -72,6 +87,20 @@ public class AddReservationDialogController {
         // Écouteur chambre sélectionnée pour calcul montant
         chambreComboBox.valueProperty().addListener((obs, oldVal, newVal) -> calculer());
 
+        // Autocomplétion des clients déjà connus (cache chargé en arrière-plan) ; le cache est lu en base,
+        // le poste client s'en passe
+        if (!FabriqueServices.isModeClient()) {
+            ExecuteurServices.executer(ClientService::chargerCache);
+            installerAutocompletion(nomField);
+            installerAutocompletion(telephoneField);
+        }
+
+        // Validation à chaque frappe, avec les mêmes règles que l'enregistrement
+        installerValidation(nomField, ValidationReservation.NOM);
+        installerValidation(prenomField, ValidationReservation.PRENOM);
+        installerValidation(telephoneField, ValidationReservation.TELEPHONE);
+        installerValidation(emailField, ValidationReservation.EMAIL);
+
         // Afficher étape 1 au démarrage
         showEtape(1);
 
@@ -82,6 +111,63 @@ public class AddReservationDialogController {
         btnConfirmer.setVisible(false);
     }
 
+    // Propose les clients dont le nom ou le téléphone commence par la saisie
+    private void installerAutocompletion(TextField champ) {
+        champ.textProperty().addListener((obs, oldVal, saisie) -> {
+            if (remplissageClient) return;
+            List<Client> clients = saisie == null || saisie.trim().length() < 2
+                    ? List.of()
+                    : ClientService.rechercher(saisie, 8);
+            if (clients.isEmpty()) {
+                suggestionsClients.hide();
+                return;
+            }
+            List<MenuItem> items = new ArrayList<>(clients.size());
+            for (Client client : clients) {
+                MenuItem item = new MenuItem(client.toString());
+                item.setOnAction(e -> remplirClient(client));
+                items.add(item);
+            }
+            suggestionsClients.getItems().setAll(items);
+            if (!suggestionsClients.isShowing() && champ.getScene() != null) {
+                suggestionsClients.show(champ, Side.BOTTOM, 0, 0);
+            }
+        });
+    }
+
+    // Bordure rouge et info-bulle tant que le champ ne respecte pas la règle (rien n'est signalé sur un champ vide)
+    private void installerValidation(TextField champ, ValidationReservation.RegleTexte regle) {
+        Tooltip aide = new Tooltip(regle.getErreur().message());
+        champ.textProperty().addListener((obs, oldVal, saisie) -> {
+            boolean invalide = saisie != null && !saisie.isBlank() && !regle.estValide(saisie.trim());
+            champ.setStyle(invalide ? STYLE_INVALIDE : "");
+            champ.setTooltip(invalide ? aide : null);
+        });
+    }
+
+    private void remplirClient(Client client) {
+        remplissageClient = true;
+        try {
+            nomField.setText(client.getNom());
+            prenomField.setText(client.getPrenom());
+            telephoneField.setText(client.getTelephone() != null ? client.getTelephone() : "");
+            emailField.setText(client.getEmail() != null ? client.getEmail() : "");
+        } finally {
+            remplissageClient = false;
+        }
+        suggestionsClients.hide();
+    }
+
+    // Base injoignable : chambres libres d'après le référentiel du journal hors ligne
+    private List<Chambre> chambresDisponibles(LocalDateTime arrivee, LocalDateTime depart) {
+        try {
+            return chambreService.getChambresDisponibles(arrivee, depart);
+        } catch (RuntimeException e) {
+            if (!(reservationService instanceof ReservationServiceHorsLigne) || !ReservationServiceHorsLigne.estIndisponibilite(e)) throw e;
+            return ReservationServiceHorsLigne.chambresDisponiblesHorsLigne(arrivee, depart);
+        }
+    }
+
     private void updateChambresDisponibles() {
         try {
             LocalDate arriveeDate = dateArriveePicker.getValue();
@@ -92,7 +178,7 @@ public class AddReservationDialogController {
                 LocalDateTime arrivee = arriveeDate.atTime(heureArriveeSpinner.getValue(), minuteArriveeSpinner.getValue());
                 LocalDateTime depart = departDate.atTime(heureDepartSpinner.getValue(), minuteDepartSpinner.getValue());
 
-                List<Chambre> disponibles = chambreService.getChambresDisponibles(arrivee, depart);
+                List<Chambre> disponibles = chambresDisponibles(arrivee, depart);
                 List<Chambre> filtrees = disponibles.stream()
                         .filter(c -> c.getCapacite() >= nbPersonnes)
                         .toList();
@@ -175,41 +261,21 @@ public class AddReservationDialogController {
     }
 
     private boolean validerEtape1() {
-        if (nomField.getText().trim().length() < 2) {
-            showAlert("Nom invalide", "Le nom doit contenir au moins 2 caractères.", Alert.AlertType.ERROR);
-            return false;
-        }
-        if (prenomField.getText().trim().length() < 2) {
-            showAlert("Prénom invalide", "Le prénom doit contenir au moins 2 caractères.", Alert.AlertType.ERROR);
-            return false;
-        }
-        if (!telephoneField.getText().trim().matches("^(77|78|75|76|70)\\d{7}$")) {
-            showAlert("Téléphone invalide", "Le téléphone doit commencer par 77,78,75,76 ou 70 et contenir 9 chiffres.", Alert.AlertType.ERROR);
-            return false;
-        }
-        if (!emailField.getText().trim().isEmpty() && !emailField.getText().trim().matches("^.+@.+\\..+$")) {
-            showAlert("Email invalide", "Veuillez entrer un email valide.", Alert.AlertType.ERROR);
-            return false;
-        }
-        return true;
+        List<ErreurValidation> erreurs = new ArrayList<>(4);
+        ValidationReservation.validerClient(nomField.getText().trim(), prenomField.getText().trim(),
+                telephoneField.getText().trim(), emailField.getText().trim(), erreurs);
+        return signalerErreurs("Informations client invalides", erreurs);
     }
 
     private boolean validerEtape2() {
         LocalDate arriveeDate = dateArriveePicker.getValue();
         LocalDate departDate = dateDepartPicker.getValue();
-        if (arriveeDate == null || departDate == null) {
-            showAlert("Date invalide", "Veuillez sélectionner les dates d'arrivée et de départ.", Alert.AlertType.ERROR);
-            return false;
-        }
-        if (arriveeDate.isBefore(LocalDate.now())) {
-            showAlert("Date invalide", "La date d'arrivée doit être dans le futur.", Alert.AlertType.ERROR);
-            return false;
-        }
-        if (!departDate.isAfter(arriveeDate)) {
-            showAlert("Date invalide", "La date de départ doit être après la date d'arrivée.", Alert.AlertType.ERROR);
-            return false;
-        }
-        return true;
+        List<ErreurValidation> erreurs = new ArrayList<>(2);
+        ValidationReservation.validerSejour(
+                arriveeDate != null ? arriveeDate.atTime(heureArriveeSpinner.getValue(), minuteArriveeSpinner.getValue()) : null,
+                departDate != null ? departDate.atTime(heureDepartSpinner.getValue(), minuteDepartSpinner.getValue()) : null,
+                LocalDateTime.now(), erreurs);
+        return signalerErreurs("Date invalide", erreurs);
     }
 
     private boolean validerEtape3() {
@@ -217,11 +283,9 @@ public class AddReservationDialogController {
             showAlert("Chambre non sélectionnée", "Veuillez sélectionner une chambre.", Alert.AlertType.ERROR);
             return false;
         }
-        if (nbPersonnesSpinner.getValue() > chambreComboBox.getValue().getCapacite()) {
-            showAlert("Capacité dépassée", "La chambre ne peut pas accueillir autant de personnes.", Alert.AlertType.ERROR);
-            return false;
-        }
-        return true;
+        List<ErreurValidation> erreurs = new ArrayList<>(2);
+        ValidationReservation.validerChambre(chambreComboBox.getValue(), nbPersonnesSpinner.getValue(), erreurs);
+        return signalerErreurs("Chambre invalide", erreurs);
     }
 
     private boolean validerEtape4() {
@@ -232,11 +296,17 @@ public class AddReservationDialogController {
             showAlert("Acompte invalide", "Veuillez entrer un montant d'acompte valide.", Alert.AlertType.ERROR);
             return false;
         }
-        if (acompte < montantTotal * 0.3) {
-            showAlert("Acompte insuffisant", "L'acompte doit être au moins 30% du montant total.", Alert.AlertType.ERROR);
-            return false;
-        }
-        return true;
+        List<ErreurValidation> erreurs = new ArrayList<>(1);
+        ValidationReservation.validerAcompte(acompte, montantTotal, erreurs);
+        return signalerErreurs("Acompte invalide", erreurs);
+    }
+
+    // Une seule alerte listant toutes les erreurs de l'étape
+    private boolean signalerErreurs(String titre, List<ErreurValidation> erreurs) {
+        if (erreurs.isEmpty()) return true;
+        showAlert(titre, erreurs.stream().map(ErreurValidation::message).collect(Collectors.joining("\n")),
+                Alert.AlertType.ERROR);
+        return false;
     }
 
     @FXML
@@ -266,12 +336,23 @@ public class AddReservationDialogController {
 
             if (reservation.getDateArrivee().toLocalDate().equals(LocalDate.now())) {
                 chambre.setStatut(Chambre.StatutChambre.OCCUPEE);
-                chambreService.save(chambre);
+                try {
+                    chambreService.save(chambre);
+                } catch (RuntimeException e) {
+                    // Base injoignable : la réservation part quand même dans le journal hors ligne
+                    if (!ReservationServiceHorsLigne.estIndisponibilite(e)) throw e;
+                }
             }
 
             reservationService.enregistrerReservation(reservation);
 
-            showAlert("Succès", "Réservation enregistrée avec succès !", Alert.AlertType.INFORMATION);
+            if (reservation.getId() == null) {
+                showAlert("Enregistrée hors ligne", "Base de données injoignable : la réservation " + reservation.getNumero()
+                        + " est enregistrée localement et sera synchronisée dès le retour de la connexion.",
+                        Alert.AlertType.WARNING);
+            } else {
+                showAlert("Succès", "Réservation enregistrée avec succès !", Alert.AlertType.INFORMATION);
+            }
             Stage stage = (Stage) btnConfirmer.getScene().getWindow();
             stage.close();
         } catch (Exception e) {
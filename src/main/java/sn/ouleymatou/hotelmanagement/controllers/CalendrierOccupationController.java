@@ -0,0 +1,199 @@
+package sn.ouleymatou.hotelmanagement.controllers;
+
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.stage.Window;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.services.ChambreService;
+import sn.ouleymatou.hotelmanagement.services.FabriqueServices;
+import sn.ouleymatou.hotelmanagement.services.ReservationService;
+import sn.ouleymatou.hotelmanagement.utils.EvenementsJfr;
+import sn.ouleymatou.hotelmanagement.utils.GrilleOccupation;
+import sn.ouleymatou.hotelmanagement.utils.Rafraichissable;
+
+import java.time.LocalDate;
+import java.util.function.BiConsumer;
+
+/**
+ * Calendrier d'occupation chambres × jours.
+ * Le dessin est virtualisé : seules les cases visibles sont peintes sur un canvas de la taille
+ * de la fenêtre, ce qui permet de parcourir 500 chambres × 365 jours sans créer un nœud par case.
+ */
+public class CalendrierOccupationController implements Rafraichissable {
+
+    private static final double LARGEUR_CASE = 26;
+    private static final double HAUTEUR_CASE = 22;
+    private static final double LARGEUR_ENTETE = 110;
+    private static final double HAUTEUR_ENTETE = 40;
+
+    private static final Color[] COULEURS = {
+            Color.web("#2ecc71"), // LIBRE
+            Color.web("#f39c12"), // RESERVEE
+            Color.web("#e74c3c"), // OCCUPEE
+            Color.web("#7f8c8d")  // MAINTENANCE
+    };
+
+    @FXML private DatePicker debutPicker;
+    @FXML private ComboBox<Integer> nbJoursCombo;
+    @FXML private Pane zoneGrille;
+    @FXML private ScrollBar barreVerticale;
+    @FXML private ScrollBar barreHorizontale;
+
+    private final Canvas canvas = new Canvas();
+    private final ChambreService chambreService = FabriqueServices.chambres();
+
+    private GrilleOccupation grille;
+
+    // Seules les cases du séjour concerné changent
+    private final BiConsumer<ReservationService.Changement, Reservation> ecouteur =
+            (changement, r) -> Platform.runLater(() -> appliquer(changement, r));
+
+    @FXML
+    public void initialize() {
+        debutPicker.setValue(LocalDate.now());
+        nbJoursCombo.getItems().setAll(30, 90, 180, 365);
+        nbJoursCombo.setValue(90);
+
+        // Le canvas suit la taille de la zone sans influencer sa taille préférée
+        canvas.setManaged(false);
+        canvas.widthProperty().bind(zoneGrille.widthProperty());
+        canvas.heightProperty().bind(zoneGrille.heightProperty());
+        zoneGrille.getChildren().add(canvas);
+
+        canvas.widthProperty().addListener((obs, o, n) -> ajusterBarres());
+        canvas.heightProperty().addListener((obs, o, n) -> ajusterBarres());
+        barreVerticale.valueProperty().addListener((obs, o, n) -> dessiner());
+        barreHorizontale.valueProperty().addListener((obs, o, n) -> dessiner());
+        canvas.setOnScroll(e -> {
+            if (e.isShiftDown() || Math.abs(e.getDeltaX()) > Math.abs(e.getDeltaY())) {
+                double delta = e.getDeltaX() != 0 ? e.getDeltaX() : e.getDeltaY();
+                barreHorizontale.setValue(borner(barreHorizontale, barreHorizontale.getValue() - delta / LARGEUR_CASE));
+            } else {
+                barreVerticale.setValue(borner(barreVerticale, barreVerticale.getValue() - e.getDeltaY() / HAUTEUR_CASE));
+            }
+        });
+
+        // Mises à jour incrémentales tant que la fenêtre est affichée ; une fois masquée, la vue (gardée en cache)
+        // ne doit plus être retenue par le service. Elle est rechargée à sa réouverture.
+        zoneGrille.sceneProperty().flatMap(Scene::windowProperty).flatMap(Window::showingProperty).orElse(false)
+                .addListener((obs, avant, affichee) -> {
+                    if (affichee) ReservationService.ajouterEcouteur(ecouteur);
+                    else ReservationService.retirerEcouteur(ecouteur);
+                });
+
+        rafraichir();
+    }
+
+    @FXML
+    private void handleAfficher() {
+        rafraichir();
+    }
+
+    @Override
+    public void rafraichir() {
+        EvenementsJfr.rafraichissement(this, () -> {
+            LocalDate debut = debutPicker.getValue();
+            Integer nbJours = nbJoursCombo.getValue();
+            if (debut == null || nbJours == null) return;
+            try {
+                grille = chambreService.getGrilleOccupation(debut, nbJours);
+            } catch (Exception e) {
+                e.printStackTrace();
+                new Alert(Alert.AlertType.ERROR, "Impossible de charger le calendrier : " + e.getMessage()).show();
+                return;
+            }
+            ajusterBarres();
+            dessiner();
+        });
+    }
+
+    private void appliquer(ReservationService.Changement changement, Reservation r) {
+        if (grille == null || r.getChambre() == null) return;
+        LocalDate arrivee = r.getDateArrivee().toLocalDate();
+        LocalDate depart = r.getDateDepart().toLocalDate();
+        boolean modifie = switch (changement) {
+            case CREATION -> grille.marquerSejour(r.getChambre().getId(), arrivee, depart, GrilleOccupation.RESERVEE);
+            case CHECK_IN -> grille.marquerSejour(r.getChambre().getId(), arrivee, depart, GrilleOccupation.OCCUPEE);
+            // Départ : les nuits restantes redeviennent libres, l'historique est conservé
+            case CHECK_OUT -> grille.marquerSejour(r.getChambre().getId(), LocalDate.now(), depart, GrilleOccupation.LIBRE);
+            case ANNULATION, NO_SHOW -> grille.marquerSejour(r.getChambre().getId(), arrivee, depart, GrilleOccupation.LIBRE);
+            // Anciennes dates et chambre inconnues ici : la grille est rechargée
+            case MODIFICATION -> {
+                rafraichir();
+                yield false;
+            }
+        };
+        if (modifie) dessiner();
+    }
+
+    private void ajusterBarres() {
+        if (grille == null) return;
+        int lignesVisibles = (int) ((canvas.getHeight() - HAUTEUR_ENTETE) / HAUTEUR_CASE);
+        int colonnesVisibles = (int) ((canvas.getWidth() - LARGEUR_ENTETE) / LARGEUR_CASE);
+        configurer(barreVerticale, grille.getNbChambres() - lignesVisibles, lignesVisibles);
+        configurer(barreHorizontale, grille.getNbJours() - colonnesVisibles, colonnesVisibles);
+        dessiner();
+    }
+
+    private static void configurer(ScrollBar barre, int max, int visibles) {
+        barre.setMin(0);
+        barre.setMax(Math.max(0, max));
+        barre.setVisibleAmount(Math.max(1, visibles));
+        barre.setBlockIncrement(Math.max(1, visibles));
+        barre.setUnitIncrement(1);
+        barre.setValue(borner(barre, barre.getValue()));
+    }
+
+    private static double borner(ScrollBar barre, double valeur) {
+        return Math.max(barre.getMin(), Math.min(barre.getMax(), valeur));
+    }
+
+    private void dessiner() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double largeur = canvas.getWidth();
+        double hauteur = canvas.getHeight();
+        gc.setFill(Color.WHITE);
+        gc.fillRect(0, 0, largeur, hauteur);
+        if (grille == null) return;
+
+        int premiereLigne = (int) barreVerticale.getValue();
+        int premiereColonne = (int) barreHorizontale.getValue();
+        int derniereLigne = Math.min(grille.getNbChambres(),
+                premiereLigne + (int) Math.ceil((hauteur - HAUTEUR_ENTETE) / HAUTEUR_CASE));
+        int derniereColonne = Math.min(grille.getNbJours(),
+                premiereColonne + (int) Math.ceil((largeur - LARGEUR_ENTETE) / LARGEUR_CASE));
+
+        // En-tête des jours
+        gc.setFill(Color.BLACK);
+        LocalDate jour = grille.getDebut().plusDays(premiereColonne);
+        for (int c = premiereColonne; c < derniereColonne; c++) {
+            double x = LARGEUR_ENTETE + (c - premiereColonne) * LARGEUR_CASE;
+            if (jour.getDayOfMonth() == 1 || c == premiereColonne) {
+                gc.fillText(jour.getMonth().toString().substring(0, 3), x + 2, 14);
+            }
+            gc.fillText(String.valueOf(jour.getDayOfMonth()), x + 4, HAUTEUR_ENTETE - 6);
+            jour = jour.plusDays(1);
+        }
+
+        // Lignes des chambres
+        for (int l = premiereLigne; l < derniereLigne; l++) {
+            double y = HAUTEUR_ENTETE + (l - premiereLigne) * HAUTEUR_CASE;
+            gc.setFill(Color.BLACK);
+            gc.fillText(grille.getNumeroChambre(l), 4, y + HAUTEUR_CASE - 6);
+            for (int c = premiereColonne; c < derniereColonne; c++) {
+                double x = LARGEUR_ENTETE + (c - premiereColonne) * LARGEUR_CASE;
+                gc.setFill(COULEURS[grille.getEtat(l, c)]);
+                gc.fillRect(x + 1, y + 1, LARGEUR_CASE - 2, HAUTEUR_CASE - 2);
+            }
+        }
+    }
+}
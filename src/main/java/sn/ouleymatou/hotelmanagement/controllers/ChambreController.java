@@ -6,8 +6,6 @@ import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
@@ -16,14 +14,17 @@ import sn.ouleymatou.hotelmanagement.entities.Chambre;
 import sn.ouleymatou.hotelmanagement.entities.Chambre.StatutChambre;
 import sn.ouleymatou.hotelmanagement.entities.TypeChambre;
 import sn.ouleymatou.hotelmanagement.services.ChambreService;
+import sn.ouleymatou.hotelmanagement.services.FabriqueServices;
 import sn.ouleymatou.hotelmanagement.services.TypeChambreService;
+import sn.ouleymatou.hotelmanagement.utils.EvenementsJfr;
+import sn.ouleymatou.hotelmanagement.utils.Rafraichissable;
 
 import java.io.IOException;
 import java.net.URL;
 import java.util.List;
 import java.util.ResourceBundle;
 
-public class ChambreController implements Initializable {
+public class ChambreController implements Initializable, Rafraichissable {
 
     @FXML private TableView<Chambre> chambreTable;
     @FXML private TableColumn<Chambre, String> numeroColumn;
@@ -35,8 +36,8 @@ public class ChambreController implements Initializable {
     @FXML private ComboBox<String> statutComboBox;
     @FXML private Label totalLabel;
 
-    private final ChambreService chambreService = new ChambreService();
-    private final TypeChambreService typeChambreService = new TypeChambreService();
+    private final ChambreService chambreService = FabriqueServices.chambres();
+    private final TypeChambreService typeChambreService = FabriqueServices.typesChambre();
     private ObservableList<Chambre> chambreList = FXCollections.observableArrayList();
 
     @Override
@@ -97,16 +98,18 @@ public class ChambreController implements Initializable {
     }
 
     // --------------------- Gestion du retour ---------------------
+    // La vue est conservée par VueCache : on masque la fenêtre, le tableau de bord reste ouvert
     @FXML
     public void handleRetour(ActionEvent event) {
-        try {
-            Parent root = FXMLLoader.load(getClass().getResource("/fxml/dashboard-view.fxml"));
-            Stage stage = (Stage) chambreTable.getScene().getWindow();
-            stage.setScene(new Scene(root));
-        } catch (IOException e) {
-            showAlert(Alert.AlertType.ERROR, "Erreur", null, "Impossible de revenir au tableau de bord.");
-            e.printStackTrace();
-        }
+        Stage stage = (Stage) chambreTable.getScene().getWindow();
+        stage.hide();
+    }
+
+    @Override
+    public void rafraichir() {
+        EvenementsJfr.rafraichissement(this, () -> {
+            chargerChambres();
+        });
     }
 
     // --------------------- Ajout / Modification ---------------------
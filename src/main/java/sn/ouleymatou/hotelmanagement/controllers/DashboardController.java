@@ -11,13 +11,26 @@ import javafx.stage.Stage;
 import javafx.fxml.FXMLLoader;
 import sn.ouleymatou.hotelmanagement.entities.User;
 import sn.ouleymatou.hotelmanagement.services.ChambreService;
+import sn.ouleymatou.hotelmanagement.services.FabriqueServices;
 import sn.ouleymatou.hotelmanagement.services.ReservationService;
+import sn.ouleymatou.hotelmanagement.utils.KpiOrchestrateur;
+import sn.ouleymatou.hotelmanagement.utils.VueCache;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class DashboardController {
 
+    private static final String VUE_CHAMBRES = "/fxml/chambre-view.fxml";
+    private static final String VUE_RESERVATIONS = "/fxml/ReservationsView.fxml";
+    private static final String VUE_STATISTIQUES = "/fxml/statistiques-view.fxml";
+    private static final String VUE_CALENDRIER = "/fxml/calendrier-view.fxml";
+    private static final String VUE_HIBERNATE = "/fxml/hibernate-stats-view.fxml";
+
     @FXML private Button logoutBtn;
+    @FXML private Button btnBaseDeDonnees;
     @FXML private Label welcomeLabel;
 
     @FXML private Label labelTotalChambresValue;
@@ -28,28 +41,18 @@ public class DashboardController {
     @FXML private VBox boxReservations;
     @FXML private VBox boxStatistiques;
 
-    private final ChambreService chambreService = new ChambreService();
-    private final ReservationService reservationService = new ReservationService();
+    private final ChambreService chambreService = FabriqueServices.chambres();
+    private final ReservationService reservationService = FabriqueServices.reservations();
+    private final KpiOrchestrateur orchestrateur = new KpiOrchestrateur();
 
     private User currentUser;
 
     @FXML
     private void initialize() {
-        try {
-            long totalChambres = chambreService.count();
-            long total = reservationService.getTotalReservations();
-
-            double tauxOccupation = reservationService.calculerTauxOccupation();
-
-            labelTotalChambresValue.setText(String.valueOf(totalChambres));
-            labelReservationsActivesValue.setText(String.valueOf(total));
-            labelTauxOccupationValue.setText(String.format("%.0f%%", tauxOccupation));
-        } catch (Exception e) {
-            e.printStackTrace();
-            labelTotalChambresValue.setText("Erreur");
-            labelReservationsActivesValue.setText("Erreur");
-            labelTauxOccupationValue.setText("Erreur");
-        }
+        // Les trois compteurs sont demandés en parallèle, hors du thread JavaFX
+        kpi(labelTotalChambresValue, chambreService::count, String::valueOf);
+        kpi(labelReservationsActivesValue, reservationService::getTotalReservations, String::valueOf);
+        kpi(labelTauxOccupationValue, reservationService::calculerTauxOccupation, taux -> String.format("%.0f%%", taux));
 
         // Ajouter actions sur les boîtes cliquables
         boxChambres.setOnMouseClicked(this::ouvrirGestionChambres);
@@ -57,6 +60,17 @@ public class DashboardController {
         boxStatistiques.setOnMouseClicked(this::ouvrirStatistiques);
 
         logoutBtn.setOnAction(event -> deconnexion());
+
+        // Les statistiques Hibernate sont celles de la fabrique locale : le poste client n'en a pas
+        btnBaseDeDonnees.setDisable(FabriqueServices.isModeClient());
+    }
+
+    private <T> void kpi(Label label, Supplier<T> calcul, Function<T, String> format) {
+        label.setText("…");
+        orchestrateur.lancer(calcul, valeur -> label.setText(format.apply(valeur)), ex -> {
+            ex.printStackTrace();
+            label.setText("Erreur");
+        });
     }
 
     public void setCurrentUser(User user) {
@@ -66,35 +80,27 @@ public class DashboardController {
         } else {
             welcomeLabel.setText("Bienvenue, Utilisateur");
         }
+
+        // Après connexion, on prépare les vues lourdes entre deux événements de l'interface
+        VueCache.precharger(List.of(VUE_RESERVATIONS, VUE_STATISTIQUES, VUE_CHAMBRES));
     }
 
     private void ouvrirGestionChambres(MouseEvent event) {
-        chargerVue("/fxml/chambre-view.fxml", "Gestion des Chambres");
+        chargerVue(VUE_CHAMBRES, "Gestion des Chambres");
     }
 
     private void ouvrirGestionReservations(MouseEvent event) {
-        chargerVue("/fxml/reservationsView.fxml", "Gestion des Réservations");
+        chargerVue(VUE_RESERVATIONS, "Gestion des Réservations");
     }
 
     private void ouvrirStatistiques(MouseEvent event) {
-        chargerVue("/fxml/statistiques-view.fxml", "Statistiques");
+        chargerVue(VUE_STATISTIQUES, "Statistiques");
     }
 
+    // Les vues sont construites une seule fois puis réutilisées (voir VueCache)
     private void chargerVue(String fxmlPath, String titre) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlPath));
-            Parent root = loader.load();
-
-            // Exemple si tu veux récupérer le contrôleur
-            Object controller = loader.getController();
-            if(controller instanceof ReservationController rc){
-                // tu peux initialiser des données si nécessaire
-            }
-
-            Stage stage = new Stage();
-            stage.setTitle(titre);
-            stage.setScene(new Scene(root));
-            stage.show();
+            VueCache.ouvrir(fxmlPath, titre);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -102,6 +108,7 @@ public class DashboardController {
 
 
     private void deconnexion() {
+        VueCache.fermerTout();
         try {
             Parent root = FXMLLoader.load(getClass().getResource("/fxml/login-view.fxml"));
             Stage loginStage = new Stage();
@@ -120,9 +127,11 @@ public class DashboardController {
     @FXML private void handleChambres() { ouvrirGestionChambres(null); }
     @FXML private void handleReservations() { ouvrirGestionReservations(null); }
     @FXML private void handleStatistiques() { ouvrirGestionStatistiques(); }
+    @FXML private void handleCalendrier() { chargerVue(VUE_CALENDRIER, "Calendrier d'occupation"); }
+    @FXML private void handleStatistiquesHibernate() { chargerVue(VUE_HIBERNATE, "Statistiques Hibernate"); }
     @FXML private void handleLogout() { deconnexion(); }
 
     private void ouvrirGestionStatistiques() {
-        chargerVue("/fxml/statistiques-view.fxml", "Statistiques");
+        chargerVue(VUE_STATISTIQUES, "Statistiques");
     }
 }
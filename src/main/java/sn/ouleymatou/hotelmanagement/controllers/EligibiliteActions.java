@@ -0,0 +1,75 @@
+package sn.ouleymatou.hotelmanagement.controllers;
+
+import javafx.collections.ListChangeListener;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pré-calcule, pour chaque réservation d'une liste, les actions possibles (check-in, check-out, annulation, no-show).
+ * La date du jour est figée une fois par chargement : les cellules ne font qu'une lecture de map
+ * pendant le défilement au lieu d'appeler LocalDate.now() et de comparer les dates à chaque rendu.
+ */
+public class EligibiliteActions implements ListChangeListener<Reservation> {
+
+    public enum Action { CHECK_IN, CHECK_OUT, ANNULER, NO_SHOW }
+
+    // Combinaisons possibles, partagées par toutes les réservations
+    private static final Set<Action> AUCUNE = Collections.unmodifiableSet(EnumSet.noneOf(Action.class));
+    private static final Set<Action> ARRIVEE_DU_JOUR = Collections.unmodifiableSet(EnumSet.of(Action.CHECK_IN, Action.ANNULER));
+    private static final Set<Action> ARRIVEE_PASSEE = Collections.unmodifiableSet(EnumSet.of(Action.NO_SHOW, Action.ANNULER));
+    private static final Set<Action> ARRIVEE_FUTURE = Collections.unmodifiableSet(EnumSet.of(Action.ANNULER));
+    private static final Set<Action> DEPART_DU_JOUR = Collections.unmodifiableSet(EnumSet.of(Action.CHECK_OUT));
+
+    private final Map<Long, Set<Action>> actions = new HashMap<>();
+    private LocalDate jour = LocalDate.now();
+
+    /**
+     * Fige la date du jour et recalcule toutes les actions de la liste.
+     */
+    public void recalculer(List<Reservation> reservations) {
+        jour = LocalDate.now();
+        actions.clear();
+        for (Reservation r : reservations) {
+            actions.put(r.getId(), calculer(r));
+        }
+    }
+
+    public Set<Action> getActions(Reservation reservation) {
+        if (reservation == null) return AUCUNE;
+        Set<Action> possibles = actions.get(reservation.getId());
+        return possibles != null ? possibles : calculer(reservation);
+    }
+
+    @Override
+    public void onChanged(Change<? extends Reservation> c) {
+        while (c.next()) {
+            if (c.wasRemoved()) {
+                for (Reservation r : c.getRemoved()) actions.remove(r.getId());
+            }
+            if (c.wasAdded()) {
+                for (Reservation r : c.getAddedSubList()) actions.put(r.getId(), calculer(r));
+            }
+        }
+    }
+
+    private Set<Action> calculer(Reservation r) {
+        if (r.getStatut() == Reservation.StatutReservation.CONFIRMEE && r.getDateArrivee() != null) {
+            LocalDate arrivee = r.getDateArrivee().toLocalDate();
+            if (arrivee.equals(jour)) return ARRIVEE_DU_JOUR;
+            // Client attendu un jour passé et jamais arrivé
+            return arrivee.isBefore(jour) ? ARRIVEE_PASSEE : ARRIVEE_FUTURE;
+        }
+        if (r.getStatut() == Reservation.StatutReservation.EN_COURS
+                && r.getDateDepart() != null && r.getDateDepart().toLocalDate().equals(jour)) {
+            return DEPART_DU_JOUR;
+        }
+        return AUCUNE;
+    }
+}
@@ -10,6 +10,7 @@ import javafx.scene.control.*;
 import javafx.stage.Stage;
 import sn.ouleymatou.hotelmanagement.HelloApplication;
 import sn.ouleymatou.hotelmanagement.entities.User;
+import sn.ouleymatou.hotelmanagement.services.FabriqueServices;
 import sn.ouleymatou.hotelmanagement.services.UserService;
 
 import java.io.IOException;
@@ -37,7 +38,7 @@ public class LoginController {
     private final UserService userService;
 
     public LoginController() {
-        this.userService = new UserService();
+        this.userService = FabriqueServices.utilisateurs();
     }
 
     /**
@@ -78,7 +79,7 @@ public class LoginController {
      */
     @FXML
     private void handleLogin(ActionEvent event) {
-        UserService userService = new UserService();
+        UserService userService = FabriqueServices.utilisateurs();
         userService.createDefaultAdminIfNotExists();
 
         errorLabel.setVisible(false);
@@ -0,0 +1,79 @@
+package sn.ouleymatou.hotelmanagement.controllers;
+
+import javafx.scene.control.Button;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableRow;
+import javafx.scene.layout.HBox;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Cellule "Actions" des tables de réservations.
+ * Les boutons et leur conteneur sont créés une seule fois par cellule ; updateItem ne fait
+ * que basculer leur visibilité selon les actions pré-calculées, sans aucune allocation.
+ */
+public class ReservationActionCell extends TableCell<Reservation, Void> {
+
+    private final EligibiliteActions eligibilite;
+    private final Button btnCheckIn = new Button("Check-in");
+    private final Button btnCheckOut = new Button("Check-out");
+    private final Button btnAnnuler = new Button("Annuler");
+    private final Button btnNoShow = new Button("No-show");
+    private final HBox hbox = new HBox(5, btnCheckIn, btnCheckOut, btnNoShow, btnAnnuler);
+
+    private Reservation reservation;
+
+    public ReservationActionCell(EligibiliteActions eligibilite,
+                                 Consumer<Reservation> onCheckIn,
+                                 Consumer<Reservation> onCheckOut,
+                                 Consumer<Reservation> onAnnuler,
+                                 Consumer<Reservation> onNoShow) {
+        this.eligibilite = eligibilite;
+
+        btnCheckIn.setStyle("-fx-background-color: #27ae60; -fx-text-fill: white;");
+        btnCheckOut.setStyle("-fx-background-color: #c0392b; -fx-text-fill: white;");
+        btnAnnuler.setStyle("-fx-background-color: #7f8c8d; -fx-text-fill: white;");
+        btnNoShow.setStyle("-fx-background-color: #e67e22; -fx-text-fill: white;");
+
+        // Un bouton masqué ne prend pas de place dans le HBox
+        btnCheckIn.managedProperty().bind(btnCheckIn.visibleProperty());
+        btnCheckOut.managedProperty().bind(btnCheckOut.visibleProperty());
+        btnAnnuler.managedProperty().bind(btnAnnuler.visibleProperty());
+        btnNoShow.managedProperty().bind(btnNoShow.visibleProperty());
+
+        btnCheckIn.setOnAction(event -> {
+            if (reservation != null) onCheckIn.accept(reservation);
+        });
+        btnCheckOut.setOnAction(event -> {
+            if (reservation != null) onCheckOut.accept(reservation);
+        });
+        btnAnnuler.setOnAction(event -> {
+            if (reservation != null) onAnnuler.accept(reservation);
+        });
+        btnNoShow.setOnAction(event -> {
+            if (reservation != null) onNoShow.accept(reservation);
+        });
+    }
+
+    @Override
+    protected void updateItem(Void item, boolean empty) {
+        super.updateItem(item, empty);
+
+        TableRow<Reservation> row = getTableRow();
+        reservation = empty || row == null ? null : row.getItem();
+
+        Set<EligibiliteActions.Action> actions = eligibilite.getActions(reservation);
+        if (actions.isEmpty()) {
+            setGraphic(null);
+            return;
+        }
+
+        btnCheckIn.setVisible(actions.contains(EligibiliteActions.Action.CHECK_IN));
+        btnCheckOut.setVisible(actions.contains(EligibiliteActions.Action.CHECK_OUT));
+        btnAnnuler.setVisible(actions.contains(EligibiliteActions.Action.ANNULER));
+        btnNoShow.setVisible(actions.contains(EligibiliteActions.Action.NO_SHOW));
+        if (getGraphic() != hbox) setGraphic(hbox);
+    }
+}
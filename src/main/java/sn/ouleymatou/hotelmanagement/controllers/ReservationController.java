@@ -1,5 +1,6 @@
 package sn.ouleymatou.hotelmanagement.controllers;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -10,21 +11,37 @@ import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.stage.Window;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.util.Callback;
 import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.services.FabriqueServices;
+import sn.ouleymatou.hotelmanagement.services.ImportReservationService;
 import sn.ouleymatou.hotelmanagement.services.ReservationService;
-
+import sn.ouleymatou.hotelmanagement.services.ReservationServiceHorsLigne;
+import sn.ouleymatou.hotelmanagement.utils.EvenementsJfr;
+import sn.ouleymatou.hotelmanagement.utils.ExecuteurServices;
+import sn.ouleymatou.hotelmanagement.utils.KpiOrchestrateur;
+import sn.ouleymatou.hotelmanagement.utils.ListDiff;
+import sn.ouleymatou.hotelmanagement.utils.Rafraichissable;
+
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
-public class ReservationController implements Initializable {
+public class ReservationController implements Initializable, Rafraichissable {
 
     @FXML private TableView<Reservation> tableAllReservations;
     @FXML private TableView<Reservation> tableArriveesDuJour;
@@ -43,13 +60,28 @@ public class ReservationController implements Initializable {
     @FXML private Label lblChiffreAffaires;
 
     @FXML private Button btnNouvelleReservation;
+    @FXML private Button btnCheckInSelection;
+    @FXML private Button btnCheckOutSelection;
+    @FXML private Button btnAnnulerSelection;
+    @FXML private Button btnImporter;
+    @FXML private Button btnSynchroniser;
+    @FXML private Label lblHorsLigne;
 
-    private final ReservationService reservationService = new ReservationService();
+    private final ReservationService reservationService = FabriqueServices.reservations();
 
     private final ObservableList<Reservation> allReservations = FXCollections.observableArrayList();
     private final ObservableList<Reservation> arriveesDuJour = FXCollections.observableArrayList();
     private final ObservableList<Reservation> departsDuJour = FXCollections.observableArrayList();
 
+    // Actions (check-in, check-out, annulation, no-show) pré-calculées pour la table principale
+    private final EligibiliteActions eligibilite = new EligibiliteActions();
+
+    // Chargements de rafraîchissement : un nouveau rafraîchissement annule celui encore en vol
+    private final KpiOrchestrateur orchestrateur = new KpiOrchestrateur();
+
+    // Gardé pour être retiré du journal hors ligne quand la fenêtre est masquée
+    private final Runnable ecouteurJournal = () -> Platform.runLater(this::majIndicateurHorsLigne);
+
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         // Initialiser colonnes pour toutes les tables
@@ -57,18 +89,75 @@ public class ReservationController implements Initializable {
         initialiserColonnes(tableArriveesDuJour, false, "Arrivees");
         initialiserColonnes(tableDepartsDuJour, false, "Departs");
 
+        // L'écouteur doit passer avant celui de la TableView pour que les cellules lisent des actions à jour
+        allReservations.addListener(eligibilite);
         tableAllReservations.setItems(allReservations);
+        // Sélection multiple pour les arrivées / départs de groupe
+        tableAllReservations.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        tableArriveesDuJour.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        tableDepartsDuJour.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         tableArriveesDuJour.setItems(arriveesDuJour);
         tableDepartsDuJour.setItems(departsDuJour);
 
-        statutFilter.setItems(FXCollections.observableArrayList("Tous", "Confirmée", "Annulée", "Check-in", "Check-out"));
+        statutFilter.setItems(FXCollections.observableArrayList("Tous", "Confirmée", "Annulée", "No-show", "Check-in", "Check-out"));
         statutFilter.setValue("Tous");
 
+        // L'import écrit en base par lots : postes locaux uniquement
+        btnImporter.setDisable(FabriqueServices.isModeClient());
+
+        // Indicateur des opérations hors ligne en attente, suivi tant que la fenêtre est affichée : la vue gardée
+        // en cache ne doit pas rester retenue par le journal une fois masquée
+        if (reservationService instanceof ReservationServiceHorsLigne) {
+            tableAllReservations.sceneProperty().flatMap(Scene::windowProperty).flatMap(Window::showingProperty)
+                    .orElse(false)
+                    .addListener((obs, avant, affichee) -> {
+                        if (affichee) {
+                            ReservationServiceHorsLigne.getJournal().ajouterEcouteur(ecouteurJournal);
+                            majIndicateurHorsLigne();
+                        } else {
+                            ReservationServiceHorsLigne.getJournal().retirerEcouteur(ecouteurJournal);
+                        }
+                    });
+            majIndicateurHorsLigne();
+        }
+
         // Charger les données
-        chargerToutesReservations();
-        chargerArriveesDuJour();
-        chargerDepartsDuJour();
-        chargerStatistiques();
+        rafraichir();
+    }
+
+    private void majIndicateurHorsLigne() {
+        int enAttente = ReservationServiceHorsLigne.getJournal().getNombreEnAttente();
+        boolean visible = enAttente > 0;
+        lblHorsLigne.setText("⚠ " + enAttente + " opération(s) hors ligne en attente");
+        lblHorsLigne.setVisible(visible);
+        lblHorsLigne.setManaged(visible);
+        btnSynchroniser.setVisible(visible);
+        btnSynchroniser.setManaged(visible);
+    }
+
+    // Rejeu immédiat du journal hors ligne (il est aussi tenté automatiquement toutes les 30 secondes)
+    @FXML
+    private void handleSynchroniser() {
+        if (!(reservationService instanceof ReservationServiceHorsLigne horsLigne)) return;
+        btnSynchroniser.setDisable(true);
+        ExecuteurServices.appeler(horsLigne::synchroniser)
+                .whenComplete((bilan, ex) -> Platform.runLater(() -> {
+                    btnSynchroniser.setDisable(false);
+                    if (ex != null) {
+                        new Alert(Alert.AlertType.ERROR, "Synchronisation impossible : " + ex.getMessage()).showAndWait();
+                        return;
+                    }
+                    StringBuilder message = new StringBuilder(String.format("%d opération(s) appliquée(s), %d en attente.",
+                            bilan.appliquees(), bilan.restantes()));
+                    if (bilan.restantes() > 0) message.append("\nLa base de données est toujours injoignable.");
+                    if (!bilan.conflits().isEmpty()) {
+                        message.append("\n\nConflits (opérations non appliquées) :");
+                        bilan.conflits().forEach(c -> message.append("\n- ").append(c));
+                    }
+                    new Alert(bilan.conflits().isEmpty() ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING,
+                            message.toString()).showAndWait();
+                    rafraichir();
+                }));
     }
 
     private void initialiserColonnes(TableView<Reservation> table, boolean avecActions, String suffixe) {
@@ -111,87 +200,193 @@ public class ReservationController implements Initializable {
     }
 
     private Callback<TableColumn<Reservation, Void>, TableCell<Reservation, Void>> creerCellFactoryActions() {
-        return param -> new TableCell<>() {
-            private final Button btnCheckIn = new Button("Check-in");
-            private final Button btnCheckOut = new Button("Check-out");
-
-            {
-                btnCheckIn.setStyle("-fx-background-color: #27ae60; -fx-text-fill: white;");
-                btnCheckOut.setStyle("-fx-background-color: #c0392b; -fx-text-fill: white;");
-
-                btnCheckIn.setOnAction(event -> {
-                    Reservation data = getTableView().getItems().get(getIndex());
-                    try {
-                        reservationService.checkIn(data);
-                        chargerToutesReservations();
-                        chargerArriveesDuJour();
-                        chargerDepartsDuJour();
-                        chargerStatistiques();
-                    } catch (Exception e) {
-                        new Alert(Alert.AlertType.ERROR, e.getMessage()).showAndWait();
-                    }
-                });
-
-                btnCheckOut.setOnAction(event -> {
-                    Reservation data = getTableView().getItems().get(getIndex());
-                    try {
-                        reservationService.checkOut(data);
-                        chargerToutesReservations();
-                        chargerArriveesDuJour();
-                        chargerDepartsDuJour();
-                        chargerStatistiques();
-                    } catch (Exception e) {
-                        new Alert(Alert.AlertType.ERROR, e.getMessage()).showAndWait();
+        return param -> new ReservationActionCell(eligibilite, this::handleCheckIn, this::handleCheckOut,
+                this::handleAnnuler, this::handleNoShow);
+    }
+
+    private void handleCheckIn(Reservation data) {
+        executer(() -> reservationService.checkIn(data), this::appliquerCheckIn);
+    }
+
+    private void handleCheckOut(Reservation data) {
+        executer(() -> reservationService.checkOut(data), this::appliquerCheckOut);
+    }
+
+    private void handleAnnuler(Reservation data) {
+        if (!confirmer("Annuler la réservation " + data.getNumero() + " ?")) return;
+        executer(() -> reservationService.annuler(data), this::appliquerFin);
+    }
+
+    private void handleNoShow(Reservation data) {
+        if (!confirmer("Marquer la réservation " + data.getNumero() + " comme no-show ?")) return;
+        executer(() -> reservationService.marquerNoShow(data), this::appliquerFin);
+    }
+
+    // Appel de service sur un thread virtuel ; la suite, ou l'alerte d'erreur, s'exécute sur le thread JavaFX
+    private static <T> void executer(Supplier<T> appel, Consumer<T> suite) {
+        ExecuteurServices.appeler(appel)
+                .whenComplete((resultat, ex) -> Platform.runLater(() -> {
+                    if (ex != null) {
+                        new Alert(Alert.AlertType.ERROR, ex.getMessage()).showAndWait();
+                    } else {
+                        suite.accept(resultat);
                     }
-                });
-            }
-
-            @Override
-            protected void updateItem(Void item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty) {
-                    setGraphic(null);
-                } else {
-                    HBox hbox = new HBox(5);
-                    Reservation res = getTableView().getItems().get(getIndex());
-                    LocalDate today = LocalDate.now();
-
-                    if (res.getStatut() == Reservation.StatutReservation.CONFIRMEE &&
-                            res.getDateArrivee().toLocalDate().equals(today)) {
-                        btnCheckIn.setDisable(false);
-                        hbox.getChildren().add(btnCheckIn);
-                    } else if (res.getStatut() == Reservation.StatutReservation.EN_COURS &&
-                            res.getDateDepart().toLocalDate().equals(today)) {
-                        btnCheckOut.setDisable(false);
-                        hbox.getChildren().add(btnCheckOut);
+                }));
+    }
+
+    private static boolean confirmer(String question) {
+        return new Alert(Alert.AlertType.CONFIRMATION, question).showAndWait()
+                .filter(b -> b == ButtonType.OK).isPresent();
+    }
+
+    @FXML
+    private void handleCheckInSelection() {
+        traiterSelection(idsSelectionnes(), reservationService::checkInGroupe, this::majLignesCheckIn, "check-in");
+    }
+
+    @FXML
+    private void handleCheckOutSelection() {
+        traiterSelection(idsSelectionnes(), reservationService::checkOutGroupe, this::majLignesCheckOut, "check-out");
+    }
+
+    @FXML
+    private void handleAnnulerSelection() {
+        List<Long> ids = idsSelectionnes();
+        if (ids.isEmpty() || !confirmer("Annuler les " + ids.size() + " réservation(s) sélectionnée(s) ?")) return;
+        traiterSelection(ids, reservationService::annulerGroupe, this::majLignesFin, "annulation");
+    }
+
+    // Opération de groupe hors du thread JavaFX ; les boutons de sélection sont inactifs tant qu'elle est en cours
+    private void traiterSelection(List<Long> ids, Function<List<Long>, List<Reservation>> operation,
+                                  Consumer<List<Reservation>> majLignes, String libelle) {
+        if (ids.isEmpty()) return;
+        List<Button> boutons = List.of(btnCheckInSelection, btnCheckOutSelection, btnAnnulerSelection);
+        boutons.forEach(b -> b.setDisable(true));
+        ExecuteurServices.appeler(() -> operation.apply(ids))
+                .whenComplete((maj, ex) -> Platform.runLater(() -> {
+                    boutons.forEach(b -> b.setDisable(false));
+                    if (ex != null) {
+                        new Alert(Alert.AlertType.ERROR, ex.getMessage()).showAndWait();
+                        return;
                     }
+                    majLignes.accept(maj);
+                    chargerStatistiques();
+                    signalerIgnorees(ids.size(), maj.size(), libelle);
+                }));
+    }
+
+    // Sélection de la table de l'onglet courant
+    @SuppressWarnings("unchecked")
+    private List<Long> idsSelectionnes() {
+        Tab onglet = tabPaneReservations.getSelectionModel().getSelectedItem();
+        TableView<Reservation> table = onglet != null && onglet.getContent() instanceof TableView<?>
+                ? (TableView<Reservation>) onglet.getContent() : tableAllReservations;
+        return table.getSelectionModel().getSelectedItems().stream().map(Reservation::getId).toList();
+    }
+
+    private void signalerIgnorees(int demandees, int traitees, String operation) {
+        if (traitees < demandees) {
+            new Alert(Alert.AlertType.INFORMATION, (demandees - traitees) + " réservation(s) non éligible(s) au "
+                    + operation + " ont été ignorée(s).").showAndWait();
+        }
+    }
 
-                    setGraphic(hbox);
-                }
-            }
-        };
+    // Mise à jour ciblée après un check-in : seule la ligne concernée est modifiée
+    private void appliquerCheckIn(Reservation maj) {
+        if (maj == null) return;
+        majLignesCheckIn(List.of(maj));
+        chargerStatistiques();
+    }
+
+    // Un seul parcours de chaque liste, quel que soit le nombre de réservations traitées
+    private void majLignesCheckIn(List<Reservation> maj) {
+        ListDiff.upsertTous(allReservations, maj, Reservation::getId);
+        ListDiff.retirerTous(arriveesDuJour, ids(maj), Reservation::getId);
+        LocalDate aujourdHui = LocalDate.now();
+        ListDiff.upsertTous(departsDuJour, maj.stream()
+                .filter(r -> r.getStatut() == Reservation.StatutReservation.EN_COURS
+                        && r.getDateDepart().toLocalDate().equals(aujourdHui))
+                .toList(), Reservation::getId);
+    }
+
+    // Mise à jour ciblée après un check-out
+    private void appliquerCheckOut(Reservation maj) {
+        if (maj == null) return;
+        majLignesCheckOut(List.of(maj));
+        chargerStatistiques();
+    }
+
+    private void majLignesCheckOut(List<Reservation> maj) {
+        ListDiff.upsertTous(allReservations, maj, Reservation::getId);
+        ListDiff.retirerTous(departsDuJour, ids(maj), Reservation::getId);
+    }
+
+    // Mise à jour ciblée après une annulation ou un no-show : la réservation sort des arrivées du jour
+    private void appliquerFin(Reservation maj) {
+        if (maj == null) return;
+        majLignesFin(List.of(maj));
+        chargerStatistiques();
     }
 
+    private void majLignesFin(List<Reservation> maj) {
+        ListDiff.upsertTous(allReservations, maj, Reservation::getId);
+        ListDiff.retirerTous(arriveesDuJour, maj.stream()
+                .filter(r -> !r.getStatut().estActif())
+                .map(Reservation::getId)
+                .collect(Collectors.toSet()), Reservation::getId);
+    }
+
+    private static Set<Long> ids(List<Reservation> reservations) {
+        return reservations.stream().map(Reservation::getId).collect(Collectors.toSet());
+    }
+
+    // Les chargements s'exécutent hors du thread JavaFX ; chaque liste est patchée dès qu'elle arrive
     private void chargerToutesReservations() {
-        List<Reservation> reservations = reservationService.getAllReservations();
-        allReservations.setAll(reservations);
+        orchestrateur.lancer(reservationService::getAllReservations, reservations -> {
+            eligibilite.recalculer(reservations);
+            ListDiff.patch(allReservations, reservations, Reservation::getId, ReservationController::estModifiee);
+        }, Throwable::printStackTrace);
     }
 
     private void chargerArriveesDuJour() {
-        List<Reservation> reservations = reservationService.getArriveesDuJour();
-        arriveesDuJour.setAll(reservations);
+        orchestrateur.lancer(reservationService::getArriveesDuJour, reservations -> {
+            ListDiff.patch(arriveesDuJour, reservations, Reservation::getId, ReservationController::estModifiee);
+            majCompteursDuJour();
+        }, Throwable::printStackTrace);
     }
 
     private void chargerDepartsDuJour() {
-        List<Reservation> reservations = reservationService.getDepartsDuJour();
-        departsDuJour.setAll(reservations);
+        orchestrateur.lancer(reservationService::getDepartsDuJour, reservations -> {
+            ListDiff.patch(departsDuJour, reservations, Reservation::getId, ReservationController::estModifiee);
+            majCompteursDuJour();
+        }, Throwable::printStackTrace);
     }
 
     private void chargerStatistiques() {
-        lblTotalReservations.setText(reservationService.getTotalReservations() + " Total Réservations");
-        lblArriveesAujourdHui.setText(reservationService.getArriveesDuJour().size() + " Arrivées Aujourd'hui");
-        lblDepartsAujourdHui.setText(reservationService.getDepartsDuJour().size() + " Départs Aujourd'hui");
-        lblChiffreAffaires.setText(String.format("%,.0f FCFA CA Aujourd'hui", reservationService.getChiffreAffairesDuJour()));
+        majCompteursDuJour();
+        orchestrateur.lancer(reservationService::getTotalReservations,
+                total -> lblTotalReservations.setText(total + " Total Réservations"), Throwable::printStackTrace);
+        orchestrateur.lancer(reservationService::getChiffreAffairesDuJour,
+                ca -> lblChiffreAffaires.setText(String.format("%,.0f FCFA CA Aujourd'hui", ca)),
+                Throwable::printStackTrace);
+    }
+
+    // Les listes du jour sont déjà chargées : inutile de relancer les requêtes pour les compter
+    private void majCompteursDuJour() {
+        lblArriveesAujourdHui.setText(arriveesDuJour.size() + " Arrivées Aujourd'hui");
+        lblDepartsAujourdHui.setText(departsDuJour.size() + " Départs Aujourd'hui");
+    }
+
+    // Deux versions d'une même réservation diffèrent-elles sur une colonne affichée ?
+    private static boolean estModifiee(Reservation ancienne, Reservation nouvelle) {
+        return ancienne.getStatut() != nouvelle.getStatut()
+                || !Objects.equals(ancienne.getNumero(), nouvelle.getNumero())
+                || !Objects.equals(ancienne.getNomCompletClient(), nouvelle.getNomCompletClient())
+                || !Objects.equals(ancienne.getNumeroChambre(), nouvelle.getNumeroChambre())
+                || !Objects.equals(ancienne.getDateArrivee(), nouvelle.getDateArrivee())
+                || !Objects.equals(ancienne.getDateDepart(), nouvelle.getDateDepart())
+                || ancienne.getNombreNuits() != nouvelle.getNombreNuits()
+                || Double.compare(ancienne.getMontantTotal(), nouvelle.getMontantTotal()) != 0;
     }
 
     @FXML
@@ -205,32 +400,77 @@ public class ReservationController implements Initializable {
             stage.initModality(Modality.APPLICATION_MODAL);
             stage.showAndWait();
 
-            chargerToutesReservations();
-            chargerArriveesDuJour();
-            chargerDepartsDuJour();
-            chargerStatistiques();
+            rafraichir();
         } catch (IOException e) {
             e.printStackTrace();
             new Alert(Alert.AlertType.ERROR, "Impossible de charger le formulaire de réservation.").showAndWait();
         }
     }
 
+    // Import massif en arrière-plan : la fenêtre reste utilisable, le bouton affiche la progression
+    @FXML
+    private void handleImporter() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Importer des réservations");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Fichiers CSV", "*.csv"));
+        File fichier = chooser.showOpenDialog(btnImporter.getScene().getWindow());
+        if (fichier == null) return;
+
+        btnImporter.setDisable(true);
+        ExecuteurServices.appeler(() -> new ImportReservationService().importer(fichier.toPath(),
+                        lues -> Platform.runLater(() -> btnImporter.setText("Import… " + lues + " lignes"))))
+                .whenComplete((rapport, ex) -> Platform.runLater(() -> {
+                    terminerImport();
+                    if (ex != null) {
+                        ex.printStackTrace();
+                        new Alert(Alert.AlertType.ERROR, "Import impossible : " + ex.getMessage()).showAndWait();
+                        return;
+                    }
+                    afficherRapport(rapport);
+                    rafraichir();
+                }));
+    }
+
+    private void terminerImport() {
+        btnImporter.setDisable(false);
+        btnImporter.setText("Importer CSV");
+    }
+
+    private void afficherRapport(ImportReservationService.RapportImport rapport) {
+        StringBuilder message = new StringBuilder(String.format("%d ligne(s) lue(s), %d importée(s), %d rejetée(s) en %.1f s.",
+                rapport.lues(), rapport.importees(), rapport.rejetees(), rapport.dureeMs() / 1000.0));
+        if (rapport.fichierRejets() != null) {
+            message.append("\n\nRapport des rejets : ").append(rapport.fichierRejets());
+            rapport.premiersRejets().stream().limit(10).forEach(r ->
+                    message.append("\nLigne ").append(r.ligne()).append(" : ").append(r.motif()));
+        }
+        Alert alert = new Alert(rapport.rejetees() > 0 ? Alert.AlertType.WARNING : Alert.AlertType.INFORMATION,
+                message.toString());
+        alert.setHeaderText("Import terminé");
+        alert.showAndWait();
+    }
+
     @FXML
     private void handleFiltrer() {
         System.out.println("Filtrer avec : " + dateDebut.getValue() + " - " + dateFin.getValue() +
                 " - " + statutFilter.getValue() + " - " + recherche.getText());
     }
 
+    // La vue est conservée par VueCache : "Retour" masque simplement la fenêtre, le tableau de bord reste ouvert
     @FXML
     public void handleRetour(ActionEvent actionEvent) {
-        try {
-            Parent root = FXMLLoader.load(getClass().getResource("/fxml/Dashboard.fxml"));
-            Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-            stage.setScene(new Scene(root));
-            stage.show();
-        } catch (IOException e) {
-            e.printStackTrace();
-            new Alert(Alert.AlertType.ERROR, "Impossible de charger l'écran précédent.").showAndWait();
-        }
+        Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
+        stage.hide();
+    }
+
+    @Override
+    public void rafraichir() {
+        EvenementsJfr.rafraichissement(this, () -> {
+            orchestrateur.nouvelleSerie();
+            chargerToutesReservations();
+            chargerArriveesDuJour();
+            chargerDepartsDuJour();
+            chargerStatistiques();
+        });
     }
 }
@@ -1,19 +1,38 @@
 package sn.ouleymatou.hotelmanagement.controllers;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.chart.*;
 import javafx.scene.control.*;
 import javafx.scene.control.Alert.AlertType;
-import sn.ouleymatou.hotelmanagement.entities.Chambre;
+import sn.ouleymatou.hotelmanagement.services.AnalyseService;
 import sn.ouleymatou.hotelmanagement.services.ChambreService;
+import sn.ouleymatou.hotelmanagement.services.ClassementService;
+import sn.ouleymatou.hotelmanagement.services.ElementClassement;
+import sn.ouleymatou.hotelmanagement.services.FabriqueServices;
+import sn.ouleymatou.hotelmanagement.services.HistoriqueReservationService;
+import sn.ouleymatou.hotelmanagement.services.PeriodStats;
 import sn.ouleymatou.hotelmanagement.services.ReservationService;
+import sn.ouleymatou.hotelmanagement.services.SnapshotService;
+import sn.ouleymatou.hotelmanagement.utils.EvenementsJfr;
+import sn.ouleymatou.hotelmanagement.utils.ExecuteurServices;
+import sn.ouleymatou.hotelmanagement.utils.KpiOrchestrateur;
+import sn.ouleymatou.hotelmanagement.utils.Rafraichissable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-public class StatistiquesController {
+public class StatistiquesController implements Rafraichissable {
 
     @FXML private DatePicker dateDebutPicker;
     @FXML private DatePicker dateFinPicker;
@@ -32,8 +51,19 @@ public class StatistiquesController {
     @FXML private PieChart pieChartTypeChambre;
     @FXML private BarChart<String, Number> barChartOccupation;
 
-    private final ReservationService reservationService = new ReservationService();
-    private final ChambreService chambreService = new ChambreService();
+    @FXML private Button btnAnalyseDetaillee;
+    @FXML private Button btnArchiver;
+    @FXML private Button btnReconstruire;
+
+    private final ReservationService reservationService = FabriqueServices.reservations();
+    private final ChambreService chambreService = FabriqueServices.chambres();
+    private final ClassementService classementService = FabriqueServices.classements();
+    private final SnapshotService snapshotService = FabriqueServices.snapshots();
+    private final HistoriqueReservationService historiqueService = new HistoriqueReservationService();
+    private final AnalyseService analyseService = new AnalyseService();
+    private final KpiOrchestrateur orchestrateur = new KpiOrchestrateur();
+
+    private static final int TAILLE_CLASSEMENT = 10;
 
     @FXML
     public void initialize() {
@@ -41,6 +71,12 @@ public class StatistiquesController {
         LocalDate fin = LocalDate.now();
         dateDebutPicker.setValue(debut);
         dateFinPicker.setValue(fin);
+        // L'analyse en mémoire, l'archivage et la reconstruction travaillent directement sur la base :
+        // postes locaux uniquement
+        boolean modeClient = FabriqueServices.isModeClient();
+        btnAnalyseDetaillee.setDisable(modeClient);
+        btnArchiver.setDisable(modeClient);
+        btnReconstruire.setDisable(modeClient);
         chargerStatistiques(debut, fin);
     }
 
@@ -56,55 +92,199 @@ public class StatistiquesController {
         chargerStatistiques(debut, fin);
     }
 
+    // Réouverture depuis le tableau de bord : on recharge la période affichée
+    @Override
+    public void rafraichir() {
+        EvenementsJfr.rafraichissement(this, () -> {
+            LocalDate debut = dateDebutPicker.getValue();
+            LocalDate fin = dateFinPicker.getValue();
+            if (debut != null && fin != null && !fin.isBefore(debut)) {
+                chargerStatistiques(debut, fin);
+            }
+        });
+    }
+
+    // Chaque KPI et chaque graphique est calculé en parallèle et s'affiche dès que son résultat arrive
     private void chargerStatistiques(LocalDate debut, LocalDate fin) {
-        // Statistiques
-        chiffreAffairesLabel.setText(String.format("%.2f FCFA", reservationService.calculChiffreAffaires(debut, fin)));
-        tauxOccupationLabel.setText(String.format("%.2f %%", chambreService.calculTauxOccupation(debut, fin)));
+        orchestrateur.nouvelleSerie();
 
-        Chambre cMax = chambreService.getChambreLaPlusReservee(debut, fin);
-        chambrePlusReserveeLabel.setText(cMax != null ? cMax.getNumero() : "-");
+        // Statistiques : CA, durée moyenne, annulations et nuits vendues viennent d'un seul agrégat
+        // (instantanés locaux pour les années archivées, compteurs journaliers pour le reste)
+        List<Label> labelsPeriode = List.of(chiffreAffairesLabel, dureeMoyenneLabel, annulationsLabel, nbNuitsVenduesLabel);
+        labelsPeriode.forEach(label -> label.setText("…"));
+        orchestrateur.lancer(() -> snapshotService.getStatsPeriode(debut, fin), this::afficherStatsPeriode,
+                ex -> labelsPeriode.forEach(label -> label.setText("Erreur")));
+        kpi(tauxOccupationLabel, () -> chambreService.calculTauxOccupation(debut, fin),
+                taux -> String.format("%.2f %%", taux));
+        // Classements : le premier est affiché ; l'infobulle donne le top 10 de la période et, pour les top-k,
+        // celui de tout l'historique (mode approché, en mémoire)
+        classement(chambrePlusReserveeLabel, ClassementService.Dimension.CHAMBRE,
+                () -> classementService.topK(ClassementService.Dimension.CHAMBRE, debut, fin, TAILLE_CLASSEMENT));
+        classement(chambreMoinsReserveeLabel, null,
+                () -> classementService.bottomK(ClassementService.Dimension.CHAMBRE, debut, fin, TAILLE_CLASSEMENT));
+        classement(typeChambrePlusDemandeLabel, ClassementService.Dimension.TYPE_CHAMBRE,
+                () -> classementService.topK(ClassementService.Dimension.TYPE_CHAMBRE, debut, fin, TAILLE_CLASSEMENT));
+        classement(clientPlusFideleLabel, ClassementService.Dimension.CLIENT,
+                () -> classementService.topK(ClassementService.Dimension.CLIENT, debut, fin, TAILLE_CLASSEMENT));
 
-        Chambre cMin = chambreService.getChambreLaMoinsReservee(debut, fin);
-        chambreMoinsReserveeLabel.setText(cMin != null ? cMin.getNumero() : "-");
+        // Graphiques
+        graphique(lineChartReservations, () -> reservationService.getNombreReservationsParMois(debut, fin),
+                this::remplirLineChartReservations);
+        graphique(pieChartTypeChambre, () -> chambreService.getReservationsParTypeChambre(debut, fin),
+                this::remplirPieChartTypeChambre);
+        graphique(barChartOccupation, () -> chambreService.getTauxOccupationParMois(debut, fin),
+                this::remplirBarChartOccupation);
+    }
 
-        typeChambrePlusDemandeLabel.setText(chambreService.getTypeChambreLePlusDemande(debut, fin));
-        clientPlusFideleLabel.setText(reservationService.getClientLePlusFidele(debut, fin));
-        dureeMoyenneLabel.setText(String.format("%.1f nuit(s)", reservationService.getDureeMoyenneSejour(debut, fin)));
-        annulationsLabel.setText(String.valueOf(reservationService.getNombreAnnulations(debut, fin)));
-        nbNuitsVenduesLabel.setText(String.valueOf(reservationService.getNombreNuitsVendues(debut, fin)));
+    private void afficherStatsPeriode(PeriodStats stats) {
+        chiffreAffairesLabel.setText(String.format("%.2f FCFA", stats.chiffreAffaires()));
+        dureeMoyenneLabel.setText(String.format("%.1f nuit(s)", stats.dureeMoyenneSejour()));
+        annulationsLabel.setText(String.valueOf(stats.annulations()));
+        nbNuitsVenduesLabel.setText(String.valueOf(stats.nuitsVendues()));
+    }
 
-        // Graphiques
-        remplirLineChartReservations(debut, fin);
-        remplirPieChartTypeChambre(debut, fin);
-        remplirBarChartOccupation(debut, fin);
+    // Analyse détaillée : réservations de la période lues une fois en colonnes, indicateurs calculés en un
+    // parcours parallèle ; l'évolution est ventilée par mois de chaque année au lieu d'être cumulée par mois
+    @FXML
+    private void analyserPeriode() {
+        LocalDate debut = dateDebutPicker.getValue();
+        LocalDate fin = dateFinPicker.getValue();
+        if (debut == null || fin == null || fin.isBefore(debut)) {
+            showAlert("Erreur", "Veuillez sélectionner une période valide", AlertType.ERROR);
+            return;
+        }
+        // Lancée par l'utilisateur : hors de la série des KPI, le bouton est réactivé quelle que soit l'issue
+        btnAnalyseDetaillee.setDisable(true);
+        travail(() -> analyseService.analyser(debut, fin), (analyse, ex) -> {
+            btnAnalyseDetaillee.setDisable(false);
+            if (ex != null) {
+                showAlert("Erreur", "Analyse impossible : " + ex.getMessage(), AlertType.ERROR);
+                return;
+            }
+            // Période changée entre-temps : les indicateurs affichés sont ceux de la nouvelle période
+            if (!debut.equals(dateDebutPicker.getValue()) || !fin.equals(dateFinPicker.getValue())) return;
+            afficherStatsPeriode(analyse.stats());
+            Map<String, Integer> parMois = new LinkedHashMap<>();
+            analyse.reservationsParMois().forEach((mois, nb) -> parMois.put(mois.toString(), nb));
+            remplirLineChartReservations(parMois);
+            remplirPieChartTypeChambre(analyse.reservationsParType());
+        });
+    }
+
+    private <T> void kpi(Label label, Supplier<T> calcul, Function<T, String> format) {
+        label.setText("…");
+        label.setTooltip(null);
+        orchestrateur.lancer(calcul,
+                valeur -> label.setText(format.apply(valeur)),
+                ex -> {
+                    label.setText("Erreur");
+                    label.setTooltip(new Tooltip(ex.getMessage()));
+                });
     }
 
-    private void remplirLineChartReservations(LocalDate debut, LocalDate fin) {
+    private record Classements(List<ElementClassement> periode, List<ElementClassement> historique) {}
+
+    // historique : dimension du top-k "depuis l'ouverture" à joindre à l'infobulle, null pour aucun
+    private void classement(Label label, ClassementService.Dimension historique,
+                            Supplier<List<ElementClassement>> calcul) {
+        label.setText("…");
+        label.setTooltip(null);
+        orchestrateur.lancer(() -> new Classements(calcul.get(), historique == null ? List.of()
+                        : classementService.topKApproche(historique, TAILLE_CLASSEMENT)),
+                classements -> {
+                    List<ElementClassement> elements = classements.periode();
+                    label.setText(elements.isEmpty() ? "-" : elements.get(0).libelle());
+                    StringBuilder texte = new StringBuilder();
+                    lister(texte, elements);
+                    if (!classements.historique().isEmpty()) {
+                        texte.append("\nDepuis l'ouverture :\n");
+                        lister(texte, classements.historique());
+                    }
+                    if (!texte.isEmpty()) label.setTooltip(new Tooltip(texte.toString().trim()));
+                },
+                ex -> {
+                    label.setText("Erreur");
+                    label.setTooltip(new Tooltip(ex.getMessage()));
+                });
+    }
+
+    private static void lister(StringBuilder texte, List<ElementClassement> elements) {
+        for (int i = 0; i < elements.size(); i++) {
+            texte.append(i + 1).append(". ").append(elements.get(i)).append('\n');
+        }
+    }
+
+    private <T> void graphique(Chart chart, Supplier<T> calcul, Consumer<T> remplir) {
+        String titre = (String) chart.getProperties().computeIfAbsent("titre", k -> chart.getTitle());
+        chart.setTitle(titre);
+        orchestrateur.lancer(calcul, remplir, ex -> chart.setTitle(titre + " (indisponible)"));
+    }
+
+    private void remplirLineChartReservations(Map<String, Integer> data) {
         lineChartReservations.getData().clear();
         XYChart.Series<String, Number> serie = new XYChart.Series<>();
         serie.setName("Réservations");
-        Map<String, Integer> data = reservationService.getNombreReservationsParMois(debut, fin);
         data.forEach((mois, nb) -> serie.getData().add(new XYChart.Data<>(mois, nb)));
         lineChartReservations.getData().add(serie);
     }
 
-    private void remplirPieChartTypeChambre(LocalDate debut, LocalDate fin) {
+    private void remplirPieChartTypeChambre(Map<String, Integer> parType) {
         pieChartTypeChambre.getData().clear();
-        Map<String, Integer> parType = chambreService.getReservationsParTypeChambre(debut, fin);
         ObservableList<PieChart.Data> items = FXCollections.observableArrayList();
         parType.forEach((type, nb) -> items.add(new PieChart.Data(type, nb)));
         pieChartTypeChambre.setData(items);
     }
 
-    private void remplirBarChartOccupation(LocalDate debut, LocalDate fin) {
+    private void remplirBarChartOccupation(Map<String, Double> tauxParMois) {
         barChartOccupation.getData().clear();
         XYChart.Series<String, Number> serie = new XYChart.Series<>();
         serie.setName("Taux d'occupation");
-        Map<String, Double> tauxParMois = chambreService.getTauxOccupationParMois(debut, fin);
         tauxParMois.forEach((mois, taux) -> serie.getData().add(new XYChart.Data<>(mois, taux)));
         barChartOccupation.getData().add(serie);
     }
 
+    /**
+     * Travail lancé par l'utilisateur (écritures, traitements longs) : hors de la série des KPI, il n'est ni annulé
+     * par un rafraîchissement ni limité dans le temps (une interruption fermerait sa connexion en plein travail).
+     * {@code fin} reçoit le résultat ou l'erreur sur le thread JavaFX, dans tous les cas.
+     */
+    private static <T> void travail(Supplier<T> tache, BiConsumer<T, Throwable> fin) {
+        ExecuteurServices.appeler(tache).whenComplete((resultat, ex) -> Platform.runLater(() -> fin.accept(resultat, ex)));
+    }
+
+    // Archive les années closes en instantanés locaux (hors thread JavaFX)
+    @FXML
+    private void archiverAnneesCloses() {
+        btnArchiver.setDisable(true);
+        travail(() -> {
+            try {
+                return snapshotService.exporterAnneesCloses();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, (nb, ex) -> {
+            btnArchiver.setDisable(false);
+            if (ex != null) showAlert("Erreur", "Archivage impossible : " + ex.getMessage(), AlertType.ERROR);
+            else showAlert("Archivage", nb + " année(s) archivée(s).", AlertType.INFORMATION);
+        });
+    }
+
+    // Recalcule les compteurs journaliers en rejouant le journal des événements, puis recharge la période
+    @FXML
+    private void reconstruireStatistiques() {
+        // Une seule reconstruction à la fois : elle verrouille le journal des événements jusqu'à la fin
+        btnReconstruire.setDisable(true);
+        travail(historiqueService::reconstruireProjections, (nb, ex) -> {
+            btnReconstruire.setDisable(false);
+            if (ex != null) {
+                showAlert("Erreur", "Reconstruction impossible : " + ex.getMessage(), AlertType.ERROR);
+                return;
+            }
+            showAlert("Statistiques", nb + " événement(s) rejoué(s).", AlertType.INFORMATION);
+            rafraichir();
+        });
+    }
+
     // Bouton "Exporter PDF" présent dans le FXML : on évite une erreur si iText n'est pas configuré
     @FXML
     private void exporterPDF() {
@@ -0,0 +1,139 @@
+package sn.ouleymatou.hotelmanagement.controllers;
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.fxml.FXML;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import sn.ouleymatou.hotelmanagement.utils.EvenementsJfr;
+import sn.ouleymatou.hotelmanagement.utils.JPAUtils;
+import sn.ouleymatou.hotelmanagement.utils.JournalRequetesLentes;
+import sn.ouleymatou.hotelmanagement.utils.Rafraichissable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Fenêtre d'administration : statistiques Hibernate (hibernate.generate_statistics) et seuil du journal
+ * des requêtes lentes.
+ */
+public class StatistiquesHibernateController implements Rafraichissable {
+
+    public record LigneRequete(String requete, long executions, long moyenneMs, long maxMs, long lignes) {}
+
+    public record LigneEntite(String entite, long chargements, long recuperations, long insertions,
+                              long misesAJour, long suppressions) {}
+
+    @FXML private Label lblSessions;
+    @FXML private Label lblTransactions;
+    @FXML private Label lblRequetes;
+    @FXML private Label lblRequeteMax;
+    @FXML private Label lblEntites;
+    @FXML private Label lblCacheN2;
+    @FXML private Label lblCacheRequetes;
+    @FXML private TextField seuilField;
+    @FXML private TableView<LigneRequete> tableRequetes;
+    @FXML private TableView<LigneEntite> tableEntites;
+
+    @FXML
+    public void initialize() {
+        TableColumn<LigneRequete, Object> colRequete = colonne("Requête", LigneRequete::requete);
+        colRequete.setPrefWidth(560);
+        tableRequetes.getColumns().setAll(List.of(colRequete,
+                colonne("Exécutions", LigneRequete::executions),
+                colonne("Moyenne (ms)", LigneRequete::moyenneMs),
+                colonne("Max (ms)", LigneRequete::maxMs),
+                colonne("Lignes", LigneRequete::lignes)));
+
+        TableColumn<LigneEntite, Object> colEntite = colonne("Entité", LigneEntite::entite);
+        colEntite.setPrefWidth(320);
+        tableEntites.getColumns().setAll(List.of(colEntite,
+                colonne("Chargements", LigneEntite::chargements),
+                colonne("Récupérations", LigneEntite::recuperations),
+                colonne("Insertions", LigneEntite::insertions),
+                colonne("Mises à jour", LigneEntite::misesAJour),
+                colonne("Suppressions", LigneEntite::suppressions)));
+
+        seuilField.setText(String.valueOf(JournalRequetesLentes.getSeuilMs()));
+        rafraichir();
+    }
+
+    private static <S> TableColumn<S, Object> colonne(String titre, Function<S, Object> valeur) {
+        TableColumn<S, Object> col = new TableColumn<>(titre);
+        col.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(valeur.apply(c.getValue())));
+        return col;
+    }
+
+    @Override
+    public void rafraichir() {
+        EvenementsJfr.rafraichissement(this, () -> {
+            Statistics stats = statistiques();
+            if (!stats.isStatisticsEnabled()) {
+                lblRequetes.setText("désactivées (profil " + JPAUtils.getConfiguration().getProfil() + ")");
+                return;
+            }
+            lblSessions.setText(String.valueOf(stats.getSessionOpenCount()));
+            lblTransactions.setText(String.valueOf(stats.getTransactionCount()));
+            lblRequetes.setText(String.valueOf(stats.getQueryExecutionCount()));
+            lblRequeteMax.setText(stats.getQueryExecutionMaxTime() > 0
+                    ? stats.getQueryExecutionMaxTime() + " ms : " + stats.getQueryExecutionMaxTimeQueryString()
+                    : "-");
+            lblEntites.setText(stats.getEntityLoadCount() + " / " + stats.getEntityFetchCount());
+            lblCacheN2.setText(ratio(stats.getSecondLevelCacheHitCount(), stats.getSecondLevelCacheMissCount()));
+            lblCacheRequetes.setText(ratio(stats.getQueryCacheHitCount(), stats.getQueryCacheMissCount()));
+
+            List<LigneRequete> requetes = new ArrayList<>();
+            for (String requete : stats.getQueries()) {
+                QueryStatistics q = stats.getQueryStatistics(requete);
+                requetes.add(new LigneRequete(requete, q.getExecutionCount(), q.getExecutionAvgTime(),
+                        q.getExecutionMaxTime(), q.getExecutionRowCount()));
+            }
+            requetes.sort(Comparator.comparingLong(LigneRequete::maxMs).reversed());
+            tableRequetes.getItems().setAll(requetes);
+
+            List<LigneEntite> entites = new ArrayList<>();
+            for (String nom : stats.getEntityNames()) {
+                EntityStatistics e = stats.getEntityStatistics(nom);
+                entites.add(new LigneEntite(nom.substring(nom.lastIndexOf('.') + 1), e.getLoadCount(),
+                        e.getFetchCount(), e.getInsertCount(), e.getUpdateCount(), e.getDeleteCount()));
+            }
+            tableEntites.getItems().setAll(entites);
+        });
+    }
+
+    @FXML
+    private void handleRafraichir() {
+        rafraichir();
+    }
+
+    @FXML
+    private void handleReinitialiser() {
+        statistiques().clear();
+        rafraichir();
+    }
+
+    @FXML
+    private void handleSeuil() {
+        try {
+            JournalRequetesLentes.setSeuilMs(Math.max(0, Long.parseLong(seuilField.getText().trim())));
+        } catch (NumberFormatException e) {
+            seuilField.setText(String.valueOf(JournalRequetesLentes.getSeuilMs()));
+        }
+    }
+
+    private static Statistics statistiques() {
+        return JPAUtils.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private static String ratio(long succes, long echecs) {
+        long total = succes + echecs;
+        return total == 0 ? "non utilisé" : String.format("%.1f %% (%d / %d)", 100.0 * succes / total, succes, total);
+    }
+}
@@ -0,0 +1,126 @@
+package sn.ouleymatou.hotelmanagement.entities;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Audit de nuit d'une journée : avancement (pour reprendre un audit interrompu) et bilan.
+ *
+ * <p>Une seule ligne par jour. Le poste qui traite l'audit en est le propriétaire et renouvelle son bail
+ * ({@code battement}) après chaque lot ; un autre poste ne reprend l'audit qu'une fois le bail expiré.
+ */
+@Entity
+@Table(name = "audits_nuit")
+public class AuditNuit {
+
+    public enum Statut { EN_COURS, TERMINE }
+
+    @Id
+    @Column(name = "jour")
+    private LocalDate jour;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "statut", nullable = false, length = 20)
+    private Statut statut;
+
+    @Column(name = "proprietaire", length = 64)
+    private String proprietaire;
+
+    @Column(name = "battement")
+    private LocalDateTime battement;
+
+    @Column(name = "debut", nullable = false)
+    private LocalDateTime debut;
+
+    @Column(name = "fin")
+    private LocalDateTime fin;
+
+    // ==== Traitements (cumulés sur les reprises) ====
+
+    // Séjours en cours dont le départ était dû : check-out automatique
+    @Column(name = "departs", nullable = false)
+    private int departs;
+
+    // Réservations confirmées dont l'arrivée était due : no-show
+    @Column(name = "no_shows", nullable = false)
+    private int noShows;
+
+    // Chambres dont le statut ne correspondait plus aux séjours en cours
+    @Column(name = "chambres_corrigees", nullable = false)
+    private int chambresCorrigees;
+
+    // ==== Bilan de la journée (compteurs journaliers à la clôture) ====
+
+    @Column(name = "arrivees", nullable = false)
+    private long arrivees;
+
+    @Column(name = "chiffre_affaires", nullable = false)
+    private double chiffreAffaires;
+
+    @Column(name = "nuitees_occupees", nullable = false)
+    private long nuiteesOccupees;
+
+    @Column(name = "total_chambres", nullable = false)
+    private long totalChambres;
+
+    public AuditNuit() {
+    }
+
+    public AuditNuit(LocalDate jour, LocalDateTime debut) {
+        this.jour = jour;
+        this.debut = debut;
+        this.statut = Statut.EN_COURS;
+    }
+
+    // Taux d'occupation de la nuit, en pourcentage
+    public double getTauxOccupation() {
+        return totalChambres == 0 ? 0 : (double) nuiteesOccupees / totalChambres * 100;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Audit du %s : %d départ(s), %d no-show(s), %d chambre(s) corrigée(s), " +
+                        "%d arrivée(s), CA %,.0f FCFA, occupation %.1f %%",
+                jour, departs, noShows, chambresCorrigees, arrivees, chiffreAffaires, getTauxOccupation());
+    }
+
+    // ==== Getters et Setters ====
+    public LocalDate getJour() { return jour; }
+
+    public Statut getStatut() { return statut; }
+    public void setStatut(Statut statut) { this.statut = statut; }
+
+    public String getProprietaire() { return proprietaire; }
+    public void setProprietaire(String proprietaire) { this.proprietaire = proprietaire; }
+
+    public LocalDateTime getBattement() { return battement; }
+    public void setBattement(LocalDateTime battement) { this.battement = battement; }
+
+    public LocalDateTime getDebut() { return debut; }
+
+    public LocalDateTime getFin() { return fin; }
+    public void setFin(LocalDateTime fin) { this.fin = fin; }
+
+    public int getDeparts() { return departs; }
+    public void setDeparts(int departs) { this.departs = departs; }
+
+    public int getNoShows() { return noShows; }
+    public void setNoShows(int noShows) { this.noShows = noShows; }
+
+    public int getChambresCorrigees() { return chambresCorrigees; }
+    public void setChambresCorrigees(int chambresCorrigees) { this.chambresCorrigees = chambresCorrigees; }
+
+    public long getArrivees() { return arrivees; }
+    public void setArrivees(long arrivees) { this.arrivees = arrivees; }
+
+    public double getChiffreAffaires() { return chiffreAffaires; }
+    public void setChiffreAffaires(double chiffreAffaires) { this.chiffreAffaires = chiffreAffaires; }
+
+    public long getNuiteesOccupees() { return nuiteesOccupees; }
+    public void setNuiteesOccupees(long nuiteesOccupees) { this.nuiteesOccupees = nuiteesOccupees; }
+
+    public long getTotalChambres() { return totalChambres; }
+    public void setTotalChambres(long totalChambres) { this.totalChambres = totalChambres; }
+}
@@ -45,7 +45,7 @@ public class Chambre {
     private LocalDate dateDerniereRenovation;
 
     @CreationTimestamp
-    @Column(name = "date_creation")
+    @Column(name = "date_creation", updatable = false)
     private LocalDate dateCreation;
 
     @OneToMany(mappedBy = "chambre", cascade = CascadeType.ALL)
@@ -61,6 +61,10 @@ public class Chambre {
         return id;
     }
 
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getNumero() {
         return numero;
     }
@@ -0,0 +1,103 @@
+package sn.ouleymatou.hotelmanagement.entities;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.regex.Pattern;
+
+@Entity
+@Table(name = "clients", indexes = {
+        @Index(name = "idx_client_telephone", columnList = "telephone"),
+        @Index(name = "idx_client_email", columnList = "email")
+})
+public class Client {
+
+    private static final Pattern NON_CHIFFRES = Pattern.compile("\\D");
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Identité dédoublonnée : téléphone normalisé, ou email normalisé à défaut
+    @Column(name = "cle_identite", nullable = false, unique = true, length = 150)
+    private String cleIdentite;
+
+    @Column(name = "nom", nullable = false)
+    private String nom;
+
+    @Column(name = "prenom", nullable = false)
+    private String prenom;
+
+    @Column(name = "telephone", length = 20)
+    private String telephone;
+
+    @Column(name = "email")
+    private String email;
+
+    @CreationTimestamp
+    @Column(name = "date_creation")
+    private LocalDateTime dateCreation;
+
+    public Client() {
+    }
+
+    public Client(String nom, String prenom, String telephone, String email) {
+        this.nom = nom;
+        this.prenom = prenom;
+        this.telephone = normaliserTelephone(telephone);
+        this.email = normaliserEmail(email);
+        this.cleIdentite = cleIdentite(telephone, email);
+    }
+
+    // ==== Normalisation ====
+
+    // Ne garde que les chiffres et retire l'indicatif du Sénégal (+221 / 00221)
+    public static String normaliserTelephone(String telephone) {
+        if (telephone == null) return null;
+        String chiffres = NON_CHIFFRES.matcher(telephone).replaceAll("");
+        if (chiffres.startsWith("00221")) chiffres = chiffres.substring(5);
+        else if (chiffres.startsWith("221") && chiffres.length() == 12) chiffres = chiffres.substring(3);
+        return chiffres.isEmpty() ? null : chiffres;
+    }
+
+    public static String normaliserEmail(String email) {
+        if (email == null) return null;
+        String e = email.trim().toLowerCase();
+        return e.isEmpty() ? null : e;
+    }
+
+    public static String cleIdentite(String telephone, String email) {
+        String tel = normaliserTelephone(telephone);
+        if (tel != null) return "T:" + tel;
+        String mail = normaliserEmail(email);
+        return mail != null ? "E:" + mail : null;
+    }
+
+    // ==== Getters & Setters ====
+    public Long getId() { return id; }
+
+    public String getCleIdentite() { return cleIdentite; }
+
+    public String getNom() { return nom; }
+    public void setNom(String nom) { this.nom = nom; }
+
+    public String getPrenom() { return prenom; }
+    public void setPrenom(String prenom) { this.prenom = prenom; }
+
+    public String getTelephone() { return telephone; }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = normaliserEmail(email); }
+
+    public LocalDateTime getDateCreation() { return dateCreation; }
+
+    public String getNomComplet() {
+        return (nom != null ? nom : "") + " " + (prenom != null ? prenom : "");
+    }
+
+    @Override
+    public String toString() {
+        return getNomComplet() + (telephone != null ? " – " + telephone : "");
+    }
+}
@@ -0,0 +1,85 @@
+package sn.ouleymatou.hotelmanagement.entities;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection : état courant d'une réservation tiré du journal des événements, avec les heures réelles
+ * d'arrivée et de départ. Table reconstructible à tout moment en rejouant le journal.
+ */
+@Entity
+@Table(name = "projection_reservations")
+public class EtatReservation {
+
+    @Id
+    @Column(name = "reservation_id")
+    private Long reservationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "statut", nullable = false)
+    private Reservation.StatutReservation statut;
+
+    @Column(name = "chambre_id", nullable = false)
+    private Long chambreId;
+
+    @Column(name = "date_arrivee", nullable = false)
+    private LocalDateTime dateArrivee;
+
+    @Column(name = "date_depart", nullable = false)
+    private LocalDateTime dateDepart;
+
+    @Column(name = "montant_total", nullable = false)
+    private double montantTotal;
+
+    @Column(name = "nombre_nuits", nullable = false)
+    private int nombreNuits;
+
+    // Heures réelles du check-in et du check-out
+    @Column(name = "date_check_in")
+    private LocalDateTime dateCheckIn;
+
+    @Column(name = "date_check_out")
+    private LocalDateTime dateCheckOut;
+
+    // Dernier événement appliqué
+    @Column(name = "dernier_evenement", nullable = false)
+    private long dernierEvenement;
+
+    public EtatReservation() {
+    }
+
+    public EtatReservation(Long reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    // ==== Getters & Setters ====
+    public Long getReservationId() { return reservationId; }
+
+    public Reservation.StatutReservation getStatut() { return statut; }
+    public void setStatut(Reservation.StatutReservation statut) { this.statut = statut; }
+
+    public Long getChambreId() { return chambreId; }
+    public void setChambreId(Long chambreId) { this.chambreId = chambreId; }
+
+    public LocalDateTime getDateArrivee() { return dateArrivee; }
+    public void setDateArrivee(LocalDateTime dateArrivee) { this.dateArrivee = dateArrivee; }
+
+    public LocalDateTime getDateDepart() { return dateDepart; }
+    public void setDateDepart(LocalDateTime dateDepart) { this.dateDepart = dateDepart; }
+
+    public double getMontantTotal() { return montantTotal; }
+    public void setMontantTotal(double montantTotal) { this.montantTotal = montantTotal; }
+
+    public int getNombreNuits() { return nombreNuits; }
+    public void setNombreNuits(int nombreNuits) { this.nombreNuits = nombreNuits; }
+
+    public LocalDateTime getDateCheckIn() { return dateCheckIn; }
+    public void setDateCheckIn(LocalDateTime dateCheckIn) { this.dateCheckIn = dateCheckIn; }
+
+    public LocalDateTime getDateCheckOut() { return dateCheckOut; }
+    public void setDateCheckOut(LocalDateTime dateCheckOut) { this.dateCheckOut = dateCheckOut; }
+
+    public long getDernierEvenement() { return dernierEvenement; }
+    public void setDernierEvenement(long dernierEvenement) { this.dernierEvenement = dernierEvenement; }
+}
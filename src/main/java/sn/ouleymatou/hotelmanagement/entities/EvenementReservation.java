@@ -0,0 +1,111 @@
+package sn.ouleymatou.hotelmanagement.entities;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Événement du journal des réservations : ajouté dans la transaction qui modifie la réservation, jamais modifié
+ * ni supprimé ensuite. Il porte l'état complet de la réservation après le changement (statut, chambre, dates,
+ * montant) : les projections se reconstruisent à partir du seul journal.
+ */
+@Entity
+@Table(name = "reservation_evenements", indexes = {
+        @Index(name = "idx_evenement_reservation", columnList = "reservation_id, id")
+})
+public class EvenementReservation {
+
+    public enum Type {
+        CREATION,
+        CHECK_IN,
+        CHECK_OUT,
+        ANNULATION,
+        CHANGEMENT_CHAMBRE,
+        NO_SHOW,
+        // Dates modifiées (et éventuellement chambre)
+        MODIFICATION
+    }
+
+    // IDENTITY : les événements d'une même réservation, écrits sous son verrou, sont numérotés dans l'ordre des validations
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "reservation_id", nullable = false)
+    private Reservation reservation;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type_evenement", nullable = false, length = 30)
+    private Type type;
+
+    // Heure du fait (saisie hors ligne comprise), pas celle de l'écriture en base
+    @Column(name = "horodatage", nullable = false)
+    private LocalDateTime horodatage;
+
+    // ==== État de la réservation après l'événement ====
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "statut", nullable = false)
+    private Reservation.StatutReservation statut;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "chambre_id", nullable = false)
+    private Chambre chambre;
+
+    @Column(name = "date_arrivee", nullable = false)
+    private LocalDateTime dateArrivee;
+
+    @Column(name = "date_depart", nullable = false)
+    private LocalDateTime dateDepart;
+
+    @Column(name = "montant_total", nullable = false)
+    private double montantTotal;
+
+    @Column(name = "nombre_nuits", nullable = false)
+    private int nombreNuits;
+
+    // Événement déduit de l'état d'une réservation antérieure au journal (horodatage approché)
+    @Column(name = "reconstitue", nullable = false)
+    private boolean reconstitue;
+
+    public EvenementReservation() {
+    }
+
+    public EvenementReservation(Type type, Reservation reservation, Reservation.StatutReservation statut,
+                                LocalDateTime horodatage) {
+        this.type = type;
+        this.reservation = reservation;
+        this.statut = statut;
+        this.horodatage = horodatage;
+        this.chambre = reservation.getChambre();
+        this.dateArrivee = reservation.getDateArrivee();
+        this.dateDepart = reservation.getDateDepart();
+        this.montantTotal = reservation.getMontantTotal();
+        this.nombreNuits = reservation.getNombreNuits();
+    }
+
+    // ==== Getters ====
+    public Long getId() { return id; }
+
+    public Reservation getReservation() { return reservation; }
+
+    public Type getType() { return type; }
+
+    public LocalDateTime getHorodatage() { return horodatage; }
+
+    public Reservation.StatutReservation getStatut() { return statut; }
+
+    public Chambre getChambre() { return chambre; }
+
+    public LocalDateTime getDateArrivee() { return dateArrivee; }
+
+    public LocalDateTime getDateDepart() { return dateDepart; }
+
+    public double getMontantTotal() { return montantTotal; }
+
+    public int getNombreNuits() { return nombreNuits; }
+
+    public boolean isReconstitue() { return reconstitue; }
+    public void setReconstitue(boolean reconstitue) { this.reconstitue = reconstitue; }
+}
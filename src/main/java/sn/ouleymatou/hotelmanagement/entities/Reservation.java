@@ -4,7 +4,12 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reservations")
+@Table(name = "reservations", indexes = {
+        @Index(name = "idx_reservation_client", columnList = "client_id"),
+        // Statut en tête : égalité puis plage de dates, les lignes d'un jour sont contiguës dans l'index
+        @Index(name = "idx_reservation_statut_arrivee", columnList = "statut, date_arrivee"),
+        @Index(name = "idx_reservation_statut_depart", columnList = "statut, date_depart")
+})
 public class Reservation {
 
     @Id
@@ -55,13 +60,43 @@ public class Reservation {
     @JoinColumn(name = "chambre_id", nullable = false)
     private Chambre chambre;
 
+    // Client dédoublonné (renseigné à l'enregistrement ou par la migration de rattachement)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "client_id")
+    private Client client;
+
+    // Le code est écrit dans les instantanés annuels : ne jamais le changer ni le réattribuer
     public enum StatutReservation {
-        CONFIRMEE,
-        EN_COURS,
-        TERMINEE,
-        ANNULEE
+        CONFIRMEE(1),
+        EN_COURS(2),
+        TERMINEE(3),
+        ANNULEE(4),
+        NO_SHOW(5);
+
+        private final byte code;
+
+        StatutReservation(int code) {
+            this.code = (byte) code;
+        }
+
+        public byte getCode() {
+            return code;
+        }
+
+        // La réservation bloque-t-elle sa chambre ?
+        public boolean estActif() {
+            return this == CONFIRMEE || this == EN_COURS;
+        }
     }
 
+    /**
+     * Prédicat JPQL (alias {@code r}) des réservations qui bloquent leur chambre. Écrit avec des littéraux, et non
+     * un paramètre, pour que PostgreSQL reconnaisse le prédicat de l'index partiel idx_reservation_actives_chambre.
+     */
+    public static final String JPQL_ACTIVES =
+            "r.statut IN (sn.ouleymatou.hotelmanagement.entities.Reservation.StatutReservation.CONFIRMEE, " +
+                    "sn.ouleymatou.hotelmanagement.entities.Reservation.StatutReservation.EN_COURS)";
+
     // ==== Constructeurs ====
     public Reservation() {
     }
@@ -132,6 +167,9 @@ public class Reservation {
     public Chambre getChambre() { return chambre; }
     public void setChambre(Chambre chambre) { this.chambre = chambre; }
 
+    public Client getClient() { return client; }
+    public void setClient(Client client) { this.client = client; }
+
     // ==== Méthodes utilitaires ====
     public String getNomCompletClient() {
         return (nomClient != null ? nomClient : "") + " " + (prenomClient != null ? prenomClient : "");
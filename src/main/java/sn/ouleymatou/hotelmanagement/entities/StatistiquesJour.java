@@ -0,0 +1,82 @@
+package sn.ouleymatou.hotelmanagement.entities;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Projection : compteurs d'une journée tirés du journal des événements de réservation.
+ *
+ * <p>Arrivées, chiffre d'affaires, nuits vendues et annulations sont comptés au jour d'arrivée prévu
+ * (mêmes règles que les statistiques de période) ; les nuitées au jour de chaque nuit ; check-in et check-out
+ * au jour où ils ont réellement eu lieu. Mise à jour par incréments atomiques (voir HistoriqueReservationService).
+ */
+@Entity
+@Table(name = "projection_jours")
+public class StatistiquesJour {
+
+    @Id
+    @Column(name = "jour")
+    private LocalDate jour;
+
+    @Column(name = "arrivees", nullable = false)
+    private long arrivees;
+
+    @Column(name = "chiffre_affaires", nullable = false)
+    private double chiffreAffaires;
+
+    @Column(name = "nuits_vendues", nullable = false)
+    private long nuitsVendues;
+
+    @Column(name = "annulations", nullable = false)
+    private long annulations;
+
+    // Chambres réservées pour la nuit (ni annulées, ni no-show)
+    @Column(name = "nuitees_reservees", nullable = false)
+    private long nuiteesReservees;
+
+    // Chambres réellement occupées pour la nuit, du check-in au check-out
+    @Column(name = "nuitees_occupees", nullable = false)
+    private long nuiteesOccupees;
+
+    @Column(name = "check_ins", nullable = false)
+    private long checkIns;
+
+    @Column(name = "check_outs", nullable = false)
+    private long checkOuts;
+
+    public StatistiquesJour() {
+    }
+
+    public StatistiquesJour(LocalDate jour, long arrivees, double chiffreAffaires, long nuitsVendues, long annulations,
+                            long nuiteesReservees, long nuiteesOccupees, long checkIns, long checkOuts) {
+        this.jour = jour;
+        this.arrivees = arrivees;
+        this.chiffreAffaires = chiffreAffaires;
+        this.nuitsVendues = nuitsVendues;
+        this.annulations = annulations;
+        this.nuiteesReservees = nuiteesReservees;
+        this.nuiteesOccupees = nuiteesOccupees;
+        this.checkIns = checkIns;
+        this.checkOuts = checkOuts;
+    }
+
+    // ==== Getters ====
+    public LocalDate getJour() { return jour; }
+
+    public long getArrivees() { return arrivees; }
+
+    public double getChiffreAffaires() { return chiffreAffaires; }
+
+    public long getNuitsVendues() { return nuitsVendues; }
+
+    public long getAnnulations() { return annulations; }
+
+    public long getNuiteesReservees() { return nuiteesReservees; }
+
+    public long getNuiteesOccupees() { return nuiteesOccupees; }
+
+    public long getCheckIns() { return checkIns; }
+
+    public long getCheckOuts() { return checkOuts; }
+}
@@ -40,6 +40,10 @@ public class TypeChambre {
         return id;
     }
 
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getCode() {
         return code;
     }
@@ -0,0 +1,103 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+import jakarta.persistence.EntityManager;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.utils.AgregationParallele;
+import sn.ouleymatou.hotelmanagement.utils.ColonnesReservations;
+import sn.ouleymatou.hotelmanagement.utils.JPAUtils;
+import sn.ouleymatou.hotelmanagement.utils.Metriques;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Analyse en mémoire d'une longue période : les réservations sont lues une seule fois en colonnes
+ * primitives, puis tous les indicateurs sont calculés en un parcours parallèle (fork/join),
+ * au lieu d'une requête d'agrégat par indicateur.
+ */
+public class AnalyseService {
+
+    public record Analyse(PeriodStats stats,
+                          Map<YearMonth, Integer> reservationsParMois,
+                          Map<YearMonth, Double> chiffreAffairesParMois,
+                          Map<String, Integer> reservationsParType) {}
+
+    public ColonnesReservations chargerColonnes(LocalDate debut, LocalDate fin) {
+        YearMonth premierMois = YearMonth.from(debut);
+        int nbMois = (int) ChronoUnit.MONTHS.between(premierMois, YearMonth.from(fin)) + 1;
+
+        EntityManager em = JPAUtils.getEntityManager();
+        try {
+            List<String> libelles = em.createQuery(
+                    "SELECT t.libelle FROM TypeChambre t ORDER BY t.id", String.class).getResultList();
+            Map<String, Integer> indexTypes = new HashMap<>();
+            for (int i = 0; i < libelles.size(); i++) indexTypes.put(libelles.get(i), i);
+
+            long total = em.createQuery(
+                            "SELECT COUNT(r) FROM Reservation r WHERE r.dateArrivee >= :start AND r.dateArrivee < :end",
+                            Long.class)
+                    .setParameter("start", debut.atStartOfDay())
+                    .setParameter("end", fin.plusDays(1).atStartOfDay())
+                    .getSingleResult();
+
+            ColonnesReservations colonnes = new ColonnesReservations((int) total, nbMois, libelles.toArray(new String[0]));
+            try (Stream<Object[]> lignes = em.createQuery(
+                            "SELECT r.dateArrivee, r.montantTotal, r.nombreNuits, r.statut, r.chambre.typeChambre.libelle " +
+                                    "FROM Reservation r WHERE r.dateArrivee >= :start AND r.dateArrivee < :end",
+                            Object[].class)
+                    .setParameter("start", debut.atStartOfDay())
+                    .setParameter("end", fin.plusDays(1).atStartOfDay())
+                    .setHint("org.hibernate.fetchSize", 5000)
+                    .setHint("org.hibernate.readOnly", true)
+                    .getResultStream()) {
+                lignes.forEach(l -> {
+                    LocalDateTime arrivee = (LocalDateTime) l[0];
+                    int mois = (arrivee.getYear() - premierMois.getYear()) * 12
+                            + arrivee.getMonthValue() - premierMois.getMonthValue();
+                    colonnes.ajouter(mois,
+                            ((Number) l[1]).floatValue(),
+                            ((Number) l[2]).shortValue(),
+                            ((Reservation.StatutReservation) l[3]).getCode(),
+                            indexTypes.get((String) l[4]));
+                });
+            }
+            return colonnes;
+        } finally {
+            if (em.isOpen()) em.close();
+        }
+    }
+
+    public Analyse analyser(LocalDate debut, LocalDate fin) {
+        return Metriques.mesurer("AnalyseService.analyser", () -> analyser(chargerColonnes(debut, fin), debut));
+    }
+
+    // Agrégation des colonnes déjà chargées (premier mois de la période : celui de debut)
+    static Analyse analyser(ColonnesReservations colonnes, LocalDate debut) {
+        AgregationParallele.Accumulateur acc = AgregationParallele.executer(colonnes,
+                Reservation.StatutReservation.ANNULEE.getCode());
+
+        YearMonth premierMois = YearMonth.from(debut);
+        Map<YearMonth, Integer> parMois = new LinkedHashMap<>();
+        Map<YearMonth, Double> caParMois = new LinkedHashMap<>();
+        for (int m = 0; m < colonnes.nbMois(); m++) {
+            parMois.put(premierMois.plusMonths(m), acc.parMois[m]);
+            caParMois.put(premierMois.plusMonths(m), acc.chiffreAffairesParMois[m]);
+        }
+        Map<String, Integer> parType = new LinkedHashMap<>();
+        String[] types = colonnes.libellesTypes();
+        for (int t = 0; t < types.length; t++) {
+            if (acc.parType[t] > 0) parType.put(types[t], acc.parType[t]);
+        }
+
+        PeriodStats stats = new PeriodStats(acc.nombre, acc.chiffreAffaires, acc.dureeMoyenne(),
+                acc.nuits, acc.annulations);
+        return new Analyse(stats, parMois, caParMois, parType);
+    }
+}
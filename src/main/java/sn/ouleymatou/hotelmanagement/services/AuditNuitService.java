@@ -0,0 +1,328 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.LockModeType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import sn.ouleymatou.hotelmanagement.entities.AuditNuit;
+import sn.ouleymatou.hotelmanagement.entities.Chambre;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.entities.StatistiquesJour;
+import sn.ouleymatou.hotelmanagement.utils.ConfigurationPersistance;
+import sn.ouleymatou.hotelmanagement.utils.JPAUtils;
+import sn.ouleymatou.hotelmanagement.utils.Metriques;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Audit de nuit : clôture d'une journée sans intervention de la réception.
+ *
+ * <ul>
+ *   <li>séjours en cours dont le départ était prévu au plus tard ce jour : check-out daté du départ prévu ;</li>
+ *   <li>réservations confirmées dont l'arrivée était prévue au plus tard ce jour : no-show ;</li>
+ *   <li>statut des chambres réaligné sur les séjours en cours ;</li>
+ *   <li>bilan de la journée relevé dans les compteurs journaliers et enregistré dans {@link AuditNuit}.</li>
+ * </ul>
+ *
+ * <p>Les transitions passent par les traitements groupés de ReservationService, par lots de {@value #TAILLE_LOT} :
+ * chaque lot est une transaction courte (événements, projections et compteurs de l'audit compris), les réservations
+ * déjà traitées ne sont plus éligibles. Un audit interrompu reprend donc là où il s'était arrêté, avec des compteurs
+ * exacts.
+ */
+public class AuditNuitService {
+
+    private static final Logger LOG = LogManager.getLogger(AuditNuitService.class);
+
+    private static final int TAILLE_LOT = 500;
+
+    // Sans battement depuis ce délai, l'audit d'un autre poste est considéré comme interrompu
+    private static final Duration DUREE_BAIL = Duration.ofMinutes(5);
+
+    // Identifie ce processus comme propriétaire d'un audit
+    private static final String INSTANCE = UUID.randomUUID().toString();
+
+    private static ScheduledExecutorService planificateur;
+
+    private final ReservationService reservations = new ReservationService();
+    private final HistoriqueReservationService historique = new HistoriqueReservationService();
+
+    // Planification selon hotel.audit.actif et hotel.audit.heure (02:00 par défaut)
+    public static void planifierSelonConfiguration() {
+        ConfigurationPersistance config = JPAUtils.getConfiguration();
+        if ("false".equalsIgnoreCase(config.get("hotel.audit.actif"))) return;
+        String heure = config.get("hotel.audit.heure");
+        planifier(heure != null && !heure.isBlank() ? LocalTime.parse(heure.trim()) : LocalTime.of(2, 0));
+    }
+
+    /**
+     * Démarre l'audit quotidien à {@code heure} pour la veille, après avoir rattrapé les audits restés inachevés
+     * (poste arrêté, audit interrompu) et celui de la veille s'il n'a pas été fait.
+     */
+    public static synchronized void planifier(LocalTime heure) {
+        if (planificateur != null) return;
+        planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "audit-nuit");
+            t.setDaemon(true);
+            return t;
+        });
+        planificateur.execute(AuditNuitService::rattraper);
+        programmer(heure);
+    }
+
+    // Replanifié chaque jour : le délai reste juste malgré les changements d'heure
+    private static void programmer(LocalTime heure) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        LocalDateTime prochain = maintenant.toLocalDate().atTime(heure);
+        if (!prochain.isAfter(maintenant)) prochain = prochain.plusDays(1);
+        planificateur.schedule(() -> {
+            auditerVeille();
+            programmer(heure);
+        }, Duration.between(maintenant, prochain).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static void auditerVeille() {
+        auditer(LocalDate.now().minusDays(1));
+    }
+
+    // Au démarrage : chaque audit non terminé des jours précédents, du plus ancien au plus récent, puis la veille
+    private static void rattraper() {
+        LocalDate veille = LocalDate.now().minusDays(1);
+        try {
+            for (LocalDate jour : new AuditNuitService().getJoursNonTermines()) {
+                if (jour.isBefore(veille)) auditer(jour);
+            }
+        } catch (Exception e) {
+            LOG.error("Recherche des audits de nuit inachevés impossible", e);
+        }
+        auditer(veille);
+    }
+
+    private static void auditer(LocalDate jour) {
+        try {
+            AuditNuit audit = new AuditNuitService().executer(jour);
+            if (audit != null) LOG.info("{}", audit);
+        } catch (Exception e) {
+            LOG.error("Échec de l'audit de nuit du {}", jour, e);
+        }
+    }
+
+    /**
+     * Exécute (ou reprend) l'audit de {@code jour}.
+     *
+     * @return le bilan, ou null si un autre poste est en train de faire cet audit
+     */
+    public AuditNuit executer(LocalDate jour) {
+        return Metriques.mesurer("AuditNuitService.executer", () -> {
+            AuditNuit audit = prendre(jour);
+            if (audit == null || audit.getStatut() == AuditNuit.Statut.TERMINE) return audit;
+
+            LocalDateTime finJour = jour.plusDays(1).atStartOfDay();
+            // Départ prévu dans la journée : le check-out est daté du départ prévu, pas de l'heure de l'audit
+            traiter(jour, Reservation.StatutReservation.EN_COURS, "r.dateDepart < :fin", finJour,
+                    ReservationService.Changement.CHECK_OUT, r -> r.getDateDepart(),
+                    (a, n) -> a.setDeparts(a.getDeparts() + n));
+            traiter(jour, Reservation.StatutReservation.CONFIRMEE, "r.dateArrivee < :fin", finJour,
+                    ReservationService.Changement.NO_SHOW, r -> finJour.minusMinutes(1),
+                    (a, n) -> a.setNoShows(a.getNoShows() + n));
+            int corrigees = realignerChambres();
+            return cloturer(jour, corrigees);
+        });
+    }
+
+    // Dernier audit enregistré, ou null s'il n'y en a encore aucun
+    public AuditNuit getDernierAudit() {
+        return Metriques.mesurer("AuditNuitService.getDernierAudit", () -> {
+            EntityManager em = JPAUtils.getEntityManager();
+            try {
+                List<AuditNuit> audits = em.createQuery("SELECT a FROM AuditNuit a ORDER BY a.jour DESC", AuditNuit.class)
+                        .setMaxResults(1)
+                        .getResultList();
+                return audits.isEmpty() ? null : audits.get(0);
+            } finally {
+                if (em.isOpen()) em.close();
+            }
+        });
+    }
+
+    // Jours dont l'audit a commencé sans être terminé, du plus ancien au plus récent
+    public List<LocalDate> getJoursNonTermines() {
+        return Metriques.mesurer("AuditNuitService.getJoursNonTermines", () -> {
+            EntityManager em = JPAUtils.getEntityManager();
+            try {
+                return em.createQuery("SELECT a.jour FROM AuditNuit a WHERE a.statut <> :termine ORDER BY a.jour",
+                                LocalDate.class)
+                        .setParameter("termine", AuditNuit.Statut.TERMINE)
+                        .getResultList();
+            } finally {
+                if (em.isOpen()) em.close();
+            }
+        });
+    }
+
+    /**
+     * Prend l'audit du jour pour ce poste : créé s'il n'existe pas, repris si son bail a expiré.
+     * Rend l'audit tel quel s'il est terminé, null s'il est tenu par un autre poste.
+     */
+    private AuditNuit prendre(LocalDate jour) {
+        EntityManager em = JPAUtils.getEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            LocalDateTime maintenant = LocalDateTime.now();
+            // Création sans erreur si deux postes démarrent l'audit en même temps ; le verrou départage ensuite
+            em.createNativeQuery("INSERT INTO audits_nuit (jour, statut, debut, departs, no_shows, chambres_corrigees, " +
+                            "arrivees, chiffre_affaires, nuitees_occupees, total_chambres) " +
+                            "VALUES (?1, 'EN_COURS', ?2, 0, 0, 0, 0, 0, 0, 0) ON CONFLICT (jour) DO NOTHING")
+                    .setParameter(1, jour)
+                    .setParameter(2, maintenant)
+                    .executeUpdate();
+            AuditNuit audit = em.find(AuditNuit.class, jour, LockModeType.PESSIMISTIC_WRITE);
+            if (audit.getStatut() == AuditNuit.Statut.EN_COURS && audit.getProprietaire() != null
+                    && !INSTANCE.equals(audit.getProprietaire()) && audit.getBattement() != null
+                    && audit.getBattement().isAfter(maintenant.minus(DUREE_BAIL))) {
+                tx.commit();
+                return null;
+            }
+            if (audit.getStatut() == AuditNuit.Statut.EN_COURS) {
+                if (audit.getProprietaire() != null && !INSTANCE.equals(audit.getProprietaire())) {
+                    LOG.warn("Reprise de l'audit du {} interrompu sur un autre poste", jour);
+                }
+                audit.setProprietaire(INSTANCE);
+                audit.setBattement(maintenant);
+            }
+            tx.commit();
+            return audit;
+        } catch (Exception e) {
+            if (tx.isActive()) tx.rollback();
+            throw new RuntimeException("Erreur lors de la prise de l'audit de nuit : " + e.getMessage(), e);
+        } finally {
+            if (em.isOpen()) em.close();
+        }
+    }
+
+    /**
+     * Fait passer par lots les réservations {@code statut} vérifiant {@code condition} (paramètre {@code :fin}).
+     * Parcours par identifiant croissant : une réservation laissée inchangée (modifiée entre-temps à la réception)
+     * n'est pas relue.
+     */
+    private void traiter(LocalDate jour, Reservation.StatutReservation statut, String condition, LocalDateTime fin,
+                         ReservationService.Changement changement,
+                         Function<Reservation, LocalDateTime> horodatage,
+                         BiConsumer<AuditNuit, Integer> compter) {
+        long dernier = 0;
+        while (true) {
+            List<Long> lot = idsEligibles(statut, condition, fin, dernier);
+            if (lot.isEmpty()) return;
+            reservations.transitionGroupe(lot, changement, horodatage,
+                    (em, traitees) -> battre(em, jour, a -> compter.accept(a, traitees)));
+            dernier = lot.get(lot.size() - 1);
+        }
+    }
+
+    private List<Long> idsEligibles(Reservation.StatutReservation statut, String condition, LocalDateTime fin,
+                                    long apres) {
+        EntityManager em = JPAUtils.getEntityManager();
+        try {
+            return em.createQuery("SELECT r.id FROM Reservation r WHERE r.statut = :statut AND " + condition +
+                            " AND r.id > :apres ORDER BY r.id", Long.class)
+                    .setParameter("statut", statut)
+                    .setParameter("fin", fin)
+                    .setParameter("apres", apres)
+                    .setMaxResults(TAILLE_LOT)
+                    .getResultList();
+        } finally {
+            if (em.isOpen()) em.close();
+        }
+    }
+
+    // Renouvelle le bail et cumule les compteurs, dans la transaction du lot : validés ou annulés avec lui.
+    // Un audit repris entre-temps par un autre poste (bail expiré) annule le lot
+    private static void battre(EntityManager em, LocalDate jour, Consumer<AuditNuit> maj) {
+        AuditNuit audit = em.find(AuditNuit.class, jour, LockModeType.PESSIMISTIC_WRITE);
+        exigerProprietaire(audit);
+        maj.accept(audit);
+        audit.setBattement(LocalDateTime.now());
+    }
+
+    private static void exigerProprietaire(AuditNuit audit) {
+        if (!INSTANCE.equals(audit.getProprietaire())) {
+            throw new IllegalStateException("audit du " + audit.getJour() + " repris par un autre poste");
+        }
+    }
+
+    /**
+     * Chambres marquées occupées sans séjour en cours, ou libres avec un séjour en cours : deux UPDATE ensemblistes.
+     * Les chambres en maintenance ou hors service ne sont pas touchées.
+     */
+    private int realignerChambres() {
+        EntityManager em = JPAUtils.getEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            int liberees = em.createQuery("UPDATE Chambre c SET c.statut = :libre WHERE c.statut = :occupee AND " +
+                            "NOT EXISTS (SELECT r FROM Reservation r WHERE r.chambre = c AND r.statut = :enCours)")
+                    .setParameter("libre", Chambre.StatutChambre.LIBRE)
+                    .setParameter("occupee", Chambre.StatutChambre.OCCUPEE)
+                    .setParameter("enCours", Reservation.StatutReservation.EN_COURS)
+                    .executeUpdate();
+            int occupees = em.createQuery("UPDATE Chambre c SET c.statut = :occupee WHERE c.statut = :libre AND " +
+                            "EXISTS (SELECT r FROM Reservation r WHERE r.chambre = c AND r.statut = :enCours)")
+                    .setParameter("libre", Chambre.StatutChambre.LIBRE)
+                    .setParameter("occupee", Chambre.StatutChambre.OCCUPEE)
+                    .setParameter("enCours", Reservation.StatutReservation.EN_COURS)
+                    .executeUpdate();
+            tx.commit();
+            return liberees + occupees;
+        } catch (Exception e) {
+            if (tx.isActive()) tx.rollback();
+            throw new RuntimeException("Erreur lors du réalignement des chambres : " + e.getMessage(), e);
+        } finally {
+            if (em.isOpen()) em.close();
+        }
+    }
+
+    // Bilan de la journée tiré des compteurs journaliers, déjà à jour des transitions de l'audit
+    private AuditNuit cloturer(LocalDate jour, int chambresCorrigees) {
+        List<StatistiquesJour> compteurs = historique.getJours(jour, jour);
+        EntityManager em = JPAUtils.getEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            AuditNuit audit = em.find(AuditNuit.class, jour, LockModeType.PESSIMISTIC_WRITE);
+            // Comme battre : un audit repris entre-temps par un autre poste est clôturé par lui
+            exigerProprietaire(audit);
+            long totalChambres = em.createQuery("SELECT COUNT(c) FROM Chambre c", Long.class).getSingleResult();
+            audit.setChambresCorrigees(audit.getChambresCorrigees() + chambresCorrigees);
+            audit.setTotalChambres(totalChambres);
+            if (!compteurs.isEmpty()) {
+                StatistiquesJour j = compteurs.get(0);
+                audit.setArrivees(j.getArrivees());
+                audit.setChiffreAffaires(j.getChiffreAffaires());
+                audit.setNuiteesOccupees(j.getNuiteesOccupees());
+            }
+            audit.setStatut(AuditNuit.Statut.TERMINE);
+            audit.setFin(LocalDateTime.now());
+            tx.commit();
+            Metriques.compteur("AuditNuitService.departs").add(audit.getDeparts());
+            Metriques.compteur("AuditNuitService.noShows").add(audit.getNoShows());
+            return audit;
+        } catch (Exception e) {
+            if (tx.isActive()) tx.rollback();
+            throw new RuntimeException("Erreur lors de la clôture de l'audit de nuit : " + e.getMessage(), e);
+        } finally {
+            if (em.isOpen()) em.close();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import sn.ouleymatou.hotelmanagement.entities.Chambre;
+import sn.ouleymatou.hotelmanagement.entities.Client;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.utils.JPAUtils;
+import sn.ouleymatou.hotelmanagement.utils.SpaceSaving;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Classements top-k / bottom-k des clients, chambres et types de chambres.
+ * <ul>
+ *     <li>Mode exact : GROUP BY limité à k lignes, sans charger d'entités ; les clients sont
+ *     regroupés par identifiant (jointure indexée sur client_id) et non plus par nom.</li>
+ *     <li>Mode approché : sketch Space-Saving alimenté à chaque nouvelle réservation,
+ *     en mémoire constante sur tout l'historique (top-k uniquement). Sert les classements "depuis l'ouverture"
+ *     de l'écran de statistiques ; tant que les sketches ne sont pas amorcés, la requête exacte répond.</li>
+ * </ul>
+ */
+public class ClassementService {
+
+    public enum Dimension {
+        // Libellé affiché, clé de regroupement, colonne de date filtrée (identique aux anciennes requêtes)
+        CLIENT("CONCAT(r.client.nom, ' ', r.client.prenom)",
+                "r.client.id, r.client.nom, r.client.prenom", "r.dateArrivee"),
+        CHAMBRE("r.chambre.numero", "r.chambre.numero", "r.dateReservation"),
+        TYPE_CHAMBRE("r.chambre.typeChambre.libelle", "r.chambre.typeChambre.libelle", "r.dateReservation");
+
+        private final String expression;
+        private final String regroupement;
+        private final String colonneDate;
+
+        Dimension(String expression, String regroupement, String colonneDate) {
+            this.expression = expression;
+            this.regroupement = regroupement;
+            this.colonneDate = colonneDate;
+        }
+    }
+
+    // Clé des sketches pour les clients : le nom seul confondrait les homonymes
+    private static final String CLE_CLIENT_APPROCHE =
+            "CONCAT(r.client.nom, ' ', r.client.prenom, ' (', r.client.telephone, ')')";
+
+    // Nombre de compteurs par sketch : garantit les éléments de fréquence > 1/512 du total
+    private static final int CAPACITE_SKETCH = 512;
+
+    private static final Map<Dimension, SpaceSaving<String>> sketches = new EnumMap<>(Dimension.class);
+    private static volatile boolean modeApprocheActif = false;
+    // Vrai une fois l'amorçage de la génération courante terminé
+    private static volatile boolean sketchesPrets = false;
+
+    // Incrémentée à chaque (ré)amorçage : un amorçage dépassé s'arrête sans toucher aux sketches vidés
+    private static int generation;
+
+    static {
+        for (Dimension d : Dimension.values()) {
+            sketches.put(d, new SpaceSaving<>(CAPACITE_SKETCH));
+        }
+    }
+
+    // -------------------- Mode exact --------------------
+
+    public List<ElementClassement> topK(Dimension dimension, LocalDate debut, LocalDate fin, int k) {
+        return classer(dimension, debut, fin, k, "DESC");
+    }
+
+    public List<ElementClassement> bottomK(Dimension dimension, LocalDate debut, LocalDate fin, int k) {
+        return classer(dimension, debut, fin, k, "ASC");
+    }
+
+    private List<ElementClassement> classer(Dimension dimension, LocalDate debut, LocalDate fin, int k, String ordre) {
+        EntityManager em = JPAUtils.getEntityManager();
+        try {
+            // Sans bornes : tout l'historique
+            boolean periode = debut != null;
+            TypedQuery<Object[]> query = em.createQuery(
+                    "SELECT " + dimension.expression + ", COUNT(r) FROM Reservation r " +
+                            (periode ? "WHERE " + dimension.colonneDate + " >= :start AND " +
+                                    dimension.colonneDate + " < :end " : "") +
+                            "GROUP BY " + dimension.regroupement + " ORDER BY COUNT(r) " + ordre, Object[].class);
+            if (periode) {
+                query.setParameter("start", debut.atStartOfDay());
+                query.setParameter("end", fin.plusDays(1).atStartOfDay());
+            }
+            query.setMaxResults(k);
+            return query.getResultList().stream()
+                    .map(row -> new ElementClassement((String) row[0], ((Number) row[1]).longValue()))
+                    .toList();
+        } finally {
+            if (em.isOpen()) em.close();
+        }
+    }
+
+    // -------------------- Mode approché --------------------
+
+    /**
+     * Active le suivi incrémental : les sketches sont amorcés par un parcours unique de l'historique
+     * (en arrière-plan), puis mis à jour à chaque réservation enregistrée.
+     */
+    public static synchronized void activerModeApproche() {
+        if (modeApprocheActif) return;
+        modeApprocheActif = true;
+        ReservationService.ajouterEcouteur((changement, r) -> {
+            if (changement == ReservationService.Changement.CREATION) observer(r);
+        });
+
+        lancerAmorce();
+    }
+
+    /**
+     * Recalcule les classements approchés depuis l'historique (après un import massif, qui ne notifie pas ligne à ligne).
+     */
+    public static synchronized void reamorcer() {
+        if (!modeApprocheActif) return;
+        sketches.values().forEach(SpaceSaving::vider);
+        lancerAmorce();
+    }
+
+    // Appelée sous le verrou de la classe
+    private static void lancerAmorce() {
+        int gen = ++generation;
+        sketchesPrets = false;
+        Thread amorce = new Thread(() -> amorcer(gen), "amorce-classements");
+        amorce.setDaemon(true);
+        amorce.start();
+    }
+
+    /**
+     * Top-k sur tout l'historique, lu dans le sketch (nombres surestimés d'au plus {@code erreurMax}) ;
+     * requête exacte tant que le mode approché n'est pas actif ou pas encore amorcé.
+     */
+    public List<ElementClassement> topKApproche(Dimension dimension, int k) {
+        if (!modeApprocheActif || !sketchesPrets) return classer(dimension, null, null, k, "DESC");
+        return sketches.get(dimension).topK(k).stream()
+                .map(e -> new ElementClassement(e.cle(), e.nombre(), e.erreurMax()))
+                .toList();
+    }
+
+    private static void observer(Reservation r) {
+        Client client = r.getClient();
+        if (client != null) {
+            sketches.get(Dimension.CLIENT).ajouter(client.getNomComplet() + " (" + client.getTelephone() + ")");
+        }
+        Chambre chambre = r.getChambre();
+        if (chambre != null) {
+            sketches.get(Dimension.CHAMBRE).ajouter(chambre.getNumero());
+            if (chambre.getTypeChambre() != null) {
+                sketches.get(Dimension.TYPE_CHAMBRE).ajouter(chambre.getTypeChambre().getLibelle());
+            }
+        }
+    }
+
+    private static void amorcer(int gen) {
+        EntityManager em = JPAUtils.getEntityManager();
+        try (Stream<Object[]> lignes = em.createQuery(
+                        "SELECT " + CLE_CLIENT_APPROCHE + ", " + Dimension.CHAMBRE.expression + ", " +
+                                Dimension.TYPE_CHAMBRE.expression + " FROM Reservation r", Object[].class)
+                .setHint("org.hibernate.fetchSize", 1000)
+                .getResultStream()) {
+            Iterator<Object[]> it = lignes.iterator();
+            while (it.hasNext()) {
+                Object[] row = it.next();
+                // Même verrou que reamorcer : aucune ligne d'un amorçage dépassé n'arrive après le vidage
+                synchronized (ClassementService.class) {
+                    if (gen != generation) return;
+                    sketches.get(Dimension.CLIENT).ajouter((String) row[0]);
+                    sketches.get(Dimension.CHAMBRE).ajouter((String) row[1]);
+                    sketches.get(Dimension.TYPE_CHAMBRE).ajouter((String) row[2]);
+                }
+            }
+            synchronized (ClassementService.class) {
+                if (gen == generation) sketchesPrets = true;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            if (em.isOpen()) em.close();
+        }
+    }
+}
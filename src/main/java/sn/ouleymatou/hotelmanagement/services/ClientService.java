@@ -0,0 +1,189 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import sn.ouleymatou.hotelmanagement.entities.Client;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.utils.JPAUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class ClientService {
+
+    // Taille des lots de la migration de rattachement
+    private static final int TAILLE_LOT = 500;
+
+    private static final String INSERT_CLIENT =
+            "INSERT INTO clients (cle_identite, nom, prenom, telephone, email, date_creation) " +
+                    "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (cle_identite) DO NOTHING";
+
+    // Cache mémoire pour l'autocomplétion : par identité, par téléphone et par "nom prénom"
+    private static final Map<String, Client> parCle = new ConcurrentHashMap<>();
+    private static final NavigableMap<String, Client> parTelephone = new ConcurrentSkipListMap<>();
+    private static final NavigableMap<String, Client> parNom = new ConcurrentSkipListMap<>();
+    private static volatile boolean cacheCharge = false;
+
+    /**
+     * Retrouve le client correspondant aux coordonnées de la réservation, ou le crée.
+     * À appeler dans la transaction qui enregistre la réservation.
+     * Comme l'import, l'insertion s'appuie sur la contrainte unique de cle_identite : deux postes qui créent
+     * le même client au même moment obtiennent la même ligne au lieu d'un échec de la seconde transaction.
+     */
+    public Client trouverOuCreer(EntityManager em, Reservation reservation) {
+        String cle = Client.cleIdentite(reservation.getTelephone(), reservation.getEmail());
+        if (cle == null) return null;
+
+        List<Client> existants = chercher(em, cle);
+        if (existants.isEmpty()) {
+            Client nouveau = new Client(reservation.getNomClient(), reservation.getPrenomClient(),
+                    reservation.getTelephone(), reservation.getEmail());
+            em.createNativeQuery(INSERT_CLIENT)
+                    .setParameter(1, cle)
+                    .setParameter(2, nouveau.getNom())
+                    .setParameter(3, nouveau.getPrenom())
+                    .setParameter(4, nouveau.getTelephone())
+                    .setParameter(5, nouveau.getEmail())
+                    .setParameter(6, LocalDateTime.now())
+                    .executeUpdate();
+            existants = chercher(em, cle);
+            if (existants.isEmpty()) throw new IllegalStateException("Client introuvable après insertion : " + cle);
+        }
+
+        Client client = existants.get(0);
+        if (client.getEmail() == null && reservation.getEmail() != null) {
+            client.setEmail(reservation.getEmail());
+        }
+        return client;
+    }
+
+    private static List<Client> chercher(EntityManager em, String cle) {
+        return em.createQuery("SELECT c FROM Client c WHERE c.cleIdentite = :cle", Client.class)
+                .setParameter("cle", cle)
+                .getResultList();
+    }
+
+    /**
+     * Migration : rattache à un client toutes les réservations qui n'en ont pas encore.
+     * Traitée par lots dans des transactions courtes, parcourus par identifiant croissant : les réservations sans
+     * téléphone ni email exploitable restent sans client sans bloquer les suivantes. Relancer la méthode reprend
+     * là où elle s'est arrêtée.
+     *
+     * @return le nombre de réservations rattachées
+     */
+    public int rattacherReservations() {
+        int total = 0;
+        long dernier = 0;
+        while (true) {
+            EntityManager em = JPAUtils.getEntityManager();
+            EntityTransaction tx = em.getTransaction();
+            try {
+                tx.begin();
+                List<Reservation> lot = em.createQuery(
+                                "SELECT r FROM Reservation r WHERE r.client IS NULL AND r.id > :dernier ORDER BY r.id",
+                                Reservation.class)
+                        .setParameter("dernier", dernier)
+                        .setMaxResults(TAILLE_LOT)
+                        .getResultList();
+                int rattachees = 0;
+                // Les clients créés (insérés immédiatement) sont retrouvés par les lignes suivantes du lot
+                for (Reservation r : lot) {
+                    Client client = trouverOuCreer(em, r);
+                    if (client != null) {
+                        r.setClient(client);
+                        rattachees++;
+                    }
+                }
+                tx.commit();
+                total += rattachees;
+                if (lot.size() < TAILLE_LOT) return total;
+                dernier = lot.get(lot.size() - 1).getId();
+            } catch (Exception e) {
+                if (tx.isActive()) tx.rollback();
+                throw new RuntimeException("Erreur lors du rattachement des clients : " + e.getMessage(), e);
+            } finally {
+                if (em.isOpen()) em.close();
+            }
+        }
+    }
+
+    // -------------------- Cache d'autocomplétion --------------------
+
+    /**
+     * Charge une fois l'ensemble des clients en mémoire (appel idempotent).
+     */
+    public static void chargerCache() {
+        if (cacheCharge) return;
+        synchronized (ClientService.class) {
+            if (cacheCharge) return;
+            EntityManager em = JPAUtils.getEntityManager();
+            try {
+                em.createQuery("SELECT c FROM Client c", Client.class)
+                        .getResultStream()
+                        .forEach(ClientService::memoriser);
+                cacheCharge = true;
+            } finally {
+                if (em.isOpen()) em.close();
+            }
+        }
+    }
+
+    /**
+     * Oublie le cache (après un import massif) : il sera rechargé à la prochaine autocomplétion.
+     */
+    public static void invaliderCache() {
+        synchronized (ClientService.class) {
+            cacheCharge = false;
+            parCle.clear();
+            parTelephone.clear();
+            parNom.clear();
+        }
+    }
+
+    public static void memoriser(Client client) {
+        if (client == null || client.getCleIdentite() == null) return;
+        Client ancien = parCle.put(client.getCleIdentite(), client);
+        if (ancien != null) {
+            parNom.remove(cleNom(ancien));
+        }
+        if (client.getTelephone() != null) parTelephone.put(client.getTelephone(), client);
+        parNom.put(cleNom(client), client);
+    }
+
+    /**
+     * Clients dont le téléphone (si la saisie est numérique) ou le "nom prénom" commence par la saisie.
+     * Recherche par plage dans des maps triées : coût logarithmique, sans requête en base.
+     */
+    public static List<Client> rechercher(String saisie, int max) {
+        if (saisie == null || saisie.isBlank()) return List.of();
+        String prefixe = saisie.trim();
+
+        NavigableMap<String, Client> index;
+        if (prefixe.chars().allMatch(Character::isDigit)) {
+            index = parTelephone;
+        } else {
+            index = parNom;
+            prefixe = prefixe.toLowerCase(Locale.ROOT);
+        }
+
+        Set<Client> resultat = new LinkedHashSet<>();
+        for (Client c : index.subMap(prefixe, true, prefixe + Character.MAX_VALUE, false).values()) {
+            resultat.add(c);
+            if (resultat.size() >= max) break;
+        }
+        return new ArrayList<>(resultat);
+    }
+
+    // Suffixe par identité : deux homonymes restent deux entrées distinctes
+    private static String cleNom(Client c) {
+        return (c.getNomComplet().trim() + "#" + c.getCleIdentite()).toLowerCase(Locale.ROOT);
+    }
+}
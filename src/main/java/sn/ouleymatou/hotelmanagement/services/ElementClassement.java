@@ -0,0 +1,17 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+/**
+ * Une ligne d'un classement (client, chambre ou type de chambre) avec son nombre de réservations.
+ * En mode approché, {@code nombre} peut être surestimé d'au plus {@code erreurMax}.
+ */
+public record ElementClassement(String libelle, long nombre, long erreurMax) {
+
+    public ElementClassement(String libelle, long nombre) {
+        this(libelle, nombre, 0);
+    }
+
+    @Override
+    public String toString() {
+        return erreurMax > 0 ? libelle + " (" + (nombre - erreurMax) + " à " + nombre + ")" : libelle + " (" + nombre + ")";
+    }
+}
@@ -0,0 +1,14 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+/**
+ * Une erreur de saisie, rattachée au champ concerné pour que l'interface puisse le signaler.
+ */
+public record ErreurValidation(Champ champ, String message) {
+
+    public enum Champ { NUMERO, NOM, PRENOM, TELEPHONE, EMAIL, DATES, CHAMBRE, PERSONNES, ACOMPTE }
+
+    @Override
+    public String toString() {
+        return message;
+    }
+}
@@ -0,0 +1,78 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+import sn.ouleymatou.hotelmanagement.api.ChambreServiceDistant;
+import sn.ouleymatou.hotelmanagement.api.ClassementServiceDistant;
+import sn.ouleymatou.hotelmanagement.api.ClientApi;
+import sn.ouleymatou.hotelmanagement.api.ReservationServiceDistant;
+import sn.ouleymatou.hotelmanagement.api.SnapshotServiceDistant;
+import sn.ouleymatou.hotelmanagement.api.TypeChambreServiceDistant;
+import sn.ouleymatou.hotelmanagement.api.UserServiceDistant;
+import sn.ouleymatou.hotelmanagement.utils.ConfigurationPersistance;
+import sn.ouleymatou.hotelmanagement.utils.JPAUtils;
+
+import java.time.Duration;
+
+/**
+ * Fournit aux contrôleurs les services selon le mode du poste ({@code hotel.mode}) :
+ * <ul>
+ *     <li>{@code local} (par défaut) : services JPA, connexion directe à la base ;</li>
+ *     <li>{@code client} : services distants, appelés sur le serveur d'application {@code hotel.api.url}
+ *     (voir {@code ServeurApi}) ; le poste n'ouvre alors aucune connexion pour ces services.</li>
+ * </ul>
+ * Les opérations sans équivalent distant (import, archivage, reconstruction des statistiques, statistiques
+ * Hibernate) sont désactivées dans les écrans en mode client ({@link #isModeClient()}).
+ */
+public final class FabriqueServices {
+
+    private static ClientApi api;
+    private static Boolean modeClient;
+
+    private FabriqueServices() {}
+
+    public static synchronized boolean isModeClient() {
+        if (modeClient == null) {
+            modeClient = "client".equalsIgnoreCase(JPAUtils.getConfiguration().get("hotel.mode"));
+        }
+        return modeClient;
+    }
+
+    private static synchronized ClientApi api() {
+        if (api == null) {
+            ConfigurationPersistance config = JPAUtils.getConfiguration();
+            String url = config.get("hotel.api.url") != null ? config.get("hotel.api.url") : "http://127.0.0.1:8085";
+            api = new ClientApi(url, config.get("hotel.api.jeton"),
+                    Duration.ofSeconds(config.getLong("hotel.api.delaiSecondes", 30)));
+        }
+        return api;
+    }
+
+    // En mode local, les réservations passent par le journal hors ligne si la base devient injoignable
+    public static ReservationService reservations() {
+        if (isModeClient()) return new ReservationServiceDistant(api());
+        return isHorsLigneActif() ? new ReservationServiceHorsLigne() : new ReservationService();
+    }
+
+    private static boolean isHorsLigneActif() {
+        return !"false".equalsIgnoreCase(JPAUtils.getConfiguration().get("hotel.horsLigne.actif"));
+    }
+
+    public static ChambreService chambres() {
+        return isModeClient() ? new ChambreServiceDistant(api()) : new ChambreService();
+    }
+
+    public static TypeChambreService typesChambre() {
+        return isModeClient() ? new TypeChambreServiceDistant(api()) : new TypeChambreService();
+    }
+
+    public static UserService utilisateurs() {
+        return isModeClient() ? new UserServiceDistant(api()) : new UserService();
+    }
+
+    public static ClassementService classements() {
+        return isModeClient() ? new ClassementServiceDistant(api()) : new ClassementService();
+    }
+
+    public static SnapshotService snapshots() {
+        return isModeClient() ? new SnapshotServiceDistant(api()) : new SnapshotService();
+    }
+}
@@ -0,0 +1,408 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.LockModeType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import sn.ouleymatou.hotelmanagement.entities.EtatReservation;
+import sn.ouleymatou.hotelmanagement.entities.EvenementReservation;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.entities.StatistiquesJour;
+import sn.ouleymatou.hotelmanagement.utils.JPAUtils;
+import sn.ouleymatou.hotelmanagement.utils.Metriques;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Journal des événements de réservation et projections qui en sont tirées.
+ *
+ * <p>Chaque changement d'état d'une réservation ajoute un {@link EvenementReservation} dans la transaction qui
+ * le fait. Dans cette même transaction, l'état courant ({@link EtatReservation}) et les compteurs des seuls jours
+ * touchés ({@link StatistiquesJour}) sont mis à jour. Les statistiques se lisent alors dans quelques lignes par
+ * jour au lieu de parcourir les réservations. {@link #reconstruireProjections()} vide les projections et rejoue
+ * tout le journal.
+ */
+public class HistoriqueReservationService {
+
+    private static final Logger LOG = LogManager.getLogger(HistoriqueReservationService.class);
+
+    // Taille des lots de l'amorçage et de la relecture du journal
+    private static final int TAILLE_LOT = 1000;
+
+    // Incréments atomiques : deux postes qui touchent le même jour ne perdent aucune mise à jour
+    private static final String INCREMENTER_JOUR =
+            "INSERT INTO projection_jours (jour, arrivees, chiffre_affaires, nuits_vendues, annulations, " +
+                    "nuitees_reservees, nuitees_occupees, check_ins, check_outs) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (jour) DO UPDATE SET " +
+                    "arrivees = projection_jours.arrivees + EXCLUDED.arrivees, " +
+                    "chiffre_affaires = projection_jours.chiffre_affaires + EXCLUDED.chiffre_affaires, " +
+                    "nuits_vendues = projection_jours.nuits_vendues + EXCLUDED.nuits_vendues, " +
+                    "annulations = projection_jours.annulations + EXCLUDED.annulations, " +
+                    "nuitees_reservees = projection_jours.nuitees_reservees + EXCLUDED.nuitees_reservees, " +
+                    "nuitees_occupees = projection_jours.nuitees_occupees + EXCLUDED.nuitees_occupees, " +
+                    "check_ins = projection_jours.check_ins + EXCLUDED.check_ins, " +
+                    "check_outs = projection_jours.check_outs + EXCLUDED.check_outs";
+
+    // Événements de création des réservations importées, écrits en une requête (voir ImportReservationService)
+    private static final String JOURNALISER_CREATIONS =
+            "INSERT INTO reservation_evenements (reservation_id, type_evenement, horodatage, statut, chambre_id, " +
+                    "date_arrivee, date_depart, montant_total, nombre_nuits, reconstitue) " +
+                    "SELECT r.id, 'CREATION', r.date_reservation, r.statut, r.chambre_id, r.date_arrivee, " +
+                    "r.date_depart, r.montant_total, r.nombre_nuits, false FROM reservations r " +
+                    "WHERE r.numero = ANY (?) AND NOT EXISTS " +
+                    "(SELECT 1 FROM reservation_evenements e WHERE e.reservation_id = r.id) " +
+                    "RETURNING id";
+
+    private static volatile boolean amorce = false;
+
+    // -------------------- Écriture (dans la transaction de l'appelant) --------------------
+
+    /**
+     * Ajoute un événement pour la réservation, avec l'état qu'elle a après le changement,
+     * et met les projections à jour.
+     */
+    void enregistrer(EntityManager em, EvenementReservation.Type type, Reservation reservation,
+                     LocalDateTime horodatage) {
+        enregistrer(em, List.of(new EvenementReservation(type, reservation, reservation.getStatut(), horodatage)));
+    }
+
+    void enregistrer(EntityManager em, List<EvenementReservation> evenements) {
+        if (evenements.isEmpty()) return;
+        for (EvenementReservation e : evenements) em.persist(e);
+        projeter(em, evenements);
+    }
+
+    /**
+     * Écrit en une requête l'événement de création des réservations importées qui n'en ont pas encore.
+     *
+     * @return les identifiants des événements créés, à passer à {@link #projeter(EntityManager, Collection)}
+     */
+    List<Long> journaliserCreations(Connection connexion, Collection<String> numeros) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (PreparedStatement ps = connexion.prepareStatement(JOURNALISER_CREATIONS)) {
+            ps.setArray(1, connexion.createArrayOf("varchar", numeros.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) ids.add(rs.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    void projeter(EntityManager em, Collection<Long> idsEvenements) {
+        if (idsEvenements.isEmpty()) return;
+        projeter(em, em.createQuery(
+                        "SELECT e FROM EvenementReservation e WHERE e.id IN :ids ORDER BY e.id", EvenementReservation.class)
+                .setParameter("ids", idsEvenements)
+                .getResultList());
+    }
+
+    // Les états concernés sont lus en une requête, les jours touchés écrits une fois chacun
+    private void projeter(EntityManager em, List<EvenementReservation> evenements) {
+        List<Long> ids = evenements.stream().map(e -> e.getReservation().getId()).distinct().toList();
+        Map<Long, EtatReservation> etats = new HashMap<>();
+        em.createQuery("SELECT s FROM EtatReservation s WHERE s.reservationId IN :ids", EtatReservation.class)
+                .setParameter("ids", ids)
+                .getResultList()
+                .forEach(s -> etats.put(s.getReservationId(), s));
+
+        ProjectionsReservations projections = new ProjectionsReservations();
+        for (EvenementReservation e : evenements) {
+            EtatReservation avant = etats.get(e.getReservation().getId());
+            EtatReservation apres = projections.appliquer(avant, e);
+            if (avant == null) {
+                em.persist(apres);
+                etats.put(apres.getReservationId(), apres);
+            }
+        }
+        incrementerJours(em, projections.getEcarts());
+    }
+
+    private static void incrementerJours(EntityManager em, Map<LocalDate, ProjectionsReservations.Ecart> ecarts) {
+        for (Map.Entry<LocalDate, ProjectionsReservations.Ecart> entree : ecarts.entrySet()) {
+            ProjectionsReservations.Ecart d = entree.getValue();
+            em.createNativeQuery(INCREMENTER_JOUR)
+                    .setParameter(1, entree.getKey())
+                    .setParameter(2, d.arrivees)
+                    .setParameter(3, d.chiffreAffaires)
+                    .setParameter(4, d.nuitsVendues)
+                    .setParameter(5, d.annulations)
+                    .setParameter(6, d.nuiteesReservees)
+                    .setParameter(7, d.nuiteesOccupees)
+                    .setParameter(8, d.checkIns)
+                    .setParameter(9, d.checkOuts)
+                    .executeUpdate();
+        }
+    }
+
+    // -------------------- Amorçage et reconstruction --------------------
+
+    /**
+     * Migration : crée les événements des réservations antérieures au journal, déduits de leur état
+     * (création à la date de réservation, check-in à l'arrivée prévue, check-out au départ prévu),
+     * marqués "reconstitués". Traitée par lots ; relancer la méthode reprend là où elle s'est arrêtée.
+     *
+     * @return le nombre de réservations amorcées
+     */
+    public int amorcer() {
+        int total = 0;
+        while (true) {
+            EntityManager em = JPAUtils.getEntityManager();
+            EntityTransaction tx = em.getTransaction();
+            try {
+                tx.begin();
+                // Verrou : un check-in concurrent attend que la réservation ait son historique
+                List<Reservation> lot = em.createQuery(
+                                "SELECT r FROM Reservation r WHERE NOT EXISTS " +
+                                        "(SELECT e FROM EvenementReservation e WHERE e.reservation = r) ORDER BY r.id",
+                                Reservation.class)
+                        .setMaxResults(TAILLE_LOT)
+                        .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                        .getResultList();
+                List<EvenementReservation> evenements = new ArrayList<>();
+                for (Reservation r : lot) reconstituer(r, evenements);
+                enregistrer(em, evenements);
+                tx.commit();
+                total += lot.size();
+                if (lot.size() < TAILLE_LOT) break;
+            } catch (Exception e) {
+                if (tx.isActive()) tx.rollback();
+                throw new RuntimeException("Erreur lors de l'amorçage de l'historique : " + e.getMessage(), e);
+            } finally {
+                if (em.isOpen()) em.close();
+            }
+        }
+        amorce = true;
+        if (total > 0) LOG.info("Historique amorcé pour {} réservation(s) antérieure(s) au journal", total);
+        return total;
+    }
+
+    private static void reconstituer(Reservation r, List<EvenementReservation> evenements) {
+        Reservation.StatutReservation statut = r.getStatut();
+        LocalDateTime creation = r.getDateReservation() != null ? r.getDateReservation() : r.getDateArrivee();
+        evenements.add(reconstitue(EvenementReservation.Type.CREATION, r, Reservation.StatutReservation.CONFIRMEE, creation));
+        if (statut == Reservation.StatutReservation.EN_COURS || statut == Reservation.StatutReservation.TERMINEE) {
+            evenements.add(reconstitue(EvenementReservation.Type.CHECK_IN, r,
+                    Reservation.StatutReservation.EN_COURS, r.getDateArrivee()));
+        }
+        if (statut == Reservation.StatutReservation.TERMINEE) {
+            evenements.add(reconstitue(EvenementReservation.Type.CHECK_OUT, r, statut, r.getDateDepart()));
+        } else if (statut == Reservation.StatutReservation.ANNULEE) {
+            evenements.add(reconstitue(EvenementReservation.Type.ANNULATION, r, statut, creation));
+        }
+    }
+
+    private static EvenementReservation reconstitue(EvenementReservation.Type type, Reservation r,
+                                                    Reservation.StatutReservation statut, LocalDateTime horodatage) {
+        EvenementReservation e = new EvenementReservation(type, r, statut, horodatage);
+        e.setReconstitue(true);
+        return e;
+    }
+
+    // Les lectures des projections supposent l'amorçage fait au démarrage (poste local ou ServeurApi) : tant qu'il
+    // ne l'est pas, elles échouent aussitôt plutôt que de lancer la migration sur le thread qui lit
+    private void exigerAmorce() {
+        if (!amorce) {
+            throw new IllegalStateException("Historique des réservations en cours d'amorçage : statistiques indisponibles.");
+        }
+    }
+
+    /**
+     * Vide les projections et les recalcule en rejouant tout le journal, dans une seule transaction.
+     * Les écritures d'événements des autres postes attendent la fin de la reconstruction.
+     *
+     * @return le nombre d'événements rejoués
+     */
+    public long reconstruireProjections() {
+        return Metriques.mesurer("HistoriqueReservationService.reconstruireProjections", () -> {
+            exigerAmorce();
+            EntityManager em = JPAUtils.getEntityManager();
+            EntityTransaction tx = em.getTransaction();
+            try {
+                tx.begin();
+                em.createNativeQuery("LOCK TABLE reservation_evenements IN SHARE MODE").executeUpdate();
+
+                // Relecture par lots, dans l'ordre du journal ; le contexte est vidé entre deux lots
+                ProjectionsReservations projections = new ProjectionsReservations();
+                Map<Long, EtatReservation> etats = new LinkedHashMap<>();
+                long dernier = 0;
+                long rejoues = 0;
+                while (true) {
+                    List<EvenementReservation> lot = em.createQuery(
+                                    "SELECT e FROM EvenementReservation e WHERE e.id > :dernier ORDER BY e.id",
+                                    EvenementReservation.class)
+                            .setParameter("dernier", dernier)
+                            .setMaxResults(TAILLE_LOT)
+                            .getResultList();
+                    for (EvenementReservation e : lot) {
+                        Long id = e.getReservation().getId();
+                        etats.put(id, projections.appliquer(etats.get(id), e));
+                        dernier = e.getId();
+                    }
+                    rejoues += lot.size();
+                    em.clear();
+                    if (lot.size() < TAILLE_LOT) break;
+                }
+
+                em.createQuery("DELETE FROM EtatReservation").executeUpdate();
+                em.createQuery("DELETE FROM StatistiquesJour").executeUpdate();
+                int n = 0;
+                for (EtatReservation etat : etats.values()) {
+                    em.persist(etat);
+                    if (++n % TAILLE_LOT == 0) {
+                        em.flush();
+                        em.clear();
+                    }
+                }
+                for (Map.Entry<LocalDate, ProjectionsReservations.Ecart> entree : projections.getEcarts().entrySet()) {
+                    ProjectionsReservations.Ecart d = entree.getValue();
+                    em.persist(new StatistiquesJour(entree.getKey(), d.arrivees, d.chiffreAffaires, d.nuitsVendues,
+                            d.annulations, d.nuiteesReservees, d.nuiteesOccupees, d.checkIns, d.checkOuts));
+                }
+                tx.commit();
+                ReservationService.apresImport();
+                LOG.info("Projections reconstruites : {} événement(s), {} réservation(s)", rejoues, etats.size());
+                return rejoues;
+            } catch (Exception e) {
+                if (tx.isActive()) tx.rollback();
+                throw new RuntimeException("Erreur lors de la reconstruction des projections : " + e.getMessage(), e);
+            } finally {
+                if (em.isOpen()) em.close();
+            }
+        });
+    }
+
+    // -------------------- Lectures --------------------
+
+    // Événements d'une réservation, du plus ancien au plus récent
+    public List<EvenementReservation> getHistorique(Long reservationId) {
+        return Metriques.mesurer("HistoriqueReservationService.getHistorique", () -> {
+            EntityManager em = JPAUtils.getEntityManager();
+            try {
+                return em.createQuery(
+                                "SELECT e FROM EvenementReservation e WHERE e.reservation.id = :id ORDER BY e.id",
+                                EvenementReservation.class)
+                        .setParameter("id", reservationId)
+                        .getResultList();
+            } finally {
+                if (em.isOpen()) em.close();
+            }
+        });
+    }
+
+    // État courant projeté (heures réelles de check-in / check-out comprises), null si inconnu
+    public EtatReservation getEtat(Long reservationId) {
+        return Metriques.mesurer("HistoriqueReservationService.getEtat", () -> {
+            exigerAmorce();
+            EntityManager em = JPAUtils.getEntityManager();
+            try {
+                return em.find(EtatReservation.class, reservationId);
+            } finally {
+                if (em.isOpen()) em.close();
+            }
+        });
+    }
+
+    // Compteurs journaliers de [debut, fin], jours sans activité omis
+    public List<StatistiquesJour> getJours(LocalDate debut, LocalDate fin) {
+        return Metriques.mesurer("HistoriqueReservationService.getJours", () -> {
+            exigerAmorce();
+            EntityManager em = JPAUtils.getEntityManager();
+            try {
+                return em.createQuery(
+                                "SELECT j FROM StatistiquesJour j WHERE j.jour >= :debut AND j.jour <= :fin ORDER BY j.jour",
+                                StatistiquesJour.class)
+                        .setParameter("debut", debut)
+                        .setParameter("fin", fin)
+                        .getResultList();
+            } finally {
+                if (em.isOpen()) em.close();
+            }
+        });
+    }
+
+    /**
+     * Agrégats des réservations arrivant dans [debut, fin], sommés sur les compteurs journaliers.
+     */
+    public PeriodStats getStatsPeriode(LocalDate debut, LocalDate fin) {
+        return Metriques.mesurer("HistoriqueReservationService.getStatsPeriode", () -> {
+            exigerAmorce();
+            EntityManager em = JPAUtils.getEntityManager();
+            try {
+                Object[] row = em.createQuery(
+                                "SELECT COALESCE(SUM(j.arrivees), 0), COALESCE(SUM(j.chiffreAffaires), 0), " +
+                                        "COALESCE(SUM(j.nuitsVendues), 0), COALESCE(SUM(j.annulations), 0) " +
+                                        "FROM StatistiquesJour j WHERE j.jour >= :debut AND j.jour <= :fin",
+                                Object[].class)
+                        .setParameter("debut", debut)
+                        .setParameter("fin", fin)
+                        .getSingleResult();
+                long nombre = ((Number) row[0]).longValue();
+                long nuits = ((Number) row[2]).longValue();
+                return new PeriodStats(nombre, ((Number) row[1]).doubleValue(),
+                        nombre > 0 ? (double) nuits / nombre : 0, nuits, ((Number) row[3]).longValue());
+            } finally {
+                if (em.isOpen()) em.close();
+            }
+        });
+    }
+
+    /**
+     * Nuitées de [debut, fin] par mois : réellement occupées (du check-in au check-out) pour les nuits passées,
+     * réservées à partir de cette nuit.
+     */
+    public Map<YearMonth, Long> getNuiteesParMois(LocalDate debut, LocalDate fin) {
+        return Metriques.mesurer("HistoriqueReservationService.getNuiteesParMois", () -> {
+            exigerAmorce();
+            EntityManager em = JPAUtils.getEntityManager();
+            try {
+                List<Object[]> rows = em.createQuery(
+                                "SELECT EXTRACT(YEAR FROM j.jour), EXTRACT(MONTH FROM j.jour), " +
+                                        "SUM(CASE WHEN j.jour < :aujourdHui THEN j.nuiteesOccupees ELSE j.nuiteesReservees END) " +
+                                        "FROM StatistiquesJour j WHERE j.jour >= :debut AND j.jour <= :fin " +
+                                        "GROUP BY EXTRACT(YEAR FROM j.jour), EXTRACT(MONTH FROM j.jour)",
+                                Object[].class)
+                        .setParameter("aujourdHui", LocalDate.now())
+                        .setParameter("debut", debut)
+                        .setParameter("fin", fin)
+                        .getResultList();
+                Map<YearMonth, Long> parMois = new HashMap<>();
+                for (Object[] row : rows) {
+                    parMois.put(YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue()),
+                            ((Number) row[2]).longValue());
+                }
+                return parMois;
+            } finally {
+                if (em.isOpen()) em.close();
+            }
+        });
+    }
+
+    // Chiffre d'affaires des arrivées d'un jour : une ligne lue par clé
+    public double getChiffreAffaires(LocalDate jour) {
+        return Metriques.mesurer("HistoriqueReservationService.getChiffreAffaires", () -> chiffreAffaires(jour));
+    }
+
+    private double chiffreAffaires(LocalDate jour) {
+        exigerAmorce();
+        EntityManager em = JPAUtils.getEntityManager();
+        try {
+            StatistiquesJour j = em.find(StatistiquesJour.class, jour);
+            return j != null ? j.getChiffreAffaires() : 0;
+        } finally {
+            if (em.isOpen()) em.close();
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import org.hibernate.Session;
+import sn.ouleymatou.hotelmanagement.entities.Chambre;
+import sn.ouleymatou.hotelmanagement.entities.Client;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.utils.IndexIntervallesChambres;
+import sn.ouleymatou.hotelmanagement.utils.JPAUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Import massif de réservations depuis un export CSV (channel manager, autre PMS).
+ *
+ * <p>Pipeline en flux, sans charger le fichier en mémoire :
+ * <ol>
+ *   <li>lecture ligne à ligne et découpage des champs (séparateur ';' ou ',', guillemets CSV) ;</li>
+ *   <li>validation avec les mêmes règles que la saisie, expressions précompilées ;</li>
+ *   <li>contrôle des chevauchements contre un index mémoire des périodes occupées par chambre,
+ *       chargé une fois et enrichi au fil de l'import (doublons internes au fichier compris) ;</li>
+ *   <li>insertion par lots JDBC, une transaction par lot.</li>
+ * </ol>
+ * Les lignes refusées sont écrites dans un rapport {@code <fichier>.rejets.csv}.
+ * Le numéro de réservation est obligatoire et unique : réimporter le même fichier n'insère rien de nouveau.
+ */
+public class ImportReservationService {
+
+    private static final int TAILLE_LOT = 1000;
+    private static final int MAX_REJETS_AFFICHES = 100;
+
+    private static final List<String> COLONNES_OBLIGATOIRES = List.of(
+            "numero", "nom", "prenom", "telephone", "chambre", "arrivee", "depart", "personnes", "acompte");
+
+    private static final String INSERT_CLIENT =
+            "INSERT INTO clients (cle_identite, nom, prenom, telephone, email, date_creation) " +
+                    "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (cle_identite) DO NOTHING";
+    private static final String INSERT_RESERVATION =
+            "INSERT INTO reservations (numero, date_reservation, nom_client, prenom_client, telephone_client, email, " +
+                    "date_arrivee, date_depart, nombre_personnes, nombre_nuits, montant_total, acompte, statut, " +
+                    "chambre_id, client_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (numero) DO NOTHING";
+
+    public record Rejet(long ligne, String numero, String motif) {}
+
+    public record RapportImport(long lues, long importees, long rejetees, List<Rejet> premiersRejets,
+                                Path fichierRejets, long dureeMs) {}
+
+    private record ChambreImport(long id, double tarif, int capacite, Chambre.StatutChambre statut) {}
+
+    private record LigneValide(long ligne, String numero, String nom, String prenom, String telephone, String email,
+                               String cleClient, ChambreImport chambre, LocalDateTime arrivee, LocalDateTime depart,
+                               int personnes, int nuits, double montant, double acompte) {}
+
+    // Référentiel chargé une fois par import
+    private final Map<String, ChambreImport> chambres = new HashMap<>();
+    private final Set<String> numeros = new HashSet<>();
+    private final Map<String, Long> clients = new HashMap<>();
+    private final IndexIntervallesChambres occupation = new IndexIntervallesChambres();
+    private final HistoriqueReservationService historique = new HistoriqueReservationService();
+    // Réutilisée d'une ligne à l'autre
+    private final List<ErreurValidation> erreurs = new ArrayList<>();
+
+    // Rapport des rejets, ouvert au premier rejet
+    private Path fichierRejets;
+    private BufferedWriter rejets;
+    private final List<Rejet> premiersRejets = new ArrayList<>();
+    private long nbRejets;
+
+    /**
+     * Importe le fichier. {@code progression} reçoit le nombre de lignes lues après chaque lot (peut être null).
+     */
+    public RapportImport importer(Path fichier, LongConsumer progression) {
+        long debut = System.currentTimeMillis();
+        long lues = 0;
+        long importees = 0;
+        chargerReferentiel();
+
+        try (BufferedReader lecteur = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+            String entete = lecteur.readLine();
+            if (entete == null) throw new IllegalArgumentException("Fichier vide.");
+            entete = entete.replace("\uFEFF", "");
+            char separateur = entete.indexOf(';') >= 0 ? ';' : ',';
+            Map<String, Integer> colonnes = lireEntete(entete, separateur);
+
+            fichierRejets = fichier.resolveSibling(fichier.getFileName() + ".rejets.csv");
+            Files.deleteIfExists(fichierRejets);
+
+            List<LigneValide> lot = new ArrayList<>(TAILLE_LOT);
+            LocalDateTime maintenant = LocalDateTime.now();
+            String ligne;
+            while ((ligne = lecteur.readLine()) != null) {
+                lues++;
+                if (ligne.isBlank()) continue;
+                List<String> champs = decouper(ligne, separateur);
+                String numero = champ(champs, colonnes, "numero");
+                try {
+                    lot.add(valider(lues + 1, champs, colonnes, maintenant));
+                } catch (IllegalArgumentException e) {
+                    rejeter(new Rejet(lues + 1, numero, e.getMessage()));
+                }
+                if (lot.size() >= TAILLE_LOT) {
+                    importees += persisterLot(lot);
+                    lot.clear();
+                    if (progression != null) progression.accept(lues);
+                }
+            }
+            if (!lot.isEmpty()) importees += persisterLot(lot);
+            if (progression != null) progression.accept(lues);
+        } catch (IOException e) {
+            throw new RuntimeException("Erreur de lecture du fichier : " + e.getMessage(), e);
+        } finally {
+            fermerRejets();
+        }
+
+        if (importees > 0) {
+            ReservationService.apresImport();
+            ClientService.invaliderCache();
+            ClassementService.reamorcer();
+        }
+        return new RapportImport(lues, importees, nbRejets, List.copyOf(premiersRejets),
+                nbRejets > 0 ? fichierRejets : null, System.currentTimeMillis() - debut);
+    }
+
+    // -------------------- Référentiel --------------------
+
+    private void chargerReferentiel() {
+        EntityManager em = JPAUtils.getEntityManager();
+        try {
+            em.createQuery("SELECT c FROM Chambre c JOIN FETCH c.typeChambre", Chambre.class)
+                    .getResultList()
+                    .forEach(c -> chambres.put(c.getNumero().trim().toUpperCase(Locale.ROOT),
+                            new ChambreImport(c.getId(), c.getTypeChambre().getTarifNuit(),
+                                    c.getTypeChambre().getCapacitePersonnes(), c.getStatut())));
+
+            try (Stream<String> lignes = em.createQuery("SELECT r.numero FROM Reservation r", String.class)
+                    .setHint("org.hibernate.fetchSize", 5000)
+                    .getResultStream()) {
+                lignes.forEach(numeros::add);
+            }
+
+            // Mêmes réservations bloquantes que le contrôle de disponibilité de la saisie
+            try (Stream<Object[]> lignes = em.createQuery(
+                            "SELECT r.chambre.id, r.dateArrivee, r.dateDepart FROM Reservation r " +
+                                    "WHERE " + Reservation.JPQL_ACTIVES, Object[].class)
+                    .setHint("org.hibernate.fetchSize", 5000)
+                    .getResultStream()) {
+                lignes.forEach(row -> occupation.ajouter((Long) row[0], (LocalDateTime) row[1], (LocalDateTime) row[2]));
+            }
+
+            try (Stream<Object[]> lignes = em.createQuery(
+                            "SELECT c.cleIdentite, c.id FROM Client c", Object[].class)
+                    .setHint("org.hibernate.fetchSize", 5000)
+                    .getResultStream()) {
+                lignes.forEach(row -> clients.put((String) row[0], (Long) row[1]));
+            }
+        } finally {
+            if (em.isOpen()) em.close();
+        }
+    }
+
+    // -------------------- Lecture et validation --------------------
+
+    private static Map<String, Integer> lireEntete(String entete, char separateur) {
+        Map<String, Integer> colonnes = new HashMap<>();
+        List<String> noms = decouper(entete, separateur);
+        for (int i = 0; i < noms.size(); i++) {
+            colonnes.put(noms.get(i).toLowerCase(Locale.ROOT), i);
+        }
+        for (String obligatoire : COLONNES_OBLIGATOIRES) {
+            if (!colonnes.containsKey(obligatoire)) {
+                throw new IllegalArgumentException("Colonne manquante dans l'en-tête : " + obligatoire);
+            }
+        }
+        return colonnes;
+    }
+
+    // Découpage d'une ligne CSV (champs entre guillemets, "" pour un guillemet)
+    static List<String> decouper(String ligne, char separateur) {
+        List<String> champs = new ArrayList<>();
+        StringBuilder courant = new StringBuilder();
+        boolean entreGuillemets = false;
+        for (int i = 0; i < ligne.length(); i++) {
+            char c = ligne.charAt(i);
+            if (entreGuillemets) {
+                if (c == '"') {
+                    if (i + 1 < ligne.length() && ligne.charAt(i + 1) == '"') {
+                        courant.append('"');
+                        i++;
+                    } else {
+                        entreGuillemets = false;
+                    }
+                } else {
+                    courant.append(c);
+                }
+            } else if (c == '"') {
+                entreGuillemets = true;
+            } else if (c == separateur) {
+                champs.add(courant.toString().trim());
+                courant.setLength(0);
+            } else {
+                courant.append(c);
+            }
+        }
+        champs.add(courant.toString().trim());
+        return champs;
+    }
+
+    private static String champ(List<String> champs, Map<String, Integer> colonnes, String nom) {
+        Integer i = colonnes.get(nom);
+        if (i == null || i >= champs.size()) return null;
+        String valeur = champs.get(i);
+        return valeur.isEmpty() ? null : valeur;
+    }
+
+    // Mêmes règles que la saisie (ValidationReservation) ; le motif de rejet reprend toutes les erreurs de la ligne
+    private LigneValide valider(long numLigne, List<String> champs, Map<String, Integer> colonnes,
+                                LocalDateTime maintenant) {
+        String numero = champ(champs, colonnes, "numero");
+        if (numero == null) throw new IllegalArgumentException("Numéro de réservation manquant.");
+        if (numeros.contains(numero)) throw new IllegalArgumentException("Numéro déjà existant.");
+
+        erreurs.clear();
+        String nom = champ(champs, colonnes, "nom");
+        String prenom = champ(champs, colonnes, "prenom");
+        // Les exports utilisent souvent le format international : on normalise avant de valider
+        String telephone = Client.normaliserTelephone(champ(champs, colonnes, "telephone"));
+        String email = champ(champs, colonnes, "email");
+        ValidationReservation.validerClient(nom, prenom, telephone, email, erreurs);
+
+        LocalDateTime arrivee = lireDate(champ(champs, colonnes, "arrivee"), 14, "arrivée");
+        LocalDateTime depart = lireDate(champ(champs, colonnes, "depart"), 12, "départ");
+        ValidationReservation.validerSejour(arrivee, depart, maintenant, erreurs);
+
+        String numeroChambre = champ(champs, colonnes, "chambre");
+        ChambreImport chambre = numeroChambre != null ? chambres.get(numeroChambre.toUpperCase(Locale.ROOT)) : null;
+        int personnes = lireEntier(champ(champs, colonnes, "personnes"), "Nombre de personnes");
+        if (chambre == null) ValidationReservation.validerChambre(null, 0, personnes, false, erreurs);
+        else ValidationReservation.validerChambre(chambre.statut(), chambre.capacite(), personnes, true, erreurs);
+        ValidationReservation.exiger(erreurs);
+
+        int nuits = ValidationReservation.nombreNuits(arrivee, depart);
+        double montant = nuits * chambre.tarif();
+        double acompte = lireMontant(champ(champs, colonnes, "acompte"));
+        ValidationReservation.validerAcompte(acompte, montant, erreurs);
+        ValidationReservation.exiger(erreurs);
+
+        // En dernier : la période n'est réservée dans l'index que si la ligne est valide par ailleurs
+        if (!occupation.reserverSiLibre(chambre.id(), arrivee, depart)) {
+            throw new IllegalArgumentException("Chambre déjà réservée.");
+        }
+        numeros.add(numero);
+
+        String cleClient = Client.cleIdentite(telephone, email);
+        return new LigneValide(numLigne, numero, nom, prenom, telephone, Client.normaliserEmail(email), cleClient,
+                chambre, arrivee, depart, personnes, nuits, montant, acompte);
+    }
+
+    // "yyyy-MM-dd" (heure par défaut) ou "yyyy-MM-dd HH:mm" / "yyyy-MM-ddTHH:mm"
+    private static LocalDateTime lireDate(String valeur, int heureParDefaut, String libelle) {
+        if (valeur == null) throw new IllegalArgumentException("Date de " + libelle + " manquante.");
+        try {
+            LocalDateTime date = valeur.length() == 10
+                    ? LocalDate.parse(valeur).atStartOfDay()
+                    : LocalDateTime.parse(valeur.replace(' ', 'T'));
+            return date.toLocalTime().equals(LocalTime.MIDNIGHT) ? date.withHour(heureParDefaut) : date;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Date de " + libelle + " invalide : " + valeur);
+        }
+    }
+
+    private static int lireEntier(String valeur, String libelle) {
+        try {
+            return Integer.parseInt(valeur);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(libelle + " invalide : " + valeur);
+        }
+    }
+
+    private static double lireMontant(String valeur) {
+        try {
+            return Double.parseDouble(valeur.replace(" ", "").replace(',', '.'));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Acompte invalide : " + valeur);
+        }
+    }
+
+    // -------------------- Insertion par lots --------------------
+
+    /**
+     * Insère un lot dans une transaction : clients manquants puis réservations, en lots JDBC,
+     * et leurs événements de création (une requête ensembliste) avec la mise à jour des projections.
+     * En cas d'échec, tout le lot est rejeté et l'import continue avec le lot suivant.
+     *
+     * @return le nombre de réservations insérées
+     */
+    private int persisterLot(List<LigneValide> lot) {
+        EntityManager em = JPAUtils.getEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        Map<String, Long> nouveauxClients = new HashMap<>();
+        int[] inserees = new int[1];
+        List<Long> evenements = new ArrayList<>();
+        try {
+            tx.begin();
+            em.unwrap(Session.class).doWork(connexion -> {
+                nouveauxClients.putAll(creerClients(connexion, lot));
+                inserees[0] = insererReservations(connexion, lot, nouveauxClients);
+                evenements.addAll(historique.journaliserCreations(connexion,
+                        lot.stream().map(LigneValide::numero).toList()));
+            });
+            historique.projeter(em, evenements);
+            tx.commit();
+            // Les identifiants ne sont retenus qu'une fois la transaction validée
+            clients.putAll(nouveauxClients);
+            return inserees[0];
+        } catch (Exception e) {
+            if (tx.isActive()) tx.rollback();
+            e.printStackTrace();
+            for (LigneValide l : lot) {
+                // Rien n'est enregistré : la période et le numéro redeviennent disponibles pour les lignes suivantes
+                occupation.retirer(l.chambre().id(), l.arrivee(), l.depart());
+                numeros.remove(l.numero());
+                rejeter(new Rejet(l.ligne(), l.numero(), "Erreur d'enregistrement : " + e.getMessage()));
+            }
+            return 0;
+        } finally {
+            if (em.isOpen()) em.close();
+        }
+    }
+
+    private Map<String, Long> creerClients(Connection connexion, List<LigneValide> lot) throws SQLException {
+        Map<String, LigneValide> manquants = new LinkedHashMap<>();
+        for (LigneValide l : lot) {
+            if (l.cleClient() != null && !clients.containsKey(l.cleClient())) manquants.putIfAbsent(l.cleClient(), l);
+        }
+        if (manquants.isEmpty()) return Map.of();
+
+        LocalDateTime maintenant = LocalDateTime.now();
+        try (PreparedStatement ps = connexion.prepareStatement(INSERT_CLIENT)) {
+            for (Map.Entry<String, LigneValide> e : manquants.entrySet()) {
+                LigneValide l = e.getValue();
+                ps.setString(1, e.getKey());
+                ps.setString(2, l.nom());
+                ps.setString(3, l.prenom());
+                ps.setString(4, l.telephone());
+                ps.setString(5, l.email());
+                ps.setObject(6, maintenant);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        // Relecture des identifiants (clients créés ici ou par un autre poste entre-temps)
+        Map<String, Long> ids = new HashMap<>();
+        try (PreparedStatement ps = connexion.prepareStatement(
+                "SELECT cle_identite, id FROM clients WHERE cle_identite = ANY (?)")) {
+            ps.setArray(1, connexion.createArrayOf("varchar", manquants.keySet().toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) ids.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+        return ids;
+    }
+
+    private int insererReservations(Connection connexion, List<LigneValide> lot,
+                                    Map<String, Long> nouveauxClients) throws SQLException {
+        LocalDateTime maintenant = LocalDateTime.now();
+        try (PreparedStatement ps = connexion.prepareStatement(INSERT_RESERVATION)) {
+            for (LigneValide l : lot) {
+                ps.setString(1, l.numero());
+                ps.setObject(2, maintenant);
+                ps.setString(3, l.nom());
+                ps.setString(4, l.prenom());
+                ps.setString(5, l.telephone());
+                ps.setString(6, l.email());
+                ps.setObject(7, l.arrivee());
+                ps.setObject(8, l.depart());
+                ps.setInt(9, l.personnes());
+                ps.setInt(10, l.nuits());
+                ps.setDouble(11, l.montant());
+                ps.setDouble(12, l.acompte());
+                ps.setString(13, Reservation.StatutReservation.CONFIRMEE.name());
+                ps.setLong(14, l.chambre().id());
+                Long clientId = l.cleClient() != null
+                        ? clients.getOrDefault(l.cleClient(), nouveauxClients.get(l.cleClient())) : null;
+                if (clientId != null) ps.setLong(15, clientId);
+                else ps.setNull(15, Types.BIGINT);
+                ps.addBatch();
+            }
+            int inserees = 0;
+            for (int n : ps.executeBatch()) {
+                if (n > 0 || n == Statement.SUCCESS_NO_INFO) inserees += Math.max(n, 1);
+            }
+            return inserees;
+        }
+    }
+
+    // -------------------- Rapport des rejets --------------------
+
+    private void rejeter(Rejet rejet) {
+        nbRejets++;
+        if (premiersRejets.size() < MAX_REJETS_AFFICHES) premiersRejets.add(rejet);
+        try {
+            if (rejets == null) {
+                rejets = Files.newBufferedWriter(fichierRejets, StandardCharsets.UTF_8);
+                rejets.write("ligne;numero;motif");
+                rejets.newLine();
+            }
+            rejets.write(rejet.ligne() + ";" + (rejet.numero() != null ? rejet.numero() : "") + ";"
+                    + rejet.motif().replace(';', ','));
+            rejets.newLine();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void fermerRejets() {
+        if (rejets == null) return;
+        try {
+            rejets.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import sn.ouleymatou.hotelmanagement.api.CodecApi;
+import sn.ouleymatou.hotelmanagement.api.Json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Journal local, en ajout seul, des écritures acceptées pendant une indisponibilité de la base
+ * (une ligne JSON par opération, puis une ligne d'acquittement quand elle a été rejouée).
+ *
+ * <p>Une opération n'est confirmée à l'appelant qu'une fois sur disque ({@code fsync}) ; les écritures
+ * concurrentes partagent le même {@code force} : le premier thread qui synchronise couvre tout ce qui a été
+ * écrit avant lui (validation groupée). Au démarrage, les opérations sans acquittement sont de nouveau
+ * en attente ; une dernière ligne tronquée (arrêt brutal pendant l'écriture) est ignorée. Le fichier est vidé
+ * dès que plus rien n'est en attente.
+ */
+public class JournalHorsLigne {
+
+    private static final Logger LOG = LogManager.getLogger(JournalHorsLigne.class);
+
+    public enum TypeOperation { CREATION, CHECK_IN, CHECK_OUT }
+
+    public enum Etat { APPLIQUEE, CONFLIT }
+
+    /**
+     * Opération en attente : numéro d'ordre, nature, heure de saisie, réservation concernée (forme JSON).
+     */
+    public record Operation(long seq, TypeOperation type, LocalDateTime horodatage, Map<String, Object> reservation) {
+        public String numero() {
+            return CodecApi.texte(reservation.get("numero"));
+        }
+    }
+
+    private final Path fichier;
+    private final FileChannel canal;
+    private final Object verrouForce = new Object();
+    private final List<Operation> enAttente = new ArrayList<>();
+    private final List<Runnable> ecouteurs = new CopyOnWriteArrayList<>();
+    private long prochainSeq = 1;
+    private long positionEcrite;
+    private long positionForcee;
+
+    public JournalHorsLigne(Path fichier) {
+        this.fichier = fichier;
+        try {
+            Files.createDirectories(fichier.toAbsolutePath().getParent());
+            relire();
+            canal = FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            // Ligne tronquée en fin de fichier : on la coupe, sinon la prochaine ligne s'y collerait
+            canal.truncate(finDerniereLigneComplete());
+            positionEcrite = canal.size();
+            positionForcee = positionEcrite;
+            canal.position(positionEcrite);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ouverture du journal hors ligne impossible : " + fichier, e);
+        }
+        if (!enAttente.isEmpty()) LOG.warn("{} opération(s) hors ligne en attente de synchronisation", enAttente.size());
+    }
+
+    private void relire() throws IOException {
+        if (!Files.exists(fichier)) return;
+        Map<Long, Operation> operations = new LinkedHashMap<>();
+        for (String ligne : Files.readAllLines(fichier, StandardCharsets.UTF_8)) {
+            if (ligne.isBlank()) continue;
+            Map<String, Object> m;
+            try {
+                m = CodecApi.objet(Json.lire(ligne));
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Ligne illisible ignorée dans {} : {}", fichier, e.getMessage());
+                continue;
+            }
+            if (m.containsKey("ack")) {
+                operations.remove(CodecApi.entier(m.get("ack")));
+                continue;
+            }
+            Operation op = new Operation(CodecApi.entier(m.get("seq")),
+                    CodecApi.enumeration(TypeOperation.class, m.get("op")),
+                    CodecApi.dateHeure(m.get("horodatage")), CodecApi.objet(m.get("reservation")));
+            operations.put(op.seq(), op);
+            prochainSeq = Math.max(prochainSeq, op.seq() + 1);
+        }
+        enAttente.addAll(operations.values());
+    }
+
+    private long finDerniereLigneComplete() throws IOException {
+        if (!Files.exists(fichier)) return 0;
+        byte[] contenu = Files.readAllBytes(fichier);
+        int fin = contenu.length;
+        while (fin > 0 && contenu[fin - 1] != '\n') fin--;
+        return fin;
+    }
+
+    /**
+     * Journalise une opération ; au retour, elle est sur disque.
+     */
+    public Operation ajouter(TypeOperation type, Map<String, Object> reservation) {
+        Operation op;
+        long position;
+        synchronized (this) {
+            op = new Operation(prochainSeq++, type, LocalDateTime.now(), reservation);
+            Map<String, Object> ligne = new LinkedHashMap<>();
+            ligne.put("seq", op.seq());
+            ligne.put("op", type);
+            ligne.put("horodatage", op.horodatage());
+            ligne.put("reservation", reservation);
+            position = ecrire(ligne);
+            enAttente.add(op);
+        }
+        synchroniserDisque(position);
+        notifier();
+        return op;
+    }
+
+    /**
+     * Marque une opération comme rejouée (appliquée ou en conflit) ; elle sort de l'attente.
+     */
+    public void acquitter(Operation op, Etat etat, String message) {
+        long position;
+        synchronized (this) {
+            Map<String, Object> ligne = new LinkedHashMap<>();
+            ligne.put("ack", op.seq());
+            ligne.put("etat", etat);
+            if (message != null) ligne.put("message", message);
+            position = ecrire(ligne);
+            enAttente.removeIf(o -> o.seq() == op.seq());
+        }
+        synchroniserDisque(position);
+        compacterSiVide();
+        notifier();
+    }
+
+    public synchronized List<Operation> getEnAttente() {
+        return List.copyOf(enAttente);
+    }
+
+    public synchronized int getNombreEnAttente() {
+        return enAttente.size();
+    }
+
+    public void ajouterEcouteur(Runnable ecouteur) {
+        ecouteurs.add(ecouteur);
+    }
+
+    public void retirerEcouteur(Runnable ecouteur) {
+        ecouteurs.remove(ecouteur);
+    }
+
+    private void notifier() {
+        for (Runnable ecouteur : ecouteurs) {
+            try {
+                ecouteur.run();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Appelé sous le verrou de l'instance : les lignes ne s'entrelacent pas
+    private long ecrire(Map<String, Object> ligne) {
+        ByteBuffer octets = ByteBuffer.wrap((Json.ecrire(ligne) + "\n").getBytes(StandardCharsets.UTF_8));
+        try {
+            while (octets.hasRemaining()) canal.write(octets);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture du journal hors ligne impossible", e);
+        }
+        positionEcrite += octets.capacity();
+        return positionEcrite;
+    }
+
+    // Validation groupée : un seul force() pour toutes les lignes écrites avant lui
+    private void synchroniserDisque(long position) {
+        synchronized (verrouForce) {
+            if (positionForcee >= position) return;
+            long aForcer;
+            synchronized (this) {
+                aForcer = positionEcrite;
+            }
+            try {
+                canal.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Synchronisation du journal hors ligne impossible", e);
+            }
+            positionForcee = aForcer;
+        }
+    }
+
+    private void compacterSiVide() {
+        synchronized (verrouForce) {
+            synchronized (this) {
+                if (!enAttente.isEmpty()) return;
+                try {
+                    canal.truncate(0);
+                    canal.position(0);
+                    canal.force(true);
+                } catch (IOException e) {
+                    LOG.warn("Compactage du journal hors ligne impossible : {}", e.getMessage());
+                    return;
+                }
+                positionEcrite = 0;
+                positionForcee = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+/**
+ * Agrégats d'une période (réservations dont l'arrivée tombe dans la période).
+ * Les années closes sont lues dans leur instantané, les autres dans les compteurs journaliers
+ * ({@code projection_jours}) ; les morceaux se combinent avec {@link #fusionner}.
+ */
+public record PeriodStats(long nombreReservations,
+                          double chiffreAffaires,
+                          double dureeMoyenneSejour,
+                          long nuitsVendues,
+                          long annulations) {
+
+    public static final PeriodStats VIDE = new PeriodStats(0, 0, 0, 0, 0);
+
+    /**
+     * Combine les agrégats de deux périodes disjointes (la moyenne est repondérée par le nombre de réservations).
+     */
+    public PeriodStats fusionner(PeriodStats autre) {
+        long nombre = nombreReservations + autre.nombreReservations;
+        double moyenne = nombre > 0
+                ? (dureeMoyenneSejour * nombreReservations + autre.dureeMoyenneSejour * autre.nombreReservations) / nombre
+                : 0;
+        return new PeriodStats(nombre, chiffreAffaires + autre.chiffreAffaires, moyenne,
+                nuitsVendues + autre.nuitsVendues, annulations + autre.annulations);
+    }
+}
@@ -0,0 +1,120 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+import sn.ouleymatou.hotelmanagement.entities.EtatReservation;
+import sn.ouleymatou.hotelmanagement.entities.EvenementReservation;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Calcul des projections à partir des événements, sans accès à la base.
+ *
+ * <p>L'apport d'une réservation aux compteurs journaliers ne dépend que de son état. Appliquer un événement revient
+ * donc à retirer l'apport de l'état précédent, à mettre l'état à jour, puis à ajouter l'apport du nouvel état.
+ * Seuls les jours dont un compteur change reçoivent un écart. Rejouer tout le journal depuis des tables vides
+ * redonne exactement les mêmes compteurs.
+ */
+final class ProjectionsReservations {
+
+    /**
+     * Écarts à ajouter aux compteurs d'une journée (voir StatistiquesJour).
+     */
+    static final class Ecart {
+        long arrivees;
+        double chiffreAffaires;
+        long nuitsVendues;
+        long annulations;
+        long nuiteesReservees;
+        long nuiteesOccupees;
+        long checkIns;
+        long checkOuts;
+
+        boolean estNul() {
+            return arrivees == 0 && chiffreAffaires == 0 && nuitsVendues == 0 && annulations == 0
+                    && nuiteesReservees == 0 && nuiteesOccupees == 0 && checkIns == 0 && checkOuts == 0;
+        }
+    }
+
+    private final Map<LocalDate, Ecart> ecarts = new TreeMap<>();
+
+    /**
+     * Applique un événement à l'état de sa réservation (null s'il n'existe pas encore) et rend l'état à jour.
+     * L'état fourni est modifié en place.
+     */
+    EtatReservation appliquer(EtatReservation avant, EvenementReservation evenement) {
+        EtatReservation etat = avant;
+        if (etat == null) {
+            etat = new EtatReservation(evenement.getReservation().getId());
+        } else {
+            apport(etat, -1);
+        }
+
+        etat.setStatut(evenement.getStatut());
+        etat.setChambreId(evenement.getChambre().getId());
+        etat.setDateArrivee(evenement.getDateArrivee());
+        etat.setDateDepart(evenement.getDateDepart());
+        etat.setMontantTotal(evenement.getMontantTotal());
+        etat.setNombreNuits(evenement.getNombreNuits());
+        switch (evenement.getType()) {
+            case CHECK_IN -> etat.setDateCheckIn(evenement.getHorodatage());
+            case CHECK_OUT -> etat.setDateCheckOut(evenement.getHorodatage());
+            default -> { }
+        }
+        etat.setDernierEvenement(evenement.getId());
+
+        apport(etat, 1);
+        return etat;
+    }
+
+    // Écarts non nuls, par jour croissant
+    Map<LocalDate, Ecart> getEcarts() {
+        ecarts.values().removeIf(Ecart::estNul);
+        return ecarts;
+    }
+
+    // Les nuitées réservées ne comptent que les réservations qui occupent encore (ou ont occupé) la chambre
+    static boolean occupeLaChambre(Reservation.StatutReservation statut) {
+        return statut.estActif() || statut == Reservation.StatutReservation.TERMINEE;
+    }
+
+    private void apport(EtatReservation etat, int signe) {
+        Ecart arrivee = ecart(etat.getDateArrivee().toLocalDate());
+        arrivee.arrivees += signe;
+        arrivee.chiffreAffaires += signe * etat.getMontantTotal();
+        arrivee.nuitsVendues += signe * etat.getNombreNuits();
+        if (etat.getStatut() == Reservation.StatutReservation.ANNULEE) arrivee.annulations += signe;
+
+        if (occupeLaChambre(etat.getStatut())) {
+            LocalDate debut = etat.getDateArrivee().toLocalDate();
+            for (LocalDate nuit = debut; nuit.isBefore(finSejour(debut, etat.getDateDepart())); nuit = nuit.plusDays(1)) {
+                ecart(nuit).nuiteesReservees += signe;
+            }
+        }
+
+        if (etat.getDateCheckIn() != null) {
+            LocalDate debut = etat.getDateCheckIn().toLocalDate();
+            ecart(debut).checkIns += signe;
+            // Séjour en cours : compté jusqu'au départ prévu, corrigé au check-out
+            LocalDateTime depart = etat.getDateCheckOut() != null ? etat.getDateCheckOut() : etat.getDateDepart();
+            for (LocalDate nuit = debut; nuit.isBefore(finSejour(debut, depart)); nuit = nuit.plusDays(1)) {
+                ecart(nuit).nuiteesOccupees += signe;
+            }
+        }
+        if (etat.getDateCheckOut() != null) {
+            ecart(etat.getDateCheckOut().toLocalDate()).checkOuts += signe;
+        }
+    }
+
+    // Lendemain de la dernière nuit : au moins une nuit, comme pour la facturation
+    private static LocalDate finSejour(LocalDate debut, LocalDateTime depart) {
+        LocalDate fin = depart.toLocalDate();
+        return fin.isAfter(debut) ? fin : debut.plusDays(1);
+    }
+
+    private Ecart ecart(LocalDate jour) {
+        return ecarts.computeIfAbsent(jour, j -> new Ecart());
+    }
+}
@@ -2,126 +2,216 @@ package sn.ouleymatou.hotelmanagement.services;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.Hibernate;
 import sn.ouleymatou.hotelmanagement.entities.Chambre;
+import sn.ouleymatou.hotelmanagement.entities.EvenementReservation;
 import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.utils.CacheRequetes;
 import sn.ouleymatou.hotelmanagement.utils.JPAUtils;
+import sn.ouleymatou.hotelmanagement.utils.Metriques;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 public class ReservationService {
 
-    // Génération du numéro de réservation
-    public String genererNumeroReservation() {
-        EntityManager em = JPAUtils.getEntityManager();
-        try {
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime startOfDay = now.toLocalDate().atStartOfDay();
-            LocalDateTime endOfDay = startOfDay.plusDays(1);
+    // Nature d'un changement notifié aux écouteurs, et action de la table des transitions
+    public enum Changement {
+        CREATION("de la réservation"),
+        CHECK_IN("du check-in"),
+        CHECK_OUT("du check-out"),
+        ANNULATION("de l'annulation"),
+        NO_SHOW("du no-show"),
+        MODIFICATION("de la modification");
 
-            TypedQuery<Long> query = em.createQuery(
-                    "SELECT COUNT(r) FROM Reservation r WHERE r.dateReservation >= :startOfDay AND r.dateReservation < :endOfDay",
-                    Long.class);
-            query.setParameter("startOfDay", startOfDay);
-            query.setParameter("endOfDay", endOfDay);
+        private final String libelle;
 
-            Long count = query.getSingleResult();
-            String datePart = now.format(java.time.format.DateTimeFormatter.BASIC_ISO_DATE);
-            return String.format("RSV-%s-%03d", datePart, count + 1);
-        } finally {
-            if (em.isOpen()) em.close();
+        Changement(String libelle) {
+            this.libelle = libelle;
         }
     }
 
+    /**
+     * Table des transitions : pour chaque statut, les changements permis et le statut atteint.
+     * Une modification (dates, chambre) garde le statut. Terminée, annulée et no-show sont des états finaux.
+     */
+    private static final Map<Reservation.StatutReservation, Map<Changement, Reservation.StatutReservation>> TRANSITIONS =
+            new EnumMap<>(Reservation.StatutReservation.class);
+
+    static {
+        for (Reservation.StatutReservation statut : Reservation.StatutReservation.values()) {
+            TRANSITIONS.put(statut, new EnumMap<>(Changement.class));
+        }
+        TRANSITIONS.get(Reservation.StatutReservation.CONFIRMEE).putAll(Map.of(
+                Changement.CHECK_IN, Reservation.StatutReservation.EN_COURS,
+                Changement.ANNULATION, Reservation.StatutReservation.ANNULEE,
+                Changement.NO_SHOW, Reservation.StatutReservation.NO_SHOW,
+                Changement.MODIFICATION, Reservation.StatutReservation.CONFIRMEE));
+        TRANSITIONS.get(Reservation.StatutReservation.EN_COURS).putAll(Map.of(
+                Changement.CHECK_OUT, Reservation.StatutReservation.TERMINEE,
+                Changement.MODIFICATION, Reservation.StatutReservation.EN_COURS));
+    }
+
+    /**
+     * Statut atteint par le changement depuis {@code statut}, ou null si la transition n'est pas permise.
+     */
+    public static Reservation.StatutReservation cible(Reservation.StatutReservation statut, Changement changement) {
+        return statut == null ? null : TRANSITIONS.get(statut).get(changement);
+    }
+
+    public static boolean estPermis(Reservation.StatutReservation statut, Changement changement) {
+        return cible(statut, changement) != null;
+    }
+
+    // Écouteurs notifiés après chaque changement validé (classements incrémentaux, grille d'occupation, etc.)
+    private static final List<BiConsumer<Changement, Reservation>> ecouteurs = new CopyOnWriteArrayList<>();
+
+    public static void ajouterEcouteur(BiConsumer<Changement, Reservation> ecouteur) {
+        ecouteurs.add(ecouteur);
+    }
+
+    public static void retirerEcouteur(BiConsumer<Changement, Reservation> ecouteur) {
+        ecouteurs.remove(ecouteur);
+    }
+
+    // Cache des lectures répétées de l'écran des réservations, invalidé par les écritures ci-dessous
+    private static final CacheRequetes cache = new CacheRequetes(256, 30_000);
+    private static final String CLE_ARRIVEES = "arrivees:";
+    private static final String CLE_DEPARTS = "departs:";
+    private static final String CLE_CA = "ca:";
+    private static final String CLE_TOTAL = "total";
+
+    static {
+        Metriques.jauge("ReservationService.cache.entrees", cache::taille);
+        Metriques.jauge("ReservationService.ecouteurs", ecouteurs::size);
+    }
+
+    private final ClientService clientService = new ClientService();
+    private final HistoriqueReservationService historique = new HistoriqueReservationService();
+
+    // Après un import massif : les lectures en cache ne sont plus fiables, on les vide toutes
+    static void apresImport() {
+        cache.vider();
+    }
+
+    private static void notifier(Changement changement, Reservation reservation) {
+        for (BiConsumer<Changement, Reservation> ecouteur : ecouteurs) {
+            try {
+                ecouteur.accept(changement, reservation);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Génération du numéro de réservation
+    public String genererNumeroReservation() {
+        return Metriques.mesurer("ReservationService.genererNumeroReservation", () -> {
+            EntityManager em = JPAUtils.getEntityManager();
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                LocalDateTime startOfDay = now.toLocalDate().atStartOfDay();
+                LocalDateTime endOfDay = startOfDay.plusDays(1);
+
+                TypedQuery<Long> query = em.createQuery(
+                        "SELECT COUNT(r) FROM Reservation r WHERE r.dateReservation >= :startOfDay AND r.dateReservation < :endOfDay",
+                        Long.class);
+                query.setParameter("startOfDay", startOfDay);
+                query.setParameter("endOfDay", endOfDay);
+
+                Long count = query.getSingleResult();
+                String datePart = now.format(java.time.format.DateTimeFormatter.BASIC_ISO_DATE);
+                return String.format("RSV-%s-%03d", datePart, count + 1);
+            } finally {
+                if (em.isOpen()) em.close();
+            }
+        });
+    }
+
     // Enregistrement d'une réservation
     public void enregistrerReservation(Reservation reservation) {
+        Metriques.executer("ReservationService.enregistrerReservation",
+                () -> enregistrerReservation(reservation, LocalDateTime.now()));
+    }
+
+    // Rejeu du journal hors ligne : la saisie est validée et datée à l'heure où elle a été faite
+    void enregistrerReservation(Reservation reservation, LocalDateTime maintenant) {
         EntityManager em = JPAUtils.getEntityManager();
         EntityTransaction tx = em.getTransaction();
 
         try {
             tx.begin();
 
-            // Validation client
-            if (reservation.getNomClient() == null || reservation.getNomClient().length() < 2
-                    || !reservation.getNomClient().matches("^[A-Za-zÀ-ÖØ-öø-ÿ\\s'-]+$")) {
-                throw new IllegalArgumentException("Nom client invalide : minimum 2 caractères.");
-            }
-            if (reservation.getPrenomClient() == null || reservation.getPrenomClient().length() < 2
-                    || !reservation.getPrenomClient().matches("^[A-Za-zÀ-ÖØ-öø-ÿ\\s'-]+$")) {
-                throw new IllegalArgumentException("Prénom client invalide : minimum 2 caractères.");
-            }
-            if (reservation.getTelephone() == null || !reservation.getTelephone().matches("^(77|78|75|76|70)\\d{7}$")) {
-                throw new IllegalArgumentException("Téléphone invalide.");
-            }
-            if (reservation.getEmail() != null && !reservation.getEmail().isEmpty()) {
-                if (!reservation.getEmail().matches("^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,}$")) {
-                    throw new IllegalArgumentException("Email invalide.");
-                }
-            }
+            // Validation de la saisie : toutes les erreurs sont collectées avant de refuser
+            List<ErreurValidation> erreurs = new ArrayList<>(4);
+            ValidationReservation.validerClient(reservation.getNomClient(), reservation.getPrenomClient(),
+                    reservation.getTelephone(), reservation.getEmail(), erreurs);
 
-            // Validation dates
-            LocalDateTime maintenant = LocalDateTime.now();
             LocalDateTime arrivee = reservation.getDateArrivee();
             LocalDateTime depart = reservation.getDateDepart();
+            if (arrivee != null && arrivee.toLocalTime().equals(LocalTime.MIDNIGHT)) arrivee = arrivee.withHour(14);
+            if (depart != null && depart.toLocalTime().equals(LocalTime.MIDNIGHT)) depart = depart.withHour(12);
+            ValidationReservation.validerSejour(arrivee, depart, maintenant, erreurs);
 
-            if (arrivee.toLocalTime().equals(LocalTime.MIDNIGHT)) arrivee = arrivee.withHour(14);
-            if (depart.toLocalTime().equals(LocalTime.MIDNIGHT)) depart = depart.withHour(12);
-
-            if (arrivee.isBefore(maintenant)) throw new IllegalArgumentException("Date d'arrivée dans le passé.");
-            if (!depart.isAfter(arrivee)) throw new IllegalArgumentException("Date de départ avant arrivée.");
+            Chambre chambre = reservation.getChambre() != null
+                    ? em.find(Chambre.class, reservation.getChambre().getId()) : null;
+            ValidationReservation.validerChambre(chambre, reservation.getNombrePersonnes(), erreurs);
+            ValidationReservation.exiger(erreurs);
 
-            // Vérification chambre
-            Chambre chambre = em.find(Chambre.class, reservation.getChambre().getId());
-            if (chambre == null) throw new IllegalArgumentException("Chambre non trouvée.");
-            if (chambre.getStatut() == Chambre.StatutChambre.HORS_SERVICE)
-                throw new IllegalArgumentException("Chambre hors service.");
-
-            // Capacité
-            if (reservation.getNombrePersonnes() < 1 || reservation.getNombrePersonnes() > chambre.getCapacite()) {
-                throw new IllegalArgumentException("Nombre de personnes dépasse capacité.");
-            }
+            // Client dédoublonné (téléphone / email normalisés)
+            reservation.setClient(clientService.trouverOuCreer(em, reservation));
 
             // Disponibilité (pas de chevauchement)
             TypedQuery<Long> query = em.createQuery(
-                    "SELECT COUNT(r) FROM Reservation r WHERE r.chambre = :chambre AND r.statut <> :terminee " +
-                            "AND r.dateDepart > :arrivee AND r.dateArrivee < :depart",
+                    "SELECT COUNT(r) FROM Reservation r WHERE r.chambre = :chambre AND " + Reservation.JPQL_ACTIVES +
+                            " AND r.dateDepart > :arrivee AND r.dateArrivee < :depart",
                     Long.class);
             query.setParameter("chambre", chambre);
             query.setParameter("arrivee", arrivee);
             query.setParameter("depart", depart);
-            query.setParameter("terminee", Reservation.StatutReservation.TERMINEE);
 
             if (query.getSingleResult() > 0) throw new IllegalArgumentException("Chambre déjà réservée.");
 
             // Calcul nuits et montant
-            int nuits = (int) ChronoUnit.DAYS.between(arrivee.toLocalDate(), depart.toLocalDate());
-            if (nuits < 1) nuits = 1;
+            int nuits = ValidationReservation.nombreNuits(arrivee, depart);
             reservation.setNombreNuits(nuits);
             double montantTotal = nuits * chambre.getTarifParNuit();
             reservation.setMontantTotal(montantTotal);
 
-            // Vérification acompte
-            if (reservation.getAcompte() < montantTotal * 0.3 || reservation.getAcompte() > montantTotal) {
-                throw new IllegalArgumentException("Acompte entre 30% et 100% du total.");
-            }
+            ValidationReservation.validerAcompte(reservation.getAcompte(), montantTotal, erreurs);
+            ValidationReservation.exiger(erreurs);
 
             // Numéro réservation
             if (reservation.getNumero() == null || reservation.getNumero().isEmpty()) {
                 reservation.setNumero(genererNumeroReservation());
             }
 
-            reservation.setDateReservation(LocalDateTime.now());
+            reservation.setDateReservation(maintenant);
             reservation.setStatut(Reservation.StatutReservation.CONFIRMEE);
 
             em.persist(reservation);
+            historique.enregistrer(em, EvenementReservation.Type.CREATION, reservation, maintenant);
             tx.commit();
+            cache.invalider(CLE_TOTAL,
+                    CLE_ARRIVEES + reservation.getDateArrivee().toLocalDate(),
+                    CLE_CA + reservation.getDateArrivee().toLocalDate());
+            ClientService.memoriser(reservation.getClient());
+            notifier(Changement.CREATION, reservation);
 
         } catch (Exception e) {
             if (tx.isActive()) tx.rollback();
@@ -133,70 +223,119 @@ public class ReservationService {
 
     // Liste complète
     public List<Reservation> getAllReservations() {
-        EntityManager em = JPAUtils.getEntityManager();
-        try {
-            return em.createQuery("SELECT r FROM Reservation r JOIN FETCH r.chambre", Reservation.class)
-                    .getResultList();
-        } finally {
-            em.close();
-        }
+        return Metriques.mesurer("ReservationService.getAllReservations", () -> {
+            EntityManager em = JPAUtils.getEntityManager();
+            try {
+                return em.createQuery("SELECT r FROM Reservation r JOIN FETCH r.chambre", Reservation.class)
+                        .getResultList();
+            } finally {
+                em.close();
+            }
+        });
     }
 
-    // Arrivées du jour
+    // Arrivées du jour (mises en cache jusqu'à la prochaine écriture qui les concerne)
     public List<Reservation> getArriveesDuJour() {
-        EntityManager em = JPAUtils.getEntityManager();
-        try {
+        return Metriques.mesurer("ReservationService.getArriveesDuJour", () -> {
             LocalDate aujourdHui = LocalDate.now();
-            TypedQuery<Reservation> query = em.createQuery(
-                    "SELECT r FROM Reservation r JOIN FETCH r.chambre " +
-                            "WHERE FUNCTION('DATE', r.dateArrivee) = :aujourdHui " +
-                            "AND r.statut = :statut", Reservation.class
-            );
-            query.setParameter("aujourdHui", aujourdHui);
-            query.setParameter("statut", Reservation.StatutReservation.CONFIRMEE);
-            return query.getResultList();
-        } finally {
-            if (em.isOpen()) em.close();
-        }
+            return cache.obtenir(CLE_ARRIVEES + aujourdHui, () -> List.copyOf(requeteArrivees(aujourdHui)));
+        });
+    }
+
+    private List<Reservation> requeteArrivees(LocalDate aujourdHui) {
+        return getReservationsParJour(Jalon.ARRIVEE, aujourdHui, aujourdHui.plusDays(1),
+                Reservation.StatutReservation.CONFIRMEE);
     }
 
-    // Départs du jour
+    // Départs du jour (mis en cache jusqu'à la prochaine écriture qui les concerne)
     public List<Reservation> getDepartsDuJour() {
-        EntityManager em = JPAUtils.getEntityManager();
-        try {
+        return Metriques.mesurer("ReservationService.getDepartsDuJour", () -> {
             LocalDate aujourdHui = LocalDate.now();
-            TypedQuery<Reservation> query = em.createQuery(
-                    "SELECT r FROM Reservation r JOIN FETCH r.chambre " +
-                            "WHERE FUNCTION('DATE', r.dateDepart) = :aujourdHui " +
-                            "AND r.statut = :statut", Reservation.class
-            );
-            query.setParameter("aujourdHui", aujourdHui);
-            query.setParameter("statut", Reservation.StatutReservation.EN_COURS);
-            return query.getResultList();
-        } finally {
-            if (em.isOpen()) em.close();
+            return cache.obtenir(CLE_DEPARTS + aujourdHui, () -> List.copyOf(requeteDeparts(aujourdHui)));
+        });
+    }
+
+    private List<Reservation> requeteDeparts(LocalDate aujourdHui) {
+        return getReservationsParJour(Jalon.DEPART, aujourdHui, aujourdHui.plusDays(1),
+                Reservation.StatutReservation.EN_COURS);
+    }
+
+    // Date de la réservation sur laquelle porte une recherche par jour
+    public enum Jalon {
+        ARRIVEE("r.dateArrivee"),
+        DEPART("r.dateDepart");
+
+        private final String colonne;
+
+        Jalon(String colonne) {
+            this.colonne = colonne;
         }
     }
 
+    /**
+     * Réservations dont l'arrivée (ou le départ) tombe dans [debut, fin[, avec le statut donné.
+     * Prédicat en plage semi-ouverte directement sur la colonne : l'index (date, statut) est utilisable,
+     * contrairement à FUNCTION('DATE', colonne) = jour.
+     */
+    public List<Reservation> getReservationsParJour(Jalon jalon, LocalDate debut, LocalDate fin,
+                                                    Reservation.StatutReservation statut) {
+        return Metriques.mesurer("ReservationService.getReservationsParJour", () -> {
+            EntityManager em = JPAUtils.getEntityManager();
+            try {
+                TypedQuery<Reservation> query = em.createQuery(
+                        "SELECT r FROM Reservation r JOIN FETCH r.chambre " +
+                                "WHERE " + jalon.colonne + " >= :debut AND " + jalon.colonne + " < :fin " +
+                                "AND r.statut = :statut", Reservation.class
+                );
+                query.setParameter("debut", debut.atStartOfDay());
+                query.setParameter("fin", fin.atStartOfDay());
+                query.setParameter("statut", statut);
+                return query.getResultList();
+            } finally {
+                if (em.isOpen()) em.close();
+            }
+        });
+    }
+
+    /**
+     * Réservations présentes (au moins une partie du séjour) dans la fenêtre [debut, fin[,
+     * quel que soit leur statut si {@code statuts} est vide.
+     */
+    public List<Reservation> getReservationsTouchant(LocalDate debut, LocalDate fin,
+                                                     Reservation.StatutReservation... statuts) {
+        return Metriques.mesurer("ReservationService.getReservationsTouchant", () -> {
+            EntityManager em = JPAUtils.getEntityManager();
+            try {
+                String jpql = "SELECT r FROM Reservation r JOIN FETCH r.chambre " +
+                        "WHERE r.dateArrivee < :fin AND r.dateDepart > :debut";
+                if (statuts.length > 0) jpql += " AND r.statut IN :statuts";
+                TypedQuery<Reservation> query = em.createQuery(jpql, Reservation.class);
+                query.setParameter("debut", debut.atStartOfDay());
+                query.setParameter("fin", fin.atStartOfDay());
+                if (statuts.length > 0) query.setParameter("statuts", List.of(statuts));
+                return query.getResultList();
+            } finally {
+                if (em.isOpen()) em.close();
+            }
+        });
+    }
+
     // Chiffre d'affaires du jour
     public double getChiffreAffairesDuJour() {
-        EntityManager em = JPAUtils.getEntityManager();
-        try {
-            LocalDateTime debut = LocalDate.now().atStartOfDay();
-            LocalDateTime fin = debut.plusDays(1);
-            TypedQuery<Double> query = em.createQuery(
-                    "SELECT COALESCE(SUM(r.montantTotal), 0) FROM Reservation r WHERE r.dateArrivee >= :debut AND r.dateArrivee < :fin",
-                    Double.class
-            );
-            query.setParameter("debut", debut);
-            query.setParameter("fin", fin);
-            return query.getSingleResult();
-        } finally {
-            if (em.isOpen()) em.close();
-        }
+        return Metriques.mesurer("ReservationService.getChiffreAffairesDuJour", () -> {
+            LocalDate aujourdHui = LocalDate.now();
+            // Compteur journalier tenu à jour par le journal des événements
+            return cache.obtenir(CLE_CA + aujourdHui, () -> historique.getChiffreAffaires(aujourdHui));
+        });
     }
 
     public long getTotalReservations() {
+        return Metriques.mesurer("ReservationService.getTotalReservations", () -> {
+            return cache.obtenir(CLE_TOTAL, this::requeteTotal);
+        });
+    }
+
+    private long requeteTotal() {
         EntityManager em = JPAUtils.getEntityManager();
         try {
             return em.createQuery("SELECT COUNT(r) FROM Reservation r", Long.class).getSingleResult();
@@ -206,196 +345,378 @@ public class ReservationService {
     }
 
     public double calculerTauxOccupation() {
-        EntityManager em = JPAUtils.getEntityManager();
-        try {
-            long totalChambres = em.createQuery("SELECT COUNT(c) FROM Chambre c", Long.class).getSingleResult();
-            if (totalChambres == 0) return 0.0;
-            long chambresOccupees = em.createQuery(
-                            "SELECT COUNT(r) FROM Reservation r WHERE r.statut = :statut", Long.class)
-                    .setParameter("statut", Reservation.StatutReservation.EN_COURS)
-                    .getSingleResult();
-            return (double) chambresOccupees / totalChambres * 100;
-        } finally {
-            if (em.isOpen()) em.close();
-        }
+        return Metriques.mesurer("ReservationService.calculerTauxOccupation", () -> {
+            EntityManager em = JPAUtils.getEntityManager();
+            try {
+                long totalChambres = em.createQuery("SELECT COUNT(c) FROM Chambre c", Long.class).getSingleResult();
+                if (totalChambres == 0) return 0.0;
+                long chambresOccupees = em.createQuery(
+                                "SELECT COUNT(r) FROM Reservation r WHERE r.statut = :statut", Long.class)
+                        .setParameter("statut", Reservation.StatutReservation.EN_COURS)
+                        .getSingleResult();
+                return (double) chambresOccupees / totalChambres * 100;
+            } finally {
+                if (em.isOpen()) em.close();
+            }
+        });
     }
 
-    // Check-in
-    public void checkIn(Reservation reservation) {
+    // Check-in : retourne la réservation mise à jour (chambre chargée) pour rafraîchir une seule ligne
+    public Reservation checkIn(Reservation reservation) {
+        return Metriques.mesurer("ReservationService.checkIn", () -> checkIn(reservation, LocalDateTime.now()));
+    }
+
+    // Rejeu du journal hors ligne : l'événement garde l'heure du check-in réel
+    Reservation checkIn(Reservation reservation, LocalDateTime horodatage) {
+        return transition(reservation, Changement.CHECK_IN, horodatage);
+    }
+
+    // Check-out : retourne la réservation mise à jour (chambre chargée) pour rafraîchir une seule ligne
+    public Reservation checkOut(Reservation reservation) {
+        return Metriques.mesurer("ReservationService.checkOut", () -> checkOut(reservation, LocalDateTime.now()));
+    }
+
+    // Rejeu du journal hors ligne : l'événement garde l'heure du check-out réel
+    Reservation checkOut(Reservation reservation, LocalDateTime horodatage) {
+        return transition(reservation, Changement.CHECK_OUT, horodatage);
+    }
+
+    // Annulation d'une réservation confirmée : la chambre redevient réservable sur la période dès la validation
+    public Reservation annuler(Reservation reservation) {
+        return Metriques.mesurer("ReservationService.annuler",
+                () -> transition(reservation, Changement.ANNULATION, LocalDateTime.now()));
+    }
+
+    // Client jamais arrivé : la réservation libère la chambre, sans compter comme annulation
+    public Reservation marquerNoShow(Reservation reservation) {
+        return Metriques.mesurer("ReservationService.marquerNoShow",
+                () -> transition(reservation, Changement.NO_SHOW, LocalDateTime.now()));
+    }
+
+    /**
+     * Applique un changement de statut selon la table des transitions. Une transition non permise ne modifie rien :
+     * la réservation est rendue dans son état actuel (chambre chargée), à l'appelant de comparer le statut.
+     */
+    private Reservation transition(Reservation reservation, Changement changement, LocalDateTime horodatage) {
         EntityManager em = JPAUtils.getEntityManager();
         EntityTransaction tx = em.getTransaction();
         try {
             tx.begin();
-            Reservation r = em.find(Reservation.class, reservation.getId());
-            if (r != null && r.getStatut() == Reservation.StatutReservation.CONFIRMEE) {
-                r.setStatut(Reservation.StatutReservation.EN_COURS);
-                Chambre chambre = r.getChambre();
-                chambre.setStatut(Chambre.StatutChambre.OCCUPEE);
-                em.merge(chambre);
-                em.merge(r);
+            // Verrou : deux postes ne peuvent pas journaliser la même transition
+            Reservation r = em.find(Reservation.class, reservation.getId(), LockModeType.PESSIMISTIC_WRITE);
+            Reservation.StatutReservation vers = r != null ? cible(r.getStatut(), changement) : null;
+            if (vers != null) {
+                r.setStatut(vers);
+                Chambre.StatutChambre statutChambre = statutChambre(changement);
+                if (statutChambre != null) r.getChambre().setStatut(statutChambre);
+                historique.enregistrer(em, typeEvenement(changement), r, horodatage);
             }
+            if (r != null) Hibernate.initialize(r.getChambre());
             tx.commit();
+            if (r != null) {
+                cache.invalider(CLE_ARRIVEES + r.getDateArrivee().toLocalDate(),
+                        CLE_DEPARTS + r.getDateDepart().toLocalDate());
+            }
+            if (vers != null) notifier(changement, r);
+            return r;
         } catch (Exception e) {
             if (tx.isActive()) tx.rollback();
-            throw new RuntimeException("Erreur lors du check-in : " + e.getMessage(), e);
+            throw new RuntimeException("Erreur lors " + changement.libelle + " : " + e.getMessage(), e);
         } finally {
             if (em.isOpen()) em.close();
         }
     }
 
-    // Check-out
-    public void checkOut(Reservation reservation) {
+    // Effet d'un changement sur la chambre : une annulation ou un no-show ne touche pas une chambre qui n'a pas été occupée
+    private static Chambre.StatutChambre statutChambre(Changement changement) {
+        return switch (changement) {
+            case CHECK_IN -> Chambre.StatutChambre.OCCUPEE;
+            case CHECK_OUT -> Chambre.StatutChambre.LIBRE;
+            default -> null;
+        };
+    }
+
+    private static EvenementReservation.Type typeEvenement(Changement changement) {
+        return switch (changement) {
+            case CREATION -> EvenementReservation.Type.CREATION;
+            case CHECK_IN -> EvenementReservation.Type.CHECK_IN;
+            case CHECK_OUT -> EvenementReservation.Type.CHECK_OUT;
+            case ANNULATION -> EvenementReservation.Type.ANNULATION;
+            case NO_SHOW -> EvenementReservation.Type.NO_SHOW;
+            case MODIFICATION -> EvenementReservation.Type.MODIFICATION;
+        };
+    }
+
+    /**
+     * Modifie les dates et/ou la chambre d'une réservation confirmée ou en cours (séjour commencé : seul le départ
+     * et la chambre peuvent changer). Mêmes contrôles qu'à l'enregistrement, la réservation elle-même exclue
+     * des chevauchements ; nuits et montant sont recalculés au tarif de la chambre retenue.
+     *
+     * @param chambreId nouvelle chambre, ou null pour garder la chambre actuelle
+     */
+    public Reservation modifier(Reservation reservation, LocalDateTime dateArrivee, LocalDateTime dateDepart,
+                                Long chambreId) {
+        return Metriques.mesurer("ReservationService.modifier", () -> {
+            EntityManager em = JPAUtils.getEntityManager();
+            EntityTransaction tx = em.getTransaction();
+            try {
+                tx.begin();
+                Reservation r = em.find(Reservation.class, reservation.getId(), LockModeType.PESSIMISTIC_WRITE);
+                if (r == null) throw new IllegalArgumentException("Réservation introuvable.");
+                if (!estPermis(r.getStatut(), Changement.MODIFICATION)) {
+                    throw new IllegalArgumentException("Réservation " + r.getStatut() + " : modification impossible.");
+                }
+                boolean enCours = r.getStatut() == Reservation.StatutReservation.EN_COURS;
+
+                LocalDateTime arrivee = dateArrivee;
+                LocalDateTime depart = dateDepart;
+                if (arrivee != null && arrivee.toLocalTime().equals(LocalTime.MIDNIGHT)) arrivee = arrivee.withHour(14);
+                if (depart != null && depart.toLocalTime().equals(LocalTime.MIDNIGHT)) depart = depart.withHour(12);
+                if (enCours && arrivee != null && !arrivee.toLocalDate().equals(r.getDateArrivee().toLocalDate())) {
+                    throw new IllegalArgumentException("Séjour commencé : seuls le départ et la chambre peuvent changer.");
+                }
+                if (enCours) arrivee = r.getDateArrivee();
+
+                // Arrivée inchangée (séjour commencé notamment) : seul l'ordre des dates est contrôlé
+                List<ErreurValidation> erreurs = new ArrayList<>(4);
+                ValidationReservation.validerSejour(arrivee, depart,
+                        r.getDateArrivee().equals(arrivee) ? arrivee : LocalDateTime.now(), erreurs);
+                Chambre ancienne = r.getChambre();
+                Chambre chambre = chambreId == null || chambreId.equals(ancienne.getId())
+                        ? ancienne : em.find(Chambre.class, chambreId);
+                ValidationReservation.validerChambre(chambre, r.getNombrePersonnes(), erreurs);
+                ValidationReservation.exiger(erreurs);
+
+                long chevauchements = em.createQuery(
+                                "SELECT COUNT(r) FROM Reservation r WHERE r.chambre = :chambre AND r.id <> :id AND " +
+                                        Reservation.JPQL_ACTIVES + " AND r.dateDepart > :arrivee AND r.dateArrivee < :depart",
+                                Long.class)
+                        .setParameter("chambre", chambre)
+                        .setParameter("id", r.getId())
+                        .setParameter("arrivee", arrivee)
+                        .setParameter("depart", depart)
+                        .getSingleResult();
+                if (chevauchements > 0) throw new IllegalArgumentException("Chambre déjà réservée.");
+
+                LocalDate ancienneArrivee = r.getDateArrivee().toLocalDate();
+                LocalDate ancienDepart = r.getDateDepart().toLocalDate();
+                boolean datesModifiees = !arrivee.equals(r.getDateArrivee()) || !depart.equals(r.getDateDepart());
+
+                int nuits = ValidationReservation.nombreNuits(arrivee, depart);
+                r.setDateArrivee(arrivee);
+                r.setDateDepart(depart);
+                r.setNombreNuits(nuits);
+                r.setMontantTotal(nuits * chambre.getTarifParNuit());
+                if (chambre != ancienne) {
+                    r.setChambre(chambre);
+                    // Client déjà installé : il change de chambre
+                    if (enCours) {
+                        ancienne.setStatut(Chambre.StatutChambre.LIBRE);
+                        chambre.setStatut(Chambre.StatutChambre.OCCUPEE);
+                    }
+                }
+                historique.enregistrer(em, datesModifiees ? EvenementReservation.Type.MODIFICATION
+                        : EvenementReservation.Type.CHANGEMENT_CHAMBRE, r, LocalDateTime.now());
+                Hibernate.initialize(r.getChambre());
+                tx.commit();
+
+                cache.invalider(CLE_ARRIVEES + ancienneArrivee, CLE_DEPARTS + ancienDepart, CLE_CA + ancienneArrivee,
+                        CLE_ARRIVEES + arrivee.toLocalDate(), CLE_DEPARTS + depart.toLocalDate(),
+                        CLE_CA + arrivee.toLocalDate());
+                notifier(Changement.MODIFICATION, r);
+                return r;
+            } catch (Exception e) {
+                if (tx.isActive()) tx.rollback();
+                throw new RuntimeException("Erreur lors " + Changement.MODIFICATION.libelle + " : " + e.getMessage(), e);
+            } finally {
+                if (em.isOpen()) em.close();
+            }
+        });
+    }
+
+    // Check-in groupé (arrivée d'un groupe) : une seule transaction pour toutes les réservations éligibles
+    public List<Reservation> checkInGroupe(Collection<Long> ids) {
+        return Metriques.mesurer("ReservationService.checkInGroupe", () -> {
+            return transitionGroupe(ids, Changement.CHECK_IN, r -> LocalDateTime.now());
+        });
+    }
+
+    // Check-out groupé
+    public List<Reservation> checkOutGroupe(Collection<Long> ids) {
+        return Metriques.mesurer("ReservationService.checkOutGroupe", () -> {
+            return transitionGroupe(ids, Changement.CHECK_OUT, r -> LocalDateTime.now());
+        });
+    }
+
+    // Annulation groupée (groupe ou séminaire annulé) : les réservations non annulables sont ignorées
+    public List<Reservation> annulerGroupe(Collection<Long> ids) {
+        return Metriques.mesurer("ReservationService.annulerGroupe", () -> {
+            return transitionGroupe(ids, Changement.ANNULATION, r -> LocalDateTime.now());
+        });
+    }
+
+    /**
+     * Applique {@code changement} aux réservations éligibles parmi {@code ids} (table des transitions), et met à jour
+     * leurs chambres s'il y a lieu, par des UPDATE ensemblistes dans une même transaction
+     * (au lieu d'un find + deux merge par réservation), avec un événement par réservation.
+     * Les réservations non éligibles sont ignorées. Aussi utilisée par l'audit de nuit.
+     *
+     * @param horodatage heure du fait pour chaque réservation (heure de départ prévue pour l'audit de nuit)
+     * @return les réservations effectivement modifiées, chambre chargée
+     */
+    List<Reservation> transitionGroupe(Collection<Long> ids, Changement changement,
+                                       Function<Reservation, LocalDateTime> horodatage) {
+        return transitionGroupe(ids, changement, horodatage, null);
+    }
+
+    /**
+     * Comme {@link #transitionGroupe(Collection, Changement, Function)}, en appelant {@code dansTransaction} avec le
+     * nombre de réservations modifiées juste avant la validation : ses écritures sont validées ou annulées avec le lot.
+     */
+    List<Reservation> transitionGroupe(Collection<Long> ids, Changement changement,
+                                       Function<Reservation, LocalDateTime> horodatage,
+                                       BiConsumer<EntityManager, Integer> dansTransaction) {
+        // Groupes : transitions qui partent d'un seul statut (check-in, check-out, annulation)
+        Reservation.StatutReservation de = TRANSITIONS.entrySet().stream()
+                .filter(t -> t.getValue().containsKey(changement))
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElseThrow();
+        Reservation.StatutReservation vers = cible(de, changement);
+        Chambre.StatutChambre statutChambre = statutChambre(changement);
+        EvenementReservation.Type type = typeEvenement(changement);
+        if (ids == null || ids.isEmpty()) return List.of();
         EntityManager em = JPAUtils.getEntityManager();
         EntityTransaction tx = em.getTransaction();
         try {
             tx.begin();
-            Reservation r = em.find(Reservation.class, reservation.getId());
-            if (r != null && r.getStatut() == Reservation.StatutReservation.EN_COURS) {
-                r.setStatut(Reservation.StatutReservation.TERMINEE);
-                Chambre chambre = r.getChambre();
-                chambre.setStatut(Chambre.StatutChambre.LIBRE);
-                em.merge(chambre);
-                em.merge(r);
+            // Verrou pessimiste : un check-in unitaire concurrent ne peut pas s'intercaler
+            List<Reservation> eligibles = em.createQuery(
+                            "SELECT r FROM Reservation r JOIN FETCH r.chambre " +
+                                    "WHERE r.id IN :ids AND r.statut = :de", Reservation.class)
+                    .setParameter("ids", ids)
+                    .setParameter("de", de)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList();
+            if (eligibles.isEmpty()) {
+                if (dansTransaction != null) dansTransaction.accept(em, 0);
+                tx.commit();
+                return List.of();
+            }
+
+            List<Long> idsEligibles = eligibles.stream().map(Reservation::getId).toList();
+            List<Long> idsChambres = eligibles.stream().map(r -> r.getChambre().getId()).distinct().toList();
+            em.createQuery("UPDATE Reservation r SET r.statut = :vers WHERE r.id IN :ids")
+                    .setParameter("vers", vers)
+                    .setParameter("ids", idsEligibles)
+                    .executeUpdate();
+            if (statutChambre != null) {
+                em.createQuery("UPDATE Chambre c SET c.statut = :statut WHERE c.id IN :ids")
+                        .setParameter("statut", statutChambre)
+                        .setParameter("ids", idsChambres)
+                        .executeUpdate();
             }
+            // Les objets chargés gardent l'ancien statut (pas d'UPDATE en double) : l'événement porte le nouveau
+            historique.enregistrer(em, eligibles.stream()
+                    .map(r -> new EvenementReservation(type, r, vers, horodatage.apply(r)))
+                    .toList());
+            if (dansTransaction != null) dansTransaction.accept(em, eligibles.size());
             tx.commit();
+
+            // Les UPDATE ensemblistes contournent le contexte de persistance : on reporte les statuts sur les objets rendus
+            Set<String> cles = new HashSet<>();
+            for (Reservation r : eligibles) {
+                r.setStatut(vers);
+                if (statutChambre != null) r.getChambre().setStatut(statutChambre);
+                cles.add(CLE_ARRIVEES + r.getDateArrivee().toLocalDate());
+                cles.add(CLE_DEPARTS + r.getDateDepart().toLocalDate());
+            }
+            cache.invalider(cles.toArray(new String[0]));
+            for (Reservation r : eligibles) notifier(changement, r);
+            return eligibles;
         } catch (Exception e) {
             if (tx.isActive()) tx.rollback();
-            throw new RuntimeException("Erreur lors du check-out : " + e.getMessage(), e);
+            throw new RuntimeException("Erreur lors du traitement groupé : " + e.getMessage(), e);
         } finally {
             if (em.isOpen()) em.close();
         }
     }
 
+
+    // Agrégats d'une période : CA, durée moyenne, nuits vendues, annulations, sommés sur les compteurs journaliers
+    public PeriodStats getStatsPeriode(LocalDate debut, LocalDate fin) {
+        return Metriques.mesurer("ReservationService.getStatsPeriode", () -> historique.getStatsPeriode(debut, fin));
+    }
+
     // Chiffre d’affaires entre deux dates
     public double calculChiffreAffaires(LocalDate debut, LocalDate fin) {
-        EntityManager em = JPAUtils.getEntityManager();
-        try {
-            LocalDateTime start = debut.atStartOfDay();
-            LocalDateTime end = fin.plusDays(1).atStartOfDay();
-            TypedQuery<Double> query = em.createQuery(
-                    "SELECT COALESCE(SUM(r.montantTotal), 0) FROM Reservation r WHERE r.dateArrivee >= :start AND r.dateArrivee < :end",
-                    Double.class
-            );
-            query.setParameter("start", start);
-            query.setParameter("end", end);
-            return query.getSingleResult();
-        } finally {
-            if (em.isOpen()) em.close();
-        }
+        return Metriques.mesurer("ReservationService.calculChiffreAffaires", () -> {
+            return getStatsPeriode(debut, fin).chiffreAffaires();
+        });
     }
 
     // Client ayant le plus de réservations
     public String getClientLePlusFidele(LocalDate debut, LocalDate fin) {
-        EntityManager em = JPAUtils.getEntityManager();
-        try {
-            LocalDateTime start = debut.atStartOfDay();
-            LocalDateTime end = fin.plusDays(1).atStartOfDay();
-            TypedQuery<Object[]> query = em.createQuery(
-                    "SELECT r.nomClient, r.prenomClient, COUNT(r) FROM Reservation r " +
-                            "WHERE r.dateArrivee >= :start AND r.dateArrivee < :end " +
-                            "GROUP BY r.nomClient, r.prenomClient ORDER BY COUNT(r) DESC",
-                    Object[].class
-            );
-            query.setParameter("start", start);
-            query.setParameter("end", end);
-            query.setMaxResults(1);
-            List<Object[]> result = query.getResultList();
-            if (!result.isEmpty()) {
-                Object[] row = result.get(0);
-                return row[0] + " " + row[1];
-            }
-            return null;
-        } finally {
-            if (em.isOpen()) em.close();
-        }
+        return Metriques.mesurer("ReservationService.getClientLePlusFidele", () -> {
+            List<ElementClassement> top = new ClassementService().topK(ClassementService.Dimension.CLIENT, debut, fin, 1);
+            return top.isEmpty() ? null : top.get(0).libelle();
+        });
     }
 
     // Durée moyenne de séjour
     public double getDureeMoyenneSejour(LocalDate debut, LocalDate fin) {
-        EntityManager em = JPAUtils.getEntityManager();
-        try {
-            LocalDateTime start = debut.atStartOfDay();
-            LocalDateTime end = fin.plusDays(1).atStartOfDay();
-            TypedQuery<Double> query = em.createQuery(
-                    "SELECT COALESCE(AVG(r.nombreNuits), 0) FROM Reservation r " +
-                            "WHERE r.dateArrivee >= :start AND r.dateArrivee < :end",
-                    Double.class
-            );
-            query.setParameter("start", start);
-            query.setParameter("end", end);
-            return query.getSingleResult();
-        } finally {
-            if (em.isOpen()) em.close();
-        }
+        return Metriques.mesurer("ReservationService.getDureeMoyenneSejour", () -> {
+            return getStatsPeriode(debut, fin).dureeMoyenneSejour();
+        });
     }
 
     // Nombre d’annulations
     public int getNombreAnnulations(LocalDate debut, LocalDate fin) {
-        EntityManager em = JPAUtils.getEntityManager();
-        try {
-            LocalDateTime start = debut.atStartOfDay();
-            LocalDateTime end = fin.plusDays(1).atStartOfDay();
-            TypedQuery<Long> query = em.createQuery(
-                    "SELECT COUNT(r) FROM Reservation r WHERE r.statut = :annulee AND r.dateArrivee >= :start AND r.dateArrivee < :end",
-                    Long.class
-            );
-            query.setParameter("annulee", Reservation.StatutReservation.ANNULEE);
-            query.setParameter("start", start);
-            query.setParameter("end", end);
-            return query.getSingleResult().intValue();
-        } finally {
-            if (em.isOpen()) em.close();
-        }
+        return Metriques.mesurer("ReservationService.getNombreAnnulations", () -> {
+            return (int) getStatsPeriode(debut, fin).annulations();
+        });
     }
 
     // Nombre total de nuits vendues
     public int getNombreNuitsVendues(LocalDate debut, LocalDate fin) {
-        EntityManager em = JPAUtils.getEntityManager();
-        try {
-            LocalDateTime start = debut.atStartOfDay();
-            LocalDateTime end = fin.plusDays(1).atStartOfDay();
-            TypedQuery<Long> query = em.createQuery(
-                    "SELECT COALESCE(SUM(r.nombreNuits), 0) FROM Reservation r WHERE r.dateArrivee >= :start AND r.dateArrivee < :end",
-                    Long.class
-            );
-            query.setParameter("start", start);
-            query.setParameter("end", end);
-            return query.getSingleResult().intValue();
-        } finally {
-            if (em.isOpen()) em.close();
-        }
+        return Metriques.mesurer("ReservationService.getNombreNuitsVendues", () -> {
+            return (int) getStatsPeriode(debut, fin).nuitsVendues();
+        });
     }
+
     // Réservations par mois (pour LineChart)
     public Map<String, Integer> getNombreReservationsParMois(LocalDate debut, LocalDate fin) {
-        EntityManager em = JPAUtils.getEntityManager();
-        try {
-            LocalDateTime start = debut.atStartOfDay();
-            LocalDateTime end = fin.plusDays(1).atStartOfDay();
-
-            TypedQuery<Object[]> query = em.createQuery(
-                    "SELECT EXTRACT(MONTH FROM r.dateArrivee), COUNT(r) " +
-                            "FROM Reservation r " +
-                            "WHERE r.dateArrivee >= :start AND r.dateArrivee < :end " +
-                            "GROUP BY EXTRACT(MONTH FROM r.dateArrivee) " +
-                            "ORDER BY EXTRACT(MONTH FROM r.dateArrivee)",
-                    Object[].class
-            );
-
-            query.setParameter("start", start);
-            query.setParameter("end", end);
-
-            List<Object[]> resultList = query.getResultList();
-
-            Map<String, Integer> stats = new LinkedHashMap<>(); // pour garder l'ordre des mois
-            for (Object[] row : resultList) {
-                int mois = ((Number) row[0]).intValue();
-                String moisNom = java.time.Month.of(mois).name();
-                stats.put(moisNom, ((Number) row[1]).intValue());
+        return Metriques.mesurer("ReservationService.getNombreReservationsParMois", () -> {
+            EntityManager em = JPAUtils.getEntityManager();
+            try {
+                LocalDateTime start = debut.atStartOfDay();
+                LocalDateTime end = fin.plusDays(1).atStartOfDay();
+
+                TypedQuery<Object[]> query = em.createQuery(
+                        "SELECT EXTRACT(MONTH FROM r.dateArrivee), COUNT(r) " +
+                                "FROM Reservation r " +
+                                "WHERE r.dateArrivee >= :start AND r.dateArrivee < :end " +
+                                "GROUP BY EXTRACT(MONTH FROM r.dateArrivee) " +
+                                "ORDER BY EXTRACT(MONTH FROM r.dateArrivee)",
+                        Object[].class
+                );
+
+                query.setParameter("start", start);
+                query.setParameter("end", end);
+
+                List<Object[]> resultList = query.getResultList();
+
+                Map<String, Integer> stats = new LinkedHashMap<>(); // pour garder l'ordre des mois
+                for (Object[] row : resultList) {
+                    int mois = ((Number) row[0]).intValue();
+                    String moisNom = java.time.Month.of(mois).name();
+                    stats.put(moisNom, ((Number) row[1]).intValue());
+                }
+                return stats;
+            } finally {
+                if (em.isOpen()) em.close();
             }
-            return stats;
-        } finally {
-            if (em.isOpen()) em.close();
-        }
+        });
     }
 
 
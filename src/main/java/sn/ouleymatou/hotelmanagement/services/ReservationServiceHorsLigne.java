@@ -0,0 +1,356 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+import jakarta.persistence.EntityManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.exception.JDBCConnectionException;
+import sn.ouleymatou.hotelmanagement.api.CodecApi;
+import sn.ouleymatou.hotelmanagement.entities.Chambre;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.utils.IndexIntervallesChambres;
+import sn.ouleymatou.hotelmanagement.utils.JPAUtils;
+import sn.ouleymatou.hotelmanagement.utils.Metriques;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ReservationService} qui continue d'accepter les réservations, check-in et check-out quand la base est
+ * injoignable : l'opération est validée contre un référentiel en mémoire (chambres, périodes occupées), écrite
+ * dans le {@link JournalHorsLigne}, puis rejouée dans l'ordre dès que la base répond de nouveau.
+ *
+ * <p>Le rejeu est idempotent : une création dont le numéro existe déjà en base, ou une transition déjà faite,
+ * est simplement acquittée. Une opération que la base refuse (chambre prise entre-temps par un autre poste,
+ * réservation annulée...) est acquittée en conflit et signalée ; elle ne bloque pas les suivantes.
+ *
+ * <p>Le référentiel ne fait que s'enrichir entre deux rechargements (départs et annulations n'y libèrent rien) :
+ * hors ligne, il peut refuser une période en réalité libre, jamais accepter une période occupée qu'il connaît.
+ */
+public class ReservationServiceHorsLigne extends ReservationService {
+
+    private static final Logger LOG = LogManager.getLogger(ReservationServiceHorsLigne.class);
+
+    private static final long PERIODE_SYNCHRO_SECONDES = 30;
+    private static final long PERIODE_REFERENTIEL_MINUTES = 5;
+    private static final int HORIZON_REFERENTIEL_JOURS = 365;
+    private static final DateTimeFormatter FORMAT_NUMERO = DateTimeFormatter.BASIC_ISO_DATE;
+
+    /**
+     * Résultat d'une synchronisation : opérations appliquées, conflits (messages), opérations encore en attente.
+     */
+    public record BilanSynchronisation(int appliquees, List<String> conflits, int restantes) {}
+
+    private static JournalHorsLigne journal;
+    private static ScheduledExecutorService synchro;
+
+    // Référentiel hors ligne : remplacé d'un bloc à chaque rechargement
+    private static final Map<Long, Chambre> chambres = new ConcurrentHashMap<>();
+    private static volatile IndexIntervallesChambres occupation;
+    private static volatile long referentielChargeA;
+    private static final List<String> derniersConflits = new CopyOnWriteArrayList<>();
+
+    static {
+        // Les réservations créées en ligne entrent aussi dans le référentiel
+        ReservationService.ajouterEcouteur((changement, r) -> {
+            IndexIntervallesChambres index = occupation;
+            // Index prudent : une annulation ne libère la période qu'au prochain rechargement du référentiel
+            if ((changement == Changement.CREATION || changement == Changement.MODIFICATION)
+                    && index != null && r.getChambre() != null) {
+                synchronized (index) {
+                    index.ajouter(r.getChambre().getId(), r.getDateArrivee(), r.getDateDepart());
+                }
+            }
+        });
+    }
+
+    public ReservationServiceHorsLigne() {
+        demarrer();
+    }
+
+    private static synchronized void demarrer() {
+        if (synchro != null) return;
+        String chemin = JPAUtils.getConfiguration().get("hotel.horsLigne.fichier");
+        journal = new JournalHorsLigne(chemin != null && !chemin.isBlank() ? Path.of(chemin)
+                : Path.of(System.getProperty("user.home"), ".hotelmanagement", "journal-hors-ligne.jsonl"));
+        Metriques.jauge("ReservationService.horsLigne.enAttente", journal::getNombreEnAttente);
+
+        synchro = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "synchro-hors-ligne");
+            t.setDaemon(true);
+            return t;
+        });
+        synchro.scheduleWithFixedDelay(() -> {
+            try {
+                if (journal.getNombreEnAttente() > 0) {
+                    new ReservationServiceHorsLigne().synchroniser();
+                } else if (System.currentTimeMillis() - referentielChargeA > TimeUnit.MINUTES.toMillis(PERIODE_REFERENTIEL_MINUTES)) {
+                    new ReservationServiceHorsLigne().rechargerReferentiel();
+                }
+            } catch (Exception e) {
+                if (!estIndisponibilite(e)) e.printStackTrace();
+            }
+        }, 0, PERIODE_SYNCHRO_SECONDES, TimeUnit.SECONDS);
+    }
+
+    public static JournalHorsLigne getJournal() {
+        demarrer();
+        return journal;
+    }
+
+    public static List<String> getDerniersConflits() {
+        return List.copyOf(derniersConflits);
+    }
+
+    /**
+     * La base est-elle en cause (connexion refusée, coupée ou expirée), par opposition à un refus métier ?
+     */
+    public static boolean estIndisponibilite(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof JDBCConnectionException
+                    || cause instanceof SQLTransientConnectionException
+                    || cause instanceof SQLNonTransientConnectionException
+                    || cause instanceof ConnectException
+                    || cause instanceof SocketTimeoutException) return true;
+            if (cause instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("08")) return true;
+        }
+        return false;
+    }
+
+    // ==== Référentiel ====
+
+    void rechargerReferentiel() {
+        List<Chambre> liste = new ChambreService().lister();
+        LocalDate aujourdHui = LocalDate.now();
+        IndexIntervallesChambres index = new IndexIntervallesChambres();
+        for (Reservation r : getReservationsTouchant(aujourdHui, aujourdHui.plusDays(HORIZON_REFERENTIEL_JOURS),
+                Reservation.StatutReservation.CONFIRMEE, Reservation.StatutReservation.EN_COURS)) {
+            index.ajouter(r.getChambre().getId(), r.getDateArrivee(), r.getDateDepart());
+        }
+        // Les opérations encore en attente restent réservées
+        for (JournalHorsLigne.Operation op : journal.getEnAttente()) {
+            if (op.type() == JournalHorsLigne.TypeOperation.CREATION) {
+                Reservation r = CodecApi.reservation(op.reservation());
+                index.ajouter(r.getChambre().getId(), r.getDateArrivee(), r.getDateDepart());
+            }
+        }
+        chambres.clear();
+        liste.forEach(c -> chambres.put(c.getId(), c));
+        occupation = index;
+        referentielChargeA = System.currentTimeMillis();
+    }
+
+    /**
+     * Chambres libres sur la période d'après le référentiel : pour le formulaire de réservation hors ligne.
+     */
+    public static List<Chambre> chambresDisponiblesHorsLigne(LocalDateTime arrivee, LocalDateTime depart) {
+        IndexIntervallesChambres index = occupation;
+        if (index == null) return List.of();
+        List<Chambre> libres = new ArrayList<>();
+        synchronized (index) {
+            for (Chambre c : chambres.values()) {
+                if (c.getStatut() == Chambre.StatutChambre.LIBRE && !index.chevauche(c.getId(), arrivee, depart)) libres.add(c);
+            }
+        }
+        libres.sort((a, b) -> a.getNumero().compareTo(b.getNumero()));
+        return libres;
+    }
+
+    // ==== Écritures avec repli hors ligne ====
+
+    @Override
+    public String genererNumeroReservation() {
+        try {
+            return super.genererNumeroReservation();
+        } catch (RuntimeException e) {
+            if (!estIndisponibilite(e)) throw e;
+            return numeroHorsLigne();
+        }
+    }
+
+    // Numéro provisoire distinct de la séquence du jour, gardé au rejeu. Le rejeu d'une création reconnaît
+    // la réservation à son numéro : un UUID aléatoire (122 bits) rend la collision entre postes négligeable
+    private static String numeroHorsLigne() {
+        return "RSV-" + LocalDate.now().format(FORMAT_NUMERO) + "-HL"
+                + UUID.randomUUID().toString().replace("-", "").toUpperCase();
+    }
+
+    @Override
+    public void enregistrerReservation(Reservation reservation) {
+        try {
+            super.enregistrerReservation(reservation);
+        } catch (RuntimeException e) {
+            if (!estIndisponibilite(e)) throw e;
+            accepterHorsLigne(reservation, e);
+        }
+    }
+
+    private void accepterHorsLigne(Reservation reservation, RuntimeException indisponibilite) {
+        IndexIntervallesChambres index = occupation;
+        if (index == null) {
+            throw new RuntimeException("Base de données injoignable, et aucune disponibilité en cache : "
+                    + "réservation impossible pour le moment.", indisponibilite);
+        }
+
+        // Mêmes règles que l'enregistrement en ligne
+        List<ErreurValidation> erreurs = new ArrayList<>(4);
+        ValidationReservation.validerClient(reservation.getNomClient(), reservation.getPrenomClient(),
+                reservation.getTelephone(), reservation.getEmail(), erreurs);
+        LocalDateTime arrivee = reservation.getDateArrivee();
+        LocalDateTime depart = reservation.getDateDepart();
+        if (arrivee != null && arrivee.toLocalTime().equals(LocalTime.MIDNIGHT)) arrivee = arrivee.withHour(14);
+        if (depart != null && depart.toLocalTime().equals(LocalTime.MIDNIGHT)) depart = depart.withHour(12);
+        ValidationReservation.validerSejour(arrivee, depart, LocalDateTime.now(), erreurs);
+        Chambre chambre = reservation.getChambre() != null ? chambres.get(reservation.getChambre().getId()) : null;
+        ValidationReservation.validerChambre(chambre, reservation.getNombrePersonnes(), erreurs);
+        ValidationReservation.exiger(erreurs);
+
+        int nuits = ValidationReservation.nombreNuits(arrivee, depart);
+        double montantTotal = nuits * chambre.getTarifParNuit();
+        ValidationReservation.validerAcompte(reservation.getAcompte(), montantTotal, erreurs);
+        ValidationReservation.exiger(erreurs);
+
+        synchronized (index) {
+            if (!index.reserverSiLibre(chambre.getId(), arrivee, depart)) {
+                throw new IllegalArgumentException("Chambre déjà réservée.");
+            }
+        }
+
+        reservation.setDateArrivee(arrivee);
+        reservation.setDateDepart(depart);
+        reservation.setNombreNuits(nuits);
+        reservation.setMontantTotal(montantTotal);
+        reservation.setChambre(chambre);
+        if (reservation.getNumero() == null || reservation.getNumero().isEmpty()) reservation.setNumero(numeroHorsLigne());
+        reservation.setDateReservation(LocalDateTime.now());
+        reservation.setStatut(Reservation.StatutReservation.CONFIRMEE);
+        journal.ajouter(JournalHorsLigne.TypeOperation.CREATION, CodecApi.versJson(reservation));
+        LOG.warn("Base injoignable : réservation {} enregistrée hors ligne", reservation.getNumero());
+    }
+
+    @Override
+    public Reservation checkIn(Reservation reservation) {
+        try {
+            return super.checkIn(reservation);
+        } catch (RuntimeException e) {
+            if (!estIndisponibilite(e)) throw e;
+            return transitionHorsLigne(reservation, Reservation.StatutReservation.CONFIRMEE,
+                    Reservation.StatutReservation.EN_COURS, Chambre.StatutChambre.OCCUPEE, JournalHorsLigne.TypeOperation.CHECK_IN);
+        }
+    }
+
+    @Override
+    public Reservation checkOut(Reservation reservation) {
+        try {
+            return super.checkOut(reservation);
+        } catch (RuntimeException e) {
+            if (!estIndisponibilite(e)) throw e;
+            return transitionHorsLigne(reservation, Reservation.StatutReservation.EN_COURS,
+                    Reservation.StatutReservation.TERMINEE, Chambre.StatutChambre.LIBRE, JournalHorsLigne.TypeOperation.CHECK_OUT);
+        }
+    }
+
+    // Comme en ligne, une réservation non éligible est rendue telle quelle
+    private Reservation transitionHorsLigne(Reservation reservation, Reservation.StatutReservation de,
+                                            Reservation.StatutReservation vers, Chambre.StatutChambre statutChambre,
+                                            JournalHorsLigne.TypeOperation type) {
+        if (reservation.getStatut() != de) return reservation;
+        reservation.setStatut(vers);
+        if (reservation.getChambre() != null) reservation.getChambre().setStatut(statutChambre);
+        journal.ajouter(type, CodecApi.versJson(reservation));
+        LOG.warn("Base injoignable : {} de {} enregistré hors ligne", type, reservation.getNumero());
+        return reservation;
+    }
+
+    // ==== Rejeu ====
+
+    /**
+     * Rejoue dans l'ordre les opérations en attente. S'arrête, sans rien perdre, si la base redevient injoignable.
+     */
+    public BilanSynchronisation synchroniser() {
+        synchronized (ReservationServiceHorsLigne.class) {
+            int appliquees = 0;
+            List<String> conflits = new ArrayList<>();
+            for (JournalHorsLigne.Operation op : journal.getEnAttente()) {
+                try {
+                    String conflit = switch (op.type()) {
+                        case CREATION -> rejouerCreation(op);
+                        case CHECK_IN -> rejouerTransition(op, Reservation.StatutReservation.EN_COURS);
+                        case CHECK_OUT -> rejouerTransition(op, Reservation.StatutReservation.TERMINEE);
+                    };
+                    if (conflit == null) {
+                        journal.acquitter(op, JournalHorsLigne.Etat.APPLIQUEE, null);
+                        appliquees++;
+                    } else {
+                        signalerConflit(op, conflit, conflits);
+                    }
+                } catch (RuntimeException e) {
+                    if (estIndisponibilite(e)) break;
+                    signalerConflit(op, e.getMessage(), conflits);
+                }
+            }
+            if (appliquees > 0 || !conflits.isEmpty()) {
+                LOG.info("Synchronisation hors ligne : {} appliquée(s), {} conflit(s), {} restante(s)",
+                        appliquees, conflits.size(), journal.getNombreEnAttente());
+                rechargerReferentiel();
+            }
+            return new BilanSynchronisation(appliquees, conflits, journal.getNombreEnAttente());
+        }
+    }
+
+    private void signalerConflit(JournalHorsLigne.Operation op, String message, List<String> conflits) {
+        String texte = op.type() + " " + op.numero() + " (" + op.horodatage().toLocalDate() + ") : " + message;
+        journal.acquitter(op, JournalHorsLigne.Etat.CONFLIT, message);
+        conflits.add(texte);
+        derniersConflits.add(texte);
+        LOG.warn("Conflit au rejeu hors ligne : {}", texte);
+    }
+
+    // Rend null si appliquée, sinon le motif du conflit
+    private String rejouerCreation(JournalHorsLigne.Operation op) {
+        if (trouverIdParNumero(op.numero()) != null) return null;
+        Reservation r = CodecApi.reservation(op.reservation());
+        r.setId(null);
+        enregistrerReservation(r, op.horodatage());
+        return null;
+    }
+
+    private String rejouerTransition(JournalHorsLigne.Operation op, Reservation.StatutReservation vers) {
+        Long id = trouverIdParNumero(op.numero());
+        if (id == null) return "réservation introuvable en base";
+        Reservation ref = new Reservation();
+        ref.setId(id);
+        Reservation r = vers == Reservation.StatutReservation.EN_COURS
+                ? checkIn(ref, op.horodatage()) : checkOut(ref, op.horodatage());
+        if (r == null) return "réservation introuvable en base";
+        return r.getStatut() == vers ? null : "statut actuel " + r.getStatut();
+    }
+
+    private static Long trouverIdParNumero(String numero) {
+        EntityManager em = JPAUtils.getEntityManager();
+        try {
+            List<Long> ids = em.createQuery("SELECT r.id FROM Reservation r WHERE r.numero = :numero", Long.class)
+                    .setParameter("numero", numero)
+                    .getResultList();
+            return ids.isEmpty() ? null : ids.get(0);
+        } finally {
+            if (em.isOpen()) em.close();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+import jakarta.persistence.EntityManager;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.utils.JPAUtils;
+import sn.ouleymatou.hotelmanagement.utils.SnapshotReservations;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Archive les années closes dans des instantanés colonnaires (voir {@link SnapshotReservations})
+ * et calcule les statistiques d'une période en lisant ces fichiers pour les années archivées,
+ * la base n'étant interrogée que pour la partie encore vivante de la période.
+ * Une année n'est close qu'une fois passée et sans réservation confirmée ou en cours : ses lignes ne changent plus.
+ */
+public class SnapshotService {
+
+    private static final Path DOSSIER = Path.of(System.getProperty("user.home"), ".hotelmanagement", "snapshots");
+
+    private static final Map<Integer, SnapshotReservations> ouverts = new ConcurrentHashMap<>();
+
+    private final ReservationService reservationService = new ReservationService();
+
+    /**
+     * Archive toutes les années closes qui ne le sont pas encore (ou dont l'instantané est d'un ancien format).
+     *
+     * @return le nombre d'années archivées
+     */
+    public int exporterAnneesCloses() throws IOException {
+        LocalDateTime premiere;
+        Set<Integer> ouvertes;
+        EntityManager em = JPAUtils.getEntityManager();
+        try {
+            premiere = em.createQuery("SELECT MIN(r.dateArrivee) FROM Reservation r", LocalDateTime.class)
+                    .getSingleResult();
+            ouvertes = new HashSet<>(em.createQuery(
+                            "SELECT DISTINCT YEAR(r.dateArrivee) FROM Reservation r WHERE " + Reservation.JPQL_ACTIVES,
+                            Integer.class)
+                    .getResultList());
+        } finally {
+            if (em.isOpen()) em.close();
+        }
+        if (premiere == null) return 0;
+
+        int exportees = 0;
+        for (int annee = premiere.getYear(); annee < LocalDate.now().getYear(); annee++) {
+            if (!ouvertes.contains(annee) && snapshot(annee) == null) {
+                exporterAnnee(annee);
+                exportees++;
+            }
+        }
+        return exportees;
+    }
+
+    public Path exporterAnnee(int annee) throws IOException {
+        if (annee >= LocalDate.now().getYear()) {
+            throw new IllegalArgumentException("Seules les années closes peuvent être archivées.");
+        }
+        LocalDate debut = LocalDate.of(annee, 1, 1);
+
+        EntityManager em = JPAUtils.getEntityManager();
+        List<Object[]> chambres;
+        List<Object[]> lignes;
+        try {
+            long actives = em.createQuery(
+                            "SELECT COUNT(r) FROM Reservation r WHERE r.dateArrivee >= :start AND r.dateArrivee < :end " +
+                                    "AND " + Reservation.JPQL_ACTIVES, Long.class)
+                    .setParameter("start", debut.atStartOfDay())
+                    .setParameter("end", debut.plusYears(1).atStartOfDay())
+                    .getSingleResult();
+            if (actives > 0) {
+                throw new IllegalStateException(annee + " n'est pas close : " + actives +
+                        " réservation(s) encore confirmée(s) ou en cours.");
+            }
+            chambres = em.createQuery(
+                    "SELECT c.id, c.numero, c.typeChambre.libelle FROM Chambre c ORDER BY c.id", Object[].class)
+                    .getResultList();
+            lignes = em.createQuery(
+                            "SELECT r.dateArrivee, r.chambre.id, r.montantTotal, r.nombreNuits, r.statut " +
+                                    "FROM Reservation r WHERE r.dateArrivee >= :start AND r.dateArrivee < :end " +
+                                    "ORDER BY r.dateArrivee", Object[].class)
+                    .setParameter("start", debut.atStartOfDay())
+                    .setParameter("end", debut.plusYears(1).atStartOfDay())
+                    .getResultList();
+        } finally {
+            if (em.isOpen()) em.close();
+        }
+
+        // Tables des types et des chambres
+        List<byte[]> types = new ArrayList<>();
+        Map<String, Integer> indexTypes = new HashMap<>();
+        Map<Long, Integer> indexChambres = new HashMap<>();
+        List<byte[]> numeros = new ArrayList<>();
+        List<Integer> typeParChambre = new ArrayList<>();
+        for (Object[] c : chambres) {
+            String libelle = (String) c[2];
+            Integer type = indexTypes.get(libelle);
+            if (type == null) {
+                type = types.size();
+                indexTypes.put(libelle, type);
+                types.add(libelle.getBytes(StandardCharsets.UTF_8));
+            }
+            indexChambres.put((Long) c[0], numeros.size());
+            numeros.add(((String) c[1]).getBytes(StandardCharsets.UTF_8));
+            typeParChambre.add(type);
+        }
+
+        int n = lignes.size();
+        int tailleEntete = 4 * 4 + 4 + 4;
+        for (byte[] t : types) tailleEntete += 2 + t.length;
+        for (byte[] num : numeros) tailleEntete += 2 + num.length + 4;
+        ByteBuffer buffer = ByteBuffer.allocate(tailleEntete + n * (4 + 4 + 4 + 2 + 1));
+
+        int jourBase = (int) debut.toEpochDay();
+        buffer.putInt(SnapshotReservations.MAGIC).putInt(SnapshotReservations.VERSION).putInt(jourBase).putInt(n);
+        buffer.putInt(types.size());
+        for (byte[] t : types) buffer.putShort((short) t.length).put(t);
+        buffer.putInt(numeros.size());
+        for (int i = 0; i < numeros.size(); i++) {
+            buffer.putShort((short) numeros.get(i).length).put(numeros.get(i)).putInt(typeParChambre.get(i));
+        }
+
+        for (Object[] l : lignes) buffer.putInt((int) (((LocalDateTime) l[0]).toLocalDate().toEpochDay() - jourBase));
+        for (Object[] l : lignes) buffer.putInt(indexChambres.get((Long) l[1]));
+        for (Object[] l : lignes) buffer.putFloat(((Number) l[2]).floatValue());
+        for (Object[] l : lignes) buffer.putShort(((Number) l[3]).shortValue());
+        for (Object[] l : lignes) buffer.put(((Reservation.StatutReservation) l[4]).getCode());
+        buffer.flip();
+
+        // Écriture dans un fichier temporaire puis renommage : un instantané n'est jamais lu à moitié écrit.
+        // Une écriture interrompue (thread interrompu, disque plein) ne laisse pas de fichier temporaire
+        Files.createDirectories(DOSSIER);
+        Path cible = fichier(annee);
+        Path temp = Files.createTempFile(DOSSIER, "reservations-" + annee, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+            Files.move(temp, cible, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        ouverts.remove(annee);
+        return cible;
+    }
+
+    /**
+     * Statistiques d'une période : années archivées lues localement, reste interrogé en base
+     * (les années vivantes consécutives sont regroupées en une seule requête).
+     */
+    public PeriodStats getStatsPeriode(LocalDate debut, LocalDate fin) {
+        PeriodStats total = PeriodStats.VIDE;
+        LocalDate debutVivant = null;
+
+        for (int annee = debut.getYear(); annee <= fin.getYear(); annee++) {
+            LocalDate de = annee == debut.getYear() ? debut : LocalDate.of(annee, 1, 1);
+            LocalDate a = annee == fin.getYear() ? fin : LocalDate.of(annee, 12, 31);
+
+            SnapshotReservations snapshot = snapshot(annee);
+            if (snapshot == null) {
+                if (debutVivant == null) debutVivant = de;
+                continue;
+            }
+            if (debutVivant != null) {
+                total = total.fusionner(reservationService.getStatsPeriode(debutVivant, de.minusDays(1)));
+                debutVivant = null;
+            }
+            total = total.fusionner(snapshot.statsPeriode(de, a));
+        }
+        if (debutVivant != null) {
+            total = total.fusionner(reservationService.getStatsPeriode(debutVivant, fin));
+        }
+        return total;
+    }
+
+    private SnapshotReservations snapshot(int annee) {
+        if (annee >= LocalDate.now().getYear()) return null;
+        SnapshotReservations snapshot = ouverts.get(annee);
+        if (snapshot != null) return snapshot;
+        Path f = fichier(annee);
+        if (!Files.exists(f)) return null;
+        try {
+            snapshot = SnapshotReservations.ouvrir(f);
+            ouverts.put(annee, snapshot);
+            return snapshot;
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static Path fichier(int annee) {
+        return DOSSIER.resolve("reservations-" + annee + ".hrs");
+    }
+}
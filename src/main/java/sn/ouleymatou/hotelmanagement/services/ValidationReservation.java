@@ -0,0 +1,148 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+import sn.ouleymatou.hotelmanagement.entities.Chambre;
+import sn.ouleymatou.hotelmanagement.services.ErreurValidation.Champ;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Règles de saisie d'une réservation, partagées par le formulaire (à chaque frappe), le service (à l'enregistrement)
+ * et l'import massif.
+ *
+ * <p>Les expressions sont compilées une fois ; une vérification n'alloue que le Matcher de son champ (environ
+ * 200 octets, là où String.matches recompile l'expression). Les erreurs sont des constantes : une saisie invalide
+ * n'ajoute que des références à la liste fournie par l'appelant. Toutes les erreurs sont collectées, au lieu de
+ * s'arrêter à la première.
+ */
+public final class ValidationReservation {
+
+    private ValidationReservation() {}
+
+    /**
+     * Règle sur un champ texte : obligatoire ou non, longueur minimale, format.
+     */
+    public static final class RegleTexte {
+        private final boolean obligatoire;
+        private final int longueurMin;
+        private final Pattern format;
+        private final ErreurValidation erreur;
+
+        RegleTexte(Champ champ, boolean obligatoire, int longueurMin, String format, String message) {
+            this.obligatoire = obligatoire;
+            this.longueurMin = longueurMin;
+            this.format = Pattern.compile(format);
+            this.erreur = new ErreurValidation(champ, message);
+        }
+
+        public boolean estValide(CharSequence valeur) {
+            if (valeur == null || valeur.isEmpty()) return !obligatoire;
+            return valeur.length() >= longueurMin && format.matcher(valeur).matches();
+        }
+
+        public void verifier(CharSequence valeur, List<ErreurValidation> erreurs) {
+            if (!estValide(valeur)) erreurs.add(erreur);
+        }
+
+        public ErreurValidation getErreur() {
+            return erreur;
+        }
+    }
+
+    // ==== Règles ====
+
+    private static final String NOM_FORMAT = "^[A-Za-zÀ-ÖØ-öø-ÿ\\s'-]+$";
+
+    public static final RegleTexte NOM = new RegleTexte(Champ.NOM, true, 2, NOM_FORMAT,
+            "Nom client invalide : minimum 2 caractères.");
+    public static final RegleTexte PRENOM = new RegleTexte(Champ.PRENOM, true, 2, NOM_FORMAT,
+            "Prénom client invalide : minimum 2 caractères.");
+    public static final RegleTexte TELEPHONE = new RegleTexte(Champ.TELEPHONE, true, 0, "^(77|78|75|76|70)\\d{7}$",
+            "Téléphone invalide : 9 chiffres commençant par 77, 78, 75, 76 ou 70.");
+    public static final RegleTexte EMAIL = new RegleTexte(Champ.EMAIL, false, 0, "^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,}$",
+            "Email invalide.");
+
+    // Acompte exigé, en proportion du montant total
+    public static final double ACOMPTE_MIN = 0.3;
+
+    private static final ErreurValidation DATES_MANQUANTES = new ErreurValidation(Champ.DATES, "Dates d'arrivée et de départ obligatoires.");
+    private static final ErreurValidation ARRIVEE_PASSEE = new ErreurValidation(Champ.DATES, "Date d'arrivée dans le passé.");
+    private static final ErreurValidation DEPART_AVANT_ARRIVEE = new ErreurValidation(Champ.DATES, "Date de départ avant arrivée.");
+    private static final ErreurValidation CHAMBRE_INTROUVABLE = new ErreurValidation(Champ.CHAMBRE, "Chambre non trouvée.");
+    private static final ErreurValidation CHAMBRE_HORS_SERVICE = new ErreurValidation(Champ.CHAMBRE, "Chambre hors service.");
+    private static final ErreurValidation CAPACITE_DEPASSEE = new ErreurValidation(Champ.PERSONNES, "Nombre de personnes dépasse capacité.");
+    private static final ErreurValidation ACOMPTE_HORS_BORNES = new ErreurValidation(Champ.ACOMPTE, "Acompte entre 30% et 100% du total.");
+
+    // ==== Validation par groupe de champs ====
+
+    public static void validerClient(CharSequence nom, CharSequence prenom, CharSequence telephone, CharSequence email,
+                                     List<ErreurValidation> erreurs) {
+        NOM.verifier(nom, erreurs);
+        PRENOM.verifier(prenom, erreurs);
+        TELEPHONE.verifier(telephone, erreurs);
+        EMAIL.verifier(email, erreurs);
+    }
+
+    public static void validerSejour(LocalDateTime arrivee, LocalDateTime depart, LocalDateTime maintenant,
+                                     List<ErreurValidation> erreurs) {
+        if (arrivee == null || depart == null) {
+            erreurs.add(DATES_MANQUANTES);
+            return;
+        }
+        if (arrivee.isBefore(maintenant)) erreurs.add(ARRIVEE_PASSEE);
+        if (!depart.isAfter(arrivee)) erreurs.add(DEPART_AVANT_ARRIVEE);
+    }
+
+    /**
+     * Chambre existante et en service, capacité suffisante.
+     */
+    public static void validerChambre(Chambre.StatutChambre statut, int capacite, int personnes, boolean trouvee,
+                                      List<ErreurValidation> erreurs) {
+        if (!trouvee) {
+            erreurs.add(CHAMBRE_INTROUVABLE);
+            return;
+        }
+        if (statut == Chambre.StatutChambre.HORS_SERVICE) erreurs.add(CHAMBRE_HORS_SERVICE);
+        if (personnes < 1 || personnes > capacite) erreurs.add(CAPACITE_DEPASSEE);
+    }
+
+    public static void validerChambre(Chambre chambre, int personnes, List<ErreurValidation> erreurs) {
+        if (chambre == null) validerChambre(null, 0, personnes, false, erreurs);
+        else validerChambre(chambre.getStatut(), chambre.getCapacite(), personnes, true, erreurs);
+    }
+
+    public static void validerAcompte(double acompte, double montantTotal, List<ErreurValidation> erreurs) {
+        if (acompte < montantTotal * ACOMPTE_MIN || acompte > montantTotal) erreurs.add(ACOMPTE_HORS_BORNES);
+    }
+
+    // Nuits facturées : au moins une
+    public static int nombreNuits(LocalDateTime arrivee, LocalDateTime depart) {
+        return (int) Math.max(1, ChronoUnit.DAYS.between(arrivee.toLocalDate(), depart.toLocalDate()));
+    }
+
+    /**
+     * Lève une {@link ErreursValidationException} portant toutes les erreurs, s'il y en a.
+     */
+    public static void exiger(List<ErreurValidation> erreurs) {
+        if (!erreurs.isEmpty()) throw new ErreursValidationException(erreurs);
+    }
+
+    /**
+     * Saisie refusée : la liste complète des erreurs reste accessible, le message les reprend toutes.
+     */
+    public static class ErreursValidationException extends IllegalArgumentException {
+        private final List<ErreurValidation> erreurs;
+
+        public ErreursValidationException(List<ErreurValidation> erreurs) {
+            super(erreurs.stream().map(ErreurValidation::message).collect(Collectors.joining(" ")));
+            this.erreurs = List.copyOf(erreurs);
+        }
+
+        public List<ErreurValidation> getErreurs() {
+            return erreurs;
+        }
+    }
+}
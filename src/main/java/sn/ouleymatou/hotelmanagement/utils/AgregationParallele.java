@@ -0,0 +1,93 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Agrégation fork/join sur des {@link ColonnesReservations} : chaque sous-tâche remplit son propre
+ * accumulateur (aucun partage entre threads), les accumulateurs sont fusionnés en remontant.
+ * Un seul parcours produit CA, nuits, durée moyenne, annulations, et les ventilations par mois et par type.
+ */
+public class AgregationParallele extends RecursiveTask<AgregationParallele.Accumulateur> {
+
+    // En dessous de ce nombre de lignes, une boucle séquentielle est plus rapide qu'un découpage
+    private static final int SEUIL = 50_000;
+
+    public static final class Accumulateur {
+        public long nombre;
+        public double chiffreAffaires;
+        public long nuits;
+        public long annulations;
+        public final int[] parMois;
+        public final double[] chiffreAffairesParMois;
+        public final int[] parType;
+
+        Accumulateur(int nbMois, int nbTypes) {
+            parMois = new int[nbMois];
+            chiffreAffairesParMois = new double[nbMois];
+            parType = new int[nbTypes];
+        }
+
+        public double dureeMoyenne() {
+            return nombre > 0 ? (double) nuits / nombre : 0;
+        }
+
+        Accumulateur fusionner(Accumulateur autre) {
+            nombre += autre.nombre;
+            chiffreAffaires += autre.chiffreAffaires;
+            nuits += autre.nuits;
+            annulations += autre.annulations;
+            for (int m = 0; m < parMois.length; m++) {
+                parMois[m] += autre.parMois[m];
+                chiffreAffairesParMois[m] += autre.chiffreAffairesParMois[m];
+            }
+            for (int t = 0; t < parType.length; t++) parType[t] += autre.parType[t];
+            return this;
+        }
+    }
+
+    private final ColonnesReservations colonnes;
+    private final byte statutAnnule;
+    private final int debut;
+    private final int fin;
+
+    private AgregationParallele(ColonnesReservations colonnes, byte statutAnnule, int debut, int fin) {
+        this.colonnes = colonnes;
+        this.statutAnnule = statutAnnule;
+        this.debut = debut;
+        this.fin = fin;
+    }
+
+    public static Accumulateur executer(ColonnesReservations colonnes, byte statutAnnule) {
+        return ForkJoinPool.commonPool().invoke(new AgregationParallele(colonnes, statutAnnule, 0, colonnes.taille()));
+    }
+
+    @Override
+    protected Accumulateur compute() {
+        if (fin - debut <= SEUIL) {
+            return parcourir();
+        }
+        int milieu = (debut + fin) >>> 1;
+        AgregationParallele gauche = new AgregationParallele(colonnes, statutAnnule, debut, milieu);
+        AgregationParallele droite = new AgregationParallele(colonnes, statutAnnule, milieu, fin);
+        gauche.fork();
+        Accumulateur resultatDroite = droite.compute();
+        return gauche.join().fusionner(resultatDroite);
+    }
+
+    private Accumulateur parcourir() {
+        Accumulateur acc = new Accumulateur(colonnes.nbMois(), colonnes.libellesTypes().length);
+        for (int i = debut; i < fin; i++) {
+            float montant = colonnes.montant(i);
+            int mois = colonnes.mois(i);
+            acc.chiffreAffaires += montant;
+            acc.nuits += colonnes.nuits(i);
+            if (colonnes.statut(i) == statutAnnule) acc.annulations++;
+            acc.parMois[mois]++;
+            acc.chiffreAffairesParMois[mois] += montant;
+            acc.parType[colonnes.type(i)]++;
+        }
+        acc.nombre = fin - debut;
+        return acc;
+    }
+}
@@ -0,0 +1,83 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Petit cache de résultats de requêtes, borné en taille (éviction LRU) et en durée de vie (TTL).
+ * Les clés décrivent la requête et ses paramètres (ex : "arrivees:2025-06-01") ; les services
+ * invalident précisément les clés touchées par chaque écriture.
+ */
+public class CacheRequetes {
+
+    private record Entree(Object valeur, long expireA) {}
+
+    private final int tailleMax;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, Entree> entrees;
+    // Incrémentée à chaque invalidation : un calcul commencé avant ne doit pas être mémorisé
+    private long version;
+
+    public CacheRequetes(int tailleMax, long ttlMillis) {
+        this.tailleMax = tailleMax;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        // accessOrder = true : l'entrée la moins récemment lue est la première évincée
+        this.entrees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entree> eldest) {
+                return size() > CacheRequetes.this.tailleMax;
+            }
+        };
+    }
+
+    /**
+     * Retourne la valeur en cache si elle est encore valide, sinon la calcule et la mémorise.
+     * Le calcul se fait hors verrou : deux lectures simultanées d'une clé absente peuvent
+     * toutes deux interroger la base, mais aucune lecture n'attend une autre requête.
+     * Si une invalidation survient pendant le calcul, le résultat (peut-être lu avant l'écriture)
+     * est rendu à l'appelant sans être mémorisé.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T obtenir(String cle, Supplier<T> calcul) {
+        long maintenant = System.nanoTime();
+        long versionLue;
+        synchronized (this) {
+            Entree e = entrees.get(cle);
+            if (e != null && e.expireA - maintenant > 0) {
+                return (T) e.valeur;
+            }
+            versionLue = version;
+        }
+        T valeur = calcul.get();
+        synchronized (this) {
+            if (version == versionLue) {
+                entrees.put(cle, new Entree(valeur, System.nanoTime() + ttlNanos));
+            }
+        }
+        return valeur;
+    }
+
+    public synchronized void invalider(String... cles) {
+        version++;
+        for (String cle : cles) entrees.remove(cle);
+    }
+
+    public synchronized void invaliderPrefixe(String prefixe) {
+        version++;
+        Iterator<String> it = entrees.keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().startsWith(prefixe)) it.remove();
+        }
+    }
+
+    public synchronized int taille() {
+        return entrees.size();
+    }
+
+    public synchronized void vider() {
+        version++;
+        entrees.clear();
+    }
+}
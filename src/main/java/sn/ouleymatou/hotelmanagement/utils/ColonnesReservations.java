@@ -0,0 +1,58 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import java.util.Arrays;
+
+/**
+ * Réservations d'une période chargées une fois en colonnes primitives, prêtes pour des agrégations
+ * en mémoire (voir {@link AgregationParallele}). Aucune entité n'est conservée.
+ */
+public class ColonnesReservations {
+
+    private int taille;
+    private int[] mois;        // index du mois depuis le premier mois de la période
+    private float[] montants;
+    private short[] nuits;
+    private byte[] statuts;    // code de StatutReservation
+    private int[] types;       // index dans libellesTypes
+
+    private final String[] libellesTypes;
+    private final int nbMois;
+
+    public ColonnesReservations(int capaciteInitiale, int nbMois, String[] libellesTypes) {
+        int capacite = Math.max(16, capaciteInitiale);
+        this.mois = new int[capacite];
+        this.montants = new float[capacite];
+        this.nuits = new short[capacite];
+        this.statuts = new byte[capacite];
+        this.types = new int[capacite];
+        this.nbMois = nbMois;
+        this.libellesTypes = libellesTypes;
+    }
+
+    public void ajouter(int indexMois, float montant, short nombreNuits, byte statut, int indexType) {
+        if (taille == mois.length) {
+            int capacite = taille * 2;
+            mois = Arrays.copyOf(mois, capacite);
+            montants = Arrays.copyOf(montants, capacite);
+            nuits = Arrays.copyOf(nuits, capacite);
+            statuts = Arrays.copyOf(statuts, capacite);
+            types = Arrays.copyOf(types, capacite);
+        }
+        mois[taille] = indexMois;
+        montants[taille] = montant;
+        nuits[taille] = nombreNuits;
+        statuts[taille] = statut;
+        types[taille] = indexType;
+        taille++;
+    }
+
+    public int taille() { return taille; }
+    public int nbMois() { return nbMois; }
+    public String[] libellesTypes() { return libellesTypes; }
+
+    int mois(int i) { return mois[i]; }
+    float montant(int i) { return montants[i]; }
+    short nuits(int i) { return nuits[i]; }
+    byte statut(int i) { return statuts[i]; }
+    int type(int i) { return types[i]; }
+}
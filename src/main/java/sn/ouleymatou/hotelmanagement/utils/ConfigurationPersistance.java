@@ -0,0 +1,199 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Configuration de la persistance, construite par couches (la dernière l'emporte) :
+ * <ol>
+ *     <li>{@code config/hotel.properties} : valeurs par défaut ;</li>
+ *     <li>{@code config/hotel-<profil>.properties} : profil dev, prod ou benchmark ;</li>
+ *     <li>fichier externe : {@code -Dhotel.config}, {@code HOTEL_CONFIG}, sinon {@code ~/.hotelmanagement/hotel.properties} ;</li>
+ *     <li>variables d'environnement {@code HOTEL_DB_URL}, {@code HOTEL_DB_USER}, {@code HOTEL_DB_PASSWORD} ;</li>
+ *     <li>propriétés système {@code -Dhibernate.*}, {@code -Djakarta.persistence.*}, {@code -Dhotel.*}.</li>
+ * </ol>
+ * Le profil vient de {@code -Dhotel.profil}, {@code HOTEL_PROFIL} ou de la clé {@code hotel.profil} du fichier
+ * externe ; {@code dev} par défaut. Les clés {@code hotel.*} règlent l'application, les autres sont passées à Hibernate.
+ */
+public final class ConfigurationPersistance {
+
+    private static final Logger LOG = LogManager.getLogger(ConfigurationPersistance.class);
+
+    public static final Set<String> PROFILS = Set.of("dev", "prod", "benchmark");
+    private static final String PROFIL_DEFAUT = "dev";
+    private static final String UNITE_DEFAUT = "PERSISTENCE_POSTGRES";
+    private static final Path FICHIER_EXTERNE_DEFAUT =
+            Path.of(System.getProperty("user.home"), ".hotelmanagement", "hotel.properties");
+
+    private static final Map<String, String> VARIABLES_ENVIRONNEMENT = Map.of(
+            "HOTEL_DB_URL", "jakarta.persistence.jdbc.url",
+            "HOTEL_DB_USER", "jakarta.persistence.jdbc.user",
+            "HOTEL_DB_PASSWORD", "jakarta.persistence.jdbc.password");
+
+    private final String profil;
+    private final Map<String, String> proprietes;
+    private final List<String> sources;
+
+    private ConfigurationPersistance(String profil, Map<String, String> proprietes, List<String> sources) {
+        this.profil = profil;
+        this.proprietes = proprietes;
+        this.sources = sources;
+    }
+
+    public static ConfigurationPersistance charger() {
+        return charger(System.getenv(), System.getProperties());
+    }
+
+    static ConfigurationPersistance charger(Map<String, String> env, Properties systeme) {
+        List<String> sources = new ArrayList<>();
+
+        // Le fichier externe est lu d'abord : il peut choisir le profil
+        Path externe = fichierExterne(env, systeme);
+        Properties proprietesExternes = externe != null ? lireFichier(externe) : new Properties();
+
+        String profil = premierNonVide(systeme.getProperty("hotel.profil"), env.get("HOTEL_PROFIL"),
+                proprietesExternes.getProperty("hotel.profil"), PROFIL_DEFAUT).trim().toLowerCase();
+        if (!PROFILS.contains(profil)) {
+            throw new IllegalStateException("Profil de configuration inconnu : " + profil + " (attendu : " + PROFILS + ")");
+        }
+
+        Map<String, String> proprietes = new HashMap<>();
+        fusionner(proprietes, lireRessource("/config/hotel.properties"), sources, "config/hotel.properties");
+        fusionner(proprietes, lireRessource("/config/hotel-" + profil + ".properties"), sources,
+                "config/hotel-" + profil + ".properties");
+        if (externe != null) fusionner(proprietes, proprietesExternes, sources, externe.toString());
+
+        Properties proprietesEnv = new Properties();
+        VARIABLES_ENVIRONNEMENT.forEach((variable, cle) -> {
+            String valeur = env.get(variable);
+            if (valeur != null && !valeur.isBlank()) proprietesEnv.setProperty(cle, valeur);
+        });
+        fusionner(proprietes, proprietesEnv, sources, "environnement");
+
+        Properties proprietesSysteme = new Properties();
+        for (String cle : systeme.stringPropertyNames()) {
+            if (cle.startsWith("hibernate.") || cle.startsWith("jakarta.persistence.") || cle.startsWith("hotel.")) {
+                proprietesSysteme.setProperty(cle, systeme.getProperty(cle));
+            }
+        }
+        fusionner(proprietes, proprietesSysteme, sources, "propriétés système");
+
+        proprietes.put("hotel.profil", profil);
+        if (proprietes.getOrDefault("jakarta.persistence.jdbc.password", "").isEmpty()) {
+            LOG.warn("Aucun mot de passe de base de données : le renseigner par HOTEL_DB_PASSWORD ou dans le fichier externe");
+        }
+        return new ConfigurationPersistance(profil, proprietes, List.copyOf(sources));
+    }
+
+    public String getProfil() {
+        return profil;
+    }
+
+    public String getUnite() {
+        return proprietes.getOrDefault("hotel.persistence.unite", UNITE_DEFAUT);
+    }
+
+    public String get(String cle) {
+        return proprietes.get(cle);
+    }
+
+    public long getLong(String cle, long defaut) {
+        String valeur = proprietes.get(cle);
+        if (valeur == null || valeur.isBlank()) return defaut;
+        try {
+            return Long.parseLong(valeur.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Valeur non numérique pour {} : {}", cle, valeur);
+            return defaut;
+        }
+    }
+
+    /**
+     * Propriétés passées à {@code Persistence.createEntityManagerFactory}, sans les clés {@code hotel.*}.
+     * Les valeurs vides sont ignorées : le réglage de persistence.xml, s'il y en a un, reste en vigueur
+     * (un mot de passe vide laisse donc le pilote se connecter sans mot de passe).
+     */
+    public Map<String, Object> getProprietesJpa() {
+        Map<String, Object> jpa = new HashMap<>();
+        proprietes.forEach((cle, valeur) -> {
+            if (!cle.startsWith("hotel.") && !valeur.isEmpty()) jpa.put(cle, valeur);
+        });
+        return jpa;
+    }
+
+    public List<String> getSources() {
+        return sources;
+    }
+
+    /**
+     * Configuration effective, triée, mot de passe masqué : pour le journal de démarrage.
+     */
+    public String decrire() {
+        StringBuilder sb = new StringBuilder("Profil ").append(profil).append(", sources ").append(sources).append('\n');
+        new TreeMap<>(proprietes).forEach((cle, valeur) -> sb.append("  ").append(cle).append(" = ")
+                .append(cle.contains("password") ? "****" : valeur).append('\n'));
+        return sb.toString();
+    }
+
+    private static Path fichierExterne(Map<String, String> env, Properties systeme) {
+        String chemin = premierNonVide(systeme.getProperty("hotel.config"), env.get("HOTEL_CONFIG"), null);
+        if (chemin != null) {
+            Path fichier = Path.of(chemin);
+            if (!Files.isReadable(fichier)) {
+                throw new IllegalStateException("Fichier de configuration illisible : " + fichier.toAbsolutePath());
+            }
+            return fichier;
+        }
+        return Files.isReadable(FICHIER_EXTERNE_DEFAUT) ? FICHIER_EXTERNE_DEFAUT : null;
+    }
+
+    private static Properties lireFichier(Path fichier) {
+        Properties p = new Properties();
+        try (Reader reader = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+            p.load(reader);
+        } catch (IOException e) {
+            throw new RuntimeException("Lecture de la configuration impossible : " + fichier, e);
+        }
+        return p;
+    }
+
+    private static Properties lireRessource(String chemin) {
+        Properties p = new Properties();
+        try (InputStream in = ConfigurationPersistance.class.getResourceAsStream(chemin)) {
+            if (in != null) p.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("Lecture de la configuration impossible : " + chemin, e);
+        }
+        return p;
+    }
+
+    private static void fusionner(Map<String, String> cible, Properties couche, List<String> sources, String nom) {
+        if (couche.isEmpty()) return;
+        for (String cle : couche.stringPropertyNames()) {
+            cible.put(cle, couche.getProperty(cle).trim());
+        }
+        sources.add(nom);
+    }
+
+    private static String premierNonVide(String... valeurs) {
+        for (String v : valeurs) {
+            if (v != null && !v.isBlank()) return v;
+        }
+        return null;
+    }
+}
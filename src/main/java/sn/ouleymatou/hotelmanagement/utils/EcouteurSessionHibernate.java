@@ -0,0 +1,88 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Écouteur attaché par Hibernate à chaque session (propriété {@code hibernate.session.events.auto}) :
+ * émet un événement JFR par EntityManager, de l'ouverture à la fermeture, et un par exécution JDBC,
+ * et signale au {@link JournalRequetesLentes} les exécutions qui dépassent le seuil.
+ * Une instance par session, donc utilisée par un seul thread.
+ */
+public class EcouteurSessionHibernate implements SessionEventListener {
+
+    private final EvenementsJfr.SessionHibernate session = new EvenementsJfr.SessionHibernate();
+    private EvenementsJfr.RequeteJdbc requete;
+    private boolean requeteEnLot;
+    private long debutJdbc;
+    private long tempsJdbc;
+    private int requetes;
+    private int lots;
+    private int entitesEcrites;
+
+    public EcouteurSessionHibernate() {
+        session.begin();
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        debuterRequete(false);
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        requetes++;
+        terminerRequete();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        debuterRequete(true);
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        lots++;
+        terminerRequete();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        entitesEcrites += numberOfEntities;
+    }
+
+    @Override
+    public void end() {
+        session.end();
+        if (session.shouldCommit()) {
+            session.requetes = requetes;
+            session.lots = lots;
+            session.tempsJdbcMicros = tempsJdbc / 1000;
+            session.entitesEcrites = entitesEcrites;
+            session.commit();
+        }
+    }
+
+    private void debuterRequete(boolean lot) {
+        debutJdbc = System.nanoTime();
+        requeteEnLot = lot;
+        requete = new EvenementsJfr.RequeteJdbc();
+        requete.lot = lot;
+        requete.begin();
+    }
+
+    private void terminerRequete() {
+        long duree = System.nanoTime() - debutJdbc;
+        tempsJdbc += duree;
+        if (JournalRequetesLentes.estLente(duree)) {
+            JournalRequetesLentes.signaler(InspecteurRequetes.dernierSql(), duree, requeteEnLot);
+        }
+        if (requete != null) {
+            requete.end();
+            if (requete.shouldCommit()) {
+                requete.sql = InspecteurRequetes.dernierSql();
+                requete.commit();
+            }
+            requete = null;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Événements JDK Flight Recorder de l'application (catégorie "Hôtel").
+ *
+ * <p>Hors enregistrement, un événement non validé ne coûte qu'une allocation que le JIT élimine le plus souvent :
+ * ils peuvent rester actifs en production. Pour enregistrer :
+ * {@code -XX:StartFlightRecording=filename=hotel.jfr,settings=profile}, puis ouvrir le fichier dans JDK Mission Control.
+ * Chaque événement porte son thread : les blocages du thread JavaFX se lisent directement sur la chronologie,
+ * face aux requêtes exécutées pendant ce temps.
+ */
+public final class EvenementsJfr {
+
+    private EvenementsJfr() {}
+
+    @Name("hotel.OperationService")
+    @Label("Opération de service")
+    @Category({"Hôtel", "Services"})
+    @StackTrace(false)
+    public static class OperationService extends Event {
+        @Label("Opération")
+        String operation;
+
+        @Label("Lignes")
+        @Description("Taille du résultat s'il s'agit d'une liste ou d'une table, -1 sinon")
+        long lignes = -1;
+
+        @Label("Succès")
+        boolean succes;
+    }
+
+    @Name("hotel.SessionHibernate")
+    @Label("Session Hibernate")
+    @Description("Durée de vie d'un EntityManager, de son ouverture à sa fermeture")
+    @Category({"Hôtel", "Base de données"})
+    @StackTrace(false)
+    public static class SessionHibernate extends Event {
+        @Label("Requêtes")
+        int requetes;
+
+        @Label("Lots JDBC")
+        int lots;
+
+        @Label("Temps JDBC (µs)")
+        long tempsJdbcMicros;
+
+        @Label("Entités écrites")
+        int entitesEcrites;
+    }
+
+    @Name("hotel.RequeteJdbc")
+    @Label("Exécution JDBC")
+    @Category({"Hôtel", "Base de données"})
+    public static class RequeteJdbc extends Event {
+        @Label("SQL")
+        String sql;
+
+        @Label("Lot")
+        boolean lot;
+    }
+
+    @Name("hotel.ChargementVue")
+    @Label("Chargement de vue FXML")
+    @Category({"Hôtel", "Interface"})
+    @StackTrace(false)
+    public static class ChargementVue extends Event {
+        @Label("Vue")
+        String vue;
+    }
+
+    @Name("hotel.RafraichissementVue")
+    @Label("Rafraîchissement des données d'une vue")
+    @Category({"Hôtel", "Interface"})
+    @StackTrace(false)
+    public static class RafraichissementVue extends Event {
+        @Label("Contrôleur")
+        String controleur;
+    }
+
+    /**
+     * Exécute une opération de service dans un événement {@link OperationService}.
+     */
+    public static <T> T operation(String nom, Supplier<T> operation) {
+        OperationService evt = new OperationService();
+        evt.begin();
+        T resultat = null;
+        boolean succes = false;
+        try {
+            resultat = operation.get();
+            succes = true;
+            return resultat;
+        } finally {
+            evt.end();
+            if (evt.shouldCommit()) {
+                evt.operation = nom;
+                evt.succes = succes;
+                if (resultat instanceof Collection<?> c) evt.lignes = c.size();
+                else if (resultat instanceof Map<?, ?> m) evt.lignes = m.size();
+                evt.commit();
+            }
+        }
+    }
+
+    /**
+     * Exécute le rafraîchissement d'un contrôleur dans un événement {@link RafraichissementVue}.
+     */
+    public static void rafraichissement(Object controleur, Runnable rafraichir) {
+        RafraichissementVue evt = new RafraichissementVue();
+        evt.begin();
+        try {
+            rafraichir.run();
+        } finally {
+            evt.end();
+            if (evt.shouldCommit()) {
+                evt.controleur = controleur.getClass().getSimpleName();
+                evt.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Exécution des appels de service bloquants (JPA, API distante) hors du thread appelant, un thread virtuel par appel.
+ *
+ * <p>Les threads virtuels sont gratuits, les connexions non : un sémaphore borne le nombre d'appels simultanés
+ * à la taille du pool ({@code hibernate.connection.pool_size}, 20 par défaut chez Hibernate) moins une réserve
+ * pour les appels encore faits directement depuis le thread JavaFX. Au-delà, les threads virtuels attendent leur
+ * tour sans occuper de thread système. Réglable par {@code hotel.executeur.permis}.
+ *
+ * <p>Usage : {@code ExecuteurServices.appeler(() -> service.getX()).thenAccept(...)} ; pour les écrans qui lancent
+ * plusieurs calculs à la fois, un {@link Groupe} les rattache à une même portée qu'on annule d'un bloc.
+ */
+public final class ExecuteurServices {
+
+    private static final int RESERVE_CONNEXIONS = 2;
+    private static final int TAILLE_POOL_HIBERNATE = 20;
+
+    private static final ExecutorService executeur =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("service-", 0).factory());
+    private static final int permisMax = calculerPermis();
+    private static final Semaphore limiteur = new Semaphore(permisMax, true);
+
+    static {
+        Metriques.jauge("ExecuteurServices.enCours", () -> permisMax - limiteur.availablePermits());
+        Metriques.jauge("ExecuteurServices.enAttente", limiteur::getQueueLength);
+    }
+
+    private ExecuteurServices() {}
+
+    private static int calculerPermis() {
+        ConfigurationPersistance config = JPAUtils.getConfiguration();
+        long permis = config.getLong("hotel.executeur.permis", 0);
+        if (permis > 0) return (int) permis;
+        long pool = config.getLong("hibernate.connection.pool_size", TAILLE_POOL_HIBERNATE);
+        return (int) Math.max(1, pool - RESERVE_CONNEXIONS);
+    }
+
+    public static int getPermisMax() {
+        return permisMax;
+    }
+
+    /**
+     * Exécute un appel bloquant sur un thread virtuel, après avoir obtenu un permis du limiteur.
+     * Annuler le futur, ou le terminer par délai, interrompt le thread (attente d'un permis comprise).
+     */
+    public static <T> CompletableFuture<T> appeler(Supplier<T> appel) {
+        CompletableFuture<T> futur = new CompletableFuture<>();
+        Future<?> tache = executeur.submit(() -> {
+            try {
+                futur.complete(borner(appel));
+            } catch (Throwable t) {
+                futur.completeExceptionally(t);
+            }
+        });
+        // Annulation ou délai dépassé (orTimeout) : le thread virtuel est interrompu et rend son permis
+        futur.whenComplete((r, ex) -> {
+            if (ex != null) tache.cancel(true);
+        });
+        return futur;
+    }
+
+    public static CompletableFuture<Void> executer(Runnable appel) {
+        return appeler(() -> {
+            appel.run();
+            return null;
+        });
+    }
+
+    /**
+     * Exécute l'appel sur le thread courant en respectant le limiteur : pour le code qui tourne déjà sur
+     * un thread virtuel (requêtes de l'API de services).
+     */
+    public static <T> T borner(Supplier<T> appel) {
+        try {
+            limiteur.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Appel de service interrompu avant son exécution", e);
+        }
+        try {
+            return appel.get();
+        } finally {
+            limiteur.release();
+        }
+    }
+
+    public static Groupe groupe() {
+        return new Groupe();
+    }
+
+    /**
+     * Portée d'un ensemble d'appels lancés ensemble (écran de statistiques, tableau de bord) : on attend qu'ils
+     * soient tous terminés, ou on les annule tous, par exemple quand l'utilisateur relance avec d'autres filtres.
+     * Même esprit que {@code StructuredTaskScope}, encore en préversion dans Java 21.
+     */
+    public static final class Groupe implements AutoCloseable {
+
+        private final List<CompletableFuture<?>> appels = new CopyOnWriteArrayList<>();
+        private volatile boolean annule;
+
+        private Groupe() {}
+
+        public <T> CompletableFuture<T> appeler(Supplier<T> appel) {
+            CompletableFuture<T> futur = ExecuteurServices.appeler(appel);
+            appels.add(futur);
+            if (annule) futur.cancel(true);
+            return futur;
+        }
+
+        /**
+         * Futur terminé quand tous les appels du groupe le sont ; en échec dès qu'un appel échoue.
+         */
+        public CompletableFuture<Void> tous() {
+            return CompletableFuture.allOf(appels.toArray(new CompletableFuture<?>[0]));
+        }
+
+        /**
+         * Attend la fin de tous les appels, dans la limite du délai ; les appels encore en cours sont alors annulés.
+         */
+        public void attendre(long delai, TimeUnit unite) {
+            try {
+                tous().get(delai, unite);
+            } catch (Exception e) {
+                annuler();
+            }
+        }
+
+        public void annuler() {
+            annule = true;
+            appels.forEach(f -> f.cancel(true));
+        }
+
+        public boolean isAnnule() {
+            return annule;
+        }
+
+        // Fin de portée : ce qui n'est pas terminé est annulé
+        @Override
+        public void close() {
+            annuler();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grille d'occupation chambres × jours sur une fenêtre de dates.
+ * Chaque case tient sur un octet dans un unique tableau primitif (ligne = chambre, colonne = jour) :
+ * 500 chambres × 365 jours occupent moins de 200 Ko, sans aucun objet par case.
+ */
+public class GrilleOccupation {
+
+    public static final byte LIBRE = 0;
+    public static final byte RESERVEE = 1;
+    public static final byte OCCUPEE = 2;
+    public static final byte MAINTENANCE = 3;
+
+    private final LocalDate debut;
+    private final int nbJours;
+    private final long[] idsChambres;
+    private final String[] numerosChambres;
+    private final Map<Long, Integer> indexChambres;
+    private final byte[] cases;
+
+    public GrilleOccupation(LocalDate debut, int nbJours, List<Long> idsChambres, List<String> numerosChambres) {
+        this.debut = debut;
+        this.nbJours = nbJours;
+        int nbChambres = idsChambres.size();
+        this.idsChambres = new long[nbChambres];
+        this.numerosChambres = numerosChambres.toArray(new String[0]);
+        this.indexChambres = new HashMap<>(nbChambres * 2);
+        for (int i = 0; i < nbChambres; i++) {
+            this.idsChambres[i] = idsChambres.get(i);
+            indexChambres.put(idsChambres.get(i), i);
+        }
+        this.cases = new byte[nbChambres * nbJours];
+    }
+
+    public LocalDate getDebut() { return debut; }
+    public int getNbJours() { return nbJours; }
+    public int getNbChambres() { return idsChambres.length; }
+    public String getNumeroChambre(int ligne) { return numerosChambres[ligne]; }
+    public long getIdChambre(int ligne) { return idsChambres[ligne]; }
+
+    public byte getEtat(int ligne, int jour) {
+        return cases[ligne * nbJours + jour];
+    }
+
+    // Recopie case par case (grille reçue de l'API de services)
+    public void setEtat(int ligne, int jour, byte etat) {
+        cases[ligne * nbJours + jour] = etat;
+    }
+
+    /**
+     * Marque une chambre indisponible sur toute la fenêtre (maintenance / hors service).
+     */
+    public void marquerChambre(long chambreId, byte etat) {
+        Integer ligne = indexChambres.get(chambreId);
+        if (ligne == null) return;
+        int base = ligne * nbJours;
+        Arrays.fill(cases, base, base + nbJours, etat);
+    }
+
+    /**
+     * Marque les nuits [arrivee, depart[ d'une chambre, en les bornant à la fenêtre.
+     * Utilisée au chargement comme pour les mises à jour incrémentales.
+     *
+     * @return true si au moins une case a changé
+     */
+    public boolean marquerSejour(long chambreId, LocalDate arrivee, LocalDate depart, byte etat) {
+        Integer ligne = indexChambres.get(chambreId);
+        if (ligne == null) return false;
+        int premier = (int) Math.max(0, ChronoUnit.DAYS.between(debut, arrivee));
+        int dernier = (int) Math.min(nbJours, ChronoUnit.DAYS.between(debut, depart));
+        boolean modifie = false;
+        int base = ligne * nbJours;
+        for (int j = premier; j < dernier; j++) {
+            // La maintenance prime sur les séjours
+            if (cases[base + j] != etat && cases[base + j] != MAINTENANCE) {
+                cases[base + j] = etat;
+                modifie = true;
+            }
+        }
+        return modifie;
+    }
+
+    public int getLigne(long chambreId) {
+        Integer ligne = indexChambres.get(chambreId);
+        return ligne != null ? ligne : -1;
+    }
+
+    /**
+     * Nombre de chambres dans l'état donné pour un jour (colonne) de la grille.
+     */
+    public int compter(int jour, byte etat) {
+        int n = 0;
+        for (int ligne = 0; ligne < idsChambres.length; ligne++) {
+            if (cases[ligne * nbJours + jour] == etat) n++;
+        }
+        return n;
+    }
+}
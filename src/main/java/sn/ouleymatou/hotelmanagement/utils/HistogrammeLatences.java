@@ -0,0 +1,59 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogramme de latences à seaux log-linéaires (même principe que HdrHistogram) : chaque puissance de deux
+ * est découpée en 16 seaux, soit une précision relative d'environ 6 % de la nanoseconde à plusieurs heures,
+ * dans un tableau fixe de 976 compteurs (61 puissances de deux utiles sur 64 bits). L'enregistrement est un simple incrément atomique, sans allocation.
+ */
+public class HistogrammeLatences {
+
+    private static final int BITS_SOUS_SEAUX = 4;
+    private static final int SOUS_SEAUX = 1 << BITS_SOUS_SEAUX;
+    private static final int NB_SEAUX = (64 - BITS_SOUS_SEAUX + 1) * SOUS_SEAUX;
+
+    private final AtomicLongArray seaux = new AtomicLongArray(NB_SEAUX);
+
+    public void enregistrer(long valeur) {
+        seaux.incrementAndGet(index(Math.max(0, valeur)));
+    }
+
+    /**
+     * Valeur (borne basse du seau) en dessous de laquelle se trouve la fraction {@code p} des mesures.
+     */
+    public long percentile(double p) {
+        long[] copie = new long[NB_SEAUX];
+        long total = 0;
+        for (int i = 0; i < NB_SEAUX; i++) {
+            copie[i] = seaux.get(i);
+            total += copie[i];
+        }
+        if (total == 0) return 0;
+        long rang = Math.max(1, (long) Math.ceil(p * total));
+        long cumul = 0;
+        for (int i = 0; i < NB_SEAUX; i++) {
+            cumul += copie[i];
+            if (cumul >= rang) return valeur(i);
+        }
+        return valeur(NB_SEAUX - 1);
+    }
+
+    public void reinitialiser() {
+        for (int i = 0; i < NB_SEAUX; i++) seaux.set(i, 0);
+    }
+
+    static int index(long valeur) {
+        if (valeur < SOUS_SEAUX) return (int) valeur;
+        int exposant = 63 - Long.numberOfLeadingZeros(valeur);
+        int mantisse = (int) (valeur >>> (exposant - BITS_SOUS_SEAUX)) & (SOUS_SEAUX - 1);
+        return (exposant - BITS_SOUS_SEAUX + 1) * SOUS_SEAUX + mantisse;
+    }
+
+    static long valeur(int index) {
+        if (index < SOUS_SEAUX) return index;
+        int exposant = index / SOUS_SEAUX + BITS_SOUS_SEAUX - 1;
+        long mantisse = index % SOUS_SEAUX;
+        return (SOUS_SEAUX | mantisse) << (exposant - BITS_SOUS_SEAUX);
+    }
+}
@@ -0,0 +1,89 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index en mémoire des périodes occupées de chaque chambre, pour tester un chevauchement
+ * sans requête en base (import massif). Les intervalles [debut, fin[ d'une même chambre sont
+ * fusionnés à l'insertion : ils restent disjoints et triés, et un test ne coûte qu'une recherche
+ * logarithmique dans la TreeMap de la chambre.
+ */
+public class IndexIntervallesChambres {
+
+    // Par chambre : début -> fin (en minutes), intervalles disjoints
+    private final Map<Long, TreeMap<Long, Long>> parChambre = new HashMap<>();
+
+    /**
+     * La période [debut, fin[ chevauche-t-elle une période déjà occupée de la chambre ?
+     */
+    public boolean chevauche(long chambreId, LocalDateTime debut, LocalDateTime fin) {
+        TreeMap<Long, Long> intervalles = parChambre.get(chambreId);
+        if (intervalles == null) return false;
+        long d = minutes(debut), f = minutes(fin);
+        // Intervalle commençant le plus tard avant la fin demandée : le seul candidat, les intervalles étant disjoints
+        Map.Entry<Long, Long> precedent = intervalles.lowerEntry(f);
+        return precedent != null && precedent.getValue() > d;
+    }
+
+    /**
+     * Ajoute la période [debut, fin[ à la chambre, en la fusionnant avec les périodes qu'elle recouvre.
+     */
+    public void ajouter(long chambreId, LocalDateTime debut, LocalDateTime fin) {
+        long d = minutes(debut), f = minutes(fin);
+        if (f <= d) return;
+        TreeMap<Long, Long> intervalles = parChambre.computeIfAbsent(chambreId, k -> new TreeMap<>());
+
+        Map.Entry<Long, Long> e = intervalles.floorEntry(d);
+        if (e != null && e.getValue() >= d) {
+            d = e.getKey();
+            f = Math.max(f, e.getValue());
+            intervalles.remove(e.getKey());
+        }
+        while ((e = intervalles.ceilingEntry(d)) != null && e.getKey() <= f) {
+            f = Math.max(f, e.getValue());
+            intervalles.remove(e.getKey());
+        }
+        intervalles.put(d, f);
+    }
+
+    /**
+     * Retire la période [debut, fin[ de la chambre (annulation d'une réservation faite par {@link #reserverSiLibre}).
+     * Une telle période ne chevauche aucune autre : la soustraire des intervalles fusionnés, en les coupant
+     * si besoin, rend exactement l'occupation d'avant.
+     */
+    public void retirer(long chambreId, LocalDateTime debut, LocalDateTime fin) {
+        TreeMap<Long, Long> intervalles = parChambre.get(chambreId);
+        if (intervalles == null) return;
+        long d = minutes(debut), f = minutes(fin);
+        if (f <= d) return;
+
+        // Intervalles recouvrant [d, f[, du dernier au premier
+        Map.Entry<Long, Long> e = intervalles.lowerEntry(f);
+        while (e != null && e.getValue() > d) {
+            intervalles.remove(e.getKey());
+            if (e.getKey() < d) intervalles.put(e.getKey(), d);
+            if (e.getValue() > f) intervalles.put(f, e.getValue());
+            e = intervalles.lowerEntry(e.getKey());
+        }
+        if (intervalles.isEmpty()) parChambre.remove(chambreId);
+    }
+
+    /**
+     * Réserve la période si elle est libre.
+     *
+     * @return false si elle chevauche une période déjà occupée (l'index n'est alors pas modifié)
+     */
+    public boolean reserverSiLibre(long chambreId, LocalDateTime debut, LocalDateTime fin) {
+        if (chevauche(chambreId, debut, fin)) return false;
+        ajouter(chambreId, debut, fin);
+        return true;
+    }
+
+    private static long minutes(LocalDateTime date) {
+        return date.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+}
@@ -0,0 +1,23 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Mémorise, pour le thread courant, le dernier SQL préparé par Hibernate
+ * (propriété {@code hibernate.session_factory.statement_inspector}).
+ * L'écouteur de session le relit pour nommer une requête lente ; le SQL n'est pas modifié.
+ */
+public class InspecteurRequetes implements StatementInspector {
+
+    private static final ThreadLocal<String> dernierSql = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        dernierSql.set(sql);
+        return sql;
+    }
+
+    public static String dernierSql() {
+        return dernierSql.get();
+    }
+}
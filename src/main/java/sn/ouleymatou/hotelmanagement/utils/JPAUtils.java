@@ -5,16 +5,41 @@ package sn.ouleymatou.hotelmanagement.utils;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import org.apache.logging.log4j.LogManager;
 
 public class JPAUtils {
-    private static final String PERSISTENCE_UNIT_NAME = "PERSISTENCE_POSTGRES";
-    private static EntityManagerFactory factory;
+    // Lus sans verrou une fois construits : chaque appel de service passe par getEntityManager
+    private static volatile EntityManagerFactory factory;
+    private static volatile ConfigurationPersistance configuration;
 
+    /**
+     * Fabrique construite au premier appel à partir de la configuration par couches
+     * (voir {@link ConfigurationPersistance}) : l'unité, la connexion et les réglages Hibernate
+     * se changent par profil, fichier externe ou variables d'environnement, sans reconstruire le jar.
+     */
     public static EntityManagerFactory getEntityManagerFactory() {
-        if(factory == null) {
-            factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME);
+        EntityManagerFactory f = factory;
+        if (f != null) return f;
+        synchronized (JPAUtils.class) {
+            if (factory == null) {
+                ConfigurationPersistance config = getConfiguration();
+                LogManager.getLogger(JPAUtils.class).info("Configuration de la persistance : {}", config.decrire());
+                JournalRequetesLentes.setSeuilMs(config.getLong("hotel.requetesLentes.seuilMs", JournalRequetesLentes.getSeuilMs()));
+                factory = Persistence.createEntityManagerFactory(config.getUnite(), config.getProprietesJpa());
+            }
+            return factory;
+        }
+    }
+
+    public static ConfigurationPersistance getConfiguration() {
+        ConfigurationPersistance c = configuration;
+        if (c != null) return c;
+        synchronized (JPAUtils.class) {
+            if (configuration == null) {
+                configuration = ConfigurationPersistance.charger();
+            }
+            return configuration;
         }
-        return factory;
     }
 
     // ✅ Ajoute cette méthode :
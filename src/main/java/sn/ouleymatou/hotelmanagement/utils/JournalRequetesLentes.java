@@ -0,0 +1,56 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Optional;
+
+/**
+ * Journal des requêtes lentes (logger "requetes.lentes", appender asynchrone dans log4j2.xml) :
+ * toute exécution JDBC plus longue que le seuil est écrite avec son SQL et la méthode de l'application
+ * qui l'a déclenchée. Seuil réglable par {@code -Dhotel.requetesLentes.seuilMs=...} (200 ms par défaut,
+ * 0 pour tout journaliser).
+ *
+ * <p>Les valeurs des paramètres ne sont pas disponibles à ce niveau (elles sont liées à l'intérieur d'Hibernate) :
+ * le SQL est journalisé avec ses '?'.
+ */
+public final class JournalRequetesLentes {
+
+    private static final Logger LOG = LogManager.getLogger("requetes.lentes");
+    private static final String PAQUET_APPLICATION = "sn.ouleymatou.hotelmanagement.";
+    private static final String PAQUET_UTILS = "sn.ouleymatou.hotelmanagement.utils.";
+
+    private static volatile long seuilNanos = Long.getLong("hotel.requetesLentes.seuilMs", 200) * 1_000_000L;
+
+    private JournalRequetesLentes() {}
+
+    public static long getSeuilMs() {
+        return seuilNanos / 1_000_000L;
+    }
+
+    public static void setSeuilMs(long seuilMs) {
+        seuilNanos = seuilMs * 1_000_000L;
+    }
+
+    public static boolean estLente(long dureeNanos) {
+        return dureeNanos >= seuilNanos;
+    }
+
+    /**
+     * Journalise une exécution lente. La pile n'est parcourue qu'ici, jamais pour une requête rapide.
+     */
+    public static void signaler(String sql, long dureeNanos, boolean lot) {
+        if (!LOG.isWarnEnabled()) return;
+        LOG.warn("{} ms{} depuis {} : {}", dureeNanos / 1_000_000L, lot ? " (lot)" : "", origine(),
+                sql != null ? sql : "<SQL inconnu>");
+    }
+
+    // Première méthode de l'application (hors utilitaires) dans la pile d'appel
+    private static String origine() {
+        Optional<StackWalker.StackFrame> cadre = StackWalker.getInstance().walk(pile -> pile
+                .filter(f -> f.getClassName().startsWith(PAQUET_APPLICATION) && !f.getClassName().startsWith(PAQUET_UTILS))
+                .findFirst());
+        return cadre.map(f -> f.getClassName().substring(PAQUET_APPLICATION.length()) + "." + f.getMethodName()
+                + ":" + f.getLineNumber()).orElse("?");
+    }
+}
@@ -0,0 +1,53 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Lance en parallèle des calculs indépendants (KPI, graphiques) et livre chaque résultat
+ * sur le thread JavaFX dès qu'il est disponible. Chaque calcul ouvre son propre EntityManager,
+ * donc sa propre connexion : la latence totale devient celle du calcul le plus lent.
+ * Un échec ou un dépassement de délai n'affecte que le KPI concerné.
+ *
+ * <p>Les calculs tournent sur des threads virtuels ({@link ExecuteurServices}), dont le limiteur borne le nombre
+ * de connexions prises. Une série est un {@link ExecuteurServices.Groupe} : en commencer une nouvelle annule
+ * les calculs encore en vol de la précédente, qui ne gardent plus de connexion pour rien.
+ *
+ * <p>Réservé aux lectures : un calcul annulé ou hors délai voit son thread interrompu, ce qui ferme sa connexion.
+ * Les travaux lancés par l'utilisateur (écritures, traitements longs) passent directement par
+ * {@link ExecuteurServices#appeler}, sans délai et hors de toute série.
+ */
+public class KpiOrchestrateur {
+
+    private static final long DELAI_MAX_SECONDES = 20;
+
+    private volatile ExecuteurServices.Groupe serie = ExecuteurServices.groupe();
+
+    /**
+     * Démarre une nouvelle série de calculs ; ceux de la série précédente sont annulés et leurs résultats ignorés.
+     */
+    public void nouvelleSerie() {
+        ExecuteurServices.Groupe precedente = serie;
+        serie = ExecuteurServices.groupe();
+        precedente.annuler();
+    }
+
+    public <T> void lancer(Supplier<T> calcul, Consumer<T> afficher, Consumer<Throwable> erreur) {
+        ExecuteurServices.Groupe groupe = serie;
+        groupe.appeler(calcul)
+                .orTimeout(DELAI_MAX_SECONDES, TimeUnit.SECONDS)
+                .whenComplete((resultat, ex) -> Platform.runLater(() -> {
+                    if (groupe.isAnnule() || ex instanceof CancellationException) return;
+                    if (ex != null) {
+                        erreur.accept(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                    } else {
+                        afficher.accept(resultat);
+                    }
+                }));
+    }
+}
@@ -0,0 +1,169 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Applique sur une ObservableList le minimum d'opérations (ajout / suppression / remplacement)
+ * pour la rendre identique à une nouvelle liste, en comparant les éléments par clé.
+ * Contrairement à setAll, les lignes inchangées d'une TableView ne sont pas reconstruites
+ * et la sélection / la position de défilement sont conservées.
+ */
+public final class ListDiff {
+
+    private ListDiff() {}
+
+    /**
+     * Met à jour {@code cible} pour qu'elle contienne exactement {@code source}, dans le même ordre.
+     * Les suppressions et les ajouts contigus sont appliqués par plages (un événement par plage) ; si l'ordre
+     * des éléments conservés a changé (nouveau tri), la liste est remplacée d'un seul setAll.
+     *
+     * @param cle      extrait la clé d'identité (ex : Reservation::getId)
+     * @param modifie  retourne true si l'ancien et le nouvel élément de même clé diffèrent
+     */
+    public static <T, K> void patch(ObservableList<T> cible, List<? extends T> source,
+                                    Function<? super T, ? extends K> cle,
+                                    BiPredicate<? super T, ? super T> modifie) {
+        Map<K, Integer> rangs = new HashMap<>(source.size() * 2);
+        for (int i = 0; i < source.size(); i++) {
+            rangs.put(cle.apply(source.get(i)), i);
+        }
+
+        // 1. Suppressions, par plages contiguës en partant de la fin
+        for (int fin = cible.size(); fin > 0; ) {
+            if (rangs.containsKey(cle.apply(cible.get(fin - 1)))) {
+                fin--;
+                continue;
+            }
+            int debut = fin - 1;
+            while (debut > 0 && !rangs.containsKey(cle.apply(cible.get(debut - 1)))) debut--;
+            cible.remove(debut, fin);
+            fin = debut;
+        }
+
+        // 2. Les éléments conservés sont-ils restés dans le même ordre ?
+        int precedent = -1;
+        for (T item : cible) {
+            int rang = rangs.get(cle.apply(item));
+            if (rang < precedent) {
+                reordonner(cible, source, cle, modifie);
+                return;
+            }
+            precedent = rang;
+        }
+
+        // 3. Fusion : remplacements en place, ajouts par plages
+        int pos = 0;
+        int s = 0;
+        while (s < source.size()) {
+            T nouveau = source.get(s);
+            if (pos < cible.size() && cle.apply(nouveau).equals(cle.apply(cible.get(pos)))) {
+                if (modifie.test(cible.get(pos), nouveau)) cible.set(pos, nouveau);
+                pos++;
+                s++;
+                continue;
+            }
+            // Nouveaux éléments jusqu'au prochain élément conservé
+            K suivant = pos < cible.size() ? cle.apply(cible.get(pos)) : null;
+            int debut = s;
+            while (s < source.size() && (suivant == null || !suivant.equals(cle.apply(source.get(s))))) s++;
+            cible.addAll(pos, source.subList(debut, s));
+            pos += s - debut;
+        }
+    }
+
+    // Nouvel ordre : les éléments inchangés gardent leur instance, la liste est remplacée en une fois
+    private static <T, K> void reordonner(ObservableList<T> cible, List<? extends T> source,
+                                          Function<? super T, ? extends K> cle,
+                                          BiPredicate<? super T, ? super T> modifie) {
+        Map<K, T> anciens = new HashMap<>(cible.size() * 2);
+        for (T item : cible) {
+            anciens.put(cle.apply(item), item);
+        }
+        List<T> resultat = new ArrayList<>(source.size());
+        for (T nouveau : source) {
+            T ancien = anciens.get(cle.apply(nouveau));
+            resultat.add(ancien != null && !modifie.test(ancien, nouveau) ? ancien : nouveau);
+        }
+        cible.setAll(resultat);
+    }
+
+    /**
+     * Remplace l'élément de même clé s'il existe, sinon l'ajoute en fin de liste.
+     * Une seule ligne de la TableView est touchée.
+     */
+    public static <T, K> void upsert(ObservableList<T> cible, T item, Function<? super T, ? extends K> cle) {
+        K k = cle.apply(item);
+        int index = indexDe(cible, k, cle, 0);
+        if (index >= 0) {
+            cible.set(index, item);
+        } else {
+            cible.add(item);
+        }
+    }
+
+    /**
+     * {@link #upsert} pour plusieurs éléments (traitements groupés) : un seul parcours de la liste,
+     * les éléments absents sont ajoutés en fin de liste d'un seul addAll.
+     */
+    public static <T, K> void upsertTous(ObservableList<T> cible, Collection<? extends T> items,
+                                         Function<? super T, ? extends K> cle) {
+        if (items.isEmpty()) return;
+        Map<K, T> parCle = new LinkedHashMap<>(items.size() * 2);
+        for (T item : items) {
+            parCle.put(cle.apply(item), item);
+        }
+        for (int i = 0; i < cible.size() && !parCle.isEmpty(); i++) {
+            T item = parCle.remove(cle.apply(cible.get(i)));
+            if (item != null) cible.set(i, item);
+        }
+        cible.addAll(parCle.values());
+    }
+
+    /**
+     * Retire l'élément ayant la clé donnée, s'il est présent.
+     */
+    public static <T, K> boolean retirer(ObservableList<T> cible, K k, Function<? super T, ? extends K> cle) {
+        int index = indexDe(cible, k, cle, 0);
+        if (index >= 0) {
+            cible.remove(index);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Retire les éléments dont la clé figure dans {@code cles} : un seul parcours, suppressions par plages.
+     */
+    public static <T, K> void retirerTous(ObservableList<T> cible, Set<? extends K> cles,
+                                          Function<? super T, ? extends K> cle) {
+        if (cles.isEmpty()) return;
+        for (int fin = cible.size(); fin > 0; ) {
+            if (!cles.contains(cle.apply(cible.get(fin - 1)))) {
+                fin--;
+                continue;
+            }
+            int debut = fin - 1;
+            while (debut > 0 && cles.contains(cle.apply(cible.get(debut - 1)))) debut--;
+            cible.remove(debut, fin);
+            fin = debut;
+        }
+    }
+
+    // Recherche linéaire : réservée aux opérations sur un seul élément
+    private static <T, K> int indexDe(List<T> liste, K k, Function<? super T, ? extends K> cle, int depart) {
+        for (int i = depart; i < liste.size(); i++) {
+            if (k.equals(cle.apply(liste.get(i)))) return i;
+        }
+        return -1;
+    }
+}
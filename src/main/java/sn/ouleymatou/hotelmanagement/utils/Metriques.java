@@ -0,0 +1,157 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Registre des métriques de l'application : minuteurs (latences par méthode de service), compteurs et jauges.
+ *
+ * <p>Usage dans un service : {@code return Metriques.mesurer("ReservationService.checkIn", () -> ...);}
+ * Le nom est une constante, le minuteur est retrouvé par une simple lecture de map : le surcoût reste
+ * de l'ordre de la centaine de nanosecondes par appel. Chaque appel crée toutefois le lambda capturant
+ * de l'opération, celui qui l'enveloppe et l'événement JFR : une fois compilés et inlinés, l'analyse d'échappement
+ * les supprime (aucun octet alloué dans BancMetriquesTest) ; sinon, c'est une centaine d'octets de courte durée,
+ * négligeable devant un accès à la base. Dans une boucle serrée, mesurer la boucle entière, pas chaque itération.
+ * Pour ne pas décaler le corps d'une méthode dans un lambda, la méthode publique délègue à une méthode
+ * privée : {@code return Metriques.mesurer(NOM, () -> calculer(jour));}.
+ *
+ * <p>Les métriques sont exposées par JMX (domaine {@code sn.ouleymatou.hotelmanagement}) et, une fois
+ * {@link #demarrerJournal(long)} appelé, écrites périodiquement dans le journal "metriques".
+ */
+public final class Metriques {
+
+    private static final Logger LOG = LogManager.getLogger("metriques");
+    private static final String DOMAINE_JMX = "sn.ouleymatou.hotelmanagement";
+
+    private static final Map<String, Minuteur> minuteurs = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> compteurs = new ConcurrentHashMap<>();
+    private static final Map<String, Supplier<? extends Number>> jauges = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService journal;
+
+    static {
+        Runtime runtime = Runtime.getRuntime();
+        jauge("jvm.memoire.utiliseeMo", () -> (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+        enregistrerJmx("type=Metriques", new Registre());
+    }
+
+    private Metriques() {}
+
+    public static Minuteur minuteur(String nom) {
+        Minuteur m = minuteurs.get(nom);
+        if (m != null) return m;
+        return minuteurs.computeIfAbsent(nom, n -> {
+            Minuteur nouveau = new Minuteur(n);
+            enregistrerJmx("type=Metriques,nom=" + n, nouveau);
+            return nouveau;
+        });
+    }
+
+    // Chaque mesure est aussi un événement JFR "hotel.OperationService"
+    public static <T> T mesurer(String nom, Supplier<T> operation) {
+        return minuteur(nom).mesurer(() -> EvenementsJfr.operation(nom, operation));
+    }
+
+    public static void executer(String nom, Runnable operation) {
+        minuteur(nom).mesurer(() -> EvenementsJfr.operation(nom, () -> {
+            operation.run();
+            return null;
+        }));
+    }
+
+    public static LongAdder compteur(String nom) {
+        return compteurs.computeIfAbsent(nom, n -> new LongAdder());
+    }
+
+    public static void jauge(String nom, Supplier<? extends Number> valeur) {
+        jauges.put(nom, valeur);
+    }
+
+    /**
+     * Écrit un instantané de toutes les métriques dans le journal "metriques" toutes les {@code periodeSecondes}.
+     */
+    public static synchronized void demarrerJournal(long periodeSecondes) {
+        if (journal != null) return;
+        journal = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journal-metriques");
+            t.setDaemon(true);
+            return t;
+        });
+        journal.scheduleAtFixedRate(() -> {
+            try {
+                LOG.info("Instantané des métriques\n{}", instantane());
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, periodeSecondes, periodeSecondes, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Texte de toutes les métriques, triées par nom ; les minuteurs jamais appelés sont omis.
+     */
+    public static String instantane() {
+        StringBuilder sb = new StringBuilder();
+        new TreeMap<>(minuteurs).values().stream()
+                .filter(m -> m.getNombreAppels() > 0)
+                .forEach(m -> sb.append("  ").append(m).append('\n'));
+        new TreeMap<>(compteurs).forEach((nom, c) -> sb.append("  ").append(nom).append(" = ").append(c.sum()).append('\n'));
+        valeursJauges().forEach((nom, v) -> sb.append("  ").append(nom).append(" = ").append(v).append('\n'));
+        return sb.toString();
+    }
+
+    private static Map<String, Double> valeursJauges() {
+        Map<String, Double> valeurs = new TreeMap<>();
+        jauges.forEach((nom, jauge) -> {
+            try {
+                valeurs.put(nom, jauge.get().doubleValue());
+            } catch (Exception e) {
+                valeurs.put(nom, Double.NaN);
+            }
+        });
+        return valeurs;
+    }
+
+    // Un échec JMX (nom déjà pris, environnement restreint) ne doit pas empêcher de mesurer
+    private static void enregistrerJmx(String proprietes, Object mbean) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, new ObjectName(DOMAINE_JMX + ":" + proprietes));
+        } catch (Exception e) {
+            LOG.warn("Enregistrement JMX impossible pour {} : {}", proprietes, e.getMessage());
+        }
+    }
+
+    private static final class Registre implements RegistreMetriquesMXBean {
+        @Override
+        public Map<String, Long> getCompteurs() {
+            Map<String, Long> valeurs = new TreeMap<>();
+            compteurs.forEach((nom, c) -> valeurs.put(nom, c.sum()));
+            return valeurs;
+        }
+
+        @Override
+        public Map<String, Double> getJauges() {
+            return valeursJauges();
+        }
+
+        @Override
+        public String getInstantane() {
+            return instantane();
+        }
+
+        @Override
+        public void reinitialiser() {
+            minuteurs.values().forEach(Minuteur::reinitialiser);
+            compteurs.values().forEach(LongAdder::reset);
+        }
+    }
+}
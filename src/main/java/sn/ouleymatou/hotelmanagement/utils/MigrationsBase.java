@@ -0,0 +1,55 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+
+/**
+ * Ordres DDL que hbm2ddl ne sait pas produire (index partiels, contraintes à retirer).
+ * Chaque ordre est idempotent : la liste entière est rejouée à chaque démarrage, dans une transaction.
+ */
+public final class MigrationsBase {
+
+    private static final Logger LOG = LogManager.getLogger(MigrationsBase.class);
+
+    private static final List<String> ORDRES = List.of(
+            // Contraintes d'énumération posées par Hibernate à la création des tables : figées sur les valeurs
+            // de l'époque, elles refuseraient NO_SHOW et les nouveaux types d'événements
+            "ALTER TABLE reservations DROP CONSTRAINT IF EXISTS reservations_statut_check",
+            "ALTER TABLE reservation_evenements DROP CONSTRAINT IF EXISTS reservation_evenements_statut_check",
+            "ALTER TABLE reservation_evenements DROP CONSTRAINT IF EXISTS reservation_evenements_type_evenement_check",
+            "ALTER TABLE projection_reservations DROP CONSTRAINT IF EXISTS projection_reservations_statut_check",
+
+            // Remplacés par (statut, date) : la date en tête obligeait à parcourir tous les statuts du jour
+            "DROP INDEX IF EXISTS idx_reservation_arrivee_statut",
+            "DROP INDEX IF EXISTS idx_reservation_depart_statut",
+
+            // Réservations qui bloquent leur chambre (Reservation.JPQL_ACTIVES) : chevauchements et disponibilités
+            // ne parcourent que les séjours confirmés ou en cours, pas tout l'historique
+            "CREATE INDEX IF NOT EXISTS idx_reservation_actives_chambre ON reservations " +
+                    "(chambre_id, date_arrivee, date_depart) WHERE statut IN ('CONFIRMEE', 'EN_COURS')"
+    );
+
+    private MigrationsBase() {}
+
+    public static void appliquer() {
+        EntityManager em = JPAUtils.getEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            for (String ordre : ORDRES) {
+                em.createNativeQuery(ordre).executeUpdate();
+            }
+            tx.commit();
+            LOG.info("Migrations de la base appliquées ({} ordre(s))", ORDRES.size());
+        } catch (Exception e) {
+            if (tx.isActive()) tx.rollback();
+            throw new RuntimeException("Erreur lors des migrations de la base : " + e.getMessage(), e);
+        } finally {
+            if (em.isOpen()) em.close();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Mesure d'une opération : nombre d'appels, nombre d'erreurs et histogramme des durées.
+ * Le coût par appel se limite à deux lectures de System.nanoTime et quelques incréments atomiques.
+ */
+public class Minuteur implements MinuteurMBean {
+
+    private final String nom;
+    private final LongAdder appels = new LongAdder();
+    private final LongAdder erreurs = new LongAdder();
+    private final LongAdder dureeTotale = new LongAdder();
+    private final LongAccumulator dureeMax = new LongAccumulator(Math::max, 0);
+    private final HistogrammeLatences histogramme = new HistogrammeLatences();
+
+    Minuteur(String nom) {
+        this.nom = nom;
+    }
+
+    public String getNom() { return nom; }
+
+    public <T> T mesurer(Supplier<T> operation) {
+        long debut = System.nanoTime();
+        try {
+            return operation.get();
+        } catch (RuntimeException | Error e) {
+            erreurs.increment();
+            throw e;
+        } finally {
+            enregistrer(System.nanoTime() - debut);
+        }
+    }
+
+    public void enregistrer(long dureeNanos) {
+        appels.increment();
+        dureeTotale.add(dureeNanos);
+        dureeMax.accumulate(dureeNanos);
+        histogramme.enregistrer(dureeNanos);
+    }
+
+    @Override public long getNombreAppels() { return appels.sum(); }
+    @Override public long getNombreErreurs() { return erreurs.sum(); }
+
+    @Override
+    public double getMoyenneMicros() {
+        long n = appels.sum();
+        return n > 0 ? dureeTotale.sum() / 1000.0 / n : 0;
+    }
+
+    @Override public double getP50Micros() { return histogramme.percentile(0.50) / 1000.0; }
+    @Override public double getP95Micros() { return histogramme.percentile(0.95) / 1000.0; }
+    @Override public double getP99Micros() { return histogramme.percentile(0.99) / 1000.0; }
+    @Override public double getMaxMicros() { return dureeMax.get() / 1000.0; }
+
+    @Override
+    public void reinitialiser() {
+        appels.reset();
+        erreurs.reset();
+        dureeTotale.reset();
+        dureeMax.reset();
+        histogramme.reinitialiser();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s appels=%d erreurs=%d moy=%.0fµs p50=%.0fµs p95=%.0fµs p99=%.0fµs max=%.0fµs",
+                nom, getNombreAppels(), getNombreErreurs(), getMoyenneMicros(),
+                getP50Micros(), getP95Micros(), getP99Micros(), getMaxMicros());
+    }
+}
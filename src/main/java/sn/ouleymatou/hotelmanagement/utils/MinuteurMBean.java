@@ -0,0 +1,15 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+/**
+ * Vue JMX d'un {@link Minuteur} (durées en microsecondes).
+ */
+public interface MinuteurMBean {
+    long getNombreAppels();
+    long getNombreErreurs();
+    double getMoyenneMicros();
+    double getP50Micros();
+    double getP95Micros();
+    double getP99Micros();
+    double getMaxMicros();
+    void reinitialiser();
+}
@@ -0,0 +1,10 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+/**
+ * Contrôleur d'une vue réutilisée par {@link VueCache} : à chaque réouverture,
+ * seules ses données sont rechargées, la vue elle-même n'est pas reconstruite.
+ */
+public interface Rafraichissable {
+
+    void rafraichir();
+}
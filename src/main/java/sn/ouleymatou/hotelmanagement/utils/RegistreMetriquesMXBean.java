@@ -0,0 +1,13 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import java.util.Map;
+
+/**
+ * Vue JMX globale du registre : compteurs, jauges et instantané texte de tous les minuteurs.
+ */
+public interface RegistreMetriquesMXBean {
+    Map<String, Long> getCompteurs();
+    Map<String, Double> getJauges();
+    String getInstantane();
+    void reinitialiser();
+}
@@ -0,0 +1,139 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.services.PeriodStats;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Instantané colonnaire et immuable des réservations d'une période close, lu par projection mémoire.
+ *
+ * <pre>
+ * en-tête : MAGIC, VERSION, jour de base (epochDay), nombre de lignes n
+ *           types   : nombre, puis (longueur, libellé UTF-8)
+ *           chambres: nombre, puis (longueur, numéro UTF-8, index du type)
+ * colonnes: int[n] jour d'arrivée (décalage depuis le jour de base, trié croissant)
+ *           int[n] index de chambre
+ *           float[n] montant total
+ *           short[n] nombre de nuits
+ *           byte[n] statut (code stable de StatutReservation)
+ * </pre>
+ * Les calculs se font par boucles sur les colonnes primitives, sans aucun objet par ligne.
+ */
+public class SnapshotReservations {
+
+    public static final int MAGIC = 0x48525331; // "HRS1"
+    // Version 2 : statut stocké par son code et non plus par son ordinal
+    public static final int VERSION = 2;
+
+    private static final byte ANNULEE = Reservation.StatutReservation.ANNULEE.getCode();
+
+    private final MappedByteBuffer buffer;
+    private final int jourBase;
+    private final int n;
+    private final String[] types;
+    private final String[] numerosChambres;
+    private final int[] typeParChambre;
+    private final int offJour, offChambre, offMontant, offNuits, offStatut;
+
+    private SnapshotReservations(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IllegalArgumentException("Fichier d'instantané invalide.");
+        }
+        jourBase = buffer.getInt();
+        n = buffer.getInt();
+
+        types = new String[buffer.getInt()];
+        for (int i = 0; i < types.length; i++) types[i] = lireChaine(buffer);
+
+        int nbChambres = buffer.getInt();
+        numerosChambres = new String[nbChambres];
+        typeParChambre = new int[nbChambres];
+        for (int i = 0; i < nbChambres; i++) {
+            numerosChambres[i] = lireChaine(buffer);
+            typeParChambre[i] = buffer.getInt();
+        }
+
+        offJour = buffer.position();
+        offChambre = offJour + 4 * n;
+        offMontant = offChambre + 4 * n;
+        offNuits = offMontant + 4 * n;
+        offStatut = offNuits + 2 * n;
+    }
+
+    public static SnapshotReservations ouvrir(Path fichier) throws IOException {
+        try (FileChannel channel = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            // La projection reste valide après la fermeture du canal
+            return new SnapshotReservations(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int taille() { return n; }
+
+    public LocalDate jourArrivee(int i) {
+        return LocalDate.ofEpochDay(jourBase + buffer.getInt(offJour + 4 * i));
+    }
+
+    /**
+     * Agrégats des réservations dont l'arrivée est dans [debut, fin] (bornes incluses).
+     */
+    public PeriodStats statsPeriode(LocalDate debut, LocalDate fin) {
+        int de = premierIndex((int) (debut.toEpochDay() - jourBase));
+        int a = premierIndex((int) (fin.toEpochDay() + 1 - jourBase));
+
+        double chiffreAffaires = 0;
+        long nuits = 0;
+        long annulations = 0;
+        for (int i = de; i < a; i++) {
+            chiffreAffaires += buffer.getFloat(offMontant + 4 * i);
+            nuits += buffer.getShort(offNuits + 2 * i);
+            if (buffer.get(offStatut + i) == ANNULEE) annulations++;
+        }
+        long nombre = a - de;
+        return new PeriodStats(nombre, chiffreAffaires, nombre > 0 ? (double) nuits / nombre : 0, nuits, annulations);
+    }
+
+    /**
+     * Nombre de réservations par type de chambre pour les arrivées dans [debut, fin].
+     */
+    public Map<String, Integer> reservationsParType(LocalDate debut, LocalDate fin) {
+        int de = premierIndex((int) (debut.toEpochDay() - jourBase));
+        int a = premierIndex((int) (fin.toEpochDay() + 1 - jourBase));
+        int[] compteurs = new int[types.length];
+        for (int i = de; i < a; i++) {
+            compteurs[typeParChambre[buffer.getInt(offChambre + 4 * i)]]++;
+        }
+        Map<String, Integer> resultat = new LinkedHashMap<>();
+        for (int t = 0; t < types.length; t++) {
+            if (compteurs[t] > 0) resultat.put(types[t], compteurs[t]);
+        }
+        return resultat;
+    }
+
+    // Recherche dichotomique : premier index dont le jour est >= jour
+    private int premierIndex(int jour) {
+        int bas = 0, haut = n;
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (buffer.getInt(offJour + 4 * milieu) < jour) bas = milieu + 1;
+            else haut = milieu;
+        }
+        return bas;
+    }
+
+    private static String lireChaine(ByteBuffer buffer) {
+        byte[] octets = new byte[buffer.getShort()];
+        buffer.get(octets);
+        return new String(octets, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,142 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Algorithme Space-Saving (Metwally et al.) : suivi approximatif des éléments les plus fréquents
+ * d'un flux avec un nombre fixe de compteurs, donc en mémoire constante quel que soit l'historique.
+ * Tout élément de fréquence réelle supérieure à N / capacité est garanti présent ; le compteur
+ * surestime la fréquence d'au plus {@link Estimation#erreurMax()}.
+ */
+public class SpaceSaving<K> {
+
+    public record Estimation<K>(K cle, long nombre, long erreurMax) {}
+
+    private static final class Compteur<K> {
+        K cle;
+        long erreur;
+        Seau<K> seau;
+        Compteur<K> precedent, suivant;
+    }
+
+    /**
+     * Compteurs de même valeur ("stream-summary") ; les seaux sont chaînés par valeur croissante,
+     * le moins fréquent est donc toujours en tête et un incrément ne déplace un compteur que d'un seau.
+     */
+    private static final class Seau<K> {
+        final long nombre;
+        Compteur<K> premier;
+        Seau<K> precedent, suivant;
+
+        Seau(long nombre) {
+            this.nombre = nombre;
+        }
+    }
+
+    private final int capacite;
+    private final Map<K, Compteur<K>> compteurs;
+    private Seau<K> plusPetit;
+    private Seau<K> plusGrand;
+    private long total;
+
+    public SpaceSaving(int capacite) {
+        if (capacite < 1) throw new IllegalArgumentException("Capacité invalide : " + capacite);
+        this.capacite = capacite;
+        this.compteurs = new HashMap<>(capacite * 2);
+    }
+
+    public synchronized void ajouter(K cle) {
+        total++;
+        Compteur<K> c = compteurs.get(cle);
+        if (c != null) {
+            incrementer(c);
+            return;
+        }
+        if (compteurs.size() < capacite) {
+            c = new Compteur<>();
+            c.cle = cle;
+            compteurs.put(cle, c);
+            if (plusPetit == null || plusPetit.nombre != 1) {
+                Seau<K> seau = new Seau<>(1);
+                seau.suivant = plusPetit;
+                if (plusPetit != null) plusPetit.precedent = seau;
+                else plusGrand = seau;
+                plusPetit = seau;
+            }
+            attacher(c, plusPetit);
+            return;
+        }
+
+        // Table pleine : le nouvel élément remplace le moins fréquent et hérite de son compteur
+        Compteur<K> min = plusPetit.premier;
+        compteurs.remove(min.cle);
+        min.cle = cle;
+        min.erreur = plusPetit.nombre;
+        compteurs.put(cle, min);
+        incrementer(min);
+    }
+
+    private void incrementer(Compteur<K> c) {
+        Seau<K> seau = c.seau;
+        Seau<K> cible = seau.suivant;
+        if (cible == null || cible.nombre != seau.nombre + 1) {
+            cible = new Seau<>(seau.nombre + 1);
+            cible.precedent = seau;
+            cible.suivant = seau.suivant;
+            if (seau.suivant != null) seau.suivant.precedent = cible;
+            else plusGrand = cible;
+            seau.suivant = cible;
+        }
+        detacher(c);
+        attacher(c, cible);
+    }
+
+    private void attacher(Compteur<K> c, Seau<K> seau) {
+        c.seau = seau;
+        c.precedent = null;
+        c.suivant = seau.premier;
+        if (seau.premier != null) seau.premier.precedent = c;
+        seau.premier = c;
+    }
+
+    // Retire le compteur de son seau, et le seau de la chaîne s'il devient vide
+    private void detacher(Compteur<K> c) {
+        Seau<K> seau = c.seau;
+        if (c.precedent != null) c.precedent.suivant = c.suivant;
+        else seau.premier = c.suivant;
+        if (c.suivant != null) c.suivant.precedent = c.precedent;
+        if (seau.premier != null) return;
+
+        if (seau.precedent != null) seau.precedent.suivant = seau.suivant;
+        else plusPetit = seau.suivant;
+        if (seau.suivant != null) seau.suivant.precedent = seau.precedent;
+        else plusGrand = seau.precedent;
+    }
+
+    /**
+     * Les k éléments estimés les plus fréquents, par ordre décroissant.
+     */
+    public synchronized List<Estimation<K>> topK(int k) {
+        List<Estimation<K>> resultat = new ArrayList<>(Math.min(k, compteurs.size()));
+        for (Seau<K> seau = plusGrand; seau != null && resultat.size() < k; seau = seau.precedent) {
+            for (Compteur<K> c = seau.premier; c != null && resultat.size() < k; c = c.suivant) {
+                resultat.add(new Estimation<>(c.cle, seau.nombre, c.erreur));
+            }
+        }
+        return resultat;
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    public synchronized void vider() {
+        compteurs.clear();
+        plusPetit = null;
+        plusGrand = null;
+        total = 0;
+    }
+}
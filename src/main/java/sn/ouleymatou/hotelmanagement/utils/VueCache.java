@@ -0,0 +1,123 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registre des vues secondaires (chambres, réservations, statistiques).
+ * Chaque FXML est analysé et instancié une seule fois ; les ouvertures suivantes réutilisent
+ * la même fenêtre et le même contrôleur, et ne font que rafraîchir les données.
+ * Toutes les méthodes s'appellent sur le thread JavaFX, seul à accéder au registre.
+ */
+public final class VueCache {
+
+    private static final Map<String, Vue> vues = new HashMap<>();
+
+    // Incrémentée à la déconnexion : un préchargement en cours s'arrête
+    private static int generation;
+
+    private VueCache() {}
+
+    private static final class Vue {
+        private final Scene scene;
+        private final Object controller;
+        private Stage stage;
+
+        private Vue(Scene scene, Object controller) {
+            this.scene = scene;
+            this.controller = controller;
+        }
+    }
+
+    /**
+     * Affiche la vue demandée (à appeler sur le thread JavaFX).
+     * Si elle est déjà en cache, sa fenêtre est ramenée au premier plan et ses données rechargées.
+     */
+    public static void ouvrir(String fxmlPath, String titre) throws IOException {
+        Vue vue = vues.get(fxmlPath);
+        if (vue == null) {
+            vue = charger(fxmlPath);
+            vues.put(fxmlPath, vue);
+        } else if (vue.controller instanceof Rafraichissable r) {
+            // Une vue préchargée ou déjà affichée peut contenir des données périmées
+            r.rafraichir();
+        }
+
+        if (vue.stage == null) {
+            vue.stage = new Stage();
+        }
+        Stage stage = vue.stage;
+        stage.setTitle(titre);
+        if (stage.getScene() != vue.scene) {
+            stage.setScene(vue.scene);
+        }
+        if (stage.isIconified()) stage.setIconified(false);
+        stage.show();
+        stage.toFront();
+    }
+
+    /**
+     * Précharge les vues pour que leur première ouverture soit immédiate. L'analyse FXML et la construction des
+     * nœuds doivent se faire sur le thread JavaFX : une vue est chargée par tour de la boucle d'événements, les
+     * actions de l'utilisateur passent entre deux chargements. Les échecs sont ignorés : la vue sera simplement
+     * chargée à la demande.
+     */
+    public static void precharger(List<String> fxmlPaths) {
+        int gen = generation;
+        Deque<String> restantes = new ArrayDeque<>(fxmlPaths);
+        Platform.runLater(() -> prechargerSuivante(restantes, gen));
+    }
+
+    private static void prechargerSuivante(Deque<String> restantes, int gen) {
+        String path = restantes.poll();
+        if (path == null || gen != generation) return;
+        if (!vues.containsKey(path)) {
+            try {
+                vues.put(path, charger(path));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        if (!restantes.isEmpty()) Platform.runLater(() -> prechargerSuivante(restantes, gen));
+    }
+
+    /**
+     * Masque toutes les fenêtres ouvertes (déconnexion) et vide le cache.
+     */
+    public static void fermerTout() {
+        for (Vue vue : vues.values()) {
+            if (vue.stage != null) vue.stage.hide();
+        }
+        vues.clear();
+        generation++;
+    }
+
+    private static Vue charger(String fxmlPath) throws IOException {
+        URL url = VueCache.class.getResource(fxmlPath);
+        if (url == null) throw new IOException("Vue introuvable : " + fxmlPath);
+        EvenementsJfr.ChargementVue evt = new EvenementsJfr.ChargementVue();
+        evt.begin();
+        try {
+            FXMLLoader loader = new FXMLLoader(url);
+            Parent root = loader.load();
+            return new Vue(new Scene(root), loader.getController());
+        } finally {
+            evt.end();
+            if (evt.shouldCommit()) {
+                evt.vue = fxmlPath;
+                evt.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package sn.ouleymatou.hotelmanagement.api;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sn.ouleymatou.hotelmanagement.services.BaseDeTest;
+import sn.ouleymatou.hotelmanagement.services.ChambreService;
+import sn.ouleymatou.hotelmanagement.services.ReservationService;
+import sn.ouleymatou.hotelmanagement.utils.HistogrammeLatences;
+import sn.ouleymatou.hotelmanagement.utils.JPAUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Banc de charge du serveur d'application : des postes de réception simulés (chacun son client HTTP, comme un
+ * poste en mode client) enchaînent les lectures d'un guichet (arrivées, départs, chambres disponibles, total)
+ * pendant quelques secondes, par paliers de 1 à 50 postes. On relève le débit, la latence p95 et le nombre de
+ * connexions ouvertes sur la base : il reste borné par le pool du serveur quel que soit le nombre de postes,
+ * alors qu'en mode local chaque poste ouvre son propre pool.
+ *
+ * <p>Lancement : {@code mvn test -Pbancs -Dhotel.test.base=<url JDBC>}.
+ */
+@Tag("banc")
+class BancPostesTest {
+
+    private static final int[] PALIERS = {1, 5, 20, 50};
+    private static final Duration DUREE_PALIER = Duration.ofSeconds(5);
+
+    private record Mesure(int postes, double appelsParSeconde, long p95Micros, long connexionsMax) {
+        @Override
+        public String toString() {
+            return String.format("%2d poste(s) : %,8.0f appels/s, p95 %,7d µs, %d connexion(s) à la base",
+                    postes, appelsParSeconde, p95Micros, connexionsMax);
+        }
+    }
+
+    @Test
+    void debitEtConnexionsParNombreDePostes() throws Exception {
+        BaseDeTest.exiger();
+        BaseDeTest.peupler(200, 200_000);
+
+        ServeurApi serveur = new ServeurApi(null);
+        serveur.demarrer("127.0.0.1", 0);
+        List<Mesure> mesures = new ArrayList<>();
+        try {
+            String url = "http://127.0.0.1:" + serveur.getPort();
+            charger(url, 5);    // chauffe (compilation JIT, pool, caches)
+            for (int postes : PALIERS) {
+                Mesure m = charger(url, postes);
+                System.out.println("  " + m);
+                mesures.add(m);
+            }
+        } finally {
+            serveur.arreter();
+        }
+
+        long pool = JPAUtils.getConfiguration().getLong("hibernate.connection.pool_size", 20);
+        Mesure seul = mesures.get(0);
+        Mesure tous = mesures.get(mesures.size() - 1);
+        System.out.println("  en mode local, " + tous.postes() + " postes ouvriraient jusqu'à "
+                + tous.postes() * pool + " connexions");
+        assertTrue(tous.connexionsMax() <= pool, "connexions : " + tous);
+        assertTrue(tous.appelsParSeconde() > seul.appelsParSeconde() * 2, "débit : " + tous + " contre " + seul);
+    }
+
+    private static Mesure charger(String url, int postes) throws Exception {
+        HistogrammeLatences latences = new HistogrammeLatences();
+        AtomicLong appels = new AtomicLong();
+        long fin = System.nanoTime() + DUREE_PALIER.toNanos();
+        LocalDate demain = LocalDate.now().plusDays(1);
+
+        ExecutorService executeur = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<?>> guichets = new ArrayList<>(postes);
+        for (int i = 0; i < postes; i++) {
+            guichets.add(executeur.submit(() -> {
+                ClientApi api = new ClientApi(url, null, Duration.ofSeconds(30));
+                ReservationService reservations = new ReservationServiceDistant(api);
+                ChambreService chambres = new ChambreServiceDistant(api);
+                for (int tour = 0; System.nanoTime() < fin; tour++) {
+                    long debut = System.nanoTime();
+                    switch (tour % 4) {
+                        case 0 -> reservations.getArriveesDuJour();
+                        case 1 -> reservations.getDepartsDuJour();
+                        case 2 -> chambres.getChambresDisponibles(demain.atTime(14, 0), demain.plusDays(2).atTime(12, 0));
+                        default -> reservations.getTotalReservations();
+                    }
+                    latences.enregistrer(System.nanoTime() - debut);
+                    appels.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        // Connexions ouvertes sur la base, relevées pendant le palier
+        long connexionsMax = 0;
+        while (System.nanoTime() < fin) {
+            connexionsMax = Math.max(connexionsMax, connexions());
+            Thread.sleep(200);
+        }
+        for (Future<?> guichet : guichets) guichet.get();
+        executeur.close();
+
+        double secondes = DUREE_PALIER.toNanos() / 1e9;
+        return new Mesure(postes, appels.get() / secondes, latences.percentile(0.95) / 1_000, connexionsMax);
+    }
+
+    private static long connexions() {
+        EntityManager em = JPAUtils.getEntityManager();
+        try {
+            return ((Number) em.createNativeQuery(
+                    "SELECT count(*) FROM pg_stat_activity WHERE datname = current_database()").getSingleResult())
+                    .longValue();
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package sn.ouleymatou.hotelmanagement.controllers;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.Button;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.HBox;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Banc de défilement de la colonne "Actions" sur une table de 100 000 réservations.
+ *
+ * <p>Chaque image reproduit ce que fait le VirtualFlow au défilement : les cellules visibles (recyclées) reçoivent
+ * un nouvel index, donc un updateItem. La mise en page et le dessin, identiques pour les deux cellules, ne sont pas
+ * exécutés : le banc tourne aussi sur la plateforme sans écran. On compare la cellule actuelle à l'ancienne
+ * (HBox recréé, LocalDate.now() et lecture par index à chaque mise à jour) en images par seconde et en octets
+ * alloués par image sur le thread JavaFX.
+ *
+ * <p>Lancement : {@code mvn test -Pbancs}.
+ */
+@Tag("banc")
+class BancDefilementTest {
+
+    private static final int LIGNES = 100_000;
+    private static final int VISIBLES = 40;
+    private static final int PAS = 3;
+
+    private record Mesure(double imagesParSeconde, double octetsParImage) {
+        @Override
+        public String toString() {
+            return String.format("%,.0f images/s, %,.0f octets/image (%,.0f Mo/s à 60 images/s)",
+                    imagesParSeconde, octetsParImage, octetsParImage * 60 / 1e6);
+        }
+    }
+
+    @Test
+    void celluleActionsSansAllocation() throws Exception {
+        PlateformeFx.exiger();
+        List<Reservation> reservations = reservations();
+
+        Mesure ancienne = PlateformeFx.surFx(() -> defiler(reservations, AncienneCelluleActions::new));
+        EligibiliteActions eligibilite = new EligibiliteActions();
+        Mesure actuelle = PlateformeFx.surFx(() -> defiler(reservations, () ->
+                new ReservationActionCell(eligibilite, r -> {}, r -> {}, r -> {}, r -> {}), eligibilite));
+
+        System.out.println("Défilement de " + LIGNES + " lignes, " + VISIBLES + " cellules visibles");
+        System.out.println("  ancienne cellule : " + ancienne);
+        System.out.println("  cellule actuelle : " + actuelle);
+        assertTrue(actuelle.octetsParImage() * 2 < ancienne.octetsParImage(),
+                "allocation par image : " + actuelle + " contre " + ancienne);
+    }
+
+    private Mesure defiler(List<Reservation> reservations, Supplier<TableCell<Reservation, Void>> cellule) {
+        return defiler(reservations, cellule, null);
+    }
+
+    private Mesure defiler(List<Reservation> reservations, Supplier<TableCell<Reservation, Void>> cellule,
+                           EligibiliteActions eligibilite) {
+        ObservableList<Reservation> items = FXCollections.observableArrayList();
+        if (eligibilite != null) items.addListener(eligibilite);
+        items.setAll(reservations);
+        TableView<Reservation> table = new TableView<>(items);
+        TableColumn<Reservation, Void> colonne = new TableColumn<>("Actions");
+        table.getColumns().add(colonne);
+
+        List<TableRow<Reservation>> lignes = new ArrayList<>();
+        List<TableCell<Reservation, Void>> cellules = new ArrayList<>();
+        for (int i = 0; i < VISIBLES; i++) {
+            TableRow<Reservation> ligne = new TableRow<>();
+            ligne.updateTableView(table);
+            TableCell<Reservation, Void> c = cellule.get();
+            c.updateTableView(table);
+            c.updateTableColumn(colonne);
+            c.updateTableRow(ligne);
+            lignes.add(ligne);
+            cellules.add(c);
+        }
+
+        // Chauffe (compilation JIT), puis mesure sur un défilement complet
+        for (int tour = 0; tour < 3; tour++) parcourir(lignes, cellules);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long octets = threads.getCurrentThreadAllocatedBytes();
+        long debut = System.nanoTime();
+        int images = parcourir(lignes, cellules);
+        double secondes = (System.nanoTime() - debut) / 1e9;
+        octets = threads.getCurrentThreadAllocatedBytes() - octets;
+        return new Mesure(images / secondes, (double) octets / images);
+    }
+
+    private static int parcourir(List<TableRow<Reservation>> lignes, List<TableCell<Reservation, Void>> cellules) {
+        int images = 0;
+        for (int haut = 0; haut + VISIBLES <= LIGNES; haut += PAS) {
+            for (int i = 0; i < VISIBLES; i++) {
+                lignes.get(i).updateIndex(haut + i);
+                cellules.get(i).updateIndex(haut + i);
+            }
+            images++;
+        }
+        return images;
+    }
+
+    // Un tiers arrive aujourd'hui, un tiers part aujourd'hui, le reste sans action
+    private static List<Reservation> reservations() {
+        LocalDateTime aujourdHui = LocalDate.now().atTime(14, 0);
+        List<Reservation> liste = new ArrayList<>(LIGNES);
+        for (int i = 0; i < LIGNES; i++) {
+            Reservation r = new Reservation();
+            r.setId((long) i + 1);
+            switch (i % 3) {
+                case 0 -> {
+                    r.setStatut(Reservation.StatutReservation.CONFIRMEE);
+                    r.setDateArrivee(aujourdHui);
+                    r.setDateDepart(aujourdHui.plusDays(2));
+                }
+                case 1 -> {
+                    r.setStatut(Reservation.StatutReservation.EN_COURS);
+                    r.setDateArrivee(aujourdHui.minusDays(2));
+                    r.setDateDepart(aujourdHui);
+                }
+                default -> {
+                    r.setStatut(Reservation.StatutReservation.TERMINEE);
+                    r.setDateArrivee(aujourdHui.minusDays(5));
+                    r.setDateDepart(aujourdHui.minusDays(3));
+                }
+            }
+            liste.add(r);
+        }
+        return liste;
+    }
+
+    /**
+     * Cellule d'origine de ReservationController, reproduite pour comparaison.
+     */
+    private static class AncienneCelluleActions extends TableCell<Reservation, Void> {
+        private final Button btnCheckIn = new Button("Check-in");
+        private final Button btnCheckOut = new Button("Check-out");
+
+        @Override
+        protected void updateItem(Void item, boolean empty) {
+            super.updateItem(item, empty);
+            if (empty) {
+                setGraphic(null);
+            } else {
+                HBox hbox = new HBox(5);
+                Reservation res = getTableView().getItems().get(getIndex());
+                LocalDate today = LocalDate.now();
+
+                if (res.getStatut() == Reservation.StatutReservation.CONFIRMEE &&
+                        res.getDateArrivee().toLocalDate().equals(today)) {
+                    btnCheckIn.setDisable(false);
+                    hbox.getChildren().add(btnCheckIn);
+                } else if (res.getStatut() == Reservation.StatutReservation.EN_COURS &&
+                        res.getDateDepart().toLocalDate().equals(today)) {
+                    btnCheckOut.setDisable(false);
+                    hbox.getChildren().add(btnCheckOut);
+                }
+
+                setGraphic(hbox);
+            }
+        }
+    }
+}
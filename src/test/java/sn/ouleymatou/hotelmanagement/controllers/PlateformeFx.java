@@ -0,0 +1,57 @@
+package sn.ouleymatou.hotelmanagement.controllers;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Démarrage de JavaFX pour les tests : plateforme Monocle sans écran quand aucun affichage n'est disponible.
+ * Les tests qui en dépendent sont ignorés si la plateforme ne démarre pas.
+ */
+final class PlateformeFx {
+
+    private static Boolean demarree;
+
+    private PlateformeFx() {}
+
+    static synchronized void exiger() {
+        if (demarree == null) demarree = demarrer();
+        assumeTrue(demarree, "Plateforme JavaFX indisponible");
+    }
+
+    private static boolean demarrer() {
+        if (System.getenv("DISPLAY") == null && System.getProperty("glass.platform") == null) {
+            System.setProperty("glass.platform", "Monocle");
+            System.setProperty("monocle.platform", "Headless");
+            System.setProperty("prism.order", "sw");
+        }
+        try {
+            CountDownLatch pret = new CountDownLatch(1);
+            Platform.startup(pret::countDown);
+            Platform.setImplicitExit(false);
+            return pret.await(10, TimeUnit.SECONDS);
+        } catch (IllegalStateException dejaDemarree) {
+            return true;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    // Exécute sur le thread JavaFX et attend le résultat
+    static <T> T surFx(Callable<T> tache) throws Exception {
+        CompletableFuture<T> resultat = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                resultat.complete(tache.call());
+            } catch (Throwable e) {
+                resultat.completeExceptionally(e);
+            }
+        });
+        return resultat.get(2, TimeUnit.MINUTES);
+    }
+}
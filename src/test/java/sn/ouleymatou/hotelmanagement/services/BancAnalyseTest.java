@@ -0,0 +1,170 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.utils.ColonnesReservations;
+import sn.ouleymatou.hotelmanagement.utils.JPAUtils;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Banc de l'analyse en mémoire sur 1 000 000 de réservations.
+ * <ul>
+ *     <li>Sans base : agrégation fork/join des colonnes contre un parcours séquentiel par indicateur,
+ *     résultats identiques exigés ;</li>
+ *     <li>avec la base de test ({@link BaseDeTest}) : {@link AnalyseService#analyser} contre une requête
+ *     d'agrégat JPQL par indicateur, comme le faisait l'écran des statistiques.</li>
+ * </ul>
+ * Lancement : {@code mvn test -Pbancs} (ajouter {@code -Dhotel.test.base=<url JDBC>} pour la partie en base).
+ */
+@Tag("banc")
+class BancAnalyseTest {
+
+    private static final int LIGNES = 1_000_000;
+    private static final LocalDate DEBUT = LocalDate.of(2015, 1, 1);
+    private static final LocalDate FIN = LocalDate.of(2025, 12, 31);
+    private static final String[] TYPES = {"Simple", "Double", "Suite", "Familiale"};
+
+    @Test
+    void agregationParalleleContreParcoursParIndicateur() {
+        int nbMois = 11 * 12;
+        Random hasard = new Random(11);
+        int[] mois = new int[LIGNES];
+        float[] montants = new float[LIGNES];
+        short[] nuits = new short[LIGNES];
+        byte[] statuts = new byte[LIGNES];
+        int[] types = new int[LIGNES];
+        Reservation.StatutReservation[] valeurs = Reservation.StatutReservation.values();
+        ColonnesReservations colonnes = new ColonnesReservations(LIGNES, nbMois, TYPES);
+        for (int i = 0; i < LIGNES; i++) {
+            mois[i] = hasard.nextInt(nbMois);
+            nuits[i] = (short) (1 + hasard.nextInt(6));
+            montants[i] = nuits[i] * 40_000f;
+            statuts[i] = valeurs[hasard.nextInt(valeurs.length)].getCode();
+            types[i] = hasard.nextInt(TYPES.length);
+            colonnes.ajouter(mois[i], montants[i], nuits[i], statuts[i], types[i]);
+        }
+        byte annulee = Reservation.StatutReservation.ANNULEE.getCode();
+
+        // Référence : un parcours séquentiel par indicateur, comme une requête par indicateur
+        Supplier<Object[]> parIndicateur = () -> {
+            double ca = 0;
+            for (float m : montants) ca += m;
+            long n = 0;
+            for (short s : nuits) n += s;
+            long annulations = 0;
+            for (byte s : statuts) if (s == annulee) annulations++;
+            int[] parMois = new int[nbMois];
+            for (int m : mois) parMois[m]++;
+            int[] parType = new int[TYPES.length];
+            for (int t : types) parType[t]++;
+            return new Object[]{ca, n, annulations, parMois, parType};
+        };
+        Supplier<AnalyseService.Analyse> parallele = () -> AnalyseService.analyser(colonnes, DEBUT);
+
+        Object[] attendu = parIndicateur.get();
+        AnalyseService.Analyse analyse = parallele.get();
+        assertEquals(LIGNES, analyse.stats().nombreReservations());
+        assertEquals((double) attendu[0], analyse.stats().chiffreAffaires(), 1e-3);
+        assertEquals((long) attendu[1], analyse.stats().nuitsVendues());
+        assertEquals((long) attendu[2], analyse.stats().annulations());
+        int[] parMois = (int[]) attendu[3];
+        for (int m = 0; m < nbMois; m++) {
+            assertEquals(parMois[m], analyse.reservationsParMois().get(YearMonth.from(DEBUT).plusMonths(m)));
+        }
+        int[] parType = (int[]) attendu[4];
+        for (int t = 0; t < TYPES.length; t++) assertEquals(parType[t], analyse.reservationsParType().get(TYPES[t]));
+
+        System.out.println("Agrégation de " + LIGNES + " lignes en mémoire");
+        System.out.println("  un parcours par indicateur : " + mesurer(parIndicateur) + " ms");
+        System.out.println("  fork/join, un seul parcours : " + mesurer(parallele) + " ms");
+    }
+
+    @Test
+    void analyseContreRequetesParIndicateur() {
+        BaseDeTest.exiger();
+        BaseDeTest.peupler(500, LIGNES);
+        AnalyseService analyseService = new AnalyseService();
+
+        Supplier<AnalyseService.Analyse> enMemoire = () -> analyseService.analyser(DEBUT, FIN);
+        Supplier<Object[]> requetes = BancAnalyseTest::requetesParIndicateur;
+
+        AnalyseService.Analyse analyse = enMemoire.get();
+        Object[] attendu = requetes.get();
+        assertEquals((long) attendu[0], analyse.stats().nombreReservations());
+        // Montants stockés en float dans les colonnes
+        assertEquals((double) attendu[1], analyse.stats().chiffreAffaires(), (double) attendu[1] * 1e-6);
+        assertEquals((long) attendu[2], analyse.stats().nuitsVendues());
+        assertEquals((long) attendu[3], analyse.stats().annulations());
+        assertEquals(attendu[4], analyse.reservationsParType());
+        Map<YearMonth, Integer> parMois = new HashMap<>(analyse.reservationsParMois());
+        parMois.values().removeIf(nb -> nb == 0);
+        assertEquals(attendu[5], parMois);
+
+        System.out.println("Analyse de " + LIGNES + " réservations (" + DEBUT + " au " + FIN + ")");
+        System.out.println("  une requête JPQL par indicateur : " + mesurer(requetes) + " ms");
+        System.out.println("  chargement en colonnes + fork/join : " + mesurer(enMemoire) + " ms");
+    }
+
+    // Les agrégats tels que l'écran des statistiques les demandait, une requête par indicateur
+    private static Object[] requetesParIndicateur() {
+        EntityManager em = JPAUtils.getEntityManager();
+        try {
+            String periode = " FROM Reservation r WHERE r.dateArrivee >= :start AND r.dateArrivee < :end";
+            Map<String, Object> parametres = Map.of("start", DEBUT.atStartOfDay(), "end", FIN.plusDays(1).atStartOfDay());
+            long nombre = unique(em, "SELECT COUNT(r)" + periode, Long.class, parametres);
+            double ca = unique(em, "SELECT COALESCE(SUM(r.montantTotal), 0)" + periode, Double.class, parametres);
+            long nuits = unique(em, "SELECT COALESCE(SUM(r.nombreNuits), 0)" + periode, Long.class, parametres);
+            long annulations = unique(em, "SELECT COUNT(r)" + periode + " AND r.statut = " +
+                    "sn.ouleymatou.hotelmanagement.entities.Reservation.StatutReservation.ANNULEE", Long.class, parametres);
+
+            Map<String, Integer> parType = new HashMap<>();
+            for (Object[] l : liste(em, "SELECT r.chambre.typeChambre.libelle, COUNT(r)" + periode +
+                    " GROUP BY r.chambre.typeChambre.libelle", parametres)) {
+                parType.put((String) l[0], ((Number) l[1]).intValue());
+            }
+            Map<YearMonth, Integer> parMois = new HashMap<>();
+            for (Object[] l : liste(em, "SELECT YEAR(r.dateArrivee), MONTH(r.dateArrivee), COUNT(r)" + periode +
+                    " GROUP BY YEAR(r.dateArrivee), MONTH(r.dateArrivee)", parametres)) {
+                parMois.put(YearMonth.of(((Number) l[0]).intValue(), ((Number) l[1]).intValue()), ((Number) l[2]).intValue());
+            }
+            return new Object[]{nombre, ca, nuits, annulations, parType, parMois};
+        } finally {
+            em.close();
+        }
+    }
+
+    private static <T> T unique(EntityManager em, String jpql, Class<T> type, Map<String, Object> parametres) {
+        var requete = em.createQuery(jpql, type);
+        parametres.forEach(requete::setParameter);
+        return requete.getSingleResult();
+    }
+
+    private static List<Object[]> liste(EntityManager em, String jpql, Map<String, Object> parametres) {
+        var requete = em.createQuery(jpql, Object[].class);
+        parametres.forEach(requete::setParameter);
+        return requete.getResultList();
+    }
+
+    // Meilleur temps sur 5 exécutions, après une exécution de chauffe
+    private static long mesurer(Supplier<?> calcul) {
+        calcul.get();
+        long meilleur = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long debut = System.nanoTime();
+            calcul.get();
+            meilleur = Math.min(meilleur, System.nanoTime() - debut);
+        }
+        return meilleur / 1_000_000;
+    }
+}
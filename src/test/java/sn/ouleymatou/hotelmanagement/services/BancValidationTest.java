@@ -0,0 +1,119 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sn.ouleymatou.hotelmanagement.entities.Chambre;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Banc de la validation d'une réservation (client, séjour, chambre, acompte), hors base : coût en nanosecondes
+ * et en octets alloués par réservation, pour une saisie valide et pour une saisie à plusieurs erreurs.
+ * L'ancienne validation (String.matches, arrêt sur la première erreur par exception) sert de référence.
+ *
+ * <p>Lancement : {@code mvn test -Pbancs}.
+ */
+@Tag("banc")
+class BancValidationTest {
+
+    private static final int ITERATIONS = 2_000_000;
+    private static final LocalDateTime MAINTENANT = LocalDateTime.of(2025, 6, 1, 10, 0);
+
+    private record Saisie(String nom, String prenom, String telephone, String email, LocalDateTime arrivee,
+                          LocalDateTime depart, int personnes, double acompte) {}
+
+    private record Mesure(double nanos, double octets) {
+        @Override
+        public String toString() {
+            return String.format("%,.0f ns, %,.0f octets par réservation", nanos, octets);
+        }
+    }
+
+    private static final Saisie VALIDE = new Saisie("Ndiaye", "Awa", "771234567", "awa.ndiaye@example.sn",
+            MAINTENANT.plusDays(3), MAINTENANT.plusDays(6), 2, 60_000);
+    private static final Saisie INVALIDE = new Saisie("N", "Awa2", "661234567", "awa@", MAINTENANT.plusDays(3),
+            MAINTENANT.plusDays(2), 5, 10);
+
+    private interface Validation {
+        int valider(Saisie s);
+    }
+
+    @Test
+    void coutParReservation() {
+        List<ErreurValidation> erreurs = new ArrayList<>();
+        Validation actuelle = s -> {
+            erreurs.clear();
+            ValidationReservation.validerClient(s.nom(), s.prenom(), s.telephone(), s.email(), erreurs);
+            ValidationReservation.validerSejour(s.arrivee(), s.depart(), MAINTENANT, erreurs);
+            ValidationReservation.validerChambre(Chambre.StatutChambre.LIBRE, 3, s.personnes(), true, erreurs);
+            ValidationReservation.validerAcompte(s.acompte(), 3 * 40_000, erreurs);
+            return erreurs.size();
+        };
+        Validation ancienne = s -> {
+            try {
+                ancienneValidation(s);
+                return 0;
+            } catch (IllegalArgumentException e) {
+                return 1;
+            }
+        };
+
+        assertEquals(0, actuelle.valider(VALIDE));
+        assertEquals(7, actuelle.valider(INVALIDE));
+
+        Mesure ancienneValide = mesurer(ancienne, VALIDE);
+        Mesure actuelleValide = mesurer(actuelle, VALIDE);
+        Mesure ancienneInvalide = mesurer(ancienne, INVALIDE);
+        Mesure actuelleInvalide = mesurer(actuelle, INVALIDE);
+
+        System.out.println("Validation d'une réservation (" + ITERATIONS + " itérations)");
+        System.out.println("  saisie valide,   ancienne : " + ancienneValide);
+        System.out.println("  saisie valide,   actuelle : " + actuelleValide);
+        System.out.println("  saisie invalide, ancienne (1re erreur seulement) : " + ancienneInvalide);
+        System.out.println("  saisie invalide, actuelle (7 erreurs) : " + actuelleInvalide);
+        assertTrue(actuelleValide.octets() < ancienneValide.octets(),
+                "allocation : " + actuelleValide + " contre " + ancienneValide);
+    }
+
+    private static Mesure mesurer(Validation validation, Saisie saisie) {
+        long total = 0;
+        for (int i = 0; i < ITERATIONS / 4; i++) total += validation.valider(saisie);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long octets = threads.getCurrentThreadAllocatedBytes();
+        long debut = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) total += validation.valider(saisie);
+        long duree = System.nanoTime() - debut;
+        octets = threads.getCurrentThreadAllocatedBytes() - octets;
+        if (total < 0) throw new AssertionError();
+        return new Mesure((double) duree / ITERATIONS, (double) octets / ITERATIONS);
+    }
+
+    // Validation d'origine de ReservationService.enregistrerReservation, reproduite pour comparaison
+    private static void ancienneValidation(Saisie s) {
+        if (s.nom() == null || s.nom().length() < 2 || !s.nom().matches("^[A-Za-zÀ-ÖØ-öø-ÿ\\s'-]+$")) {
+            throw new IllegalArgumentException("Nom client invalide : minimum 2 caractères.");
+        }
+        if (s.prenom() == null || s.prenom().length() < 2 || !s.prenom().matches("^[A-Za-zÀ-ÖØ-öø-ÿ\\s'-]+$")) {
+            throw new IllegalArgumentException("Prénom client invalide : minimum 2 caractères.");
+        }
+        if (s.telephone() == null || !s.telephone().matches("^(77|78|75|76|70)\\d{7}$")) {
+            throw new IllegalArgumentException("Téléphone invalide.");
+        }
+        if (s.email() != null && !s.email().isEmpty() && !s.email().matches("^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,}$")) {
+            throw new IllegalArgumentException("Email invalide.");
+        }
+        if (s.arrivee().isBefore(MAINTENANT)) throw new IllegalArgumentException("Date d'arrivée dans le passé.");
+        if (!s.depart().isAfter(s.arrivee())) throw new IllegalArgumentException("Date de départ avant arrivée.");
+        if (s.personnes() < 1 || s.personnes() > 3) throw new IllegalArgumentException("Nombre de personnes dépasse capacité.");
+        double montantTotal = 3 * 40_000;
+        if (s.acompte() < montantTotal * 0.3 || s.acompte() > montantTotal) {
+            throw new IllegalArgumentException("Acompte entre 30% et 100% du total.");
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import sn.ouleymatou.hotelmanagement.utils.JPAUtils;
+import sn.ouleymatou.hotelmanagement.utils.MigrationsBase;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Base PostgreSQL jetable des tests qui en ont besoin, désignée par {@code -Dhotel.test.base=<url JDBC>}
+ * (utilisateur et mot de passe : {@code HOTEL_DB_USER} / {@code HOTEL_DB_PASSWORD} ou {@code -Djakarta.persistence.jdbc.*}).
+ * Les tests y créent et y suppriment leurs données : elle ne doit jamais désigner une base réelle.
+ * Sans cette propriété, ou si la base ne répond pas, les tests sont ignorés.
+ */
+public final class BaseDeTest {
+
+    private static Boolean prete;
+
+    private BaseDeTest() {}
+
+    public static synchronized void exiger() {
+        if (prete == null) prete = preparer();
+        assumeTrue(prete, "Base de test indisponible (-Dhotel.test.base)");
+    }
+
+    private static boolean preparer() {
+        String url = System.getProperty("hotel.test.base");
+        if (url == null || url.isBlank()) return false;
+        System.setProperty("jakarta.persistence.jdbc.url", url);
+        System.setProperty("hibernate.hbm2ddl.auto", "update");
+        System.setProperty("hotel.audit.actif", "false");
+        try {
+            EntityManager em = JPAUtils.getEntityManager();
+            try {
+                em.createNativeQuery("SELECT 1").getSingleResult();
+            } finally {
+                em.close();
+            }
+            MigrationsBase.appliquer();
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Vide les tables métier et en recrée le contenu : {@code nbChambres} chambres réparties sur 4 types et
+     * {@code nbReservations} réservations étalées sur 2015-2025, de statuts variés, générées côté serveur.
+     * L'historique est ensuite amorcé, comme au démarrage de l'application.
+     */
+    public static void peupler(int nbChambres, int nbReservations) {
+        executer(
+                "TRUNCATE reservation_evenements, projection_reservations, projection_jours, audits_nuit, " +
+                        "reservations, clients, chambres, types_chambres RESTART IDENTITY CASCADE",
+                "INSERT INTO types_chambres (code, libelle, tarif_nuit, capacite_personnes) VALUES " +
+                        "('SIM', 'Simple', 25000, 1), ('DBL', 'Double', 40000, 2), " +
+                        "('STE', 'Suite', 90000, 4), ('FAM', 'Familiale', 60000, 5)",
+                "INSERT INTO chambres (numero, type_chambre_id, statut, etage, climatisation, balcon, vue_ocean, " +
+                        "date_creation) SELECT 'C' || g, 1 + g % 4, 'LIBRE', g % 10, true, g % 2 = 0, g % 5 = 0, " +
+                        "DATE '2015-01-01' FROM generate_series(1, " + nbChambres + ") g",
+                "INSERT INTO reservations (numero, date_reservation, nom_client, prenom_client, telephone_client, " +
+                        "date_arrivee, date_depart, nombre_personnes, nombre_nuits, montant_total, acompte, statut, " +
+                        "chambre_id) " +
+                        "SELECT 'T-' || g, a - INTERVAL '10 days', 'Nom' || g % 5000, 'Prenom', '77' || lpad((g % 5000)::text, 7, '0'), " +
+                        "a, a + n * INTERVAL '1 day', 1 + g % 3, n, n * 40000, 10000, " +
+                        "(ARRAY['TERMINEE','TERMINEE','TERMINEE','ANNULEE','NO_SHOW','CONFIRMEE','EN_COURS'])[1 + g % 7], " +
+                        "1 + g % " + nbChambres + " " +
+                        "FROM (SELECT g, TIMESTAMP '2015-01-01 14:00' + (g % 4018) * INTERVAL '1 day' AS a, " +
+                        "1 + g % 6 AS n FROM generate_series(1, " + nbReservations + ") g) s",
+                "ANALYZE reservations");
+        new HistoriqueReservationService().amorcer();
+    }
+
+    public static void executer(String... ordres) {
+        EntityManager em = JPAUtils.getEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            for (String ordre : ordres) em.createNativeQuery(ordre).executeUpdate();
+            tx.commit();
+        } finally {
+            if (tx.isActive()) tx.rollback();
+            em.close();
+        }
+    }
+}
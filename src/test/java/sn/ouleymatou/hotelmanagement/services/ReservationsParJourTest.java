@@ -0,0 +1,130 @@
+package sn.ouleymatou.hotelmanagement.services;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import sn.ouleymatou.hotelmanagement.entities.Reservation;
+import sn.ouleymatou.hotelmanagement.utils.InspecteurRequetes;
+import sn.ouleymatou.hotelmanagement.utils.JPAUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recherches par jour en plage semi-ouverte : mêmes lignes que l'ancien FUNCTION('DATE', colonne) = jour,
+ * et plan d'exécution passant par les index (statut, date). Nécessite la base de test ({@link BaseDeTest}).
+ */
+class ReservationsParJourTest {
+
+    private static final List<LocalDate> JOURS = List.of(
+            LocalDate.of(2015, 1, 1), LocalDate.of(2018, 2, 28), LocalDate.of(2020, 2, 29),
+            LocalDate.of(2023, 12, 31), LocalDate.of(2025, 6, 15));
+
+    private final ReservationService service = new ReservationService();
+
+    @BeforeAll
+    static void peupler() {
+        BaseDeTest.exiger();
+        BaseDeTest.peupler(200, 200_000);
+    }
+
+    @Test
+    void memesLignesQueLaComparaisonDeDates() {
+        for (LocalDate jour : JOURS) {
+            for (Reservation.StatutReservation statut : Reservation.StatutReservation.values()) {
+                assertEquals(ancienneRequete("dateArrivee", jour, statut),
+                        ids(service.getReservationsParJour(ReservationService.Jalon.ARRIVEE, jour, jour.plusDays(1), statut)),
+                        "arrivées du " + jour + " " + statut);
+                assertEquals(ancienneRequete("dateDepart", jour, statut),
+                        ids(service.getReservationsParJour(ReservationService.Jalon.DEPART, jour, jour.plusDays(1), statut)),
+                        "départs du " + jour + " " + statut);
+            }
+        }
+    }
+
+    @Test
+    void sejoursTouchantUneFenetre() {
+        LocalDate debut = LocalDate.of(2020, 2, 27);
+        LocalDate fin = LocalDate.of(2020, 3, 2);
+        EntityManager em = JPAUtils.getEntityManager();
+        Set<Long> attendus;
+        try {
+            // Présent dans [debut, fin[ : arrivé avant la fin, pas encore parti au début (jour du départ compris)
+            attendus = new TreeSet<>(em.createQuery(
+                            "SELECT r.id FROM Reservation r WHERE FUNCTION('DATE', r.dateArrivee) < :fin " +
+                                    "AND FUNCTION('DATE', r.dateDepart) >= :debut AND " + Reservation.JPQL_ACTIVES, Long.class)
+                    .setParameter("debut", debut)
+                    .setParameter("fin", fin)
+                    .getResultList());
+        } finally {
+            em.close();
+        }
+        Set<Long> obtenus = ids(service.getReservationsTouchant(debut, fin,
+                Reservation.StatutReservation.CONFIRMEE, Reservation.StatutReservation.EN_COURS));
+        assertFalse(attendus.isEmpty());
+        assertEquals(attendus, obtenus);
+    }
+
+    @Test
+    void planParIndexStatutDate() throws Exception {
+        LocalDate jour = LocalDate.of(2023, 12, 31);
+        assertPlanUtilise(ReservationService.Jalon.ARRIVEE, jour, Reservation.StatutReservation.CONFIRMEE,
+                "idx_reservation_statut_arrivee");
+        assertPlanUtilise(ReservationService.Jalon.DEPART, jour, Reservation.StatutReservation.EN_COURS,
+                "idx_reservation_statut_depart");
+    }
+
+    // EXPLAIN du SQL réellement produit par Hibernate pour la recherche (relu par l'inspecteur de requêtes)
+    private void assertPlanUtilise(ReservationService.Jalon jalon, LocalDate jour,
+                                   Reservation.StatutReservation statut, String index) throws Exception {
+        service.getReservationsParJour(jalon, jour, jour.plusDays(1), statut);
+        String sql = InspecteurRequetes.dernierSql();
+
+        EntityManager em = JPAUtils.getEntityManager();
+        try {
+            String plan = em.unwrap(Session.class).doReturningWork(connexion -> {
+                try (PreparedStatement ps = connexion.prepareStatement("EXPLAIN " + sql)) {
+                    ps.setObject(1, jour.atStartOfDay());
+                    ps.setObject(2, jour.plusDays(1).atStartOfDay());
+                    ps.setString(3, statut.name());
+                    StringBuilder lignes = new StringBuilder();
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) lignes.append(rs.getString(1)).append('\n');
+                    }
+                    return lignes.toString();
+                }
+            });
+            assertTrue(plan.contains(index), "index " + index + " absent du plan :\n" + plan);
+            assertFalse(plan.contains("Seq Scan on reservations"), plan);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static Set<Long> ancienneRequete(String colonne, LocalDate jour, Reservation.StatutReservation statut) {
+        EntityManager em = JPAUtils.getEntityManager();
+        try {
+            return new TreeSet<>(em.createQuery("SELECT r.id FROM Reservation r " +
+                            "WHERE FUNCTION('DATE', r." + colonne + ") = :jour AND r.statut = :statut", Long.class)
+                    .setParameter("jour", jour)
+                    .setParameter("statut", statut)
+                    .getResultList());
+        } finally {
+            em.close();
+        }
+    }
+
+    private static Set<Long> ids(List<Reservation> reservations) {
+        return reservations.stream().map(Reservation::getId).collect(Collectors.toCollection(TreeSet::new));
+    }
+}
@@ -0,0 +1,54 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Surcoût de {@link Metriques#mesurer} autour d'une opération quasi vide : durée et octets alloués par appel.
+ * L'exigence est de rester sous la microseconde.
+ *
+ * <p>Lancement : {@code mvn test -Pbancs}.
+ */
+@Tag("banc")
+class BancMetriquesTest {
+
+    private static final int APPELS = 5_000_000;
+
+    private long compteur;
+
+    @Test
+    void surcoutParAppel() {
+        for (int i = 0; i < APPELS / 5; i++) operation(i);
+        for (int i = 0; i < APPELS / 5; i++) operationMesuree(i);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long debut = System.nanoTime();
+        for (int i = 0; i < APPELS; i++) operation(i);
+        double nuNs = (double) (System.nanoTime() - debut) / APPELS;
+
+        long octets = threads.getCurrentThreadAllocatedBytes();
+        debut = System.nanoTime();
+        for (int i = 0; i < APPELS; i++) operationMesuree(i);
+        double mesureNs = (double) (System.nanoTime() - debut) / APPELS;
+        double octetsParAppel = (double) (threads.getCurrentThreadAllocatedBytes() - octets) / APPELS;
+
+        assertEquals(APPELS + APPELS / 5, Metriques.minuteur("BancMetriquesTest.operation").getNombreAppels());
+        System.out.printf("Metriques.mesurer : %.0f ns par appel (opération seule : %.0f ns), %.0f octets alloués%n",
+                mesureNs - nuNs, nuNs, octetsParAppel);
+        assertTrue(mesureNs - nuNs < 1_000, "surcoût de " + (mesureNs - nuNs) + " ns");
+    }
+
+    private long operation(int i) {
+        compteur += i;
+        return compteur;
+    }
+
+    private long operationMesuree(int i) {
+        return Metriques.mesurer("BancMetriquesTest.operation", () -> operation(i));
+    }
+}
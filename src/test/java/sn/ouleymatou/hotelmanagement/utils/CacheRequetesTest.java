@@ -0,0 +1,44 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CacheRequetesTest {
+
+    @Test
+    void resultatMemoriseJusquALInvalidation() {
+        CacheRequetes cache = new CacheRequetes(10, 60_000);
+        AtomicInteger calculs = new AtomicInteger();
+        assertEquals(1, (int) cache.obtenir("a", calculs::incrementAndGet));
+        assertEquals(1, (int) cache.obtenir("a", calculs::incrementAndGet));
+        cache.invalider("a");
+        assertEquals(2, (int) cache.obtenir("a", calculs::incrementAndGet));
+    }
+
+    @Test
+    void calculConcurrentDUneInvalidationNonMemorise() {
+        CacheRequetes cache = new CacheRequetes(10, 60_000);
+        // L'écriture (et son invalidation) arrive pendant la lecture de l'ancienne valeur
+        String perimee = cache.obtenir("a", () -> {
+            cache.invalider("a");
+            return "ancienne";
+        });
+        assertEquals("ancienne", perimee);
+        assertEquals("nouvelle", cache.obtenir("a", () -> "nouvelle"));
+        assertEquals(1, cache.taille());
+    }
+
+    @Test
+    void evictionDeLaMoinsRecemmentLue() {
+        CacheRequetes cache = new CacheRequetes(2, 60_000);
+        cache.obtenir("a", () -> 1);
+        cache.obtenir("b", () -> 2);
+        cache.obtenir("a", () -> 0);
+        cache.obtenir("c", () -> 3);
+        assertEquals(1, (int) cache.obtenir("a", () -> -1));
+        assertEquals(-2, (int) cache.obtenir("b", () -> -2));
+    }
+}
@@ -0,0 +1,44 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexIntervallesChambresTest {
+
+    private static LocalDateTime jour(int j) {
+        return LocalDateTime.of(2025, 1, 1, 12, 0).plusDays(j);
+    }
+
+    @Test
+    void chevauchementEnPlageSemiOuverte() {
+        IndexIntervallesChambres index = new IndexIntervallesChambres();
+        assertTrue(index.reserverSiLibre(1, jour(0), jour(3)));
+        assertFalse(index.reserverSiLibre(1, jour(2), jour(4)));
+        // Départ et arrivée le même jour : pas de chevauchement
+        assertTrue(index.reserverSiLibre(1, jour(3), jour(5)));
+        assertTrue(index.reserverSiLibre(2, jour(2), jour(4)));
+    }
+
+    @Test
+    void retirerRendLOccupationPrecedente() {
+        IndexIntervallesChambres index = new IndexIntervallesChambres();
+        index.reserverSiLibre(1, jour(0), jour(3));
+        index.reserverSiLibre(1, jour(6), jour(8));
+        // Accolée aux deux autres : fusionnée en un seul intervalle [0, 8[
+        assertTrue(index.reserverSiLibre(1, jour(3), jour(6)));
+        assertTrue(index.chevauche(1, jour(4), jour(5)));
+
+        index.retirer(1, jour(3), jour(6));
+        assertFalse(index.chevauche(1, jour(3), jour(6)));
+        assertTrue(index.chevauche(1, jour(2), jour(4)));
+        assertTrue(index.chevauche(1, jour(5), jour(7)));
+
+        index.retirer(1, jour(0), jour(3));
+        index.retirer(1, jour(6), jour(8));
+        assertTrue(index.reserverSiLibre(1, jour(0), jour(10)));
+    }
+}
@@ -0,0 +1,105 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ListDiffTest {
+
+    private record Ligne(long id, int version) {}
+
+    private static final Function<Ligne, Long> CLE = Ligne::id;
+
+    private static void patch(ObservableList<Ligne> cible, List<Ligne> source) {
+        ListDiff.patch(cible, source, CLE, (a, b) -> a.version() != b.version());
+    }
+
+    @Test
+    void patchAleatoireDonneLaListeSource() {
+        Random hasard = new Random(42);
+        for (int essai = 0; essai < 500; essai++) {
+            ObservableList<Ligne> cible = FXCollections.observableArrayList(liste(hasard, 60));
+            List<Ligne> source = liste(hasard, 60);
+            if (hasard.nextBoolean()) source.sort((a, b) -> Long.compare(a.id(), b.id()));
+            patch(cible, source);
+            assertEquals(source, cible);
+        }
+    }
+
+    @Test
+    void lignesInchangeesGardentLeurInstance() {
+        Ligne a = new Ligne(1, 0), b = new Ligne(2, 0), c = new Ligne(3, 0);
+        ObservableList<Ligne> cible = FXCollections.observableArrayList(a, b, c);
+        patch(cible, List.of(new Ligne(1, 0), new Ligne(2, 1), new Ligne(4, 0), new Ligne(3, 0)));
+        assertSame(a, cible.get(0));
+        assertEquals(1, cible.get(1).version());
+        assertSame(c, cible.get(3));
+    }
+
+    @Test
+    void plagesContiguesEnUnSeulEvenement() {
+        List<Ligne> depart = new ArrayList<>();
+        for (long i = 0; i < 1_000; i++) depart.add(new Ligne(i, 0));
+        ObservableList<Ligne> cible = FXCollections.observableArrayList(depart);
+        int[] evenements = {0};
+        cible.addListener((ListChangeListener<Ligne>) c -> evenements[0]++);
+
+        // Les 500 premières lignes disparaissent, 500 nouvelles arrivent en fin de liste
+        List<Ligne> source = new ArrayList<>(depart.subList(500, 1_000));
+        for (long i = 1_000; i < 1_500; i++) source.add(new Ligne(i, 0));
+        patch(cible, source);
+
+        assertEquals(source, cible);
+        assertEquals(2, evenements[0]);
+    }
+
+    @Test
+    void grandeListeEnTempsLineaire() {
+        Random hasard = new Random(7);
+        List<Ligne> depart = new ArrayList<>();
+        for (long i = 0; i < 200_000; i++) depart.add(new Ligne(i, 0));
+        List<Ligne> source = new ArrayList<>();
+        for (Ligne l : depart) {
+            if (hasard.nextInt(10) != 0) source.add(hasard.nextInt(10) == 0 ? new Ligne(l.id(), 1) : l);
+        }
+        ObservableList<Ligne> cible = FXCollections.observableArrayList(depart);
+
+        long debut = System.nanoTime();
+        patch(cible, source);
+        long ms = (System.nanoTime() - debut) / 1_000_000;
+
+        assertEquals(source, cible);
+        // Quadratique, ce patch prenait plusieurs minutes
+        assertTrue(ms < 5_000, "patch de 200 000 lignes en " + ms + " ms");
+    }
+
+    @Test
+    void upsertEtRetraitGroupes() {
+        ObservableList<Ligne> cible = FXCollections.observableArrayList(new Ligne(1, 0), new Ligne(2, 0), new Ligne(3, 0));
+        ListDiff.upsertTous(cible, List.of(new Ligne(2, 1), new Ligne(5, 0)), CLE);
+        assertEquals(List.of(new Ligne(1, 0), new Ligne(2, 1), new Ligne(3, 0), new Ligne(5, 0)), cible);
+        ListDiff.retirerTous(cible, Set.of(1L, 2L, 5L), CLE);
+        assertEquals(List.of(new Ligne(3, 0)), cible);
+    }
+
+    private static List<Ligne> liste(Random hasard, int max) {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i < max; i++) if (hasard.nextBoolean()) ids.add(i);
+        Collections.shuffle(ids, hasard);
+        List<Ligne> lignes = new ArrayList<>();
+        for (long id : ids) lignes.add(new Ligne(id, hasard.nextInt(2)));
+        return lignes;
+    }
+}
@@ -0,0 +1,58 @@
+package sn.ouleymatou.hotelmanagement.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+
+    @Test
+    void garantiesDeSpaceSaving() {
+        Random hasard = new Random(3);
+        SpaceSaving<Integer> sketch = new SpaceSaving<>(64);
+        Map<Integer, Long> exacts = new HashMap<>();
+        int n = 200_000;
+        for (int i = 0; i < n; i++) {
+            // Quelques éléments très fréquents noyés dans une longue traîne
+            int cle = hasard.nextInt(4) == 0 ? hasard.nextInt(8) : 8 + hasard.nextInt(50_000);
+            sketch.ajouter(cle);
+            exacts.merge(cle, 1L, Long::sum);
+        }
+
+        List<SpaceSaving.Estimation<Integer>> tous = sketch.topK(Integer.MAX_VALUE);
+        assertEquals(64, tous.size());
+        assertEquals(n, sketch.getTotal());
+        assertEquals(n, tous.stream().mapToLong(SpaceSaving.Estimation::nombre).sum());
+        for (int i = 1; i < tous.size(); i++) {
+            assertTrue(tous.get(i - 1).nombre() >= tous.get(i).nombre());
+        }
+        for (SpaceSaving.Estimation<Integer> e : tous) {
+            long exact = exacts.get(e.cle());
+            assertTrue(e.nombre() >= exact && e.nombre() - e.erreurMax() <= exact, e.toString());
+        }
+        // Tout élément de fréquence > n / capacité est présent
+        exacts.forEach((cle, exact) -> {
+            if (exact > n / 64) assertTrue(tous.stream().anyMatch(e -> e.cle().equals(cle)), "absent : " + cle);
+        });
+        assertEquals(5, sketch.topK(5).size());
+    }
+
+    @Test
+    void viderRemetAZero() {
+        SpaceSaving<String> sketch = new SpaceSaving<>(2);
+        for (String s : List.of("a", "b", "a", "c", "a")) sketch.ajouter(s);
+        assertEquals("a", sketch.topK(1).get(0).cle());
+        assertEquals(3, sketch.topK(1).get(0).nombre());
+        sketch.vider();
+        assertEquals(0, sketch.getTotal());
+        assertTrue(sketch.topK(3).isEmpty());
+        sketch.ajouter("d");
+        assertEquals(List.of(new SpaceSaving.Estimation<>("d", 1, 0)), sketch.topK(3));
+    }
+}